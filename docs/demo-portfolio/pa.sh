@@ -38,6 +38,7 @@ function show_help() {
         printf "   g:  delete the old files\n"
         printf "   h:  do a backup\n"
         printf "   i:  show the execution time of portfolio-summary report\n"
+        printf "   j:  draw the charts without gnuplot\n"
         printf "   x:  show portfolio-analyzer configuration\n"
         printf "\n"
         printf "Example: ./pa.sh bd\n"
@@ -81,6 +82,33 @@ function increase_timestamp() {
 }
 
 
+# ------------------------------------------------------------------------------
+#  Get the pause between two runs that download from the same data provider.
+#  The rate limiter works only within one run and every run starts with a
+#  full bucket, so the next run must wait until the burst would refill.
+#
+#  Arguments:
+#     1:      the market data provider file
+#     2:      the data provider, e.g. "YAHOO"
+#     return: the pause in seconds, burst / requests-per-second rounded up,
+#             10 if the rate limit is not configured
+# ------------------------------------------------------------------------------
+function get_rate_limit_pause() {
+    local provider_file provider requests_per_second burst
+    provider_file="$1"
+    provider="$2"
+    requests_per_second="$(grep "^$provider.requests-per-second=" "$provider_file" | cut -d "=" -f 2 || true)"
+    burst="$(grep "^$provider.burst=" "$provider_file" | cut -d "=" -f 2 || true)"
+
+    if [ -z "$requests_per_second" ] || [ -z "$burst" ]; then
+        printf "%s" "10"
+    else
+        awk -v burst="$burst" -v rate="$requests_per_second" \
+            'BEGIN { pause = burst / rate; printf "%d", (pause == int(pause)) ? pause : int(pause) + 1 }'
+    fi
+}
+
+
 # ------------------------------------------------------------------------------
 #  Get the next end date of the report.
 # ------------------------------------------------------------------------------
@@ -154,10 +182,10 @@ function combine_transactions {
 
 
 # ------------------------------------------------------------------------------
-#  Generating the daily portfolio-summary markdown report.
+#  Generating the daily portfolio-summary markdown reports.
 #
 #  Arguments:
-#     1: name of the portfolio
+#     1: comma separated list of the portfolio names
 #     2: the file that contains the transactions
 #     3: market data provider dictionary file
 #     4: price history file
@@ -174,8 +202,8 @@ function generate_portfolio_summary {
     portfolio_summary="$5"
     portfolio_report="$6"
 
-    printf "\n--> generating the portfolio-summary markdown report..."
-    printf "\n    portfolio:            %s" "$portfolio"
+    printf "\n--> generating the portfolio-summary markdown reports..."
+    printf "\n    portfolios:           %s" "$portfolio"
     printf "\n    data source:          %s" "$data_source"
     printf "\n    market data provider: %s" "$data_provider"
     printf "\n    price history:        %s" "$price_history"
@@ -194,7 +222,7 @@ function generate_portfolio_summary {
        --data-provider-file "$data_provider" \
        --has-report-title \
        --has-table-header \
-       --portfolio "$portfolio" \
+       --portfolios "$portfolio" \
        --price-history "$price_history" \
        --base-currency "$base_currency" \
        --file-mode APPEND \
@@ -294,6 +322,82 @@ function delete_old_files {
 }
 
 
+# ------------------------------------------------------------------------------
+#  Slicing the portfolio-report files into chart series.
+#
+#  Arguments:
+#     1: comma separated list of the portfolios
+#     2: portfolio-report file with {portfolio} placeholder
+#     3: chart series file with {portfolio} and {range} placeholders
+#     4: comma separated list of the diagram ranges in days
+# ------------------------------------------------------------------------------
+function generate_chart_data {
+    local portfolios input_file output_file ranges
+    portfolios="$1"
+    input_file="$2"
+    output_file="$3"
+    ranges="$4"
+
+    printf "\n--> generating the chart series..."
+    printf "\n    portfolios:         %s" "$portfolios"
+    printf "\n    portfolio report:   %s" "$input_file"
+    printf "\n    chart series:       %s" "$output_file"
+    printf "\n    diagram ranges:     %s" "$ranges"
+    printf "\n"
+
+    mkdir -p "$(dirname "${output_file//"'"/}")"
+    java -jar "$workspace/bin/$portfolio_analyzer_jar" chart-data \
+       --input-file "$input_file" \
+       --portfolios "$portfolios" \
+       --base-currency "$base_currency" \
+       --in-timezone "$time_zone" \
+       --output-file "$output_file" \
+       --ranges "$ranges" \
+       --language "$language" \
+       --out-timezone "$time_zone"
+}
+
+# ------------------------------------------------------------------------------
+#  Drawing the portfolio-summary and performance-comparison PNG charts with the
+#  built-in renderer, gnuplot is not needed.
+#
+#  Arguments:
+#     1: comma separated list of the portfolios
+#     2: portfolio-report file with {portfolio} placeholder
+#     3: portfolio-summary chart file with {portfolio} and {range} placeholders
+#     4: performance-comparison chart file with {range} placeholder
+# ------------------------------------------------------------------------------
+function draw_charts {
+    local portfolios input_file output_file comparison_file
+    portfolios="$1"
+    input_file="$2"
+    output_file="$3"
+    comparison_file="$4"
+
+    printf "\n--> drawing the charts..."
+    printf "\n    portfolios:         %s" "$portfolios"
+    printf "\n    portfolio report:   %s" "$input_file"
+    printf "\n    summary charts:     %s" "$output_file"
+    printf "\n    comparison charts:  %s" "$comparison_file"
+    printf "\n"
+
+    mkdir -p "$(dirname "${output_file//"'"/}")"
+    java -jar "$workspace/bin/$portfolio_analyzer_jar" chart \
+       --input-file "$input_file" \
+       --portfolios "$portfolios" \
+       --base-currency "$base_currency" \
+       --in-timezone "$time_zone" \
+       --output-file "$output_file" \
+       --comparison-file "$comparison_file" \
+       --ranges "$(IFS=,; printf "%s" "${diagram_ranges[*]}")" \
+       --range-labels "$(IFS=,; printf "%s" "${diagram_range_labels[*]}")" \
+       --width "$diagram_resolution_x" \
+       --height "$diagram_resolution_y" \
+       --language "$language" \
+       --out-timezone "$time_zone"
+}
+
+
 # ------------------------------------------------------------------------------
 #  Generating the portfolio-summary PNG chart.
 #
@@ -513,22 +617,20 @@ fi
 
 # ---- task c: generate a portfolio-summary report -----------------------------
 if [[ "$tasks" == *c* ]]; then
-    for portfolio in "${portfolios[@]}"; do
-        suffix=$([ "$portfolio" == "*" ] && echo "" || echo "-$portfolio")
-        generate_portfolio_summary \
-            "$portfolio" \
-            "'$workspace/transactions/transactions_'yyyy-MM-dd'.md'" \
-            "'$workspace/market-data-providers.properties'" \
-            "'$workspace/price-histories/price-history_'yyyy-MM-dd'.md'" \
-            "'$workspace/reports/portfolio-summary/portfolio-summary${suffix}_'yyyy-MM-dd'.md'" \
-            "'$workspace/reports/portfolio-report/portfolio-report$suffix.csv'"
-    done
+    generate_portfolio_summary \
+        "$(IFS=,; printf "%s" "${portfolios[*]}")" \
+        "'$workspace/transactions/transactions_'yyyy-MM-dd'.md'" \
+        "'$workspace/market-data-providers.properties'" \
+        "'$workspace/price-histories/price-history_'yyyy-MM-dd'.md'" \
+        "'$workspace/reports/portfolio-summary/portfolio-summary{portfolio}_'yyyy-MM-dd'.md'" \
+        "'$workspace/reports/portfolio-report/portfolio-report{portfolio}.csv'"
 fi
 
 # ---- task d: generate historical portfolio-summary reports -------------------
 if [[ "$tasks" == *d* ]]; then
     if ! "$quiet_mode" ; then read -r -p "Press enter to continue"; fi
     end="$(get_end_date)"
+    pause="$(get_rate_limit_pause "$workspace/market-data-providers.properties" "YAHOO")"
 
     for portfolio in "${portfolios[@]}"; do
         suffix=$([ "$portfolio" == "*" ] && echo "" || echo "-$portfolio")
@@ -549,11 +651,20 @@ if [[ "$tasks" == *d* ]]; then
 
             start="$(increase_timestamp "$start" "$step_in_sec")"
             if ! "$quiet_mode" ; then read -r -p "Press enter to continue"; fi
-            sleep 10 # yahoo api does not support unlimited access
+            sleep "$pause" # yahoo api does not support unlimited access
         done
     done
 fi
 
+# ---- task e, f: slice the portfolio reports into chart series ----------------
+if [[ "$tasks" == *e* ]] || [[ "$tasks" == *f* ]]; then
+    generate_chart_data \
+        "$(IFS=,; printf "%s" "${portfolios[*]}")" \
+        "'$workspace/reports/portfolio-report/portfolio-report{portfolio}.csv'" \
+        "'$workspace/charts/data/portfolio-report{portfolio}-{range}.csv'" \
+        "$(IFS=,; printf "%s" "${diagram_ranges[*]}")"
+fi
+
 # ---- task e: generate portfolio-summary charts -------------------------------
 if [[ "$tasks" == *e* ]]; then
     for portfolio_index in "${!portfolios[@]}"; do 
@@ -565,7 +676,7 @@ if [[ "$tasks" == *e* ]]; then
             range_label=${diagram_range_labels[$range_index]}
             range_label=${range_label// /-}
             portfolio_summary_chart \
-                "$workspace/reports/portfolio-report/portfolio-report${suffix}.csv" \
+                "$workspace/charts/data/portfolio-report${suffix}-${diagram_ranges[$range_index]}.csv" \
                 "$workspace/charts/portfolio-report${suffix}-$range_label.png" \
                 "${diagram_ranges[$range_index]}" \
                 "$diagram_resolution_x" \
@@ -578,11 +689,10 @@ fi
 
 # ---- task f: generate performance-comparison chart ---------------------------
 if [[ "$tasks" == *f* ]]; then
-    csv_files=(
-        "$workspace/reports/portfolio-report/portfolio-report-${portfolios[0]}.csv"
-        "$workspace/reports/portfolio-report/portfolio-report-${portfolios[1]}.csv" )
-
     for range_index in "${!diagram_ranges[@]}"; do
+        csv_files=(
+            "$workspace/charts/data/portfolio-report-${portfolios[0]}-${diagram_ranges[$range_index]}.csv"
+            "$workspace/charts/data/portfolio-report-${portfolios[1]}-${diagram_ranges[$range_index]}.csv" )
         range_label=${diagram_range_labels[$range_index]}
         range_label=${range_label// /-}
         performance_comparison_chart \
@@ -619,6 +729,15 @@ if [[ "$tasks" == *i* ]]; then
     printf "\n\n"
 fi
 
+# ---- task j: draw the charts without gnuplot ---------------------------------
+if [[ "$tasks" == *j* ]]; then
+    draw_charts \
+        "$(IFS=,; printf "%s" "${portfolios[*]}")" \
+        "'$workspace/reports/portfolio-report/portfolio-report{portfolio}.csv'" \
+        "'$workspace/charts/portfolio-report{portfolio}-{range}.png'" \
+        "'$workspace/charts/performance-comparison-{range}.png'"
+fi
+
 # ---- task x: show portfolio-analyzer configuration ---------------------------
 if [[ "$tasks" == *x* ]]; then
     printf "\n--> showing portfolio-analyzer configuration...\n"
@@ -1,7 +1,10 @@
 package com.remal.portfolio;
 
+import com.remal.portfolio.picocli.command.ChartCommand;
+import com.remal.portfolio.picocli.command.ChartDataCommand;
 import com.remal.portfolio.picocli.command.CoinbaseDownloaderCommand;
 import com.remal.portfolio.picocli.command.CombineCommand;
+import com.remal.portfolio.picocli.command.PerformanceCommand;
 import com.remal.portfolio.picocli.command.PortfolioCommand;
 import com.remal.portfolio.picocli.command.PriceCommand;
 import com.remal.portfolio.picocli.command.ShowCommand;
@@ -23,9 +26,12 @@ import picocli.CommandLine;
             ShowCommand.class,
             CombineCommand.class,
             PriceCommand.class,
-            PortfolioCommand.class
+            PortfolioCommand.class,
+            ChartDataCommand.class,
+            ChartCommand.class,
+            PerformanceCommand.class
         },
-        synopsisSubcommandLabel = "[coinbase | show | combine | price | portfolio]",
+        synopsisSubcommandLabel = "[coinbase | show | combine | price | portfolio | chart-data | chart | performance]",
         name = "java -jar portfolio-analyzer.jar",
         description = "Remal Portfolio Analyzer is a command-line tool that helps you to track your portfolio "
                 + "in one place and generate regular investment reports.%n",
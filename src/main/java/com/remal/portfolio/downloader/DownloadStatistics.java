@@ -0,0 +1,250 @@
+package com.remal.portfolio.downloader;
+
+import com.remal.portfolio.model.DataProviderType;
+import com.remal.portfolio.util.Metrics;
+import com.remal.portfolio.util.Sleep;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the cost of the price downloads per data provider and symbol:
+ * number of requests, number of the retries, back-off sleep time, received
+ * bytes and latency.
+ * <p>
+ * The downloader implementations report the attempts, sleeps and bytes via
+ * the static methods. They are assigned to the statistics of the download
+ * that is in progress on the current thread, see InstrumentedDownloader.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class DownloadStatistics {
+
+    /**
+     * Row format of the report.
+     */
+    private static final String ROW_FORMAT = "%-13s %-12s %8s %8s %10s %10s %10s %10s %10s";
+
+    /**
+     * Nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    /**
+     * The statistics, the key is the provider and the symbol.
+     */
+    private static final Map<String, DownloadStatistics> STATISTICS = new ConcurrentHashMap<>();
+
+    /**
+     * Statistics of the download that is in progress on the thread.
+     */
+    private static final ThreadLocal<DownloadStatistics> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The data provider.
+     */
+    @Getter
+    private final DataProviderType dataProvider;
+
+    /**
+     * The product symbol.
+     */
+    @Getter
+    private final String symbol;
+
+    /**
+     * Number of the price requests.
+     */
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * Number of the calls sent to the data provider.
+     */
+    private final LongAdder attempts = new LongAdder();
+
+    /**
+     * Total back-off time in milliseconds.
+     */
+    private final LongAdder sleepInMillis = new LongAdder();
+
+    /**
+     * Number of the received bytes.
+     */
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Latency of the price requests in nanoseconds, including the retries.
+     */
+    @Getter
+    private final Metrics.Histogram latency = new Metrics.Histogram();
+
+    /**
+     * Constructor.
+     *
+     * @param dataProvider the data provider
+     * @param symbol the product symbol
+     */
+    private DownloadStatistics(DataProviderType dataProvider, String symbol) {
+        this.dataProvider = dataProvider;
+        this.symbol = symbol;
+    }
+
+    /**
+     * Gets the statistics of a symbol.
+     *
+     * @param dataProvider the data provider
+     * @param symbol the product symbol
+     * @return the statistics
+     */
+    public static DownloadStatistics get(DataProviderType dataProvider, String symbol) {
+        return STATISTICS.computeIfAbsent(
+                dataProvider + "/" + symbol,
+                x -> new DownloadStatistics(dataProvider, symbol));
+    }
+
+    /**
+     * Marks the statistics as the target of the attempts, sleeps and bytes
+     * reported by the current thread.
+     *
+     * @param statistics the statistics or null to clear the target
+     * @return the previous target
+     */
+    static DownloadStatistics setCurrent(DownloadStatistics statistics) {
+        var previous = CURRENT.get();
+        if (Objects.isNull(statistics)) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(statistics);
+        }
+        return previous;
+    }
+
+    /**
+     * Records that a call is sent to the data provider.
+     */
+    public static void recordAttempt() {
+        var statistics = CURRENT.get();
+        if (Objects.nonNull(statistics)) {
+            statistics.attempts.increment();
+        }
+    }
+
+    /**
+     * Records the size of a response.
+     *
+     * @param size number of the received bytes
+     */
+    public static void recordBytes(long size) {
+        var statistics = CURRENT.get();
+        if (Objects.nonNull(statistics)) {
+            statistics.bytes.add(size);
+        }
+    }
+
+    /**
+     * Pauses the execution before the next attempt and records the time.
+     *
+     * @param millisecond the length of time to sleep in milliseconds
+     */
+    public static void backOff(long millisecond) {
+        var statistics = CURRENT.get();
+        if (Objects.nonNull(statistics)) {
+            statistics.sleepInMillis.add(millisecond);
+        }
+        Sleep.sleep(millisecond);
+    }
+
+    /**
+     * Records a finished price request.
+     *
+     * @param elapsedInNanos duration of the request
+     */
+    void recordRequest(long elapsedInNanos) {
+        requests.increment();
+        latency.record(elapsedInNanos);
+    }
+
+    /**
+     * Gets the number of the price requests.
+     *
+     * @return number of the requests
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Gets the number of the retries, the calls after the first one per
+     * request.
+     *
+     * @return number of the retries
+     */
+    public long getRetries() {
+        return Math.max(0, attempts.sum() - requests.sum());
+    }
+
+    /**
+     * Gets the total back-off time.
+     *
+     * @return the sleep time in milliseconds
+     */
+    public long getSleepInMillis() {
+        return sleepInMillis.sum();
+    }
+
+    /**
+     * Gets the number of the received bytes.
+     *
+     * @return the bytes
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Logs the statistics of the downloaded symbols, the slowest symbol
+     * first.
+     */
+    public static void report() {
+        if (STATISTICS.isEmpty()) {
+            return;
+        }
+
+        log.info("download statistics:");
+        log.info(String.format(ROW_FORMAT,
+                "provider", "symbol", "requests", "retries", "sleep ms", "bytes", "p50 ms", "p95 ms", "max ms"));
+        STATISTICS.values()
+                .stream()
+                .sorted(Comparator.comparingLong((DownloadStatistics s) -> s.getLatency().getSum()).reversed())
+                .forEach(s -> log.info(String.format(ROW_FORMAT,
+                        s.getDataProvider(),
+                        s.getSymbol(),
+                        s.getRequests(),
+                        s.getRetries(),
+                        s.getSleepInMillis(),
+                        s.getBytes(),
+                        millis(s.getLatency().percentile(0.5)),
+                        millis(s.getLatency().percentile(0.95)),
+                        millis(s.getLatency().getMax()))));
+    }
+
+    /**
+     * Converts nanoseconds to a formatted millisecond value.
+     *
+     * @param nanos the nanoseconds
+     * @return the milliseconds
+     */
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / NANOS_PER_MILLI);
+    }
+}
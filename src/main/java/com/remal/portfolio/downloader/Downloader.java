@@ -1,18 +1,21 @@
 package com.remal.portfolio.downloader;
 
-import com.remal.portfolio.downloader.coinbasepro.CoinbaseProDownloader;
-import com.remal.portfolio.downloader.yahoo.YahooDownloader;
 import com.remal.portfolio.model.DataProviderType;
 import com.remal.portfolio.model.Price;
 
 import java.util.Calendar;
-import java.util.EnumMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
 
 /**
  * Product price downloader interface that providers must implement.
  * <p>
+ * The implementations are registered in the
+ * META-INF/services/com.remal.portfolio.downloader.Downloader file and they
+ * are loaded once by the DownloaderRegistry.
+ * </p>
+ * <p>
  * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
  * BSD (2-clause) licensed
  * </p>
@@ -42,7 +45,8 @@ public interface Downloader {
     double MULTIPLICITY = 1.5;
 
     /**
-     * The value of the delay between price downloads in case of error.
+     * The default delay between the calls of a data provider, used when
+     * the rate limit of the provider is not configured.
      */
     long SLEEP_IN_MILLISECOND = 300;
 
@@ -64,14 +68,28 @@ public interface Downloader {
     Optional<Price> getPrice(String symbol, Calendar timestamp);
 
     /**
-     * Initialize the market price downloader instances.
+     * Gets the data provider that is served by the downloader.
+     *
+     * @return the data provider
+     */
+    DataProviderType getDataProvider();
+
+    /**
+     * Configures the downloader from the data provider file. The keys of
+     * the provider start with the name of the provider, e.g. "YAHOO.".
+     *
+     * @param properties content of the data provider file
+     */
+    default void configure(Properties properties) {
+        // the downloader does not need configuration by default
+    }
+
+    /**
+     * Gets the registered market price downloader instances.
      *
      * @return the market price downloader instances
      */
     static Map<DataProviderType, Downloader> get() {
-        Map<DataProviderType, Downloader> downloader = new EnumMap<>(DataProviderType.class);
-        downloader.put(DataProviderType.COINBASE_PRO, new CoinbaseProDownloader());
-        downloader.put(DataProviderType.YAHOO, new YahooDownloader());
-        return downloader;
+        return DownloaderRegistry.getInstance().getDownloaders();
     }
 }
@@ -0,0 +1,107 @@
+package com.remal.portfolio.downloader;
+
+import com.remal.portfolio.model.DataProviderType;
+import com.remal.portfolio.util.Logger;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Holds the market price downloaders, loaded once with the ServiceLoader.
+ * <p>
+ * A new data provider can be added by implementing the Downloader
+ * interface and listing the class in the
+ * META-INF/services/com.remal.portfolio.downloader.Downloader file. Every
+ * downloader is wrapped with the InstrumentedDownloader.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class DownloaderRegistry {
+
+    /**
+     * The singleton instance.
+     */
+    private static final DownloaderRegistry INSTANCE = new DownloaderRegistry();
+
+    /**
+     * The downloaders per data provider.
+     */
+    private final Map<DataProviderType, Downloader> downloaders;
+
+    /**
+     * The data provider files that have already been applied.
+     */
+    private final Set<String> configuredFiles = new HashSet<>();
+
+    /**
+     * Loads the downloaders.
+     */
+    private DownloaderRegistry() {
+        Map<DataProviderType, Downloader> loadedDownloaders = new EnumMap<>(DataProviderType.class);
+        ServiceLoader.load(Downloader.class).forEach(downloader -> {
+            var dataProvider = downloader.getDataProvider();
+            log.debug("registering the {} downloader: {}", dataProvider, downloader.getClass().getName());
+            loadedDownloaders.put(dataProvider, new InstrumentedDownloader(dataProvider, downloader));
+        });
+        this.downloaders = Collections.unmodifiableMap(loadedDownloaders);
+    }
+
+    /**
+     * Gets the singleton instance.
+     *
+     * @return the registry
+     */
+    public static DownloaderRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the registered downloaders.
+     *
+     * @return the downloaders per data provider
+     */
+    public Map<DataProviderType, Downloader> getDownloaders() {
+        return downloaders;
+    }
+
+    /**
+     * Applies the data provider file to the rate limiters and the
+     * downloaders. A file is read only once.
+     *
+     * @param dataProviderFile path to the data provider file
+     */
+    public synchronized void configure(String dataProviderFile) {
+        if (Objects.isNull(dataProviderFile)
+                || !Files.exists(Path.of(dataProviderFile))
+                || !configuredFiles.add(dataProviderFile)) {
+            return;
+        }
+
+        try (InputStream inputStream = new FileInputStream(dataProviderFile)) {
+            var properties = new Properties();
+            properties.load(inputStream);
+            RateLimiter.configure(properties);
+            downloaders.values().forEach(downloader -> downloader.configure(properties));
+        } catch (IOException e) {
+            var message = "Error while reading the \"{}\" file. Error: {}";
+            Logger.logErrorAndExit(message, dataProviderFile, e.toString());
+        }
+    }
+}
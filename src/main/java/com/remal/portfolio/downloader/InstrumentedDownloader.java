@@ -0,0 +1,109 @@
+package com.remal.portfolio.downloader;
+
+import com.remal.portfolio.model.DataProviderType;
+import com.remal.portfolio.model.Price;
+import com.remal.portfolio.util.Metrics;
+
+import java.util.Calendar;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Downloader wrapper that records the cost of the price requests in the
+ * DownloadStatistics and in the metrics registry.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+public class InstrumentedDownloader implements Downloader {
+
+    /**
+     * The data provider.
+     */
+    private final DataProviderType dataProvider;
+
+    /**
+     * The wrapped downloader.
+     */
+    private final Downloader delegate;
+
+    /**
+     * Constructor.
+     *
+     * @param dataProvider the data provider
+     * @param delegate the wrapped downloader
+     */
+    public InstrumentedDownloader(DataProviderType dataProvider, Downloader delegate) {
+        this.dataProvider = dataProvider;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Gets the data provider that is served by the downloader.
+     *
+     * @return the data provider
+     */
+    @Override
+    public DataProviderType getDataProvider() {
+        return dataProvider;
+    }
+
+    /**
+     * Configures the wrapped downloader.
+     *
+     * @param properties content of the data provider file
+     */
+    @Override
+    public void configure(Properties properties) {
+        delegate.configure(properties);
+    }
+
+    /**
+     * Downloads the latest price of a stock.
+     *
+     * @param symbol product name
+     * @return the latest price
+     */
+    @Override
+    public Optional<Price> getPrice(String symbol) {
+        return instrument(symbol, () -> delegate.getPrice(symbol));
+    }
+
+    /**
+     * Downloads the price of a stock on a certain date in the past.
+     *
+     * @param symbol product name
+     * @param timestamp date in the past
+     * @return the latest price
+     */
+    @Override
+    public Optional<Price> getPrice(String symbol, Calendar timestamp) {
+        return instrument(symbol, () -> delegate.getPrice(symbol, timestamp));
+    }
+
+    /**
+     * Executes the request and records its statistics.
+     *
+     * @param symbol product name
+     * @param request the price request
+     * @return the result of the request
+     */
+    private Optional<Price> instrument(String symbol, Supplier<Optional<Price>> request) {
+        var statistics = DownloadStatistics.get(dataProvider, symbol);
+        var previous = DownloadStatistics.setCurrent(statistics);
+        var retriesBefore = statistics.getRetries();
+        var startTime = System.nanoTime();
+        try {
+            return request.get();
+        } finally {
+            var elapsed = System.nanoTime() - startTime;
+            DownloadStatistics.setCurrent(previous);
+            statistics.recordRequest(elapsed);
+            Metrics.record("download." + dataProvider.name().toLowerCase(), elapsed);
+            Metrics.add("download.retries", statistics.getRetries() - retriesBefore);
+        }
+    }
+}
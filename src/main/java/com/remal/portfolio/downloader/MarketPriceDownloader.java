@@ -5,6 +5,7 @@ import com.remal.portfolio.model.DataProviderType;
 import com.remal.portfolio.model.MultiplicityType;
 import com.remal.portfolio.model.PortfolioReport;
 import com.remal.portfolio.model.Price;
+import com.remal.portfolio.model.PriceRollup;
 import com.remal.portfolio.parser.PriceParser;
 import com.remal.portfolio.picocli.arggroup.PortfolioArgGroup;
 import com.remal.portfolio.picocli.arggroup.PortfolioInputArgGroup;
@@ -13,6 +14,7 @@ import com.remal.portfolio.util.Calendars;
 import com.remal.portfolio.util.FileWriter;
 import com.remal.portfolio.util.LocalDateTimes;
 import com.remal.portfolio.util.Logger;
+import com.remal.portfolio.util.Metrics;
 import com.remal.portfolio.writer.PriceWriter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -22,7 +24,12 @@ import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
@@ -91,6 +98,39 @@ public class MarketPriceDownloader {
      */
     private final FileWriter.WriteMode writeMode;
 
+    /**
+     * Read the price history file through a memory-mapped buffer.
+     */
+    private final boolean memoryMapped;
+
+    /**
+     * Resolve the prices of the long-range queries from the rollup tiers.
+     */
+    private final boolean rollupLookup;
+
+    /**
+     * The prices that have been resolved during the run, by symbol and date.
+     */
+    private final Map<String, Optional<Price>> resolvedPrices = new HashMap<>();
+
+    /**
+     * The prices waiting to be written to the price history file, null if
+     * the prices are written immediately.
+     */
+    private List<Price> deferredPrices;
+
+    /**
+     * The deferred prices that have been downloaded from the data provider,
+     * they are folded into the rollup tiers after the write.
+     */
+    private List<Price> deferredDownloadedPrices;
+
+    /**
+     * The rollup tiers of the price history file, null if they have not
+     * been loaded yet.
+     */
+    private Map<MultiplicityType, PriceRollup> rollups;
+
     /**
      * Constructor
      *
@@ -106,6 +146,7 @@ public class MarketPriceDownloader {
 
         this.inputZone = ZoneId.of(inputArgGroup.getZone());
         this.dataProviderFile = LocalDateTimes.toString(inputZone, dataProviderArgGroup.getDataProviderFile(), now);
+        DownloaderRegistry.getInstance().configure(this.dataProviderFile);
         this.priceHistoryFile = LocalDateTimes.toString(inputZone, priceHistoryFile, now);
         this.outputZone = ZoneId.of(outputArgGroup.getZone());
         this.dataProviderFromCli = dataProviderArgGroup.getDataProvider();
@@ -114,6 +155,8 @@ public class MarketPriceDownloader {
         this.dateTimePattern = outputArgGroup.getDateTimePattern();
         this.multiplicity = outputArgGroup.getMultiplicity();
         this.writeMode = outputArgGroup.getWriteMode();
+        this.memoryMapped = false;
+        this.rollupLookup = false;
     }
 
     /**
@@ -131,6 +174,7 @@ public class MarketPriceDownloader {
 
         this.inputZone = ZoneId.of(inputArgGroup.getZone());
         this.dataProviderFile = LocalDateTimes.toString(inputZone, inputArgGroup.getDataProviderFile(), now);
+        DownloaderRegistry.getInstance().configure(this.dataProviderFile);
         this.priceHistoryFile = LocalDateTimes.toString(inputZone, priceHistoryFile, now);
         this.outputZone = ZoneId.of(outputArgGroup.getZone());
         this.dataProviderFromCli = null;
@@ -139,6 +183,8 @@ public class MarketPriceDownloader {
         this.dateTimePattern = outputArgGroup.getDateTimePattern();
         this.multiplicity = outputArgGroup.getMultiplicity();
         this.writeMode = outputArgGroup.getWriteMode();
+        this.memoryMapped = inputArgGroup.isMemoryMapped();
+        this.rollupLookup = true;
     }
 
     /**
@@ -149,7 +195,12 @@ public class MarketPriceDownloader {
      */
     public void updateMarketPrices(PortfolioReport portfolioReport, LocalDateTime marketPriceAt) {
         updateProductMarketPrice(portfolioReport, marketPriceAt);
-        updateExchangeRates(portfolioReport, marketPriceAt);
+        var sample = Metrics.start(Metrics.FX);
+        try {
+            updateExchangeRates(portfolioReport, marketPriceAt);
+        } finally {
+            sample.stop();
+        }
         portfolioReport.updateProfitLoss();
     }
 
@@ -239,31 +290,92 @@ public class MarketPriceDownloader {
      * @return the market price
      */
     public Optional<Price> getMarketPrice(final String symbol, final Calendar tradeDate) {
+        var startTime = System.nanoTime();
+        var key = symbol + "@" + (Objects.isNull(tradeDate) ? "now" : tradeDate.getTimeInMillis());
+        var resolvedPrice = resolvedPrices.get(key);
+        if (Objects.nonNull(resolvedPrice)) {
+            log.debug("the price has already been resolved: {}", resolvedPrice);
+            Metrics.record(Metrics.PRICE_CACHE_HIT, System.nanoTime() - startTime);
+            return resolvedPrice;
+        }
+
         var tradeDateCalendar = Objects.isNull(tradeDate) ? Calendar.getInstance() : tradeDate;
         var dataProviderConfiguration = getDataProviderConfiguration(symbol);
         var dataProvider = getDataProvider(dataProviderConfiguration);
         var realSymbol = getSymbolAlias(symbol, dataProviderConfiguration);
         var price = getPriceFromHistory(realSymbol, tradeDateCalendar);
 
-        if (price.isEmpty()) {
+        if (price.isEmpty() && rollupLookup && Objects.nonNull(tradeDate)) {
+            var rollupPrice = getPriceFromRollup(realSymbol, tradeDateCalendar, dataProvider);
+            if (rollupPrice.isPresent()) {
+                log.info("price exists in the rollup tier: {}", rollupPrice.get());
+                Metrics.record(Metrics.PRICE_ROLLUP_HIT, System.nanoTime() - startTime);
+                resolvedPrices.put(key, rollupPrice);
+                return rollupPrice;
+            }
+        }
+
+        var downloaded = price.isEmpty();
+        if (downloaded) {
             log.info("price does not exists in the history, symbol: \"{}\", date: {}",
                     symbol, Calendars.toString(tradeDateCalendar));
             price = getPriceFromDataProvider(dataProvider, realSymbol, tradeDateCalendar);
+            Metrics.record(Metrics.PRICE_NETWORK, System.nanoTime() - startTime);
         } else {
             log.info("price exists in the history: {}", price);
+            Metrics.record(Metrics.PRICE_HISTORY_HIT, System.nanoTime() - startTime);
         }
 
-        price.ifPresent(p -> writeToHistoryFile(priceHistoryFile, p));
+        price.ifPresent(p -> {
+            if (Objects.isNull(deferredPrices)) {
+                writeToHistoryFile(priceHistoryFile, List.of(p), downloaded ? List.of(p) : List.of());
+            } else {
+                deferredPrices.add(p);
+                if (downloaded) {
+                    deferredDownloadedPrices.add(p);
+                }
+            }
+        });
+        resolvedPrices.put(key, price);
         return price;
     }
 
     /**
-     * Writes the price to the price history file.
+     * Collects the prices instead of writing them one by one to the price
+     * history file, until the writeDeferredPrices() is called.
+     */
+    public void deferHistoryWrites() {
+        if (Objects.isNull(deferredPrices)) {
+            deferredPrices = new ArrayList<>();
+            deferredDownloadedPrices = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Writes the collected prices to the price history file at once.
+     */
+    public void writeDeferredPrices() {
+        if (Objects.nonNull(deferredPrices) && !deferredPrices.isEmpty()) {
+            log.debug("> writing {} prices to the price history...", deferredPrices.size());
+            writeToHistoryFile(priceHistoryFile, deferredPrices, deferredDownloadedPrices);
+        }
+        deferredPrices = null;
+        deferredDownloadedPrices = null;
+    }
+
+    /**
+     * Writes the prices to the price history file. If the rollup has been
+     * enabled then the downloaded prices are folded into the tiers as well.
      *
      * @param priceHistoryFile path to the price history file
-     * @param price the price will be saved
+     * @param prices the prices will be saved
+     * @param downloadedPrices the prices that are not in the history yet
      */
-    private void writeToHistoryFile(String priceHistoryFile, Price price) {
+    private void writeToHistoryFile(String priceHistoryFile, List<Price> prices, List<Price> downloadedPrices) {
+        var rollupsBeforeWrite = Objects.nonNull(priceHistoryFile) && PriceRollup.exists(priceHistoryFile)
+                ? PriceRollup.load(priceHistoryFile)
+                : null;
+
         var writer = new PriceWriter();
         writer.setLanguage(language);
         writer.setDecimalFormat(decimalFormat);
@@ -271,7 +383,134 @@ public class MarketPriceDownloader {
         writer.setInputZone(inputZone);
         writer.setOutputZone(outputZone);
         writer.setMultiplicity(multiplicity);
-        writer.write(writeMode, priceHistoryFile, price);
+        writer.write(writeMode, priceHistoryFile, prices);
+
+        if (Objects.nonNull(rollupsBeforeWrite)) {
+            var sample = Metrics.start(Metrics.ROLLUP);
+            try {
+                if (rollupsBeforeWrite.isEmpty()) {
+                    log.info("> the rollup tiers of \"{}\" are out of date, rebuilding...", priceHistoryFile);
+                    rollups = PriceRollup.build(priceHistoryFile, readPriceHistory());
+                } else {
+                    PriceRollup.update(priceHistoryFile, rollupsBeforeWrite, downloadedPrices);
+                    rollups = rollupsBeforeWrite;
+                }
+            } finally {
+                sample.stop();
+            }
+        }
+    }
+
+    /**
+     * Aggregates the price history file into the rollup tiers and writes
+     * them next to the history file. The tiers are kept up-to-date by the
+     * next writes of the history file.
+     */
+    public void rollupPriceHistory() {
+        if (Objects.isNull(priceHistoryFile)) {
+            log.warn("the price history file is not set, the rollup is skipped");
+            return;
+        }
+
+        var sample = Metrics.start(Metrics.ROLLUP);
+        try {
+            rollups = PriceRollup.build(priceHistoryFile, readPriceHistory());
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Exports the whole price history file, e.g. to an Excel file.
+     *
+     * @param exportFilePattern path to the export file, it can contain date pattern
+     */
+    public void exportPriceHistory(String exportFilePattern) {
+        if (Objects.isNull(priceHistoryFile)) {
+            log.warn("the price history file is not set, the export is skipped");
+            return;
+        }
+
+        var prices = readPriceHistory();
+        var exportFile = LocalDateTimes.toString(inputZone, exportFilePattern, LocalDateTime.now());
+        log.debug("> exporting {} prices to \"{}\"...", prices.size(), exportFile);
+        var writer = new PriceWriter();
+        writer.setLanguage(language);
+        writer.setDecimalFormat(decimalFormat);
+        writer.setDateTimePattern(dateTimePattern);
+        writer.setInputZone(inputZone);
+        writer.setOutputZone(outputZone);
+        writer.setMultiplicity(MultiplicityType.MANY);
+        writer.write(FileWriter.WriteMode.OVERWRITE, exportFile, prices);
+    }
+
+    /**
+     * Reads the whole price history file.
+     *
+     * @return the prices
+     */
+    private List<Price> readPriceHistory() {
+        var parser = new PriceParser();
+        parser.setZone(inputZone);
+        parser.setDateTimePattern(dateTimePattern);
+        parser.setMemoryMapped(memoryMapped);
+        return parser.parse(priceHistoryFile);
+    }
+
+    /**
+     * Get the price of a long-range query from the rollup tiers: the last
+     * price of the latest window that was closed at or before the requested
+     * date. The tier is selected by the distance of the requested date from
+     * now, the prices of the short-range queries are not resolved from the
+     * tiers.
+     *
+     * @param symbol product name
+     * @param requestedTradeDate the trade date
+     * @param dataProvider the market data provider of the product
+     * @return the price if it exists in the tier
+     */
+    private Optional<Price> getPriceFromRollup(final String symbol,
+                                               final Calendar requestedTradeDate,
+                                               final DataProviderType dataProvider) {
+        if (Objects.isNull(priceHistoryFile)) {
+            return Optional.empty();
+        }
+
+        var zone = requestedTradeDate.getTimeZone().toZoneId();
+        var requestDate = Calendars.toLocalDateTime(requestedTradeDate, zone);
+        var tier = PriceRollup.selectTier(requestDate, LocalDateTimes.getNow(zone));
+        if (tier == PriceRollup.TIERS.get(0)) {
+            return Optional.empty();
+        }
+
+        var rollup = getRollups().get(tier);
+        if (Objects.isNull(rollup)) {
+            return Optional.empty();
+        }
+
+        return rollup.findLastClose(symbol, requestDate).map(bar -> Price
+                .builder()
+                .symbol(symbol)
+                .unitPrice(bar.getClose())
+                .dataProvider(dataProvider)
+                .tradeDate(bar.getCloseDate())
+                .requestDate(requestDate)
+                .build());
+    }
+
+    /**
+     * Gets the rollup tiers of the price history file. The tiers are only
+     * used if the rollup has been enabled for the history file.
+     *
+     * @return the tiers, empty if the rollup is not enabled
+     */
+    private Map<MultiplicityType, PriceRollup> getRollups() {
+        if (Objects.isNull(rollups)) {
+            rollups = PriceRollup.exists(priceHistoryFile)
+                    ? PriceRollup.loadOrBuild(priceHistoryFile, this::readPriceHistory)
+                    : new EnumMap<>(MultiplicityType.class);
+        }
+        return rollups;
     }
 
     /**
@@ -284,13 +523,15 @@ public class MarketPriceDownloader {
     private Optional<Price> getPriceFromHistory(final String symbol, final Calendar requestedTradeDate) {
         var parser = new PriceParser();
         parser.setZone(inputZone);
+        parser.setSymbols(List.of(symbol));
+        parser.setMemoryMapped(memoryMapped);
 
         if (Objects.nonNull(priceHistoryFile)) {
-            var prices = parser.parse(priceHistoryFile);
             var requestedTradeDateAsLocalDateTime = requestedTradeDate
                     .toInstant()
                     .atZone(requestedTradeDate.getTimeZone().toZoneId())
                     .toLocalDateTime();
+            var prices = parser.parse(priceHistoryFile);
             return prices
                     .stream()
                     .filter(price -> price.getSymbol().equals(symbol))
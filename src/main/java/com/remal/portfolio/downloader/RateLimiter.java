@@ -0,0 +1,178 @@
+package com.remal.portfolio.downloader;
+
+import com.remal.portfolio.model.DataProviderType;
+import com.remal.portfolio.util.Logger;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiter, one instance per data provider.
+ * <p>
+ * The bucket holds at most 'burst' permits and it is refilled continuously
+ * at 'requests-per-second' rate. The downloaders acquire a permit before
+ * every call, so the concurrent requests run at the allowed rate of the
+ * provider. The rate can be configured in the data provider file, e.g.
+ * <pre>
+ *     YAHOO.requests-per-second=2
+ *     YAHOO.burst=5
+ * </pre>
+ * Without configuration one call is allowed per SLEEP_IN_MILLISECOND.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class RateLimiter {
+
+    /**
+     * Suffix of the rate key in the data provider file.
+     */
+    public static final String REQUESTS_PER_SECOND_KEY = ".requests-per-second";
+
+    /**
+     * Suffix of the burst key in the data provider file.
+     */
+    public static final String BURST_KEY = ".burst";
+
+    /**
+     * The default rate.
+     */
+    private static final double DEFAULT_REQUESTS_PER_SECOND = 1000d / Downloader.SLEEP_IN_MILLISECOND;
+
+    /**
+     * The default bucket size.
+     */
+    private static final double DEFAULT_BURST = 1;
+
+    /**
+     * The rate limiters per data provider.
+     */
+    private static final Map<DataProviderType, RateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    /**
+     * Number of the permits added to the bucket per second.
+     */
+    @Getter
+    private final double requestsPerSecond;
+
+    /**
+     * Capacity of the bucket.
+     */
+    @Getter
+    private final double burst;
+
+    /**
+     * Number of the available permits, it is negative if the permits have
+     * been reserved in advance.
+     */
+    private double permits;
+
+    /**
+     * The last time when the bucket was refilled.
+     */
+    private long lastRefill;
+
+    /**
+     * Constructor.
+     *
+     * @param requestsPerSecond number of the permits added per second
+     * @param burst capacity of the bucket
+     */
+    public RateLimiter(double requestsPerSecond, double burst) {
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.permits = this.burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Gets the rate limiter of a data provider.
+     *
+     * @param dataProvider the data provider
+     * @return the rate limiter
+     */
+    public static RateLimiter get(DataProviderType dataProvider) {
+        return LIMITERS.computeIfAbsent(
+                dataProvider,
+                x -> new RateLimiter(DEFAULT_REQUESTS_PER_SECOND, DEFAULT_BURST));
+    }
+
+    /**
+     * Reads the rate limits from the properties. The providers without
+     * configuration keep the default limit.
+     *
+     * @param properties the data provider configuration
+     */
+    public static void configure(Properties properties) {
+        for (DataProviderType dataProvider : DataProviderType.values()) {
+            var requestsPerSecond = properties.getProperty(dataProvider.name() + REQUESTS_PER_SECOND_KEY);
+            var burst = properties.getProperty(dataProvider.name() + BURST_KEY);
+            if (Objects.nonNull(requestsPerSecond) || Objects.nonNull(burst)) {
+                var rate = parse(dataProvider.name() + REQUESTS_PER_SECOND_KEY, requestsPerSecond,
+                        DEFAULT_REQUESTS_PER_SECOND);
+                var size = parse(dataProvider.name() + BURST_KEY, burst, DEFAULT_BURST);
+                log.debug("< rate limit of {}: {} requests per second, burst: {}", dataProvider, rate, size);
+                LIMITERS.put(dataProvider, new RateLimiter(rate, size));
+            }
+        }
+    }
+
+    /**
+     * Waits until a permit is available.
+     */
+    public void acquire() {
+        var waitInNanos = reserve();
+        if (waitInNanos > 0) {
+            DownloadStatistics.backOff(TimeUnit.NANOSECONDS.toMillis(waitInNanos) + 1);
+        }
+    }
+
+    /**
+     * Takes a permit from the bucket and calculates how long the caller
+     * must wait before it can use it.
+     *
+     * @return the waiting time in nanoseconds
+     */
+    synchronized long reserve() {
+        var now = System.nanoTime();
+        permits = Math.min(burst, permits + (now - lastRefill) * requestsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+        permits--;
+        return permits >= 0 ? 0 : (long) (-permits * TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+    }
+
+    /**
+     * Parses a positive number from the configuration.
+     *
+     * @param key the configuration key
+     * @param value the configured value
+     * @param defaultValue the value used if the value is not set
+     * @return the number
+     */
+    private static double parse(String key, String value, double defaultValue) {
+        if (Objects.isNull(value)) {
+            return defaultValue;
+        }
+
+        double number;
+        try {
+            number = Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            number = -1;
+        }
+
+        if (number <= 0) {
+            Logger.logErrorAndExit("Invalid rate limit configuration: \"{}={}\", positive number expected", key, value);
+        }
+        return number;
+    }
+}
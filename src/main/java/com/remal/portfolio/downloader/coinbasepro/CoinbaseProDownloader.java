@@ -1,12 +1,13 @@
 package com.remal.portfolio.downloader.coinbasepro;
 
+import com.remal.portfolio.downloader.DownloadStatistics;
 import com.remal.portfolio.downloader.Downloader;
+import com.remal.portfolio.downloader.RateLimiter;
 import com.remal.portfolio.model.DataProviderType;
 import com.remal.portfolio.model.Price;
 import com.remal.portfolio.util.BigDecimals;
 import com.remal.portfolio.util.Calendars;
 import com.remal.portfolio.util.Logger;
-import com.remal.portfolio.util.Sleep;
 import lombok.extern.slf4j.Slf4j;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
@@ -49,6 +50,16 @@ public class CoinbaseProDownloader extends CoinbaseProRequestBuilder implements
         super(null, null, null);
     }
 
+    /**
+     * Gets the data provider that is served by the downloader.
+     *
+     * @return the data provider
+     */
+    @Override
+    public DataProviderType getDataProvider() {
+        return DATA_PROVIDER;
+    }
+
     /**
      * Downloads the latest price of a stock.
      * It uses the Coinbase PRO REST API to get the actual price.
@@ -59,6 +70,8 @@ public class CoinbaseProDownloader extends CoinbaseProRequestBuilder implements
     @Override
     public Optional<Price> getPrice(String symbol) {
         log.debug("< getting the latest price of '{}', provider: '{}'...", symbol, DATA_PROVIDER);
+        RateLimiter.get(DATA_PROVIDER).acquire();
+        DownloadStatistics.recordAttempt();
 
         var apiUrl = "https://api.coinbase.com/v2/prices/%s/spot";
         var uri = String.format(apiUrl, symbol);
@@ -73,6 +86,7 @@ public class CoinbaseProDownloader extends CoinbaseProRequestBuilder implements
                     .build();
             var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
             var json = response.body();
+            DownloadStatistics.recordBytes(Objects.isNull(json) ? 0 : json.length());
             if (Objects.isNull(json) || json.isEmpty()) {
                 log.warn(SYMBOL_NOT_FOUND, symbol, DATA_PROVIDER);
             } else {
@@ -127,7 +141,6 @@ public class CoinbaseProDownloader extends CoinbaseProRequestBuilder implements
         if (marketPrice.isEmpty()) {
             actualTradeDate.set(Calendar.SECOND, 0);
             actualTradeDate.set(Calendar.MILLISECOND, 0);
-            Sleep.sleep(SLEEP_IN_MILLISECOND);
             marketPrice = download(symbol, actualTradeDate, retry);
         }
 
@@ -136,7 +149,6 @@ public class CoinbaseProDownloader extends CoinbaseProRequestBuilder implements
             delay = delay * MULTIPLICITY;
             var amount = (int)(delay * -1);
             actualTradeDate.add(Calendar.MINUTE, amount);
-            Sleep.sleep(SLEEP_IN_MILLISECOND);
             marketPrice = download(symbol, actualTradeDate, retry);
             repetitions++;
         }
@@ -160,6 +172,8 @@ public class CoinbaseProDownloader extends CoinbaseProRequestBuilder implements
      * @return the product's market price
      */
     private Optional<Price> download(final String symbol, final Calendar requestedTradeDate, AtomicInteger retry) {
+        RateLimiter.get(DATA_PROVIDER).acquire();
+        DownloadStatistics.recordAttempt();
         log.debug(
                 "< {}getting the price of \"{}\" on {}, provider: \"{}\"...",
                 retry.incrementAndGet() > 1 ? "(" + retry +") " : "",
@@ -182,6 +196,7 @@ public class CoinbaseProDownloader extends CoinbaseProRequestBuilder implements
         try {
             response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
             var json = response.body();
+            DownloadStatistics.recordBytes(Objects.isNull(json) ? 0 : json.length());
             log.debug("HTTP response: {}, \"{}\"", response.statusCode(), json);
             if (Objects.isNull(json)) {
                 log.warn(SYMBOL_NOT_FOUND, symbol, DATA_PROVIDER);
@@ -1,5 +1,7 @@
 package com.remal.portfolio.downloader.coinbasepro;
 
+import com.remal.portfolio.downloader.RateLimiter;
+import com.remal.portfolio.model.DataProviderType;
 import lombok.extern.slf4j.Slf4j;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONValue;
@@ -7,14 +9,18 @@ import org.json.simple.JSONValue;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Optional;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Helper that builds Coinbase rest api calls and process the responses.
@@ -32,6 +38,16 @@ public abstract class CoinbaseProRequestBuilder {
      */
     private static final String BASE_URL = "https://api.exchange.coinbase.com";
 
+    /**
+     * Response header that holds the cursor of the next, older page.
+     */
+    private static final String AFTER_CURSOR_HEADER = "CB-AFTER";
+
+    /**
+     * Response header that holds the cursor of the previous, newer page.
+     */
+    private static final String BEFORE_CURSOR_HEADER = "CB-BEFORE";
+
     /**
      * Coinbase Pro API key as a string.
      */
@@ -61,28 +77,116 @@ public abstract class CoinbaseProRequestBuilder {
     }
 
     /**
-     * Converts the rest api response to JSONArray.
+     * Reads the items of the rest api response. The pages of the response
+     * are merged.
+     *
+     * @param endpoint rest api relative path
+     * @return the items of all pages
+     * @throws IOException throws in case of error, e.g. if a page could not
+     *                     be downloaded
+     * @throws NoSuchAlgorithmException throws in case of error
+     * @throws InvalidKeyException throws in case of error
+     */
+    protected List<Object> getJsonArrayResponse(String endpoint)
+            throws IOException, NoSuchAlgorithmException, InvalidKeyException {
+
+        List<Object> items = new ArrayList<>();
+        getJsonArrayResponse(endpoint, null, page -> {
+            for (Object item : page) {
+                items.add(item);
+            }
+        });
+        return items;
+    }
+
+    /**
+     * Reads the rest api response page by page and passes the pages to the
+     * consumer as they arrive.
+     * <p>
+     * Without a cursor the whole history is read from the newest item,
+     * following the CB-AFTER cursor. With a cursor only the items that are
+     * newer than the cursor are read, following the CB-BEFORE cursor.
+     * </p>
      *
      * @param endpoint rest api relative path
-     * @return response as a JSONArray on an empty optional.
+     * @param newerThan cursor of the last seen item or null
+     * @param pageConsumer processes a page of the response
+     * @return cursor of the newest item, it can be used as the 'newerThan'
+     *         in the next call
      * @throws IOException throws in case of error
      * @throws NoSuchAlgorithmException throws in case of error
      * @throws InvalidKeyException throws in case of error
      */
-    protected Optional<JSONArray> getJsonArrayResponse(String endpoint)
+    protected String getJsonArrayResponse(String endpoint, String newerThan, Consumer<JSONArray> pageConsumer)
+            throws IOException, NoSuchAlgorithmException, InvalidKeyException {
+
+        return readResponse(endpoint, newerThan, inputStream -> {
+            var restResponse = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            var page = (JSONArray) JSONValue.parse(restResponse);
+            pageConsumer.accept(page);
+            return page.size();
+        });
+    }
+
+    /**
+     * Reads the rest api response page by page. The body of each page is
+     * passed to the page reader as a stream, so the reader can decode the
+     * items while they arrive without building the whole page in memory.
+     * <p>
+     * Without a cursor the whole history is read from the newest item,
+     * following the CB-AFTER cursor. With a cursor only the items that are
+     * newer than the cursor are read, following the CB-BEFORE cursor.
+     * </p>
+     *
+     * @param endpoint rest api relative path
+     * @param newerThan cursor of the last seen item or null
+     * @param pageReader decodes a page of the response
+     * @return cursor of the newest item, it can be used as the 'newerThan'
+     *         in the next call
+     * @throws IOException throws in case of error, e.g. if a page could not
+     *                     be downloaded
+     * @throws NoSuchAlgorithmException throws in case of error
+     * @throws InvalidKeyException throws in case of error
+     */
+    protected String readResponse(String endpoint, String newerThan, PageReader pageReader)
             throws IOException, NoSuchAlgorithmException, InvalidKeyException {
 
-        var connection = getConnection(endpoint);
-        var responseCode = connection.getResponseCode();
-        if (responseCode == 200) {
-            var restResponse = new String(connection.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
-            var jsonResponse = JSONValue.parse(restResponse);
-            return Optional.of((JSONArray) jsonResponse);
-        } else {
-            String error = new String(connection.getErrorStream().readAllBytes());
-            log.debug("Error while calling the '{}' endpoint. Response= {}: {}", endpoint, responseCode, error);
-        }
-        return Optional.empty();
+        var incremental = Objects.nonNull(newerThan);
+        var newestCursor = newerThan;
+        var cursor = newerThan;
+        var pages = 0;
+        do {
+            var path = Objects.isNull(cursor)
+                    ? endpoint
+                    : endpoint + (endpoint.contains("?") ? "&" : "?") + (incremental ? "before=" : "after=") + cursor;
+
+            RateLimiter.get(DataProviderType.COINBASE_PRO).acquire();
+            var connection = getConnection(path);
+            var responseCode = connection.getResponseCode();
+            if (responseCode != 200) {
+                var errorStream = connection.getErrorStream();
+                var error = Objects.isNull(errorStream) ? "" : new String(errorStream.readAllBytes());
+                throw new IOException(String.format(
+                        "Error while calling the '%s' endpoint. Response= %d: %s", path, responseCode, error));
+            }
+
+            int items;
+            try (var inputStream = connection.getInputStream()) {
+                items = pageReader.read(inputStream);
+            }
+
+            var beforeCursor = connection.getHeaderField(BEFORE_CURSOR_HEADER);
+            if (items > 0 && Objects.nonNull(beforeCursor) && (incremental || pages == 0)) {
+                newestCursor = beforeCursor;
+            }
+
+            var nextCursor = incremental ? beforeCursor : connection.getHeaderField(AFTER_CURSOR_HEADER);
+            cursor = items == 0 ? null : nextCursor;
+            pages++;
+        } while (Objects.nonNull(cursor));
+
+        log.debug("< {} page(s) have been downloaded from the '{}' endpoint", pages, endpoint);
+        return newestCursor;
     }
 
     /**
@@ -134,4 +238,20 @@ public abstract class CoinbaseProRequestBuilder {
         hmacSha256.init(secretKey);
         return Base64.getEncoder().encodeToString(hmacSha256.doFinal(preHash.getBytes()));
     }
+
+    /**
+     * Decodes a page of the rest api response.
+     */
+    @FunctionalInterface
+    protected interface PageReader {
+
+        /**
+         * Reads the items of a page from the response body.
+         *
+         * @param inputStream body of the response
+         * @return number of the items on the page
+         * @throws IOException throws in case of error
+         */
+        int read(InputStream inputStream) throws IOException;
+    }
 }
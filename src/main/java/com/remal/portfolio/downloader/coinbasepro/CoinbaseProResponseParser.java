@@ -1,5 +1,8 @@
 package com.remal.portfolio.downloader.coinbasepro;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.remal.portfolio.model.CurrencyType;
 import com.remal.portfolio.model.InventoryValuationType;
 import com.remal.portfolio.model.Transaction;
@@ -13,13 +16,21 @@ import lombok.extern.slf4j.Slf4j;
 import org.json.simple.JSONObject;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.IntStream;
 
 /**
@@ -34,13 +45,23 @@ import java.util.stream.IntStream;
 @Slf4j
 public class CoinbaseProResponseParser extends CoinbaseProRequestBuilder {
 
+    /**
+     * Maximum number of the products downloaded at the same time.
+     */
+    private static final int MAX_PARALLEL_DOWNLOADS = 4;
+
+    /**
+     * Creates the streaming JSON parsers of the fills, it is thread-safe.
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     /**
      * Coinbase profile info.
      */
     private final HashMap<String, String> profiles = new HashMap<>();
 
     /**
-     * Coinbase account info.
+     * Coinbase account info, the currency by account id.
      */
     private final HashMap<String, String> accounts = new HashMap<>();
 
@@ -74,14 +95,33 @@ public class CoinbaseProResponseParser extends CoinbaseProRequestBuilder {
      */
     private final LocalDateTime to;
 
+    /**
+     * The high-water marks of the incremental sync, null if the full
+     * history is downloaded.
+     */
+    private final CoinbaseSyncState syncState;
+
     /**
      * Constructor.
      *
      * @param arguments arguments from the command line interface
      */
     public CoinbaseProResponseParser(CoinbaseProArgGroup.InputArgGroup arguments) {
+        this(arguments, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param arguments arguments from the command line interface
+     * @param syncState the high-water marks of the incremental sync, null
+     *                  to download the full history
+     */
+    public CoinbaseProResponseParser(CoinbaseProArgGroup.InputArgGroup arguments, CoinbaseSyncState syncState) {
         super(arguments.getKey(), arguments.getPassphrase(), arguments.getSecret());
 
+        this.syncState = syncState;
+
         this.baseCurrency = CurrencyType.getEnum(arguments.getBaseCurrency());
         this.defaultInventoryValuation = arguments.getInventoryValuation();
         this.from = LocalDateTimes.toLocalDateTime(
@@ -109,11 +149,15 @@ public class CoinbaseProResponseParser extends CoinbaseProRequestBuilder {
      * @return list of transactions
      */
     public List<Transaction> parse() {
-        var transactions = downloadTransfers();
-        productIds
+        List<Transaction> transactions = Collections.synchronizedList(downloadTransfers());
+        var heldCurrencies = new HashSet<>(accounts.values());
+        var products = productIds
                 .stream()
                 .filter(product -> Filter.baseCurrencyFilter(baseCurrency, product))
-                .forEach(productId -> downloadTransactions(transactions, productId));
+                .filter(product -> heldCurrencies.contains(product.split("-")[0]))
+                .toList();
+        log.debug("< downloading the fills of {} products...", products.size());
+        downloadTransactions(transactions, products);
 
         return transactions
                 .stream()
@@ -125,7 +169,8 @@ public class CoinbaseProResponseParser extends CoinbaseProRequestBuilder {
 
     /**
      * Downloads your transfers (deposits and withdrawals) from Coinbase
-     * and add them to the transaction list.
+     * and add them to the transaction list. In incremental mode only the
+     * transfers after the last seen transfer of the profile are kept.
      *
      * @return list of transactions
      */
@@ -133,8 +178,8 @@ public class CoinbaseProResponseParser extends CoinbaseProRequestBuilder {
         List<Transaction> transactions = new ArrayList<>();
         try {
             var endpoint = "/transfers";
-            var jsonArray = getJsonArrayResponse(endpoint);
-            jsonArray.ifPresent(x ->
+            var newerThan = Objects.isNull(syncState) ? null : syncState.getTransfersCursor();
+            var newestCursor = getJsonArrayResponse(endpoint, newerThan, x ->
                     IntStream.range(0, x.size()).forEach(index -> {
                         var jsonItem = x.get(index);
                         var fillJson = (JSONObject) jsonItem;
@@ -155,59 +200,204 @@ public class CoinbaseProResponseParser extends CoinbaseProRequestBuilder {
                                 .symbol(symbol)
                                 .transferId(fillJson.get("id").toString())
                                 .build();
-                        transactions.add(transaction);
+                        addTransfer(transactions, transaction);
                     })
             );
+
+            if (Objects.nonNull(syncState)) {
+                syncState.setTransfersCursor(newestCursor);
+            }
         } catch (IOException | NoSuchAlgorithmException | InvalidKeyException e) {
-            log.error("An unexpected error has occurred while downloading transfers from Coinbase Pro. {}.",
+            logDownloadError("An unexpected error has occurred while downloading transfers from Coinbase Pro. {}.",
                     e.toString());
         }
 
         return transactions;
     }
 
+    /**
+     * Adds a transfer to the list if it has not been seen before, and
+     * raises the high-water mark of its profile.
+     *
+     * @param transactions list of transactions
+     * @param transfer the downloaded transfer
+     */
+    private void addTransfer(List<Transaction> transactions, Transaction transfer) {
+        if (Objects.isNull(syncState)) {
+            transactions.add(transfer);
+            return;
+        }
+
+        var lastSeen = syncState.getTransferDate(transfer.getPortfolio());
+        if (Objects.isNull(lastSeen) || transfer.getTradeDate().isAfter(lastSeen)) {
+            transactions.add(transfer);
+            syncState.updateTransferDate(transfer.getPortfolio(), transfer.getTradeDate());
+        }
+    }
+
+    /**
+     * Downloads the transactions of the products concurrently. The number
+     * of the requests is limited by the Coinbase rate limiter.
+     *
+     * @param transactions list of transactions, it must be thread-safe
+     * @param products coinbase product-ids
+     */
+    private void downloadTransactions(List<Transaction> transactions, List<String> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+
+        var executor = Executors.newFixedThreadPool(Math.min(MAX_PARALLEL_DOWNLOADS, products.size()));
+        try {
+            List<Callable<Void>> tasks = products
+                    .stream()
+                    .map(productId -> (Callable<Void>) () -> {
+                        downloadTransactions(transactions, productId);
+                        return null;
+                    })
+                    .toList();
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            logDownloadError("An unexpected error has occurred while downloading transactions from Coinbase Pro. {}.",
+                    e.getCause().toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logDownloadError("Downloading transactions from Coinbase Pro has been interrupted. {}.", e.toString());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Downloads your transactions (buys and sells) that belong to a given
-     * product-id from Coinbase and add them to the transaction list.
+     * product-id from Coinbase and add them to the transaction list page
+     * by page. In incremental mode only the fills after the last seen trade
+     * id of the product are requested.
      *
      * @param transactions list of transactions
      * @param productId coinbase product-id
+     * @throws IOException throws in case of error
+     * @throws NoSuchAlgorithmException throws in case of error
+     * @throws InvalidKeyException throws in case of error
      */
-    private void downloadTransactions(List<Transaction> transactions, String productId) {
-        try {
-            var endpoint = "/fills?product_id=" + productId;
-            var jsonArray = getJsonArrayResponse(endpoint);
-            jsonArray.ifPresent(x ->
-                    IntStream.range(0, x.size()).forEach(index -> {
-                        var jsonItem = x.get(index);
-                        var fillJson = (JSONObject) jsonItem;
-                        var transactionType = TransactionType.getEnum(fillJson.get("side").toString());
-                        var inventoryValuation = (transactionType == TransactionType.SELL)
-                                ? defaultInventoryValuation
-                                : null;
+    private void downloadTransactions(List<Transaction> transactions, String productId)
+            throws IOException, NoSuchAlgorithmException, InvalidKeyException {
 
-                        Transaction transaction = Transaction
-                                .builder()
-                                .portfolio(profiles.get(fillJson.get("profile_id").toString()))
-                                .type(transactionType)
-                                .inventoryValuation(inventoryValuation)
-                                .tradeDate(LocalDateTimes.toLocalDateTime(fillJson.get("created_at").toString()))
-                                .quantity(new BigDecimal(fillJson.get("size").toString()))
-                                .price(new BigDecimal(fillJson.get("price").toString()))
-                                .priceCurrency(CurrencyType.getEnum(productId.split("-")[1]))
-                                .fee(new BigDecimal(fillJson.get("fee").toString()))
-                                .feeCurrency(CurrencyType.getEnum(productId.split("-")[1]))
-                                .symbol(productId)
-                                .tradeId(fillJson.get("trade_id").toString())
-                                .orderId(fillJson.get("order_id").toString())
-                                .build();
-                        transactions.add(transaction);
-                    })
-            );
-        } catch (IOException | NoSuchAlgorithmException | InvalidKeyException e) {
-            log.error("An unexpected error has occurred while downloading transactions from Coinbase Pro. {}.",
-                    e.toString());
+        var endpoint = "/fills?product_id=" + productId;
+        var lastTradeId = Objects.isNull(syncState) ? null : syncState.getTradeId(productId);
+        var newerThan = Objects.isNull(lastTradeId) ? null : lastTradeId.toString();
+        readResponse(endpoint, newerThan, x -> readFills(x, productId, lastTradeId, transactions));
+    }
+
+    /**
+     * Logs a failed download. In incremental mode the application stops,
+     * so the high-water marks of the missing pages are never saved.
+     *
+     * @param message log message
+     * @param arguments arguments of the log message
+     */
+    private void logDownloadError(String message, Object... arguments) {
+        if (Objects.isNull(syncState)) {
+            log.error(message, arguments);
+        } else {
+            Logger.logErrorAndExit(message, arguments);
+        }
+    }
+
+    /**
+     * Decodes a page of fills with a streaming parser. Every fill object is
+     * mapped to a transaction while it is read, the page is never built in
+     * memory.
+     *
+     * @param inputStream body of the response
+     * @param productId coinbase product-id
+     * @param lastTradeId the last seen trade id or null
+     * @param transactions list of transactions
+     * @return number of the fills on the page
+     * @throws IOException throws in case of error
+     */
+    private int readFills(InputStream inputStream, String productId, Long lastTradeId, List<Transaction> transactions)
+            throws IOException {
+
+        var fills = 0;
+        try (var parser = JSON_FACTORY.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("JSON array is expected but got " + parser.currentToken());
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                fills++;
+                var transaction = readFill(parser, productId);
+                var tradeId = Long.parseLong(transaction.getTradeId());
+                if (Objects.isNull(lastTradeId) || tradeId > lastTradeId) {
+                    transactions.add(transaction);
+                    if (Objects.nonNull(syncState)) {
+                        syncState.updateTradeId(productId, tradeId);
+                    }
+                }
+            }
         }
+        return fills;
+    }
+
+    /**
+     * Maps the fields of a fill object to a transaction. The parser must
+     * point to the start of the object, it points to the end of the object
+     * when the method returns. Unknown fields are skipped.
+     *
+     * @param parser the streaming JSON parser
+     * @param productId coinbase product-id
+     * @return the transaction
+     * @throws IOException throws in case of error
+     */
+    private Transaction readFill(JsonParser parser, String productId) throws IOException {
+        var currency = CurrencyType.getEnum(productId.split("-")[1]);
+        var builder = Transaction
+                .builder()
+                .priceCurrency(currency)
+                .feeCurrency(currency)
+                .symbol(productId);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "trade_id" -> builder.tradeId(parser.getText());
+                case "order_id" -> builder.orderId(parser.getText());
+                case "profile_id" -> builder.portfolio(profiles.get(parser.getText()));
+                case "created_at" -> builder.tradeDate(LocalDateTimes.toLocalDateTime(parser.getText()));
+                case "size" -> builder.quantity(getDecimalValue(parser));
+                case "price" -> builder.price(getDecimalValue(parser));
+                case "fee" -> builder.fee(getDecimalValue(parser));
+                case "side" -> {
+                    var transactionType = TransactionType.getEnum(parser.getText());
+                    builder.type(transactionType);
+                    if (transactionType == TransactionType.SELL) {
+                        builder.inventoryValuation(defaultInventoryValuation);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads the current value as a BigDecimal. Coinbase sends the amounts
+     * as strings, they are converted from the parser buffer without an
+     * intermediate String.
+     *
+     * @param parser the streaming JSON parser
+     * @return the value
+     * @throws IOException throws in case of error
+     */
+    private static BigDecimal getDecimalValue(JsonParser parser) throws IOException {
+        if (parser.currentToken().isNumeric()) {
+            return parser.getDecimalValue();
+        }
+        return new BigDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
     }
 
     /**
@@ -218,17 +408,14 @@ public class CoinbaseProResponseParser extends CoinbaseProRequestBuilder {
      * @throws InvalidKeyException throws in case of error
      */
     private void initializeProfiles() throws IOException, NoSuchAlgorithmException, InvalidKeyException {
-        var jsonArray = getJsonArrayResponse("/profiles");
-        if (jsonArray.isPresent()) {
-            for (Object jsonItem : jsonArray.get()) {
-                var json = (JSONObject) jsonItem;
-                if ((boolean) json.get("active")) {
-                    var id = json.get("id").toString();
-                    var userId = json.get("user_id").toString();
-                    var name = json.get("name").toString();
-                    profiles.put(id, name);
-                    profiles.put(userId, name);
-                }
+        for (Object jsonItem : getJsonArrayResponse("/profiles")) {
+            var json = (JSONObject) jsonItem;
+            if ((boolean) json.get("active")) {
+                var id = json.get("id").toString();
+                var userId = json.get("user_id").toString();
+                var name = json.get("name").toString();
+                profiles.put(id, name);
+                profiles.put(userId, name);
             }
         }
     }
@@ -241,15 +428,12 @@ public class CoinbaseProResponseParser extends CoinbaseProRequestBuilder {
      * @throws InvalidKeyException throws in case of error
      */
     private void initializeCurrencies() throws IOException, NoSuchAlgorithmException, InvalidKeyException {
-        var jsonArray = getJsonArrayResponse("/currencies");
-        if (jsonArray.isPresent()) {
-            for (Object jsonItem : jsonArray.get()) {
-                var json = (JSONObject) jsonItem;
-                var details = (JSONObject) json.get("details");
-                var type = details.get("type").toString();
-                if ("fiat".equalsIgnoreCase(type)) {
-                    currencies.add(json.get("id").toString());
-                }
+        for (Object jsonItem : getJsonArrayResponse("/currencies")) {
+            var json = (JSONObject) jsonItem;
+            var details = (JSONObject) json.get("details");
+            var type = details.get("type").toString();
+            if ("fiat".equalsIgnoreCase(type)) {
+                currencies.add(json.get("id").toString());
             }
         }
     }
@@ -262,12 +446,9 @@ public class CoinbaseProResponseParser extends CoinbaseProRequestBuilder {
      * @throws InvalidKeyException throws in case of error
      */
     private void initializeProducts() throws IOException, NoSuchAlgorithmException, InvalidKeyException {
-        var jsonArray = getJsonArrayResponse("/products");
-        if (jsonArray.isPresent()) {
-            for (Object jsonItem : jsonArray.get()) {
-                var json = (JSONObject) jsonItem;
-                productIds.add(json.get("id").toString());
-            }
+        for (Object jsonItem : getJsonArrayResponse("/products")) {
+            var json = (JSONObject) jsonItem;
+            productIds.add(json.get("id").toString());
         }
     }
 
@@ -279,14 +460,11 @@ public class CoinbaseProResponseParser extends CoinbaseProRequestBuilder {
      * @throws InvalidKeyException throws in case of error
      */
     private void initializeAccounts() throws IOException, NoSuchAlgorithmException, InvalidKeyException {
-        var jsonArray = getJsonArrayResponse("/accounts");
-        if (jsonArray.isPresent()) {
-            for (Object jsonItem : jsonArray.get()) {
-                var json = (JSONObject) jsonItem;
-                var id = json.get("id").toString();
-                var symbol = json.get("currency").toString();
-                accounts.put(id, symbol);
-            }
+        for (Object jsonItem : getJsonArrayResponse("/accounts")) {
+            var json = (JSONObject) jsonItem;
+            var id = json.get("id").toString();
+            var symbol = json.get("currency").toString();
+            accounts.put(id, symbol);
         }
     }
 }
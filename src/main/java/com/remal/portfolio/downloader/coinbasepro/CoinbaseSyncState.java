@@ -0,0 +1,165 @@
+package com.remal.portfolio.downloader.coinbasepro;
+
+import com.remal.portfolio.util.Logger;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * The high-water marks of the incremental Coinbase sync: the last seen
+ * trade id per product, the last seen transfer date per profile and the
+ * pagination cursor of the transfers. The state is stored in a properties
+ * file.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class CoinbaseSyncState {
+
+    /**
+     * Key prefix of the fill related values.
+     */
+    private static final String FILLS_PREFIX = "fills.";
+
+    /**
+     * Key prefix of the transfer related values.
+     */
+    private static final String TRANSFERS_PREFIX = "transfers.";
+
+    /**
+     * Key suffix of the last seen trade id.
+     */
+    private static final String TRADE_ID_SUFFIX = ".trade-id";
+
+    /**
+     * Key suffix of the last seen transfer date.
+     */
+    private static final String CREATED_AT_SUFFIX = ".created-at";
+
+    /**
+     * Key of the transfer pagination cursor.
+     */
+    private static final String TRANSFERS_CURSOR_KEY = TRANSFERS_PREFIX + "cursor";
+
+    /**
+     * Path to the state file.
+     */
+    private final String file;
+
+    /**
+     * The stored values, Properties is synchronized so the products can be
+     * downloaded concurrently.
+     */
+    private final Properties state = new Properties();
+
+    /**
+     * Constructor, it reads the state file if it exists.
+     *
+     * @param file path to the state file
+     */
+    public CoinbaseSyncState(String file) {
+        this.file = file;
+        if (Files.exists(Path.of(file))) {
+            try (InputStream inputStream = new FileInputStream(file)) {
+                state.load(inputStream);
+                log.debug("< the sync state has been loaded from \"{}\", {} entries", file, state.size());
+            } catch (IOException e) {
+                Logger.logErrorAndExit("Error while reading the \"{}\" file. Error: {}", file, e.toString());
+            }
+        } else {
+            log.debug("< the sync state file \"{}\" does not exist, downloading the full history", file);
+        }
+    }
+
+    /**
+     * Writes the state to the file.
+     */
+    public void save() {
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            state.store(outputStream, "Coinbase incremental sync state");
+            log.debug("> the sync state has been written to \"{}\"", file);
+        } catch (IOException e) {
+            Logger.logErrorAndExit("Error while writing the \"{}\" file. Error: {}", file, e.toString());
+        }
+    }
+
+    /**
+     * Gets the last seen trade id of a product.
+     *
+     * @param productId coinbase product-id
+     * @return the trade id or null if the product has not been synced yet
+     */
+    public Long getTradeId(String productId) {
+        var value = state.getProperty(FILLS_PREFIX + productId + TRADE_ID_SUFFIX);
+        return Objects.isNull(value) ? null : Long.valueOf(value);
+    }
+
+    /**
+     * Raises the last seen trade id of a product.
+     *
+     * @param productId coinbase product-id
+     * @param tradeId the trade id of a downloaded fill
+     */
+    public synchronized void updateTradeId(String productId, long tradeId) {
+        var current = getTradeId(productId);
+        if (Objects.isNull(current) || tradeId > current) {
+            state.setProperty(FILLS_PREFIX + productId + TRADE_ID_SUFFIX, String.valueOf(tradeId));
+        }
+    }
+
+    /**
+     * Gets the last seen transfer date of a profile.
+     *
+     * @param profile the profile name
+     * @return the date or null if the profile has not been synced yet
+     */
+    public LocalDateTime getTransferDate(String profile) {
+        var value = state.getProperty(TRANSFERS_PREFIX + profile + CREATED_AT_SUFFIX);
+        return Objects.isNull(value) ? null : LocalDateTime.parse(value);
+    }
+
+    /**
+     * Raises the last seen transfer date of a profile.
+     *
+     * @param profile the profile name
+     * @param createdAt the date of a downloaded transfer
+     */
+    public synchronized void updateTransferDate(String profile, LocalDateTime createdAt) {
+        var current = getTransferDate(profile);
+        if (Objects.isNull(current) || createdAt.isAfter(current)) {
+            state.setProperty(TRANSFERS_PREFIX + profile + CREATED_AT_SUFFIX, createdAt.toString());
+        }
+    }
+
+    /**
+     * Gets the cursor that points to the newest transfer.
+     *
+     * @return the cursor or null if the transfers have not been synced yet
+     */
+    public String getTransfersCursor() {
+        return state.getProperty(TRANSFERS_CURSOR_KEY);
+    }
+
+    /**
+     * Sets the cursor that points to the newest transfer.
+     *
+     * @param cursor the cursor, null is ignored
+     */
+    public void setTransfersCursor(String cursor) {
+        if (Objects.nonNull(cursor)) {
+            state.setProperty(TRANSFERS_CURSOR_KEY, cursor);
+        }
+    }
+}
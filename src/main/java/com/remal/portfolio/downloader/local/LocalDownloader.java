@@ -0,0 +1,271 @@
+package com.remal.portfolio.downloader.local;
+
+import com.remal.portfolio.downloader.DownloadStatistics;
+import com.remal.portfolio.downloader.Downloader;
+import com.remal.portfolio.downloader.RateLimiter;
+import com.remal.portfolio.model.DataProviderType;
+import com.remal.portfolio.model.Price;
+import com.remal.portfolio.util.BigDecimals;
+import com.remal.portfolio.util.Calendars;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Product price downloader that serves the prices from local candle files,
+ * so the price pipeline can be tested offline with deterministic data.
+ * <p>
+ * The candles of a symbol are read from the '&lt;SYMBOL&gt;.csv' file of the
+ * 'LOCAL.directory', or downloaded from the '&lt;LOCAL.url&gt;/&lt;SYMBOL&gt;.csv'
+ * address of a stub HTTP server. The file format is the same as the
+ * Coinbase candles: time (epoch seconds), low, high, open, close, volume.
+ * Lines that do not start with a digit, e.g. the header, are skipped. The
+ * price at a date is the close price of the last candle that is not after
+ * the date.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class LocalDownloader implements Downloader {
+
+    /**
+     * The ID of this provider.
+     */
+    private static final DataProviderType DATA_PROVIDER = DataProviderType.LOCAL;
+
+    /**
+     * Configuration key of the candle directory.
+     */
+    private static final String DIRECTORY_KEY = DATA_PROVIDER.name() + ".directory";
+
+    /**
+     * Configuration key of the stub server address.
+     */
+    private static final String URL_KEY = DATA_PROVIDER.name() + ".url";
+
+    /**
+     * Extension of the candle files.
+     */
+    private static final String FILE_EXTENSION = ".csv";
+
+    /**
+     * Index of the time field in the candle.
+     */
+    private static final int TIME_INDEX = 0;
+
+    /**
+     * Index of the close price field in the candle.
+     */
+    private static final int CLOSE_INDEX = 4;
+
+    /**
+     * The loaded candles per symbol, close prices by epoch second.
+     */
+    private final Map<String, NavigableMap<Long, BigDecimal>> candles = new ConcurrentHashMap<>();
+
+    /**
+     * Directory of the candle files.
+     */
+    private String directory;
+
+    /**
+     * Address of the stub HTTP server.
+     */
+    private String url;
+
+    /**
+     * Gets the data provider that is served by the downloader.
+     *
+     * @return the data provider
+     */
+    @Override
+    public DataProviderType getDataProvider() {
+        return DATA_PROVIDER;
+    }
+
+    /**
+     * Reads the location of the candles from the data provider file.
+     *
+     * @param properties content of the data provider file
+     */
+    @Override
+    public void configure(Properties properties) {
+        var configuredDirectory = properties.getProperty(DIRECTORY_KEY);
+        var configuredUrl = properties.getProperty(URL_KEY);
+        if (Objects.nonNull(configuredDirectory) || Objects.nonNull(configuredUrl)) {
+            directory = configuredDirectory;
+            url = configuredUrl;
+            candles.clear();
+            log.debug("< local candles, directory: \"{}\", url: \"{}\"", directory, url);
+        }
+    }
+
+    /**
+     * Gets the close price of the last candle.
+     *
+     * @param symbol product name
+     * @return the latest price
+     */
+    @Override
+    public Optional<Price> getPrice(String symbol) {
+        log.debug("< getting the latest price of '{}', provider: '{}'...", symbol, DATA_PROVIDER);
+        var entry = Optional.ofNullable(getCandles(symbol)).map(NavigableMap::lastEntry);
+        var marketPrice = entry.map(e -> buildPrice(symbol, e, LocalDateTime.now()));
+        marketPrice.ifPresent(price -> log.info("< {}", price));
+        return marketPrice;
+    }
+
+    /**
+     * Gets the close price of the last candle that is not after the
+     * requested date.
+     *
+     * @param symbol product name
+     * @param requestedTradeDate trade date in the past
+     * @return the product's market price
+     */
+    @Override
+    public Optional<Price> getPrice(String symbol, Calendar requestedTradeDate) {
+        log.debug("< getting the price of \"{}\" at {}, provider: \"{}\"...",
+                symbol, Calendars.toString(requestedTradeDate), DATA_PROVIDER);
+        var epochSecond = requestedTradeDate.getTimeInMillis() / 1000;
+        var entry = Optional.ofNullable(getCandles(symbol)).map(c -> c.floorEntry(epochSecond));
+        var marketPrice = entry.map(e -> buildPrice(symbol, e, Calendars.toLocalDateTime(requestedTradeDate)));
+
+        if (marketPrice.isEmpty()) {
+            log.warn("< the price of the \"{}\" on {} does not exist", symbol, Calendars.toString(requestedTradeDate));
+        } else {
+            log.info("< {}", marketPrice.get());
+        }
+        return marketPrice;
+    }
+
+    /**
+     * Builds the price from a candle.
+     *
+     * @param symbol product name
+     * @param candle time and close price of the candle
+     * @param requestDate the request date
+     * @return the price
+     */
+    private Price buildPrice(String symbol, Map.Entry<Long, BigDecimal> candle, LocalDateTime requestDate) {
+        return Price
+                .builder()
+                .symbol(symbol)
+                .unitPrice(candle.getValue())
+                .dataProvider(DATA_PROVIDER)
+                .tradeDate(LocalDateTime.ofInstant(Instant.ofEpochSecond(candle.getKey()), ZoneId.systemDefault()))
+                .requestDate(requestDate)
+                .build();
+    }
+
+    /**
+     * Gets the candles of a symbol, they are loaded once.
+     *
+     * @param symbol product name
+     * @return the close prices by epoch second or null if the candles do
+     *         not exist
+     */
+    private NavigableMap<Long, BigDecimal> getCandles(String symbol) {
+        var symbolCandles = candles.computeIfAbsent(symbol, this::loadCandles);
+        return symbolCandles.isEmpty() ? null : symbolCandles;
+    }
+
+    /**
+     * Reads the candles of a symbol.
+     *
+     * @param symbol product name
+     * @return the close prices by epoch second
+     */
+    private NavigableMap<Long, BigDecimal> loadCandles(String symbol) {
+        NavigableMap<Long, BigDecimal> closePrices = new TreeMap<>();
+        var content = Objects.nonNull(directory) ? readFile(symbol) : fetch(symbol);
+        if (Objects.isNull(content)) {
+            log.warn(SYMBOL_NOT_FOUND, symbol, DATA_PROVIDER);
+            return closePrices;
+        }
+
+        content.lines()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && Character.isDigit(line.charAt(0)))
+                .forEach(line -> {
+                    var fields = line.split("\\s*,\\s*");
+                    closePrices.put(Long.parseLong(fields[TIME_INDEX]), BigDecimals.valueOf(fields[CLOSE_INDEX]));
+                });
+        log.debug("< {} candles have been loaded, symbol: \"{}\"", closePrices.size(), symbol);
+        return closePrices;
+    }
+
+    /**
+     * Reads the candle file of a symbol.
+     *
+     * @param symbol product name
+     * @return the content of the file or null if it does not exist
+     */
+    private String readFile(String symbol) {
+        var file = Path.of(directory, symbol + FILE_EXTENSION);
+        RateLimiter.get(DATA_PROVIDER).acquire();
+        DownloadStatistics.recordAttempt();
+        try {
+            var content = Files.readString(file);
+            DownloadStatistics.recordBytes(content.length());
+            return content;
+        } catch (IOException e) {
+            log.warn(DOWNLOAD_ERROR, symbol, DATA_PROVIDER, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Downloads the candle file of a symbol from the stub server.
+     *
+     * @param symbol product name
+     * @return the response body or null if the request has failed
+     */
+    private String fetch(String symbol) {
+        if (Objects.isNull(url)) {
+            log.warn("< the '{}' or the '{}' must be set in the data provider file", DIRECTORY_KEY, URL_KEY);
+            return null;
+        }
+
+        RateLimiter.get(DATA_PROVIDER).acquire();
+        DownloadStatistics.recordAttempt();
+        var request = HttpRequest.newBuilder()
+                .uri(URI.create(url + "/" + symbol + FILE_EXTENSION))
+                .GET()
+                .build();
+        try {
+            var response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+            var body = response.body();
+            DownloadStatistics.recordBytes(Objects.isNull(body) ? 0 : body.length());
+            return response.statusCode() == 200 ? body : null;
+        } catch (IOException e) {
+            log.warn(DOWNLOAD_ERROR, symbol, DATA_PROVIDER, e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn(DOWNLOAD_ERROR, symbol, DATA_PROVIDER, e.toString());
+        }
+        return null;
+    }
+}
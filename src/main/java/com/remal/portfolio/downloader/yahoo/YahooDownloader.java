@@ -1,11 +1,12 @@
 package com.remal.portfolio.downloader.yahoo;
 
+import com.remal.portfolio.downloader.DownloadStatistics;
 import com.remal.portfolio.downloader.Downloader;
+import com.remal.portfolio.downloader.RateLimiter;
 import com.remal.portfolio.model.DataProviderType;
 import com.remal.portfolio.model.Price;
 import com.remal.portfolio.util.Calendars;
 import com.remal.portfolio.util.Logger;
-import com.remal.portfolio.util.Sleep;
 import lombok.extern.slf4j.Slf4j;
 import yahoofinance.Stock;
 import yahoofinance.YahooFinance;
@@ -38,6 +39,16 @@ public class YahooDownloader implements Downloader {
      */
     private static final DataProviderType DATA_PROVIDER = DataProviderType.YAHOO;
 
+    /**
+     * Gets the data provider that is served by the downloader.
+     *
+     * @return the data provider
+     */
+    @Override
+    public DataProviderType getDataProvider() {
+        return DATA_PROVIDER;
+    }
+
     /**
      * Downloads the latest price of a stock. It uses the Yahoo REST API
      * to get the actual price.
@@ -48,6 +59,8 @@ public class YahooDownloader implements Downloader {
     @Override
     public Optional<Price> getPrice(String symbol) {
         log.debug("< getting the latest price of '{}', provider: '{}'...", symbol, DATA_PROVIDER);
+        RateLimiter.get(DATA_PROVIDER).acquire();
+        DownloadStatistics.recordAttempt();
         Optional<Price> marketPrice = Optional.empty();
 
         try {
@@ -96,7 +109,6 @@ public class YahooDownloader implements Downloader {
         if (marketPrice.isEmpty()) {
             actualTradeDate.set(Calendar.SECOND, 0);
             actualTradeDate.set(Calendar.MILLISECOND, 0);
-            Sleep.sleep(SLEEP_IN_MILLISECOND);
             marketPrice = download(symbol, actualTradeDate, retry);
         }
 
@@ -105,7 +117,6 @@ public class YahooDownloader implements Downloader {
             delay = delay * MULTIPLICITY;
             var amount = (int)(delay * -1);
             actualTradeDate.add(Calendar.MINUTE, amount);
-            Sleep.sleep(SLEEP_IN_MILLISECOND);
             marketPrice = download(symbol, actualTradeDate, retry);
             repetitions++;
         }
@@ -128,6 +139,8 @@ public class YahooDownloader implements Downloader {
      * @return the product's market price
      */
     private Optional<Price> download(final String symbol, final Calendar requestedTradeDate, AtomicInteger retry) {
+        RateLimiter.get(DATA_PROVIDER).acquire();
+        DownloadStatistics.recordAttempt();
         log.debug(
                 "< {}getting the price of \"{}\" at {}, provider: \"{}\"...",
                 retry.incrementAndGet() > 1 ? "(" + retry +") " : "",
@@ -20,6 +20,11 @@ public enum DataProviderType {
      */
     COINBASE_PRO,
 
+    /**
+     * Prices served from local CSV candle files or from a local HTTP server.
+     */
+    LOCAL,
+
     /**
      * This type use only used for currencies.
      */
@@ -20,6 +20,16 @@ public enum FileType {
      */
     CSV,
 
+    /**
+     * File type for *.xlsx files.
+     */
+    XLSX,
+
+    /**
+     * File type for *.png chart images.
+     */
+    PNG,
+
     /**
      * Used when an unsupported file type is given.
      */
@@ -12,16 +12,31 @@ import com.remal.portfolio.util.I18n;
  */
 public enum Label {
 
+    /**
+     * A column header.
+     */
+    HEADER_ANNUALIZED_TWR("header.annualized-twr"),
+
     /**
      * A column header.
      */
     HEADER_AVG_PRICE("header.avg-price"),
 
+    /**
+     * A column header.
+     */
+    HEADER_CLOSE("header.close"),
+
     /**
      * A column header.
      */
     HEADER_COSTS("header.costs"),
 
+    /**
+     * A column header.
+     */
+    HEADER_COUNT("header.count"),
+
     /**
      * A column header.
      */
@@ -47,11 +62,21 @@ public enum Label {
      */
     HEADER_FEE_CURRENCY("header.fee-currency"),
 
+    /**
+     * A column header.
+     */
+    HEADER_HIGH("header.high"),
+
     /**
      * A column header.
      */
     HEADER_INVESTED_AMOUNT("header.invested-amount"),
 
+    /**
+     * A column header.
+     */
+    HEADER_LOW("header.low"),
+
     /**
      * A column header.
      */
@@ -62,16 +87,41 @@ public enum Label {
      */
     HEADER_MARKET_VALUE("header.market-value"),
 
+    /**
+     * A column header.
+     */
+    HEADER_NET_DEPOSITS("header.net-deposits"),
+
+    /**
+     * A column header.
+     */
+    HEADER_OPEN("header.open"),
+
     /**
      * A column header.
      */
     HEADER_ORDER_ID("header.order-id"),
 
+    /**
+     * A column header.
+     */
+    HEADER_PERIOD_START("header.period-start"),
+
+    /**
+     * A column header.
+     */
+    HEADER_PERIOD_END("header.period-end"),
+
     /**
      * A column header.
      */
     HEADER_PORTFOLIO("header.portfolio"),
 
+    /**
+     * A column header.
+     */
+    HEADER_PORTFOLIO_VALUE("header.portfolio-value"),
+
     /**
      * A column header.
      */
@@ -122,6 +172,11 @@ public enum Label {
      */
     HEADER_TRANSFER_ID("header.transfer-id"),
 
+    /**
+     * A column header.
+     */
+    HEADER_TWR("header.twr"),
+
     /**
      * A column header.
      */
@@ -132,11 +187,26 @@ public enum Label {
      */
     HEADER_VALUATION("header.valuation"),
 
+    /**
+     * A column header.
+     */
+    HEADER_VWAP("header.vwap"),
+
+    /**
+     * A column header.
+     */
+    HEADER_WINDOW_START("header.window-start"),
+
     /**
      * A column header.
      */
     HEADER_WITHDRAWALS("header.withdrawals"),
 
+    /**
+     * A column header.
+     */
+    HEADER_XIRR("header.xirr"),
+
     /**
      * A simple text.
      */
@@ -213,6 +283,11 @@ public enum Label {
      */
     TITLE_GENERATED("title.generated"),
 
+    /**
+     * A report title.
+     */
+    TITLE_PERFORMANCE_REPORT("title.performance-report"),
+
     /**
      * A report title.
      */
@@ -47,6 +47,19 @@ public class LabelCollection {
             Label.HEADER_DEPOSITS,
             Label.HEADER_WITHDRAWALS);
 
+    /**
+     * List of the column headers in the performance report.
+     */
+    public static final List<Label> PERFORMANCE_TABLE_HEADERS = List.of(
+            Label.HEADER_PORTFOLIO,
+            Label.HEADER_PERIOD_START,
+            Label.HEADER_PERIOD_END,
+            Label.HEADER_NET_DEPOSITS,
+            Label.HEADER_PORTFOLIO_VALUE,
+            Label.HEADER_TWR,
+            Label.HEADER_ANNUALIZED_TWR,
+            Label.HEADER_XIRR);
+
     /**
      * List of the column headers in the price report.
      */
@@ -57,6 +70,19 @@ public class LabelCollection {
             Label.HEADER_REQUEST_DATE,
             Label.HEADER_DATA_PROVIDER);
 
+    /**
+     * List of the column headers in the price series report.
+     */
+    public static final List<Label> PRICE_BAR_HEADERS = List.of(
+            Label.HEADER_SYMBOL,
+            Label.HEADER_WINDOW_START,
+            Label.HEADER_OPEN,
+            Label.HEADER_HIGH,
+            Label.HEADER_LOW,
+            Label.HEADER_CLOSE,
+            Label.HEADER_VWAP,
+            Label.HEADER_COUNT);
+
     /**
      * List of the fields appear in the price report footer.
      */
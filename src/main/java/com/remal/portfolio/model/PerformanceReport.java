@@ -0,0 +1,71 @@
+package com.remal.portfolio.model;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * POJO that holds the return metrics of a portfolio.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Builder
+@ToString
+@Getter
+@EqualsAndHashCode
+public class PerformanceReport {
+
+    /**
+     * The portfolio name.
+     */
+    private String portfolio;
+
+    /**
+     * The currency of the amounts.
+     */
+    private CurrencyType currency;
+
+    /**
+     * The date of the first report in the period.
+     */
+    private LocalDateTime periodStart;
+
+    /**
+     * The date of the last report in the period.
+     */
+    private LocalDateTime periodEnd;
+
+    /**
+     * Deposits minus withdrawals during the period.
+     */
+    private BigDecimal netDeposits;
+
+    /**
+     * The market value of the portfolio, including the cash, at the end of
+     * the period.
+     */
+    private BigDecimal portfolioValue;
+
+    /**
+     * Time-weighted return of the period in percent.
+     */
+    private BigDecimal timeWeightedReturn;
+
+    /**
+     * Annualized time-weighted return in percent, only calculated for
+     * periods that are not shorter than a year.
+     */
+    private BigDecimal annualizedTimeWeightedReturn;
+
+    /**
+     * Money-weighted return (XIRR) in percent per year.
+     */
+    private BigDecimal moneyWeightedReturn;
+}
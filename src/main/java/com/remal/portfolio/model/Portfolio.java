@@ -5,8 +5,8 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -20,6 +20,14 @@ import java.util.Map;
 @Getter
 public class Portfolio {
 
+    /**
+     * The transaction types that move the cash balance of a trade.
+     */
+    private static final List<TransactionType> TRADE_TYPES = List.of(
+            TransactionType.BUY,
+            TransactionType.SELL,
+            TransactionType.DIVIDEND);
+
     /**
      * Portfolio name.
      */
@@ -41,7 +49,11 @@ public class Portfolio {
     }
 
     /**
-     * Adds transaction to the portfolio.
+     * Adds transaction to the portfolio. Every transaction is booked with a
+     * fixed set of postings: the position posting on the product of the
+     * transaction, the cash posting of a currency exchange or a trade on
+     * the cash product, and the fee posting on the product of the fee
+     * currency.
      *
      * @param transaction the transaction to add
      */
@@ -52,54 +64,49 @@ public class Portfolio {
         var product = products.computeIfAbsent(symbol, v -> new Product(portfolio, symbol, currency));
 
         product.addTransaction(transaction);
-        currencyExchangeAdministration(transaction);
-        feeAdministration(transaction);
-        invertTransactionAdministration(transaction);
+        postCurrencyExchange(transaction);
+        postFee(transaction);
+        postTrade(transaction);
     }
 
     /**
-     * It generates the opposite transaction and adds it to the cash balance.
+     * Books the opposite of a trade on the cash balance.
      *
      * @param transaction transaction
      */
-    private void invertTransactionAdministration(Transaction transaction) {
-        var type = transaction.getType();
-        var acceptedTypes = Arrays.asList(TransactionType.BUY, TransactionType.SELL, TransactionType.DIVIDEND);
+    private void postTrade(Transaction transaction) {
         var isCurrency = CurrencyType.isValid(transaction.getSymbol());
 
-        if (!isCurrency && acceptedTypes.contains(type)) {
-            var clonedTransaction = transaction
-                    .toBuilder()
-                    .type(invertTransactionType(transaction.getType()))
-                    .quantity(transaction.getQuantity().multiply(transaction.getPrice()))
-                    .price(BigDecimal.ONE)
-                    .build();
+        if (!isCurrency && TRADE_TYPES.contains(transaction.getType())) {
             var symbol = transaction.getPriceCurrency();
             var product = getProduct(symbol.name(), symbol);
-            product.addTransaction(clonedTransaction);
+            product.postCash(
+                    invertTransactionType(transaction.getType()),
+                    transaction.getQuantity().multiply(transaction.getPrice()),
+                    transaction.getInventoryValuation(),
+                    transaction.getFee(),
+                    transaction.getFeeCurrency());
         }
     }
 
     /**
-     * It generates an additional transaction in case of currency exchange.
+     * Books the target currency of a currency exchange on the cash balance.
      *
      * @param transaction transaction
      */
-    private void currencyExchangeAdministration(Transaction transaction) {
+    private void postCurrencyExchange(Transaction transaction) {
         var sourceCurrency = transaction.getSymbol();
         var targetCurrency = transaction.getPriceCurrency();
 
         if (CurrencyType.isValid(sourceCurrency) && CurrencyType.getEnum(sourceCurrency) != targetCurrency) {
             var product = getProduct(targetCurrency.name(), targetCurrency);
             var sameCurrencies = transaction.getPriceCurrency() == transaction.getFeeCurrency();
-            var exchangeTransaction = transaction
-                    .toBuilder()
-                    .type(invertTransactionType(transaction.getType()))
-                    .price(BigDecimal.ONE)
-                    .quantity(transaction.getQuantity().multiply(transaction.getPrice()))
-                    .fee(sameCurrencies ? transaction.getFee() : null)
-                    .build();
-            product.addTransaction(exchangeTransaction);
+            product.postCash(
+                    invertTransactionType(transaction.getType()),
+                    transaction.getQuantity().multiply(transaction.getPrice()),
+                    transaction.getInventoryValuation(),
+                    sameCurrencies ? transaction.getFee() : null,
+                    transaction.getFeeCurrency());
         }
     }
 
@@ -108,12 +115,11 @@ public class Portfolio {
      *
      * @param transaction transaction
      */
-    private void feeAdministration(Transaction transaction) {
+    private void postFee(Transaction transaction) {
         if (BigDecimals.isNotNullAndNotZero(transaction.getFee())) {
             var feeCurrency = transaction.getFeeCurrency();
             var product = getProduct(feeCurrency.name(), feeCurrency);
-            var fee = transaction.getFee();
-            product.setQuantity(product.getQuantity().subtract(fee));
+            product.postFee(transaction.getFee());
         }
     }
 
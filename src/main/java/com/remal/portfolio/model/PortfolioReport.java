@@ -6,6 +6,7 @@ import lombok.Getter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -92,7 +93,39 @@ public class PortfolioReport {
      * @param transactions list of transactions
      */
     public void addTransactions(List<Transaction> transactions) {
-        transactions.forEach(this::addTransaction);
+        transactions.forEach(transaction -> {
+            var portfolio = getPortfolio(transaction.getPortfolio());
+            portfolio.addTransaction(transaction);
+        });
+        updateTotals();
+    }
+
+    /**
+     * Adds transactions to the portfolio report, the portfolios are built
+     * in parallel on the common ForkJoin pool.
+     * <p>
+     * The transactions are partitioned by portfolio name, keeping their
+     * order. The portfolios are registered sequentially in the order of
+     * their first transaction, so the report is the same as the one built
+     * by {@link #addTransactions(List)}. The portfolios do not share any
+     * state, the totals of the report are summarized at the end.
+     * </p>
+     *
+     * @param transactions list of transactions
+     */
+    public void addTransactionsInParallel(List<Transaction> transactions) {
+        Map<String, List<Transaction>> partitions = new LinkedHashMap<>();
+        transactions.forEach(transaction -> partitions
+                .computeIfAbsent(transaction.getPortfolio(), x -> new ArrayList<>())
+                .add(transaction));
+        partitions.keySet().forEach(this::getPortfolio);
+
+        // the map of the portfolios is not modified from here, only read
+        partitions.entrySet().parallelStream().forEach(partition -> {
+            var portfolio = portfolios.get(partition.getKey());
+            partition.getValue().forEach(portfolio::addTransaction);
+        });
+        updateTotals();
     }
 
     /**
@@ -101,16 +134,20 @@ public class PortfolioReport {
      * @param transaction transaction
      */
     public void addTransaction(Transaction transaction) {
-        var portfolioName = transaction.getPortfolio();
-        var portfolio = portfolios.computeIfAbsent(portfolioName, x -> new Portfolio(portfolioName));
+        var portfolio = getPortfolio(transaction.getPortfolio());
         portfolio.addTransaction(transaction);
         updateTotals();
     }
 
     /**
-     * Update profit and loss related values.
+     * Update profit and loss related values. The valuation of the products
+     * is calculated here, once per market price update.
      */
     public void updateProfitLoss() {
+        portfolios.forEach((name, portfolio) -> portfolio.getProducts()
+                .values()
+                .forEach(product -> product.updateValuation(exchangeAndSum(product.getFees()))));
+
         investments.clear();
         marketValues.clear();
         portfolios.forEach((name, portfolio) -> portfolio.getProducts()
@@ -120,8 +157,9 @@ public class PortfolioReport {
                 .forEach(productEntry -> {
                     var product = productEntry.getValue();
                     var symbol = productEntry.getValue().getCurrency().name();
-                    var investedAmount = product.getInvestedAmount();
-                    var marketValue = product.getMarketValue();
+                    var valuation = product.getValuation();
+                    var investedAmount = valuation.getInvestedAmount();
+                    var marketValue = valuation.getMarketValue();
 
                     if (Objects.nonNull(investedAmount)) {
                         investments.put(symbol, investedAmount.add(investments.getOrDefault(symbol, BigDecimal.ZERO)));
@@ -141,7 +179,7 @@ public class PortfolioReport {
                         .forEach(entry -> {
                             var product = entry.getValue();
                             var symbol = product.getCurrency().name();
-                            var pl = product.getProfitAndLoss();
+                            var pl = product.getValuation().getProfitAndLoss();
                             profitLoss.put(symbol, profitLoss.getOrDefault(symbol, BigDecimal.ZERO).add(pl));
                         }));
     }
@@ -149,7 +187,7 @@ public class PortfolioReport {
     /**
      * Calculates the value of the totals in portfolio.
      */
-    private void updateTotals() {
+    void updateTotals() {
         cashInPortfolio.clear();
         deposits.clear();
         withdrawals.clear();
@@ -161,21 +199,18 @@ public class PortfolioReport {
                         .filter(productEntry -> CurrencyType.isValid(productEntry.getKey()))
                         .forEach(productEntry -> {
                             var symbol = productEntry.getKey();
+                            var product = productEntry.getValue();
 
                             // cash in portfolio
                             var cashActual = cashInPortfolio.computeIfAbsent(symbol, x -> BigDecimal.ZERO);
-                            cashInPortfolio.put(symbol, cashActual.add(productEntry.getValue().getQuantity()));
+                            cashInPortfolio.put(symbol, cashActual.add(product.getQuantity()));
 
                             // deposits
-                            var depositActual = sumQuantities(
-                                    TransactionType.DEPOSIT,
-                                    productEntry.getValue().getTransactionHistory());
+                            var depositActual = nullToZero(product.getDeposits());
                             deposits.put(symbol, depositActual.add(deposits.getOrDefault(symbol, BigDecimal.ZERO)));
 
                             // withdrawals
-                            var withdrawalsActual = sumQuantities(
-                                    TransactionType.WITHDRAWAL,
-                                    productEntry.getValue().getTransactionHistory());
+                            var withdrawalsActual = nullToZero(product.getWithdrawals());
                             withdrawals.put(
                                     symbol,
                                     withdrawalsActual.add(withdrawals.getOrDefault(symbol, BigDecimal.ZERO)));
@@ -184,17 +219,43 @@ public class PortfolioReport {
     }
 
     /**
-     * Summaries the quantities that fits to the condition.
+     * Converts the values to the currency of the report and sums them.
      *
-     * @param transactionType condition
-     * @param transactions transactions
-     * @return the sum
+     * @param values the values by currency
+     * @return the total or null if the exchange rates are not known
      */
-    private BigDecimal sumQuantities(TransactionType transactionType, List<Transaction> transactions) {
-        return transactions
-                .stream()
-                .filter(transaction -> transaction.getType() == transactionType)
-                .map(Transaction::getQuantity)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public BigDecimal exchangeAndSum(Map<String, BigDecimal> values) {
+        if (exchangeRates.isEmpty()) {
+            return null;
+        }
+
+        var total = BigDecimal.ZERO;
+        for (var entry : values.entrySet()) {
+            var value = nullToZero(entry.getValue());
+            var exchangeRate = exchangeRates.get(entry.getKey() + "-" + currency);
+            total = total.add(Objects.isNull(exchangeRate) ? value : value.multiply(exchangeRate));
+        }
+        return total;
+    }
+
+    /**
+     * Returns with the requested portfolio. If it does not exist then it will
+     * be generated and added to the portfolio list before returns it.
+     *
+     * @param portfolioName portfolio name
+     * @return the portfolio object
+     */
+    private Portfolio getPortfolio(String portfolioName) {
+        return portfolios.computeIfAbsent(portfolioName, x -> new Portfolio(portfolioName));
+    }
+
+    /**
+     * Converts null to zero.
+     *
+     * @param value the value
+     * @return the value or zero if it is null
+     */
+    private BigDecimal nullToZero(BigDecimal value) {
+        return Objects.isNull(value) ? BigDecimal.ZERO : value;
     }
 }
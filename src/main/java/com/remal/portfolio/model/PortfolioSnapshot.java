@@ -0,0 +1,457 @@
+package com.remal.portfolio.model;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Checkpoint of the portfolio report state at a given trade date.
+ * <p>
+ * The snapshot keeps the state of every product (quantity, average price,
+ * supply, fees, deposits and withdrawals), so the transactions before the
+ * snapshot date do not need to be replayed again. The number and the digest
+ * of the transactions covered by the snapshot are stored as well, so the
+ * snapshot is ignored if the transaction history has been changed since
+ * the snapshot was taken. Only the latest snapshots are kept in the
+ * snapshot directory.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+@Getter
+public class PortfolioSnapshot {
+
+    /**
+     * Extension of the snapshot files.
+     */
+    public static final String FILE_EXTENSION = ".snapshot";
+
+    /**
+     * Prefix of the snapshot files.
+     */
+    private static final String FILE_PREFIX = "portfolio_";
+
+    /**
+     * Date pattern used in the name of the snapshot files.
+     */
+    private static final DateTimeFormatter FILE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    /**
+     * File format identifier.
+     */
+    private static final String MAGIC = "PORTFOLIO-SNAPSHOT";
+
+    /**
+     * File format version.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The number of the snapshot files that are kept in the snapshot
+     * directory, the older ones are deleted.
+     */
+    private static final int MAX_SNAPSHOTS = 5;
+
+    /**
+     * Separates the fields of the transactions in the digest.
+     */
+    private static final byte FIELD_SEPARATOR = 0x1F;
+
+    /**
+     * The trade date of the last transaction covered by the snapshot.
+     */
+    private final LocalDateTime tradeDate;
+
+    /**
+     * The number of the transactions covered by the snapshot.
+     */
+    private final int transactionCount;
+
+    /**
+     * Digest of the transactions covered by the snapshot.
+     */
+    private final String digest;
+
+    /**
+     * The serialized portfolio state.
+     */
+    private final byte[] state;
+
+    /**
+     * Constructor.
+     *
+     * @param tradeDate trade date of the last transaction covered by the snapshot
+     * @param transactionCount number of the transactions covered by the snapshot
+     * @param digest digest of the transactions covered by the snapshot
+     * @param state the serialized portfolio state
+     */
+    private PortfolioSnapshot(LocalDateTime tradeDate, int transactionCount, String digest, byte[] state) {
+        this.tradeDate = tradeDate;
+        this.transactionCount = transactionCount;
+        this.digest = digest;
+        this.state = state;
+    }
+
+    /**
+     * Writes the snapshot of the portfolio report to the snapshot directory.
+     * The portfolio report must contain exactly the given transactions.
+     *
+     * @param directory path to the snapshot directory
+     * @param portfolioReport the portfolio report
+     * @param transactions the transactions added to the report, sorted by trade date
+     */
+    public static void write(String directory, PortfolioReport portfolioReport, List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        var tradeDate = transactions.get(transactions.size() - 1).getTradeDate();
+        var file = new File(directory, FILE_PREFIX + FILE_DATE_FORMATTER.format(tradeDate) + FILE_EXTENSION);
+        try {
+            java.nio.file.Files.createDirectories(file.getParentFile().toPath());
+            try (var out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+                var state = serialize(portfolioReport);
+                out.writeUTF(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(tradeDate.toString());
+                out.writeInt(transactions.size());
+                out.writeUTF(digest(transactions, transactions.size()));
+                out.writeInt(state.length);
+                out.write(state);
+            }
+            log.info("> the portfolio snapshot has been written to \"{}\"", file);
+        } catch (IOException e) {
+            log.warn("> the portfolio snapshot can not be written to \"{}\": {}", file, e.toString());
+        }
+        prune(directory);
+    }
+
+    /**
+     * Deletes the snapshot files from the directory, except the last
+     * written ones.
+     *
+     * @param directory path to the snapshot directory
+     */
+    private static void prune(String directory) {
+        var files = new File(directory).listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (Objects.isNull(files)) {
+            return;
+        }
+
+        Arrays.stream(files)
+                .sorted(Comparator.comparingLong(File::lastModified).reversed())
+                .skip(MAX_SNAPSHOTS)
+                .forEach(file -> {
+                    try {
+                        java.nio.file.Files.delete(file.toPath());
+                        log.debug("> the old portfolio snapshot \"{}\" has been deleted", file);
+                    } catch (IOException e) {
+                        log.warn("> the portfolio snapshot \"{}\" can not be deleted: {}", file, e.toString());
+                    }
+                });
+    }
+
+    /**
+     * Finds the latest valid snapshot in the directory that is not after the
+     * given date and covers the beginning of the transaction list.
+     *
+     * @param directory path to the snapshot directory
+     * @param to the latest acceptable trade date, can be null
+     * @param transactions the transactions, sorted by trade date
+     * @return the snapshot if exists
+     */
+    public static Optional<PortfolioSnapshot> findLatest(String directory,
+                                                         LocalDateTime to,
+                                                         List<Transaction> transactions) {
+        var files = new File(directory).listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (Objects.isNull(files)) {
+            return Optional.empty();
+        }
+
+        return Arrays.stream(files)
+                .map(PortfolioSnapshot::read)
+                .flatMap(Optional::stream)
+                .filter(snapshot -> Objects.isNull(to) || !snapshot.getTradeDate().isAfter(to))
+                .sorted(Comparator.comparing(PortfolioSnapshot::getTradeDate).reversed())
+                .filter(snapshot -> snapshot.isPrefixOf(transactions))
+                .findFirst();
+    }
+
+    /**
+     * Restores the portfolio state to an empty portfolio report.
+     *
+     * @param portfolioReport the portfolio report to restore the state to
+     */
+    public void restore(PortfolioReport portfolioReport) {
+        try (var in = new DataInputStream(new ByteArrayInputStream(state))) {
+            var portfolioCount = in.readInt();
+            for (var i = 0; i < portfolioCount; i++) {
+                var portfolioName = readString(in);
+                var portfolio = new Portfolio(portfolioName);
+                var productCount = in.readInt();
+                for (var j = 0; j < productCount; j++) {
+                    var key = readString(in);
+                    var portfolioOfProduct = readString(in);
+                    var symbol = readString(in);
+                    var currency = readString(in);
+                    var product = new Product(
+                            portfolioOfProduct,
+                            symbol,
+                            Objects.isNull(currency) ? null : CurrencyType.getEnum(currency));
+                    product.setQuantity(readBigDecimal(in));
+                    product.setAveragePrice(readBigDecimal(in));
+                    product.setDeposits(readBigDecimal(in));
+                    product.setWithdrawals(readBigDecimal(in));
+                    readMap(in, product.getFees(), false);
+                    readMap(in, product.getSupply(), true);
+                    portfolio.getProducts().put(key, product);
+                }
+                portfolioReport.getPortfolios().put(portfolioName, portfolio);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid portfolio snapshot.", e);
+        }
+        portfolioReport.updateTotals();
+    }
+
+    /**
+     * Serializes the state of the portfolio report. Two reports that have
+     * the same state produce the same byte array.
+     *
+     * @param portfolioReport the portfolio report
+     * @return the serialized state
+     */
+    public static byte[] serialize(PortfolioReport portfolioReport) {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(portfolioReport.getPortfolios().size());
+            for (var portfolioEntry : portfolioReport.getPortfolios().entrySet()) {
+                writeString(out, portfolioEntry.getKey());
+                var products = portfolioEntry.getValue().getProducts();
+                out.writeInt(products.size());
+                for (var productEntry : products.entrySet()) {
+                    var product = productEntry.getValue();
+                    writeString(out, productEntry.getKey());
+                    writeString(out, product.getPortfolio());
+                    writeString(out, product.getSymbol());
+                    writeString(out, Objects.isNull(product.getCurrency()) ? null : product.getCurrency().name());
+                    writeBigDecimal(out, product.getQuantity());
+                    writeBigDecimal(out, product.getAveragePrice());
+                    writeBigDecimal(out, product.getDeposits());
+                    writeBigDecimal(out, product.getWithdrawals());
+                    writeMap(out, product.getFees());
+                    writeMap(out, product.getSupply());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error while serializing the portfolio report.", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the snapshot file.
+     *
+     * @param file the snapshot file
+     * @return the snapshot or empty if the file is invalid
+     */
+    private static Optional<PortfolioSnapshot> read(File file) {
+        try (var in = new DataInputStream(new GZIPInputStream(new FileInputStream(file)))) {
+            if (!MAGIC.equals(in.readUTF()) || in.readInt() != VERSION) {
+                log.warn("< invalid portfolio snapshot file: \"{}\"", file);
+                return Optional.empty();
+            }
+
+            var tradeDate = LocalDateTime.parse(in.readUTF());
+            var transactionCount = in.readInt();
+            var digest = in.readUTF();
+            var state = in.readNBytes(in.readInt());
+            return Optional.of(new PortfolioSnapshot(tradeDate, transactionCount, digest, state));
+        } catch (IOException | RuntimeException e) {
+            log.warn("< the portfolio snapshot \"{}\" can not be read: {}", file, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Checks whether the transactions covered by the snapshot are the
+     * same as the first transactions of the list.
+     *
+     * @param transactions the transactions, sorted by trade date
+     * @return true if the snapshot can be used with the transactions
+     */
+    private boolean isPrefixOf(List<Transaction> transactions) {
+        if (transactionCount > transactions.size()) {
+            return false;
+        }
+
+        var nextTransactionAfterSnapshot = transactionCount == transactions.size()
+                || transactions.get(transactionCount).getTradeDate().isAfter(tradeDate);
+        var valid = nextTransactionAfterSnapshot && digest.equals(digest(transactions, transactionCount));
+        if (!valid) {
+            log.debug("< the transaction history has been changed since the {} snapshot", tradeDate);
+        }
+        return valid;
+    }
+
+    /**
+     * Calculates the digest of the first N transactions.
+     *
+     * @param transactions the transactions
+     * @param count the number of the transactions to consider
+     * @return the digest as a hex string
+     */
+    private static String digest(List<Transaction> transactions, int count) {
+        try {
+            var messageDigest = MessageDigest.getInstance("SHA-256");
+            transactions
+                    .stream()
+                    .limit(count)
+                    .forEach(transaction -> digest(messageDigest, transaction));
+            return HexFormat.of().formatHex(messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Adds the fields of a transaction to the digest. The fields are listed
+     * explicitly in a fixed order, so the digest does not depend on the
+     * string representation of the transaction.
+     *
+     * @param messageDigest the digest
+     * @param transaction the transaction
+     */
+    private static void digest(MessageDigest messageDigest, Transaction transaction) {
+        Arrays.asList(
+                transaction.getPortfolio(),
+                transaction.getType(),
+                transaction.getTradeDate(),
+                transaction.getQuantity(),
+                transaction.getPrice(),
+                transaction.getPriceCurrency(),
+                transaction.getFee(),
+                transaction.getFeeCurrency(),
+                transaction.getSymbol(),
+                transaction.getTransferId(),
+                transaction.getTradeId(),
+                transaction.getOrderId(),
+                transaction.getInventoryValuation()
+        ).forEach(field -> {
+            if (Objects.nonNull(field)) {
+                messageDigest.update(field.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            messageDigest.update(FIELD_SEPARATOR);
+        });
+    }
+
+    /**
+     * Writes a nullable string.
+     *
+     * @param out the output stream
+     * @param value the value to write
+     * @throws IOException in case of error
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(Objects.nonNull(value));
+        if (Objects.nonNull(value)) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Reads a nullable string.
+     *
+     * @param in the input stream
+     * @return the value
+     * @throws IOException in case of error
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Writes a nullable BigDecimal, keeping its scale.
+     *
+     * @param out the output stream
+     * @param value the value to write
+     * @throws IOException in case of error
+     */
+    private static void writeBigDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        writeString(out, Objects.isNull(value) ? null : value.toString());
+    }
+
+    /**
+     * Reads a nullable BigDecimal.
+     *
+     * @param in the input stream
+     * @return the value
+     * @throws IOException in case of error
+     */
+    private static BigDecimal readBigDecimal(DataInputStream in) throws IOException {
+        var value = readString(in);
+        return Objects.isNull(value) ? null : new BigDecimal(value);
+    }
+
+    /**
+     * Writes a map, keeping the order of its entries.
+     *
+     * @param out the output stream
+     * @param map the map to write
+     * @throws IOException in case of error
+     */
+    private static void writeMap(DataOutputStream out, Map<?, BigDecimal> map) throws IOException {
+        out.writeInt(map.size());
+        for (var entry : map.entrySet()) {
+            out.writeUTF(entry.getKey().toString());
+            writeBigDecimal(out, entry.getValue());
+        }
+    }
+
+    /**
+     * Reads a map.
+     *
+     * @param in the input stream
+     * @param map the map to put the entries into
+     * @param decimalKey true if the keys are BigDecimals
+     * @param <K> the type of the key
+     * @throws IOException in case of error
+     */
+    @SuppressWarnings("unchecked")
+    private static <K> void readMap(DataInputStream in, Map<K, BigDecimal> map, boolean decimalKey)
+            throws IOException {
+
+        var size = in.readInt();
+        for (var i = 0; i < size; i++) {
+            var key = in.readUTF();
+            map.put((K) (decimalKey ? new BigDecimal(key) : key), readBigDecimal(in));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.remal.portfolio.model;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDateTime;
+
+/**
+ * POJO that holds the aggregated market prices of a symbol within a time
+ * window: open, high, low, close (the last price) and VWAP.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Builder
+@ToString
+@Getter
+@Setter
+@EqualsAndHashCode
+public class PriceBar {
+
+    /**
+     * The product symbol.
+     */
+    private String symbol;
+
+    /**
+     * The start of the time window, based on the trade dates.
+     */
+    private LocalDateTime windowStart;
+
+    /**
+     * The trade date of the first price within the window.
+     */
+    private LocalDateTime openDate;
+
+    /**
+     * The first price within the window.
+     */
+    private BigDecimal open;
+
+    /**
+     * The highest price within the window.
+     */
+    private BigDecimal high;
+
+    /**
+     * The lowest price within the window.
+     */
+    private BigDecimal low;
+
+    /**
+     * The trade date of the last price within the window.
+     */
+    private LocalDateTime closeDate;
+
+    /**
+     * The last price within the window.
+     */
+    private BigDecimal close;
+
+    /**
+     * Sum of the prices within the window.
+     */
+    private BigDecimal sum;
+
+    /**
+     * Number of the prices within the window.
+     */
+    private long count;
+
+    /**
+     * Creates a bar that holds one price.
+     *
+     * @param price the price
+     * @param windowStart the start of the window that the price belongs to
+     * @return the bar
+     */
+    public static PriceBar of(Price price, LocalDateTime windowStart) {
+        var unitPrice = price.getUnitPrice();
+        return PriceBar
+                .builder()
+                .symbol(price.getSymbol())
+                .windowStart(windowStart)
+                .openDate(price.getTradeDate())
+                .open(unitPrice)
+                .high(unitPrice)
+                .low(unitPrice)
+                .closeDate(price.getTradeDate())
+                .close(unitPrice)
+                .sum(unitPrice)
+                .count(1)
+                .build();
+    }
+
+    /**
+     * Adds the prices of another bar of the same window to this bar. The
+     * order of the merges does not matter, the open and close prices are
+     * selected by the trade dates.
+     *
+     * @param other the other bar
+     */
+    public void merge(PriceBar other) {
+        if (other.openDate.isBefore(openDate)) {
+            openDate = other.openDate;
+            open = other.open;
+        }
+        if (!other.closeDate.isBefore(closeDate)) {
+            closeDate = other.closeDate;
+            close = other.close;
+        }
+        high = high.max(other.high);
+        low = low.min(other.low);
+        sum = sum.add(other.sum);
+        count += other.count;
+    }
+
+    /**
+     * Gets the volume weighted average price of the window. The price
+     * history does not contain volumes, so each price has the same weight.
+     *
+     * @return the average price
+     */
+    public BigDecimal getVwap() {
+        return sum.divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+    }
+}
@@ -0,0 +1,409 @@
+package com.remal.portfolio.model;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Downsampled tier of a price history file.
+ * <p>
+ * A tier keeps one bar per symbol and time window, the windows are aligned
+ * to the length of the multiplicity. The 1 minute, 1 hour and 1 day tiers
+ * are built in one pass over the prices and they are stored next to the
+ * price history file, e.g. "prices.md.one_hour.rollup". The new prices are
+ * folded into the stored bars, so the history file is not read again after
+ * a write. A tier is only used while the size and the last modified time of
+ * the history file match with the values stored in the tier.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class PriceRollup {
+
+    /**
+     * The extension of the tier files.
+     */
+    public static final String FILE_EXTENSION = ".rollup";
+
+    /**
+     * The tiers that are built from the price history, from the finest to
+     * the coarsest.
+     */
+    public static final List<MultiplicityType> TIERS = List.of(
+            MultiplicityType.ONE_MINUTE,
+            MultiplicityType.ONE_HOUR,
+            MultiplicityType.ONE_DAY);
+
+    /**
+     * The minimum number of windows that a range query must cover in the
+     * selected tier.
+     */
+    private static final long MIN_BARS = 100;
+
+    /**
+     * Separator used in the tier file.
+     */
+    private static final String SEPARATOR = "\t";
+
+    /**
+     * The window length of the tier.
+     */
+    @Getter
+    private final MultiplicityType tier;
+
+    /**
+     * The bars per symbol, ordered by the window start.
+     */
+    private final Map<String, TreeMap<LocalDateTime, PriceBar>> bars = new HashMap<>();
+
+    /**
+     * The size of the price history file when the tier was loaded or
+     * written, -1 if the tier has not been stored yet.
+     */
+    private long historyLength = -1;
+
+    /**
+     * The last modified time of the price history file when the tier was
+     * loaded or written, -1 if the tier has not been stored yet.
+     */
+    private long historyLastModified = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param tier the window length of the tier
+     */
+    private PriceRollup(MultiplicityType tier) {
+        this.tier = tier;
+    }
+
+    /**
+     * Gets the path of a tier file.
+     *
+     * @param historyFile path to the price history file
+     * @param tier the window length of the tier
+     * @return path to the tier file
+     */
+    public static String getTierFile(String historyFile, MultiplicityType tier) {
+        return historyFile + "." + tier.name().toLowerCase() + FILE_EXTENSION;
+    }
+
+    /**
+     * Checks whether any tier file exists for the price history file.
+     *
+     * @param historyFile path to the price history file
+     * @return true if the rollup has been enabled for the history file
+     */
+    public static boolean exists(String historyFile) {
+        return TIERS.stream().anyMatch(tier -> new File(getTierFile(historyFile, tier)).exists());
+    }
+
+    /**
+     * Calculates the start of the window that the date belongs to.
+     *
+     * @param tier the window length
+     * @param date the date
+     * @return the start of the window
+     */
+    public static LocalDateTime getWindowStart(MultiplicityType tier, LocalDateTime date) {
+        var length = tier.getRangeLengthInSec();
+        var seconds = date.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(seconds, length) * length, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Selects the coarsest tier that still has enough windows within the
+     * range, e.g. the 1 day tier for a year and the 1 hour tier for a week.
+     *
+     * @param from start of the range
+     * @param to end of the range
+     * @return the tier
+     */
+    public static MultiplicityType selectTier(LocalDateTime from, LocalDateTime to) {
+        var rangeInSec = Duration.between(from, to).getSeconds();
+        for (var i = TIERS.size() - 1; i > 0; i--) {
+            if (rangeInSec / TIERS.get(i).getRangeLengthInSec() >= MIN_BARS) {
+                return TIERS.get(i);
+            }
+        }
+        return TIERS.get(0);
+    }
+
+    /**
+     * Loads the tiers of the price history file.
+     *
+     * @param historyFile path to the price history file
+     * @return the tiers or an empty map if any of them does not exist or
+     *         out of date
+     */
+    public static Map<MultiplicityType, PriceRollup> load(String historyFile) {
+        Map<MultiplicityType, PriceRollup> rollups = new EnumMap<>(MultiplicityType.class);
+        for (var tier : TIERS) {
+            var rollup = load(historyFile, tier);
+            if (Objects.isNull(rollup)) {
+                return new EnumMap<>(MultiplicityType.class);
+            }
+            rollups.put(tier, rollup);
+        }
+        return rollups;
+    }
+
+    /**
+     * Loads the tiers of the price history file. The tiers are rebuilt from
+     * the price history if any of them does not exist or out of date.
+     *
+     * @param historyFile path to the price history file
+     * @param history reads the content of the price history file
+     * @return the tiers
+     */
+    public static Map<MultiplicityType, PriceRollup> loadOrBuild(String historyFile, Supplier<List<Price>> history) {
+        var rollups = load(historyFile);
+        if (rollups.isEmpty()) {
+            log.info("< building the rollup tiers of \"{}\"...", historyFile);
+            rollups = build(historyFile, history.get());
+        }
+        return rollups;
+    }
+
+    /**
+     * Aggregates the prices into the tiers in one pass and writes the tier
+     * files next to the price history file.
+     *
+     * @param historyFile path to the price history file
+     * @param prices the content of the price history file
+     * @return the tiers
+     */
+    public static Map<MultiplicityType, PriceRollup> build(String historyFile, List<Price> prices) {
+        Map<MultiplicityType, PriceRollup> rollups = new EnumMap<>(MultiplicityType.class);
+        TIERS.forEach(tier -> rollups.put(tier, new PriceRollup(tier)));
+        update(historyFile, rollups, prices);
+        return rollups;
+    }
+
+    /**
+     * Folds the new prices into the tiers and writes the tier files. It must
+     * be called after the prices have been written to the history file, the
+     * tiers are not changed if the write has failed.
+     *
+     * @param historyFile path to the price history file
+     * @param rollups the tiers that were up-to-date before the write
+     * @param prices the new prices
+     */
+    public static void update(String historyFile, Map<MultiplicityType, PriceRollup> rollups, List<Price> prices) {
+        var file = new File(historyFile);
+        if (rollups.values().stream().allMatch(rollup -> rollup.isInSyncWith(file))) {
+            log.debug("> the \"{}\" file has not been changed, the rollup is skipped", historyFile);
+            return;
+        }
+
+        prices.stream()
+                .filter(price -> Objects.nonNull(price.getSymbol()) && Objects.nonNull(price.getTradeDate()))
+                .filter(price -> Objects.nonNull(price.getUnitPrice()))
+                .forEach(price -> rollups.values().forEach(rollup -> rollup.add(price)));
+        rollups.values().forEach(rollup -> rollup.write(historyFile));
+    }
+
+    /**
+     * Gets the bars of a symbol within a period.
+     *
+     * @param symbol product symbol
+     * @param from start of the period
+     * @param to end of the period
+     * @return the bars ordered by the window start
+     */
+    public List<PriceBar> getBars(String symbol, LocalDateTime from, LocalDateTime to) {
+        var symbolBars = bars.get(symbol);
+        if (Objects.isNull(symbolBars)) {
+            return List.of();
+        }
+
+        return symbolBars
+                .subMap(getWindowStart(tier, from), true, to, true)
+                .values()
+                .stream()
+                .filter(bar -> !bar.getCloseDate().isBefore(from) && !bar.getOpenDate().isAfter(to))
+                .toList();
+    }
+
+    /**
+     * Finds the latest bar that was closed at or before the date. The bar
+     * is only accepted if its last price is not older than one window.
+     *
+     * @param symbol product symbol
+     * @param date the date
+     * @return the bar if exists
+     */
+    public Optional<PriceBar> findLastClose(String symbol, LocalDateTime date) {
+        var symbolBars = bars.get(symbol);
+        if (Objects.isNull(symbolBars)) {
+            return Optional.empty();
+        }
+
+        var entry = symbolBars.floorEntry(getWindowStart(tier, date));
+        if (Objects.nonNull(entry) && entry.getValue().getCloseDate().isAfter(date)) {
+            entry = symbolBars.lowerEntry(entry.getKey());
+        }
+        return Optional.ofNullable(entry)
+                .map(Map.Entry::getValue)
+                .filter(bar -> Duration.between(bar.getCloseDate(), date).getSeconds() <= tier.getRangeLengthInSec());
+    }
+
+    /**
+     * Checks whether the tier belongs to the current content of the price
+     * history file.
+     *
+     * @param file the price history file
+     * @return true if the history file has not been changed since the tier
+     *         was loaded or written
+     */
+    private boolean isInSyncWith(File file) {
+        return file.length() == historyLength && file.lastModified() == historyLastModified;
+    }
+
+    /**
+     * Folds a price into the bar of its window.
+     *
+     * @param price the price
+     */
+    private void add(Price price) {
+        add(PriceBar.of(price, getWindowStart(tier, price.getTradeDate())));
+    }
+
+    /**
+     * Merges a bar with the bar of the same window.
+     *
+     * @param bar the bar
+     */
+    private void add(PriceBar bar) {
+        bars.computeIfAbsent(bar.getSymbol(), x -> new TreeMap<>()).merge(bar.getWindowStart(), bar, (a, b) -> {
+            a.merge(b);
+            return a;
+        });
+    }
+
+    /**
+     * Loads a tier of the price history file.
+     *
+     * @param historyFile path to the price history file
+     * @param tier the window length of the tier
+     * @return the tier or null if the tier does not exist or out of date
+     */
+    private static PriceRollup load(String historyFile, MultiplicityType tier) {
+        var file = new File(historyFile);
+        var tierFile = Path.of(getTierFile(historyFile, tier));
+        if (!file.exists() || !tierFile.toFile().exists()) {
+            return null;
+        }
+
+        try {
+            var lines = java.nio.file.Files.readAllLines(tierFile, StandardCharsets.UTF_8);
+            var header = lines.isEmpty() ? new String[0] : lines.get(0).split(SEPARATOR);
+            if (header.length != 2
+                    || Long.parseLong(header[0]) != file.length()
+                    || Long.parseLong(header[1]) != file.lastModified()) {
+                log.debug("< the \"{}\" rollup is out of date", tierFile);
+                return null;
+            }
+
+            var rollup = new PriceRollup(tier);
+            rollup.historyLength = file.length();
+            rollup.historyLastModified = file.lastModified();
+            lines.stream().skip(1).filter(line -> !line.isBlank()).forEach(line -> rollup.add(parse(line)));
+            log.debug("< the \"{}\" rollup has been loaded, bars: {}", tierFile, lines.size() - 1);
+            return rollup;
+        } catch (IOException | RuntimeException e) {
+            log.warn("< the \"{}\" rollup can not be read and will be ignored: {}", tierFile, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the tier file next to the price history file.
+     *
+     * @param historyFile path to the price history file
+     */
+    private void write(String historyFile) {
+        var file = new File(historyFile);
+        var tierFile = Path.of(getTierFile(historyFile, tier));
+        historyLength = file.length();
+        historyLastModified = file.lastModified();
+        var content = new StringBuilder()
+                .append(historyLength).append(SEPARATOR).append(historyLastModified)
+                .append(System.lineSeparator());
+
+        List<PriceBar> allBars = new ArrayList<>();
+        bars.values().forEach(symbolBars -> allBars.addAll(symbolBars.values()));
+        allBars.forEach(bar -> content.append(format(bar)).append(System.lineSeparator()));
+
+        try {
+            java.nio.file.Files.writeString(tierFile, content, StandardCharsets.UTF_8);
+            log.debug("> the \"{}\" rollup has been written, bars: {}", tierFile, allBars.size());
+        } catch (IOException e) {
+            log.warn("> the \"{}\" rollup can not be written: {}", tierFile, e.toString());
+        }
+    }
+
+    /**
+     * Converts a bar to a line of the tier file.
+     *
+     * @param bar the bar
+     * @return the line
+     */
+    private static String format(PriceBar bar) {
+        return String.join(SEPARATOR,
+                bar.getSymbol(),
+                bar.getWindowStart().toString(),
+                bar.getOpenDate().toString(),
+                bar.getOpen().toPlainString(),
+                bar.getHigh().toPlainString(),
+                bar.getLow().toPlainString(),
+                bar.getCloseDate().toString(),
+                bar.getClose().toPlainString(),
+                bar.getSum().toPlainString(),
+                String.valueOf(bar.getCount()));
+    }
+
+    /**
+     * Converts a line of the tier file to a bar.
+     *
+     * @param line the line
+     * @return the bar
+     */
+    private static PriceBar parse(String line) {
+        var fields = line.split(SEPARATOR, -1);
+        return PriceBar
+                .builder()
+                .symbol(fields[0])
+                .windowStart(LocalDateTime.parse(fields[1]))
+                .openDate(LocalDateTime.parse(fields[2]))
+                .open(new BigDecimal(fields[3]))
+                .high(new BigDecimal(fields[4]))
+                .low(new BigDecimal(fields[5]))
+                .closeDate(LocalDateTime.parse(fields[6]))
+                .close(new BigDecimal(fields[7]))
+                .sum(new BigDecimal(fields[8]))
+                .count(Long.parseLong(fields[9]))
+                .build();
+    }
+}
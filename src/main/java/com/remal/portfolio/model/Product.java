@@ -1,6 +1,7 @@
 package com.remal.portfolio.model;
 
 import com.remal.portfolio.util.BigDecimals;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -9,7 +10,6 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
@@ -44,7 +44,6 @@ public class Product {
     /**
      * The number of the shares that she owns.
      */
-    @Setter
     private BigDecimal quantity = BigDecimal.ZERO;
 
     /**
@@ -57,17 +56,24 @@ public class Product {
     /**
      *  Market price represents the market valuation per share of a company.
      */
-    @Setter
     private Price marketPrice;
 
+    /**
+     * The valuation at the last market price update, null if it has not
+     * been calculated yet or the product has changed since then.
+     */
+    private ProductValuation valuation;
+
     /**
      * The sum of the deposits.
      */
+    @Setter(AccessLevel.PACKAGE)
     private BigDecimal deposits;
 
     /**
      * The sum of the withdrawals.
      */
+    @Setter(AccessLevel.PACKAGE)
     private BigDecimal withdrawals;
 
     /**
@@ -75,16 +81,6 @@ public class Product {
      */
     private final Map<String, BigDecimal> fees = new LinkedHashMap<>();
 
-    /**
-     * The transactions that are relevant.
-     */
-    private final List<Transaction> transactions = new ArrayList<>();
-
-    /**
-     * The complete list of the transactions.
-     */
-    private final List<Transaction> transactionHistory = new ArrayList<>();
-
     /**
      * The actual supply.
      * Map structure:
@@ -107,19 +103,116 @@ public class Product {
     }
 
     /**
-     * Adds a new transaction to the summary report.
+     * Adds a new transaction to the summary report, this is the position
+     * posting of the transaction.
      * @param transaction the transaction to add
      */
     public void addTransaction(Transaction transaction) {
-        transactionHistory.add(transaction);
-        transactions.add(transaction);
-
-        updateQuantity(transaction);
-        updateSupply(transaction);
-        updateFees(transaction);
-        updateDeposits(transaction);
-        updateWithdrawals(transaction);
-        updateAveragePrice();
+        var price = CurrencyType.isValid(transaction.getSymbol()) ? BigDecimal.ONE : transaction.getPrice();
+        post(transaction.getType(),
+                transaction.getQuantity(),
+                price,
+                transaction.getInventoryValuation(),
+                transaction.getFee(),
+                transaction.getFeeCurrency());
+    }
+
+    /**
+     * Applies the cash posting of a transaction that has been booked on
+     * another product, e.g. the price of a share or the target amount of a
+     * currency exchange. The unit price of the cash is always one.
+     *
+     * @param type the type of the posting, it is the inverse of the type
+     *             of the booked transaction
+     * @param amount the amount of the cash
+     * @param inventoryValuation inventory valuation of the booked transaction
+     * @param fee the fee of the booked transaction, can be null
+     * @param feeCurrency the currency of the fee, can be null
+     */
+    public void postCash(TransactionType type,
+                         BigDecimal amount,
+                         InventoryValuationType inventoryValuation,
+                         BigDecimal fee,
+                         CurrencyType feeCurrency) {
+
+        post(type, amount, BigDecimal.ONE, inventoryValuation, fee, feeCurrency);
+    }
+
+    /**
+     * Applies the fee posting of a transaction, it deducts the fee from the
+     * balance without changing the supply.
+     *
+     * @param fee the fee
+     */
+    public void postFee(BigDecimal fee) {
+        quantity = quantity.subtract(fee);
+        valuation = null;
+    }
+
+    /**
+     * Set the number of the shares.
+     *
+     * @param quantity the quantity
+     */
+    public void setQuantity(BigDecimal quantity) {
+        this.quantity = quantity;
+        valuation = null;
+    }
+
+    /**
+     * Set the average price.
+     *
+     * @param averagePrice the average price
+     */
+    void setAveragePrice(BigDecimal averagePrice) {
+        this.averagePrice = averagePrice;
+        valuation = null;
+    }
+
+    /**
+     * Set the market price.
+     *
+     * @param marketPrice the market price
+     */
+    public void setMarketPrice(Price marketPrice) {
+        this.marketPrice = marketPrice;
+        valuation = null;
+    }
+
+    /**
+     * Calculates the valuation of the product. It is called when the
+     * market prices and the exchange rates of the report are updated.
+     *
+     * @param costs trading fee and costs in the currency of the report
+     */
+    public void updateValuation(BigDecimal costs) {
+        var marketValue = calculateMarketValue();
+        var investedAmount = calculateInvestedAmount();
+        var profitAndLoss = Objects.nonNull(investedAmount) && Objects.nonNull(marketValue)
+                ? marketValue.subtract(investedAmount)
+                : null;
+
+        valuation = ProductValuation.builder()
+                .marketValue(marketValue)
+                .investedAmount(investedAmount)
+                .profitAndLoss(profitAndLoss)
+                .profitAndLossPercent(calculateProfitAndLossPercent())
+                .costs(costs)
+                .build();
+    }
+
+    /**
+     * The valuation of the product. If the market prices have not been
+     * updated since the last change of the product, the valuation is
+     * calculated without the costs.
+     *
+     * @return the valuation
+     */
+    public ProductValuation getValuation() {
+        if (Objects.isNull(valuation)) {
+            updateValuation(null);
+        }
+        return valuation;
     }
 
     /**
@@ -128,12 +221,7 @@ public class Product {
      * @return market value of the product
      */
     public BigDecimal getMarketValue() {
-        if (Objects.isNull(marketPrice)) {
-            return null;
-        }
-
-        var price = marketPrice.getUnitPrice();
-        return quantity.multiply(price).setScale(BigDecimals.SCALE_DEFAULT, BigDecimals.ROUNDING_MODE);
+        return getValuation().getMarketValue();
     }
 
     /**
@@ -142,11 +230,7 @@ public class Product {
      * @return value of the invested amount
      */
     public BigDecimal getInvestedAmount() {
-        var isCurrency = CurrencyType.isValid(symbol);
-        var avgPrice = getAveragePrice();
-        return (isCurrency || BigDecimals.isNullOrZero(avgPrice))
-                ? null
-                : quantity.multiply(avgPrice).setScale(BigDecimals.SCALE_DEFAULT, BigDecimals.ROUNDING_MODE);
+        return getValuation().getInvestedAmount();
     }
 
     /**
@@ -155,12 +239,7 @@ public class Product {
      * @return value of the profit and loss
      */
     public BigDecimal getProfitAndLoss() {
-        var investedAmount = getInvestedAmount();
-        var marketValue = getMarketValue();
-
-        return Objects.nonNull(investedAmount) && Objects.nonNull(marketValue)
-                ? marketValue.subtract(investedAmount)
-                : null;
+        return getValuation().getProfitAndLoss();
     }
 
     /**
@@ -169,6 +248,42 @@ public class Product {
      * @return value of the profit and loss in percent
      */
     public BigDecimal getProfitAndLossPercent() {
+        return getValuation().getProfitAndLossPercent();
+    }
+
+    /**
+     * Calculates the current market value of the holding.
+     *
+     * @return market value of the product
+     */
+    private BigDecimal calculateMarketValue() {
+        if (Objects.isNull(marketPrice)) {
+            return null;
+        }
+
+        var price = marketPrice.getUnitPrice();
+        return quantity.multiply(price).setScale(BigDecimals.SCALE_DEFAULT, BigDecimals.ROUNDING_MODE);
+    }
+
+    /**
+     * Calculates the invested amount.
+     *
+     * @return value of the invested amount
+     */
+    private BigDecimal calculateInvestedAmount() {
+        var isCurrency = CurrencyType.isValid(symbol);
+        var avgPrice = getAveragePrice();
+        return (isCurrency || BigDecimals.isNullOrZero(avgPrice))
+                ? null
+                : quantity.multiply(avgPrice).setScale(BigDecimals.SCALE_DEFAULT, BigDecimals.ROUNDING_MODE);
+    }
+
+    /**
+     * Calculates the P/L on the investment.
+     *
+     * @return value of the profit and loss in percent
+     */
+    private BigDecimal calculateProfitAndLossPercent() {
         var boughtPrice = getAveragePrice();
         var currentPrice = getMarketPrice();
 
@@ -183,44 +298,72 @@ public class Product {
                 : null;
     }
 
+    /**
+     * Applies a posting to the running aggregates of the product.
+     *
+     * @param type the transaction type
+     * @param qty the quantity, can be null
+     * @param price the unit price
+     * @param inventoryValuation the inventory valuation of a sell
+     * @param fee the fee, can be null
+     * @param feeCurrency the currency of the fee, can be null
+     */
+    private void post(TransactionType type,
+                      BigDecimal qty,
+                      BigDecimal price,
+                      InventoryValuationType inventoryValuation,
+                      BigDecimal fee,
+                      CurrencyType feeCurrency) {
+
+        updateQuantity(type, qty);
+        updateSupply(type, qty, price, inventoryValuation);
+        updateFees(fee, feeCurrency);
+        updateDeposits(type, qty);
+        updateWithdrawals(type, qty);
+        updateAveragePrice();
+        valuation = null;
+    }
+
     /**
      * Updates the quantity value.
      *
-     * @param transaction transaction
+     * @param type the transaction type
+     * @param transactionQuantity the quantity of the transaction
      */
-    private void updateQuantity(Transaction transaction) {
-        var qty = Objects.isNull(transaction.getQuantity()) ? BigDecimal.ZERO : transaction.getQuantity();
-        quantity = switch (transaction.getType()) {
+    private void updateQuantity(TransactionType type, BigDecimal transactionQuantity) {
+        var qty = Objects.isNull(transactionQuantity) ? BigDecimal.ZERO : transactionQuantity;
+        quantity = switch (type) {
             case DEPOSIT, BUY, TRANSFER_IN -> quantity.add(qty);
             case WITHDRAWAL, SELL, FEE, TRANSFER_OUT -> quantity.subtract(qty);
             default -> quantity;
         };
-
-        if (BigDecimals.isNullOrZero(quantity)) {
-            transactions.clear();
-        }
     }
 
     /**
      * Updates the supply list.
      *
-     * @param transaction the transaction to be added
+     * @param type the transaction type
+     * @param transactionQuantity the quantity of the transaction
+     * @param price the unit price
+     * @param inventoryValuation the inventory valuation of a sell
      */
-    private void updateSupply(Transaction transaction) {
-        switch (transaction.getType()) {
+    private void updateSupply(TransactionType type,
+                              BigDecimal transactionQuantity,
+                              BigDecimal price,
+                              InventoryValuationType inventoryValuation) {
+        switch (type) {
             case BUY, DEPOSIT, TRANSFER_IN -> {
-                var price = CurrencyType.isValid(transaction.getSymbol()) ? BigDecimal.ONE : transaction.getPrice();
-                var qty = Objects.isNull(transaction.getQuantity()) ? BigDecimal.ZERO : transaction.getQuantity();
+                var qty = Objects.isNull(transactionQuantity) ? BigDecimal.ZERO : transactionQuantity;
                 var currentVolume = supply.getOrDefault(price, BigDecimal.ZERO);
                 var newVolume = currentVolume.add(qty);
                 supply.put(price, newVolume);
             }
             case SELL, WITHDRAWAL, TRANSFER_OUT -> {
-                var isFifo = InventoryValuationType.FIFO == transaction.getInventoryValuation();
+                var isFifo = InventoryValuationType.FIFO == inventoryValuation;
                 if (isFifo) {
-                    updateSupplyBasedOnFifoSell(supply, transaction);
+                    updateSupplyBasedOnFifoSell(supply, transactionQuantity);
                 } else {
-                    updateSupplyBasedOnLifoSell(supply, transaction);
+                    updateSupplyBasedOnLifoSell(supply, transactionQuantity);
                 }
             }
             default -> {
@@ -232,11 +375,10 @@ public class Product {
     /**
      * Calculates the amount of the total fee.
      *
-     * @param transaction the transaction to be added
+     * @param fee the fee of the transaction
+     * @param feeCurrency the currency of the fee
      */
-    private void updateFees(Transaction transaction) {
-        var feeCurrency = transaction.getFeeCurrency();
-        var fee = transaction.getFee();
+    private void updateFees(BigDecimal fee, CurrencyType feeCurrency) {
         if (Objects.nonNull(fee) && Objects.nonNull(feeCurrency)) {
             var feeTotal = fees.computeIfAbsent(feeCurrency.name(), x -> BigDecimal.ZERO);
             fees.put(feeCurrency.name(), feeTotal.add(fee));
@@ -246,11 +388,11 @@ public class Product {
     /**
      * Calculates the amount of the total deposits.
      *
-     * @param transaction the transaction to be added
+     * @param type the transaction type
+     * @param qty the quantity of the transaction
      */
-    private void updateDeposits(Transaction transaction) {
-        if (transaction.getType() == TransactionType.DEPOSIT) {
-            var qty = transaction.getQuantity();
+    private void updateDeposits(TransactionType type, BigDecimal qty) {
+        if (type == TransactionType.DEPOSIT) {
             deposits = Objects.isNull(deposits) ? qty : deposits.add(qty);
         }
     }
@@ -258,11 +400,11 @@ public class Product {
     /**
      * Calculates the amount of the total withdrawals.
      *
-     * @param transaction the transaction to be added
+     * @param type the transaction type
+     * @param qty the quantity of the transaction
      */
-    private void updateWithdrawals(Transaction transaction) {
-        if (transaction.getType() == TransactionType.WITHDRAWAL) {
-            var qty = transaction.getQuantity();
+    private void updateWithdrawals(TransactionType type, BigDecimal qty) {
+        if (type == TransactionType.WITHDRAWAL) {
             withdrawals = Objects.isNull(withdrawals) ? qty : withdrawals.add(qty);
         }
     }
@@ -292,12 +434,12 @@ public class Product {
      * Updating the transaction list based on FIFO sell.
      *
      * @param supply the relevant transactions for the supply
-     * @param transaction the belonging sell transaction
+     * @param transactionQuantity the quantity of the belonging sell transaction
      */
-    private void updateSupplyBasedOnFifoSell(Map<BigDecimal, BigDecimal> supply, Transaction transaction) {
+    private void updateSupplyBasedOnFifoSell(Map<BigDecimal, BigDecimal> supply, BigDecimal transactionQuantity) {
         var iterator = new ArrayList<>(supply.entrySet()).listIterator(supply.size());
         var endOfLoop = false;
-        var quantityToSell = transaction.getQuantity();
+        var quantityToSell = transactionQuantity;
 
         // reverse loop
         while (iterator.hasPrevious() && ! endOfLoop) {
@@ -317,13 +459,13 @@ public class Product {
      * Updating the transaction list based on LIFO sell.
      *
      * @param supply the relevant transactions for the supply
-     * @param transaction the belonging sell transaction
+     * @param transactionQuantity the quantity of the belonging sell transaction
      */
-    private void updateSupplyBasedOnLifoSell(Map<BigDecimal, BigDecimal> supply, Transaction transaction) {
+    private void updateSupplyBasedOnLifoSell(Map<BigDecimal, BigDecimal> supply, BigDecimal transactionQuantity) {
         var iterator = new ArrayList<>(supply.entrySet()).listIterator();
         var endOfLoop = false;
-        var isQuantitySet = Objects.nonNull(transaction.getQuantity());
-        var quantityToSell = isQuantitySet ? transaction.getQuantity() : BigDecimal.ZERO;
+        var isQuantitySet = Objects.nonNull(transactionQuantity);
+        var quantityToSell = isQuantitySet ? transactionQuantity : BigDecimal.ZERO;
 
         while (iterator.hasNext() && ! endOfLoop) {
             var entry = iterator.next();
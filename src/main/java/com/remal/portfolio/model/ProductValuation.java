@@ -0,0 +1,53 @@
+package com.remal.portfolio.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable POJO that holds the valuation of a product at the last market
+ * price update.
+ * <p>
+ * The values are calculated once, the report and the writers read them
+ * from here instead of repeating the calculation for every column and
+ * every output format.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Builder
+@ToString
+@Getter
+public class ProductValuation {
+
+    /**
+     * The current market value of the holding.
+     */
+    private final BigDecimal marketValue;
+
+    /**
+     * Invested amount.
+     */
+    private final BigDecimal investedAmount;
+
+    /**
+     * P/L on the investment.
+     */
+    private final BigDecimal profitAndLoss;
+
+    /**
+     * P/L on the investment in percent.
+     */
+    private final BigDecimal profitAndLossPercent;
+
+    /**
+     * Trading fee and costs in the currency of the portfolio report, null
+     * if the exchange rates are not known.
+     */
+    private final BigDecimal costs;
+}
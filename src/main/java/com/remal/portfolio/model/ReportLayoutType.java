@@ -0,0 +1,31 @@
+package com.remal.portfolio.model;
+
+import java.util.List;
+
+/**
+ * Layout of the portfolio report CSV file.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+public enum ReportLayoutType {
+
+    /**
+     * One row per report with one column per metric and currency. The
+     * whole file is rewritten when a new currency appears.
+     */
+    WIDE,
+
+    /**
+     * One row per report, metric and currency. New reports and new
+     * currencies are appended to the end of the file.
+     */
+    LONG;
+
+    /**
+     * Column names of the long layout.
+     */
+    public static final List<String> LONG_LAYOUT_HEADER = List.of("generated", "metric", "currency", "value");
+}
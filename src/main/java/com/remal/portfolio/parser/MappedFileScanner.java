@@ -0,0 +1,87 @@
+package com.remal.portfolio.parser;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the rows of a CSV or Markdown file through a memory-mapped
+ * buffer, scanning the bytes for the line terminators and the field
+ * separators without converting the lines to strings.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+public class MappedFileScanner {
+
+    /**
+     * The maximum size of the file region mapped at once.
+     */
+    private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * Reads the rows of the data file from a byte offset.
+     *
+     * @param dataFile path to the data file
+     * @param startOffset the byte offset to start reading from
+     * @param skipRows number of the lines that must be skipped
+     * @param separator the field separator, must be an ASCII character
+     * @param consumer callback that processes the rows
+     * @throws IOException in case of error
+     */
+    public static void scan(String dataFile,
+                            long startOffset,
+                            int skipRows,
+                            byte separator,
+                            RowFields.Consumer consumer) throws IOException {
+
+        try (var channel = FileChannel.open(Path.of(dataFile), StandardOpenOption.READ)) {
+            var fileSize = channel.size();
+            var row = new MappedRowFields(separator);
+            var windowStart = startOffset;
+            var skipped = 0;
+
+            while (windowStart < fileSize) {
+                var length = (int) Math.min(fileSize - windowStart, WINDOW_SIZE);
+                var isLastWindow = windowStart + length == fileSize;
+                var buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+                var lineStart = 0;
+
+                for (var i = 0; i <= length; i++) {
+                    var isEndOfLine = i < length ? buffer.get(i) == '\n' : isLastWindow && lineStart < length;
+                    if (isEndOfLine) {
+                        var lineEnd = i > lineStart && buffer.get(i - 1) == '\r' ? i - 1 : i;
+                        if (skipped < skipRows) {
+                            skipped++;
+                        } else {
+                            row.reset(buffer, lineStart, lineEnd);
+                            if (!consumer.accept(windowStart + lineStart, row)) {
+                                return;
+                            }
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+
+                if (isLastWindow) {
+                    return;
+                } else if (lineStart == 0) {
+                    throw new IOException("The line at byte offset " + windowStart + " is too long.");
+                }
+                windowStart += lineStart;
+            }
+        }
+    }
+
+    /**
+     * Utility classes should not have public constructors.
+     *
+     * @throws java.lang.UnsupportedOperationException if this method is called
+     */
+    private MappedFileScanner() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,261 @@
+package com.remal.portfolio.parser;
+
+import com.remal.portfolio.util.BigDecimals;
+import com.remal.portfolio.util.LocalDateTimes;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Row fields that point to byte ranges of a memory-mapped file.
+ * <p>
+ * The numbers and the dates are decoded directly from the bytes, only the
+ * text fields are converted to strings. The instance is reused for every
+ * row of the file, so it must not be kept after the row has been processed.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+public class MappedRowFields implements RowFields {
+
+    /**
+     * The field separator.
+     */
+    private final byte separator;
+
+    /**
+     * The mapped file content.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Position of the first byte of the row.
+     */
+    private int rowStart;
+
+    /**
+     * Position after the last byte of the row.
+     */
+    private int rowEnd;
+
+    /**
+     * Number of the fields in the row.
+     */
+    private int size;
+
+    /**
+     * Start positions of the fields.
+     */
+    private int[] starts = new int[32];
+
+    /**
+     * End positions of the fields.
+     */
+    private int[] ends = new int[32];
+
+    /**
+     * Constructor.
+     *
+     * @param separator the field separator
+     */
+    public MappedRowFields(byte separator) {
+        this.separator = separator;
+    }
+
+    /**
+     * Points the instance to a new row and finds the field boundaries.
+     *
+     * @param buffer the mapped file content
+     * @param start position of the first byte of the row
+     * @param end position after the last byte of the row
+     */
+    public void reset(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.rowStart = start;
+        this.rowEnd = end;
+        this.size = 0;
+
+        var fieldStart = start;
+        for (var i = start; i < end; i++) {
+            if (buffer.get(i) == separator) {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        addField(fieldStart, end);
+    }
+
+    /**
+     * Checks whether the row contains only whitespaces.
+     *
+     * @return true if the row is empty
+     */
+    @Override
+    public boolean isBlank() {
+        for (var i = rowStart; i < rowEnd; i++) {
+            if (!isWhitespace(buffer.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the row starts with a separator.
+     *
+     * @return true if the first byte of the row is the separator
+     */
+    @Override
+    public boolean startsWithSeparator() {
+        return rowStart < rowEnd && buffer.get(rowStart) == separator;
+    }
+
+    /**
+     * Gets the value of a field.
+     *
+     * @param index index of the field
+     * @return the value of the field as it is in the file
+     */
+    @Override
+    public String get(int index) {
+        checkIndex(index);
+        return decode(starts[index], ends[index]);
+    }
+
+    /**
+     * Gets the value of a field as a number. Whitespaces, e.g. the grouping
+     * separators, are skipped.
+     *
+     * @param index index of the field
+     * @return the value or null if the field is empty
+     */
+    @Override
+    public BigDecimal getBigDecimal(int index) {
+        checkIndex(index);
+        var start = trimStart(starts[index], ends[index]);
+        var end = trimEnd(start, ends[index]);
+        if (start == end) {
+            return null;
+        }
+
+        return BigDecimals.decode(end - start, i -> buffer.get(start + i) & 0xff);
+    }
+
+    /**
+     * Gets the value of a field as a date-time. The "yyyy-MM-dd HH:mm:ss" and
+     * "yyyy.MM.dd HH:mm:ss" patterns are decoded positionally, other patterns
+     * are parsed with the date-time formatter.
+     *
+     * @param index index of the field
+     * @param dateTimePattern the date/time pattern used for parsing the field
+     * @return the value
+     */
+    @Override
+    public LocalDateTime getLocalDateTime(int index, String dateTimePattern) {
+        checkIndex(index);
+        var start = trimStart(starts[index], ends[index]);
+        var end = trimEnd(start, ends[index]);
+        var dateTime = LocalDateTimes.decodeFixedWidth(dateTimePattern, end - start, i -> buffer.get(start + i));
+        return Objects.isNull(dateTime)
+                ? LocalDateTimes.toLocalDateTime(dateTimePattern, decode(start, end))
+                : dateTime;
+    }
+
+    /**
+     * Returns the row as a string.
+     *
+     * @return the row
+     */
+    @Override
+    public String toString() {
+        return decode(rowStart, rowEnd);
+    }
+
+    /**
+     * Registers a field.
+     *
+     * @param start position of the first byte of the field
+     * @param end position after the last byte of the field
+     */
+    private void addField(int start, int end) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    /**
+     * Checks the field index.
+     *
+     * @param index index of the field
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    /**
+     * Decodes a byte range to string.
+     *
+     * @param start position of the first byte
+     * @param end position after the last byte
+     * @return the string
+     */
+    private String decode(int start, int end) {
+        var bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips the leading whitespaces.
+     *
+     * @param start position of the first byte
+     * @param end position after the last byte
+     * @return position of the first non-whitespace byte
+     */
+    private int trimStart(int start, int end) {
+        var position = start;
+        while (position < end && isWhitespace(buffer.get(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Skips the trailing whitespaces.
+     *
+     * @param start position of the first byte
+     * @param end position after the last byte
+     * @return position after the last non-whitespace byte
+     */
+    private int trimEnd(int start, int end) {
+        var position = end;
+        while (position > start && isWhitespace(buffer.get(position - 1))) {
+            position--;
+        }
+        return position;
+    }
+
+    /**
+     * Checks whether the byte is a whitespace or a control character, the
+     * same way as the String.trim() does.
+     *
+     * @param b the byte
+     * @return true if the byte is a whitespace
+     */
+    private static boolean isWhitespace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+}
@@ -7,17 +7,18 @@ import com.remal.portfolio.model.Price;
 import com.remal.portfolio.model.Transaction;
 import com.remal.portfolio.picocli.arggroup.InputArgGroup;
 import com.remal.portfolio.picocli.arggroup.PriceArgGroup;
-import com.remal.portfolio.util.BigDecimals;
 import com.remal.portfolio.util.Files;
 import com.remal.portfolio.util.Filter;
 import com.remal.portfolio.util.LocalDateTimes;
 import com.remal.portfolio.util.Logger;
+import com.remal.portfolio.util.Metrics;
 import com.remal.portfolio.util.ZoneIds;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -26,6 +27,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * Parser common functions and method definitions that all parsers
@@ -121,6 +124,12 @@ public abstract class Parser<T> {
     @Setter
     protected String language = "en";
 
+    /**
+     * Read the file through a memory-mapped buffer instead of decoding
+     * the lines to strings.
+     */
+    protected boolean memoryMapped;
+
     /**
      * Builder that initializes a new writer instance.
      *
@@ -174,6 +183,7 @@ public abstract class Parser<T> {
         parser.setPortfolio(inputArgs.getPortfolio());
         parser.setSymbols(inputArgs.getSymbols());
         parser.setLanguage(language);
+        parser.setMemoryMapped(inputArgs.isMemoryMapped());
         return parser;
     }
 
@@ -187,6 +197,30 @@ public abstract class Parser<T> {
         List<T> items;
         var fileType = Files.getFileType(filename);
 
+        var parseSample = Metrics.start(Metrics.PARSE);
+        try {
+            items = parseByFileType(fileType, filename);
+        } finally {
+            parseSample.stop();
+        }
+
+        var filterSample = Metrics.start(Metrics.FILTER);
+        try {
+            return filterByPortfolioAndSymbols(items);
+        } finally {
+            filterSample.stop();
+        }
+    }
+
+    /**
+     * Parse the file based on its type.
+     *
+     * @param fileType type of the file
+     * @param filename path to the data file
+     * @return         the list of the parsed items
+     */
+    private List<T> parseByFileType(FileType fileType, String filename) {
+        List<T> items;
         switch (fileType) {
             case CSV -> {
                 log.debug(LOG_BEFORE_EXECUTION, filename, "CSV");
@@ -201,8 +235,8 @@ public abstract class Parser<T> {
                 items = Collections.emptyList();
             }
         }
-
-        return filterByPortfolioAndSymbols(items);
+        Metrics.add(Metrics.PARSE + ".items", items.size());
+        return items;
     }
 
     /**
@@ -274,6 +308,104 @@ public abstract class Parser<T> {
         return skipRows;
     }
 
+    /**
+     * Reads the data rows of a file that is sorted by a (group, timestamp) key.
+     * <p>
+     * If the "from", "to" or the group filter is set and the sparse index of
+     * the file is up-to-date, then the index is used to jump to the first
+     * relevant row, and the reading stops after the last relevant row.
+     * Otherwise, the whole file is read and the index is built on the fly.
+     * The caller still needs to apply the filters on the result.
+     * </p>
+     *
+     * @param fileName path to the data file
+     * @param skipRows number of the lines that must be skip while parsing the file
+     * @param separator separator char used in the input file
+     * @param group the group filter, e.g. symbol, can be null
+     * @param rowParser converts a row to an item, returns null for empty rows
+     * @param groupKey gets the group key of an item
+     * @param timestampKey gets the timestamp of an item
+     * @return the list of the parsed items
+     * @throws IOException in case of error
+     */
+    protected List<T> readSortedFile(String fileName,
+                                     int skipRows,
+                                     String separator,
+                                     String group,
+                                     Function<RowFields, T> rowParser,
+                                     Function<T, String> groupKey,
+                                     Function<T, LocalDateTime> timestampKey) throws IOException {
+
+        List<T> items = new ArrayList<>();
+        var lines = new AtomicLong();
+        var seekable = Objects.nonNull(from) || Objects.nonNull(to) || Objects.nonNull(group);
+        var index = seekable ? SparseIndex.load(fileName) : null;
+
+        if (Objects.nonNull(index)) {
+            var startOffset = index.seek(group, from);
+            scan(fileName, startOffset, 0, separator, (offset, row) -> {
+                lines.incrementAndGet();
+                var item = rowParser.apply(row);
+                if (Objects.isNull(item)) {
+                    return true;
+                }
+
+                var itemGroup = groupKey.apply(item);
+                var timestamp = timestampKey.apply(item);
+                var afterGroup = Objects.nonNull(group)
+                        && (Objects.isNull(itemGroup) || itemGroup.compareTo(group) > 0);
+                var sameGroup = Objects.isNull(group) || group.equals(itemGroup);
+                var afterTo = sameGroup && Objects.nonNull(to) && Objects.nonNull(timestamp) && timestamp.isAfter(to);
+                if (afterGroup || afterTo) {
+                    return false;
+                }
+                items.add(item);
+                return true;
+            });
+            log.debug("< {} lines have been read from byte offset {} using the index", lines.get(), startOffset);
+        } else {
+            var indexBuilder = seekable ? new SparseIndex.Builder(fileName) : null;
+            scan(fileName, 0, skipRows, separator, (offset, row) -> {
+                lines.incrementAndGet();
+                var item = rowParser.apply(row);
+                if (Objects.nonNull(item)) {
+                    items.add(item);
+                    if (Objects.nonNull(indexBuilder)) {
+                        indexBuilder.add(offset, groupKey.apply(item), timestampKey.apply(item));
+                    }
+                }
+                return true;
+            });
+            log.debug("< {} lines have been read", lines.get());
+            if (Objects.nonNull(indexBuilder)) {
+                indexBuilder.write();
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Reads the rows of the data file, using a memory-mapped buffer if it is
+     * enabled and the separator is a single ASCII character.
+     *
+     * @param fileName path to the data file
+     * @param startOffset the byte offset to start reading from
+     * @param skipRows number of the lines that must be skipped
+     * @param separator separator char used in the input file
+     * @param consumer callback that processes the rows
+     * @throws IOException in case of error
+     */
+    private void scan(String fileName, long startOffset, int skipRows, String separator, RowFields.Consumer consumer)
+            throws IOException {
+
+        if (memoryMapped && separator.length() == 1 && separator.charAt(0) < 128) {
+            MappedFileScanner.scan(fileName, startOffset, skipRows, (byte) separator.charAt(0), consumer);
+        } else {
+            SparseIndex.scan(fileName, startOffset, skipRows, (offset, line) ->
+                    consumer.accept(offset, TextRowFields.split(line, separator)));
+        }
+    }
+
     /**
      * Get the value based on the missing/hidden columns.
      *
@@ -282,11 +414,11 @@ public abstract class Parser<T> {
      * @param actualColumn column ID
      * @return the next index value
      */
-    protected String getString(AtomicInteger index, String[] fields, Label actualColumn) {
+    protected String getString(AtomicInteger index, RowFields fields, Label actualColumn) {
         if (Objects.nonNull(actualColumn) && missingColumns.contains(actualColumn.name())) {
             return null;
         } else {
-            var value = fields[index.getAndIncrement()];
+            var value = fields.get(index.getAndIncrement());
             return value.isBlank() ? null : value.trim();
         }
     }
@@ -299,11 +431,11 @@ public abstract class Parser<T> {
      * @param actualColumn column ID
      * @return             the next index value
      */
-    protected BigDecimal getBigDecimal(AtomicInteger index, String[] fields, Label actualColumn) {
+    protected BigDecimal getBigDecimal(AtomicInteger index, RowFields fields, Label actualColumn) {
         if (missingColumns.contains(actualColumn.name())) {
             return null;
         } else {
-            return BigDecimals.valueOf(fields[index.getAndIncrement()].trim());
+            return fields.getBigDecimal(index.getAndIncrement());
         }
     }
 
@@ -314,11 +446,12 @@ public abstract class Parser<T> {
      * @param fields the parsed line from the input file
      * @return       the next index value
      */
-    protected LocalDateTime getLocalDateTime(AtomicInteger index, String[] fields) {
+    protected LocalDateTime getLocalDateTime(AtomicInteger index, RowFields fields) {
         if (missingColumns.contains(Label.HEADER_TRADE_DATE.name())) {
             return null;
         } else {
-            return LocalDateTimes.toLocalDateTime(zone, dateTimePattern, fields[index.getAndIncrement()].trim());
+            var dateTime = fields.getLocalDateTime(index.getAndIncrement(), dateTimePattern);
+            return Objects.isNull(dateTime) ? null : dateTime.atZone(zone).toLocalDateTime();
         }
     }
 
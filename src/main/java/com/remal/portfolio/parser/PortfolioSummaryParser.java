@@ -4,17 +4,24 @@ import com.remal.portfolio.model.CurrencyType;
 import com.remal.portfolio.model.Label;
 import com.remal.portfolio.model.LabelCollection;
 import com.remal.portfolio.model.PortfolioReport;
+import com.remal.portfolio.model.ReportLayoutType;
 import com.remal.portfolio.picocli.arggroup.InputArgGroup;
 import com.remal.portfolio.util.Logger;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
+import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -30,6 +37,31 @@ import java.util.stream.Stream;
 @Slf4j
 public class PortfolioSummaryParser extends Parser<PortfolioReport> {
 
+    /**
+     * Prefix of the label names that is not stored in the long layout.
+     */
+    private static final String LABEL_PREFIX = "LABEL_";
+
+    /**
+     * Index of the metric column in the long layout.
+     */
+    private static final int LONG_LAYOUT_METRIC = 1;
+
+    /**
+     * Index of the currency column in the long layout.
+     */
+    private static final int LONG_LAYOUT_CURRENCY = 2;
+
+    /**
+     * Index of the value column in the long layout.
+     */
+    private static final int LONG_LAYOUT_VALUE = 3;
+
+    /**
+     * The compiled label lookup tables by language and base currency.
+     */
+    private static final Map<String, Map<String, ColumnHandler>> LOOKUP_TABLES = new ConcurrentHashMap<>();
+
     /**
      * The base currency of the report
      */
@@ -58,6 +90,12 @@ public class PortfolioSummaryParser extends Parser<PortfolioReport> {
 
     /**
      * Process a CSV file.
+     * <p>
+     * The header is compiled once into an array of column handlers, indexed
+     * by the column position, then every row is decoded in a single pass.
+     * The first column is the request date, the columns without a handler
+     * are skipped.
+     * </p>
      *
      * @param fileName path to the data file
      * @return the list of the parsed items
@@ -74,24 +112,13 @@ public class PortfolioSummaryParser extends Parser<PortfolioReport> {
         }
 
         // read and process the header
-        LinkedList<String> map = new LinkedList<>();
-        map.add(Label.HEADER_REQUEST_DATE.name());
-
+        var splitter = Pattern.compile(Pattern.quote(csvSeparator));
         String firstLine = com.remal.portfolio.util.Files.getFirstLine(file);
-        var labels = firstLine.split(Pattern.quote(csvSeparator));
-        Arrays.stream(labels).forEach(label ->
-                LabelCollection.PRODUCT_SUMMARY_FOOTER.forEach(labelFromCollection ->
-                        Arrays.stream(CurrencyType.values()).forEach(currency -> {
-                            var labelText = labelFromCollection.getLabel(language);
-                            var expectedLabel = labelText.replace("{0}", currency.name());
-                            var replacement = currency.name() + "-" + baseCurrency.name();
-                            var expectedLabelForExchangeRate = labelText.replace("{0}", replacement);
-                            if (label.equals(expectedLabel) || label.equals(expectedLabelForExchangeRate)) {
-                                map.add(labelFromCollection.name() + ";" + currency.name());
-                            }
-                        })
-                )
-        );
+        var labels = splitter.split(firstLine, -1);
+        if (Arrays.asList(labels).equals(ReportLayoutType.LONG_LAYOUT_HEADER)) {
+            return parseLongCsvFile(fileName, splitter);
+        }
+        var columns = compileHeader(labels);
 
         // read data
         try (Stream<String> stream = Files.lines(Path.of(fileName))) {
@@ -99,41 +126,16 @@ public class PortfolioSummaryParser extends Parser<PortfolioReport> {
             stream
                     .skip(skipRows)
                     .forEach(line -> {
-                        var cells = line.split(Pattern.quote(csvSeparator), -1);
-                        var generated = getLocalDateTime(new AtomicInteger(), cells);
+                        var cells = splitter.split(line, -1);
+                        var row = new TextRowFields(line, cells);
+                        var generated = getLocalDateTime(new AtomicInteger(), row);
                         var portfolioReport = new PortfolioReport(baseCurrency, generated);
-                        AtomicInteger index = new AtomicInteger();
-                        Arrays.stream(cells).forEach(cell -> {
-                            var mapEntry = map.get(index.get());
-                            var cellConfig = mapEntry.split(";");
-
-                            switch (Label.valueOf(cellConfig[0])) {
-                                case LABEL_TOTAL_CASH_PER_CURRENCY -> portfolioReport
-                                        .getCashInPortfolio()
-                                        .put(cellConfig[1], getBigDecimal(index, cells, Label.HEADER_EMPTY));
-                                case LABEL_TOTAL_EXCHANGE_RATE -> portfolioReport
-                                        .getExchangeRates()
-                                        .put(
-                                                cellConfig[1] + "-" + baseCurrency,
-                                                getBigDecimal(index, cells, Label.HEADER_EMPTY));
-                                case LABEL_TOTAL_DEPOSIT_PER_CURRENCY -> portfolioReport
-                                        .getDeposits()
-                                        .put(cellConfig[1], getBigDecimal(index, cells, Label.HEADER_EMPTY));
-                                case LABEL_TOTAL_WITHDRAWAL_PER_CURRENCY -> portfolioReport
-                                        .getWithdrawals()
-                                        .put(cellConfig[1], getBigDecimal(index, cells, Label.HEADER_EMPTY));
-                                case LABEL_TOTAL_INVESTMENT_PER_CURRENCY -> portfolioReport
-                                        .getInvestments()
-                                        .put(cellConfig[1], getBigDecimal(index, cells, Label.HEADER_EMPTY));
-                                case LABEL_TOTAL_MARKET_VALUE_PER_CURRENCY -> portfolioReport
-                                        .getMarketValues()
-                                        .put(cellConfig[1], getBigDecimal(index, cells, Label.HEADER_EMPTY));
-                                case LABEL_TOTAL_PROFIT_LOSS_PER_CURRENCY -> portfolioReport
-                                        .getProfitLoss()
-                                        .put(cellConfig[1], getBigDecimal(index, cells, Label.HEADER_EMPTY));
-                                default -> index.getAndIncrement();
+                        var lastColumn = Math.min(cells.length, columns.length);
+                        for (var index = 1; index < lastColumn; index++) {
+                            if (Objects.nonNull(columns[index])) {
+                                columns[index].accept(portfolioReport, row.getBigDecimal(index));
                             }
-                        });
+                        }
                         portfolioReports.add(portfolioReport);
                     });
         } catch (Exception e) {
@@ -142,6 +144,142 @@ public class PortfolioSummaryParser extends Parser<PortfolioReport> {
         return portfolioReports;
     }
 
+    /**
+     * Process a CSV file with long layout: one row per report, metric and
+     * currency. The rows of the same report are merged.
+     *
+     * @param fileName path to the data file
+     * @param splitter splits the rows to cells
+     * @return the list of the parsed items in the order of the first
+     *         occurrence
+     */
+    private List<PortfolioReport> parseLongCsvFile(String fileName, Pattern splitter) {
+        log.debug("< parsing the portfolio report with long layout...");
+        Map<LocalDateTime, PortfolioReport> portfolioReports = new LinkedHashMap<>();
+        Map<String, ColumnHandler> columns = new HashMap<>();
+
+        try (Stream<String> stream = Files.lines(Path.of(fileName))) {
+            var skipRows = 1;
+            stream
+                    .skip(skipRows)
+                    .filter(line -> !line.isBlank())
+                    .forEach(line -> {
+                        var cells = splitter.split(line, -1);
+                        var row = new TextRowFields(line, cells);
+                        var generated = getLocalDateTime(new AtomicInteger(), row);
+                        var portfolioReport = portfolioReports.computeIfAbsent(
+                                generated,
+                                x -> new PortfolioReport(baseCurrency, generated));
+
+                        var column = columns.computeIfAbsent(
+                                cells[LONG_LAYOUT_METRIC] + ";" + cells[LONG_LAYOUT_CURRENCY],
+                                x -> buildColumnHandler(cells[LONG_LAYOUT_METRIC], cells[LONG_LAYOUT_CURRENCY]));
+                        if (Objects.nonNull(column)) {
+                            column.accept(portfolioReport, row.getBigDecimal(LONG_LAYOUT_VALUE));
+                        }
+                    });
+        } catch (Exception e) {
+            Logger.logErrorAndExit("Error while parsing the \"{}\" file: {}", fileName, e);
+        }
+        return new ArrayList<>(portfolioReports.values());
+    }
+
+    /**
+     * Builds the handler of a metric of the long layout.
+     *
+     * @param metric the label name without the "LABEL_" prefix
+     * @param currency the currency, or the currency pair of an exchange rate
+     * @return the handler or null if the metric is not processed
+     */
+    private ColumnHandler buildColumnHandler(String metric, String currency) {
+        try {
+            var label = Label.valueOf(LABEL_PREFIX + metric);
+            return label == Label.LABEL_TOTAL_EXCHANGE_RATE
+                    ? buildColumnHandler(label, currency.split("-")[0])
+                    : buildColumnHandler(label, currency);
+        } catch (IllegalArgumentException e) {
+            log.warn("< unknown metric in the portfolio report: \"{}\"", metric);
+            return null;
+        }
+    }
+
+    /**
+     * Compiles the header to column handlers.
+     *
+     * @param labels the column labels of the header
+     * @return the column handlers, the element is null if the column is
+     *         not processed
+     */
+    private ColumnHandler[] compileHeader(String[] labels) {
+        var lookupTable = LOOKUP_TABLES.computeIfAbsent(
+                language + ";" + baseCurrency.name(),
+                x -> buildLookupTable());
+
+        var columns = new ColumnHandler[labels.length];
+        for (var index = 1; index < labels.length; index++) {
+            columns[index] = lookupTable.get(labels[index]);
+        }
+        return columns;
+    }
+
+    /**
+     * Builds the reverse lookup table of the summary labels: the handler
+     * of the column by the label text, for every label and currency.
+     *
+     * @return the lookup table
+     */
+    private Map<String, ColumnHandler> buildLookupTable() {
+        Map<String, ColumnHandler> lookupTable = new HashMap<>();
+        LabelCollection.PRODUCT_SUMMARY_FOOTER.forEach(label -> {
+            var labelText = label.getLabel(language);
+            Arrays.stream(CurrencyType.values()).forEach(currency -> {
+                var handler = buildColumnHandler(label, currency.name());
+                if (Objects.nonNull(handler)) {
+                    var exchangeRate = currency.name() + "-" + baseCurrency.name();
+                    lookupTable.putIfAbsent(labelText.replace("{0}", currency.name()), handler);
+                    lookupTable.putIfAbsent(labelText.replace("{0}", exchangeRate), handler);
+                }
+            });
+        });
+        log.debug("< the portfolio summary lookup table has been built with {} labels", lookupTable.size());
+        return lookupTable;
+    }
+
+    /**
+     * Builds the handler that stores the value of a column to the report.
+     *
+     * @param label the label of the column
+     * @param currency the currency of the column
+     * @return the handler or null if the column is not processed
+     */
+    private ColumnHandler buildColumnHandler(Label label, String currency) {
+        return switch (label) {
+            case LABEL_TOTAL_CASH_PER_CURRENCY -> (report, value) -> report
+                    .getCashInPortfolio()
+                    .put(currency, value);
+            case LABEL_TOTAL_EXCHANGE_RATE -> {
+                var currencyPair = currency + "-" + baseCurrency;
+                yield (report, value) -> report.getExchangeRates().put(currencyPair, value);
+            }
+            case LABEL_TOTAL_DEPOSIT_PER_CURRENCY -> (report, value) -> report
+                    .getDeposits()
+                    .put(currency, value);
+            case LABEL_TOTAL_WITHDRAWAL_PER_CURRENCY -> (report, value) -> report
+                    .getWithdrawals()
+                    .put(currency, value);
+            case LABEL_TOTAL_INVESTMENT_PER_CURRENCY -> (report, value) -> report
+                    .getInvestments()
+                    .put(currency, value);
+            case LABEL_TOTAL_MARKET_VALUE_PER_CURRENCY -> (report, value) -> report
+                    .getMarketValues()
+                    .put(currency, value);
+            case LABEL_TOTAL_PROFIT_LOSS_PER_CURRENCY -> (report, value) -> report
+                    .getProfitLoss()
+                    .put(currency, value);
+            default -> null;
+        };
+    }
+
     /**
      * Process a Text/Markdown file.
      *
@@ -152,4 +290,19 @@ public class PortfolioSummaryParser extends Parser<PortfolioReport> {
     protected List<PortfolioReport> parseMarkdownFile(String fileName) {
         throw new UnsupportedOperationException("Markdown portfolio summary report is not supported.");
     }
+
+    /**
+     * Stores the value of a column to the report.
+     */
+    @FunctionalInterface
+    private interface ColumnHandler {
+
+        /**
+         * Process a cell.
+         *
+         * @param report the report that is being built
+         * @param value the value of the cell
+         */
+        void accept(PortfolioReport report, BigDecimal value);
+    }
 }
@@ -4,17 +4,14 @@ import com.remal.portfolio.model.DataProviderType;
 import com.remal.portfolio.model.FileType;
 import com.remal.portfolio.model.Label;
 import com.remal.portfolio.model.Price;
+import com.remal.portfolio.util.Filter;
 import com.remal.portfolio.util.Logger;
 import lombok.extern.slf4j.Slf4j;
 
-import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 /**
  * Parse file that keeps market prices.
@@ -78,24 +75,25 @@ public class PriceParser extends Parser<Price> {
     private List<Price> parseTextFile(String file, String separator) {
         showConfiguration(this.getClass().getSimpleName());
         List<Price> prices = new ArrayList<>();
-        try (Stream<String> stream = Files.lines(Path.of(file))) {
+        try {
             var skipRows = getFirstDataRow(com.remal.portfolio.util.Files.getFileType(file));
-            stream
-                    .skip(skipRows)
-                    .forEach(line -> {
-                        line = line.startsWith(separator) ? line.substring(1) : line;
-                        var fields = line.split(Pattern.quote(separator), -1);
-                        var index = new AtomicInteger();
-                        Price p = Price
-                                .builder()
-                                .symbol(getString(index, fields, Label.HEADER_SYMBOL))
-                                .unitPrice(getBigDecimal(index, fields, Label.HEADER_PRICE))
-                                .tradeDate(getLocalDateTime(index, fields))
-                                .requestDate(getLocalDateTime(index, fields))
-                                .dataProvider(getDataProvider(index, fields))
-                                .build();
-                        prices.add(p);
-                    });
+            var symbol = getSymbols().size() == 1 ? getSymbols().get(0) : null;
+            readSortedFile(file, skipRows, separator, symbol, fields -> {
+                var index = new AtomicInteger(fields.startsWithSeparator() ? 1 : 0);
+                return Price
+                        .builder()
+                        .symbol(getString(index, fields, Label.HEADER_SYMBOL))
+                        .unitPrice(getBigDecimal(index, fields, Label.HEADER_PRICE))
+                        .tradeDate(getLocalDateTime(index, fields))
+                        .requestDate(getLocalDateTime(index, fields))
+                        .dataProvider(getDataProvider(index, fields))
+                        .build();
+            }, Price::getSymbol, Price::getTradeDate)
+                    .stream()
+                    .filter(p -> getSymbols().isEmpty() || getSymbols().contains(p.getSymbol()))
+                    .filter(p -> Filter.dateEqualOrAfterFilter(p.getTradeDate(), from))
+                    .filter(p -> Filter.dateEqualOrBeforeFilter(p.getTradeDate(), to))
+                    .forEach(prices::add);
         } catch (ArrayIndexOutOfBoundsException e) {
             Logger.logErrorAndExit(LOG_ERROR_ARRAY_INDEX, file, e.getMessage());
         } catch (NoSuchFileException e) {
@@ -115,11 +113,11 @@ public class PriceParser extends Parser<Price> {
      * @param fields the parsed line from the input file
      * @return the next index value
      */
-    private DataProviderType getDataProvider(AtomicInteger index, String[] fields) {
+    private DataProviderType getDataProvider(AtomicInteger index, RowFields fields) {
         if (missingColumns.contains(Label.HEADER_PRICE_CURRENCY.name())) {
             return null;
         } else {
-            return DataProviderType.getEnum(fields[index.getAndIncrement()].trim());
+            return DataProviderType.getEnum(fields.get(index.getAndIncrement()).trim());
         }
     }
 }
@@ -0,0 +1,75 @@
+package com.remal.portfolio.parser;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The fields of a data row read from a CSV or Markdown file.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+public interface RowFields {
+
+    /**
+     * Callback that receives the rows of the data file.
+     */
+    @FunctionalInterface
+    interface Consumer {
+
+        /**
+         * Process a row.
+         *
+         * @param offset byte offset of the first character of the row
+         * @param row the fields of the row
+         * @return false if the reading must be stopped
+         * @throws IOException in case of error
+         */
+        boolean accept(long offset, RowFields row) throws IOException;
+    }
+
+    /**
+     * Checks whether the row contains only whitespaces.
+     *
+     * @return true if the row is empty
+     */
+    boolean isBlank();
+
+    /**
+     * Checks whether the row starts with a separator, e.g. a Markdown table row.
+     *
+     * @return true if the first character of the row is the separator
+     */
+    boolean startsWithSeparator();
+
+    /**
+     * Gets the value of a field.
+     *
+     * @param index index of the field
+     * @return the value of the field as it is in the file
+     * @throws ArrayIndexOutOfBoundsException if the field does not exist
+     */
+    String get(int index);
+
+    /**
+     * Gets the value of a field as a number.
+     *
+     * @param index index of the field
+     * @return the value or null if the field is empty
+     * @throws ArrayIndexOutOfBoundsException if the field does not exist
+     */
+    BigDecimal getBigDecimal(int index);
+
+    /**
+     * Gets the value of a field as a date-time.
+     *
+     * @param index index of the field
+     * @param dateTimePattern the date/time pattern used for parsing the field
+     * @return the value
+     * @throws ArrayIndexOutOfBoundsException if the field does not exist
+     */
+    LocalDateTime getLocalDateTime(int index, String dateTimePattern);
+}
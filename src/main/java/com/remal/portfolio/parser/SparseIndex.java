@@ -0,0 +1,339 @@
+package com.remal.portfolio.parser;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sparse on-disk side index of a sorted transaction or price file.
+ * <p>
+ * The index keeps the byte offset and the sort key of every N-th data
+ * row of the file. The key is a (group, timestamp) pair: the group is
+ * the symbol in the price history files and null in the transaction
+ * files. The index is stored next to the data file with an ".idx"
+ * extension and it is only used while the size and the last modified
+ * time of the data file match with the values stored in the index.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class SparseIndex {
+
+    /**
+     * The extension of the index file.
+     */
+    public static final String FILE_EXTENSION = ".idx";
+
+    /**
+     * Number of the data rows between two index entries.
+     */
+    public static final int DEFAULT_STEP = 256;
+
+    /**
+     * Separator used in the index file.
+     */
+    private static final String SEPARATOR = "\t";
+
+    /**
+     * Size of the read buffer.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Byte offsets of the indexed rows.
+     */
+    private final List<Long> offsets = new ArrayList<>();
+
+    /**
+     * Group keys of the indexed rows.
+     */
+    private final List<String> groups = new ArrayList<>();
+
+    /**
+     * Timestamps of the indexed rows.
+     */
+    private final List<LocalDateTime> timestamps = new ArrayList<>();
+
+    /**
+     * Callback that receives the lines of the data file.
+     */
+    @FunctionalInterface
+    public interface LineConsumer {
+
+        /**
+         * Process a line.
+         *
+         * @param offset byte offset of the first character of the line
+         * @param line the line without the line terminator
+         * @return false if the reading must be stopped
+         * @throws IOException in case of error
+         */
+        boolean accept(long offset, String line) throws IOException;
+    }
+
+    /**
+     * Loads the index of a data file.
+     *
+     * @param dataFile path to the data file
+     * @return the index or null if the index does not exist or out of date
+     */
+    public static SparseIndex load(String dataFile) {
+        var file = new File(dataFile);
+        var indexFile = Path.of(dataFile + FILE_EXTENSION);
+        if (!file.exists() || !indexFile.toFile().exists()) {
+            return null;
+        }
+
+        try {
+            var lines = java.nio.file.Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+            var header = lines.isEmpty() ? new String[0] : lines.get(0).split(SEPARATOR);
+            if (header.length != 2
+                    || Long.parseLong(header[0]) != file.length()
+                    || Long.parseLong(header[1]) != file.lastModified()) {
+                log.debug("< the \"{}\" index is out of date", indexFile);
+                return null;
+            }
+
+            var index = new SparseIndex();
+            lines.stream().skip(1).filter(line -> !line.isBlank()).forEach(line -> {
+                var fields = line.split(SEPARATOR, -1);
+                index.offsets.add(Long.parseLong(fields[0]));
+                index.groups.add(fields[1].isEmpty() ? null : fields[1]);
+                index.timestamps.add(LocalDateTime.parse(fields[2]));
+            });
+            log.debug("< the \"{}\" index has been loaded, entries: {}", indexFile, index.offsets.size());
+            return index.offsets.isEmpty() ? null : index;
+        } catch (IOException | RuntimeException e) {
+            log.warn("< the \"{}\" index can not be read and will be ignored: {}", indexFile, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Finds the byte offset from where the reading of the data file must be
+     * started to not miss any row with a key equal or greater than the given one.
+     *
+     * @param group the group key, e.g. symbol, can be null
+     * @param from the timestamp, can be null
+     * @return the byte offset in the data file
+     */
+    public long seek(String group, LocalDateTime from) {
+        var low = 0;
+        var high = offsets.size() - 1;
+        var result = 0;
+        while (low <= high) {
+            var middle = (low + high) >>> 1;
+            if (compare(groups.get(middle), timestamps.get(middle), group, from) < 0) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return offsets.get(result);
+    }
+
+    /**
+     * Compares two (group, timestamp) keys the same way as the writers sort
+     * the rows. A null value in the second key means "the lowest possible".
+     *
+     * @param group group of the first key
+     * @param timestamp timestamp of the first key
+     * @param otherGroup group of the second key
+     * @param otherTimestamp timestamp of the second key
+     * @return negative, zero or positive value
+     */
+    public static int compare(String group, LocalDateTime timestamp, String otherGroup, LocalDateTime otherTimestamp) {
+        if (Objects.nonNull(otherGroup)) {
+            var result = Objects.isNull(group) ? -1 : group.compareTo(otherGroup);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Objects.isNull(otherTimestamp) ? 1 : timestamp.compareTo(otherTimestamp);
+    }
+
+    /**
+     * Reads the lines of the data file from a byte offset and keeps track
+     * of the byte offset of each line.
+     *
+     * @param dataFile path to the data file
+     * @param startOffset the byte offset to start reading from
+     * @param skipRows number of the lines that must be skipped
+     * @param consumer callback that processes the lines
+     * @throws IOException in case of error
+     */
+    public static void scan(String dataFile, long startOffset, int skipRows, LineConsumer consumer)
+            throws IOException {
+
+        try (var channel = FileChannel.open(Path.of(dataFile), StandardOpenOption.READ)) {
+            channel.position(startOffset);
+            InputStream inputStream = Channels.newInputStream(channel);
+            var buffer = new byte[BUFFER_SIZE];
+            var line = new byte[256];
+            var lineLength = 0;
+            var lineOffset = startOffset;
+            var position = startOffset;
+            var skipped = 0;
+            int read;
+
+            while ((read = inputStream.read(buffer)) != -1) {
+                for (var i = 0; i < read; i++) {
+                    var b = buffer[i];
+                    position++;
+                    if (b == '\n') {
+                        if (skipped < skipRows) {
+                            skipped++;
+                        } else if (!consumer.accept(lineOffset, toString(line, lineLength))) {
+                            return;
+                        }
+                        lineLength = 0;
+                        lineOffset = position;
+                    } else {
+                        if (lineLength == line.length) {
+                            line = Arrays.copyOf(line, line.length * 2);
+                        }
+                        line[lineLength++] = b;
+                    }
+                }
+            }
+
+            if (lineLength > 0 && skipped >= skipRows) {
+                consumer.accept(lineOffset, toString(line, lineLength));
+            }
+        }
+    }
+
+    /**
+     * Converts the bytes of a line to string without the trailing CR.
+     *
+     * @param line bytes of the line
+     * @param length length of the line
+     * @return the line as a string
+     */
+    private static String toString(byte[] line, int length) {
+        var end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+        return new String(line, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Collects the index entries while the data file is being read from the
+     * beginning and saves the index if the rows are sorted.
+     */
+    public static class Builder {
+
+        /**
+         * Path to the data file.
+         */
+        private final String dataFile;
+
+        /**
+         * The index being built.
+         */
+        private final SparseIndex index = new SparseIndex();
+
+        /**
+         * Number of the data rows processed.
+         */
+        private long rows;
+
+        /**
+         * Group key of the last row.
+         */
+        private String lastGroup;
+
+        /**
+         * Timestamp of the last row.
+         */
+        private LocalDateTime lastTimestamp;
+
+        /**
+         * Becomes false if the rows are not sorted.
+         */
+        private boolean sorted = true;
+
+        /**
+         * Constructor.
+         *
+         * @param dataFile path to the data file
+         */
+        public Builder(String dataFile) {
+            this.dataFile = dataFile;
+        }
+
+        /**
+         * Registers the next data row.
+         *
+         * @param offset byte offset of the row
+         * @param group group key of the row, can be null
+         * @param timestamp timestamp of the row
+         */
+        public void add(long offset, String group, LocalDateTime timestamp) {
+            if (!sorted) {
+                return;
+            }
+
+            if (Objects.isNull(timestamp)
+                    || (rows > 0 && compare(group, timestamp, lastGroup, lastTimestamp) < 0)
+                    || (rows > 0 && Objects.nonNull(lastGroup) && Objects.isNull(group))) {
+                sorted = false;
+                return;
+            }
+
+            if (rows % DEFAULT_STEP == 0) {
+                index.offsets.add(offset);
+                index.groups.add(group);
+                index.timestamps.add(timestamp);
+            }
+            lastGroup = group;
+            lastTimestamp = timestamp;
+            rows++;
+        }
+
+        /**
+         * Writes the index file next to the data file.
+         */
+        public void write() {
+            var file = new File(dataFile);
+            var indexFile = Path.of(dataFile + FILE_EXTENSION);
+            if (!sorted || index.offsets.isEmpty()) {
+                log.debug("< the \"{}\" file is not sorted, index will not be created", dataFile);
+                return;
+            }
+
+            var content = new StringBuilder()
+                    .append(file.length()).append(SEPARATOR).append(file.lastModified())
+                    .append(System.lineSeparator());
+            for (var i = 0; i < index.offsets.size(); i++) {
+                var group = index.groups.get(i);
+                content.append(index.offsets.get(i)).append(SEPARATOR)
+                        .append(Objects.isNull(group) ? "" : group).append(SEPARATOR)
+                        .append(index.timestamps.get(i))
+                        .append(System.lineSeparator());
+            }
+
+            try {
+                java.nio.file.Files.writeString(indexFile, content, StandardCharsets.UTF_8);
+                log.debug("> the \"{}\" index has been written, entries: {}", indexFile, index.offsets.size());
+            } catch (IOException e) {
+                log.warn("> the \"{}\" index can not be written: {}", indexFile, e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.remal.portfolio.parser;
+
+import com.remal.portfolio.util.BigDecimals;
+import com.remal.portfolio.util.LocalDateTimes;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.regex.Pattern;
+
+/**
+ * Row fields based on a line that has been split to strings.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+public class TextRowFields implements RowFields {
+
+    /**
+     * The original line.
+     */
+    private final String line;
+
+    /**
+     * The fields of the line.
+     */
+    private final String[] fields;
+
+    /**
+     * Constructor.
+     *
+     * @param line the original line
+     * @param fields the fields of the line
+     */
+    public TextRowFields(String line, String[] fields) {
+        this.line = line;
+        this.fields = fields;
+    }
+
+    /**
+     * Splits a line to fields.
+     *
+     * @param line the line
+     * @param separator the field separator
+     * @return the row fields
+     */
+    public static TextRowFields split(String line, String separator) {
+        return new TextRowFields(line, line.split(Pattern.quote(separator), -1));
+    }
+
+    /**
+     * Checks whether the row contains only whitespaces.
+     *
+     * @return true if the row is empty
+     */
+    @Override
+    public boolean isBlank() {
+        return line.isBlank();
+    }
+
+    /**
+     * Checks whether the row starts with a separator.
+     *
+     * @return true if the first field is empty
+     */
+    @Override
+    public boolean startsWithSeparator() {
+        return fields.length > 1 && fields[0].isEmpty();
+    }
+
+    /**
+     * Gets the value of a field.
+     *
+     * @param index index of the field
+     * @return the value of the field as it is in the file
+     */
+    @Override
+    public String get(int index) {
+        return fields[index];
+    }
+
+    /**
+     * Gets the value of a field as a number.
+     *
+     * @param index index of the field
+     * @return the value or null if the field is empty
+     */
+    @Override
+    public BigDecimal getBigDecimal(int index) {
+        return BigDecimals.valueOf(fields[index].trim());
+    }
+
+    /**
+     * Gets the value of a field as a date-time.
+     *
+     * @param index index of the field
+     * @param dateTimePattern the date/time pattern used for parsing the field
+     * @return the value
+     */
+    @Override
+    public LocalDateTime getLocalDateTime(int index, String dateTimePattern) {
+        return LocalDateTimes.toLocalDateTime(dateTimePattern, fields[index].trim());
+    }
+
+    /**
+     * Returns the original line.
+     *
+     * @return the line
+     */
+    @Override
+    public String toString() {
+        return line;
+    }
+}
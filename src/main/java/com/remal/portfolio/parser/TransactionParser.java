@@ -12,14 +12,10 @@ import com.remal.portfolio.util.Logger;
 import com.remal.portfolio.util.Sorter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 /**
  * Parse files that keep transactions.
@@ -101,34 +97,32 @@ public class TransactionParser extends Parser<Transaction> {
     private List<Transaction> parseTextFile(int skipRows, int startColumn, String fileName, String separator) {
         showConfiguration(this.getClass().getSimpleName());
         List<Transaction> transactions = new ArrayList<>();
-        AtomicReference<String> currentLine = new AtomicReference<>();
-        try (Stream<String> stream = Files.lines(Path.of(fileName))) {
-            stream
-                    .skip(skipRows)
-                    .forEach(line -> {
-                        currentLine.set(line);
-                        if (!line.isBlank()) {
-                            var fields = line.split(Pattern.quote(separator), -1);
-                            var index = new AtomicInteger(startColumn);
-                            Transaction t = Transaction
-                                    .builder()
-                                    .portfolio(getString(index, fields, Label.HEADER_PORTFOLIO))
-                                    .symbol(getString(index, fields, Label.HEADER_SYMBOL))
-                                    .type(getTransactionType(index, fields))
-                                    .inventoryValuation(getInventoryValuationType(index, fields))
-                                    .tradeDate(getLocalDateTime(index, fields))
-                                    .quantity(getBigDecimal(index, fields, Label.HEADER_QUANTITY))
-                                    .price(getBigDecimal(index, fields, Label.HEADER_PRICE))
-                                    .priceCurrency(getCurrencyType(index, fields))
-                                    .fee(getBigDecimal(index, fields, Label.HEADER_FEE))
-                                    .feeCurrency(getCurrencyType(index, fields))
-                                    .orderId(getString(index, fields, Label.HEADER_ORDER_ID))
-                                    .tradeId(getString(index, fields, Label.HEADER_TRADE_DATE))
-                                    .transferId(getString(index, fields, Label.HEADER_TRANSFER_ID))
-                                    .build();
-                            transactions.add(t);
-                        }
-                    });
+        AtomicReference<RowFields> currentLine = new AtomicReference<>();
+        try {
+            transactions.addAll(readSortedFile(fileName, skipRows, separator, null, fields -> {
+                currentLine.set(fields);
+                if (fields.isBlank()) {
+                    return null;
+                }
+
+                var index = new AtomicInteger(startColumn);
+                return Transaction
+                        .builder()
+                        .portfolio(getString(index, fields, Label.HEADER_PORTFOLIO))
+                        .symbol(getString(index, fields, Label.HEADER_SYMBOL))
+                        .type(getTransactionType(index, fields))
+                        .inventoryValuation(getInventoryValuationType(index, fields))
+                        .tradeDate(getLocalDateTime(index, fields))
+                        .quantity(getBigDecimal(index, fields, Label.HEADER_QUANTITY))
+                        .price(getBigDecimal(index, fields, Label.HEADER_PRICE))
+                        .priceCurrency(getCurrencyType(index, fields))
+                        .fee(getBigDecimal(index, fields, Label.HEADER_FEE))
+                        .feeCurrency(getCurrencyType(index, fields))
+                        .orderId(getString(index, fields, Label.HEADER_ORDER_ID))
+                        .tradeId(getString(index, fields, Label.HEADER_TRADE_DATE))
+                        .transferId(getString(index, fields, Label.HEADER_TRANSFER_ID))
+                        .build();
+            }, t -> null, Transaction::getTradeDate));
         } catch (ArrayIndexOutOfBoundsException e) {
             Logger.logErrorAndExit(LOG_ERROR_ARRAY_INDEX, fileName, e.getMessage());
         } catch (IllegalArgumentException e) {
@@ -150,11 +144,11 @@ public class TransactionParser extends Parser<Transaction> {
      * @param fields the parsed line from the input file
      * @return next index value
      */
-    private TransactionType getTransactionType(AtomicInteger index, String[] fields) {
+    private TransactionType getTransactionType(AtomicInteger index, RowFields fields) {
         if (missingColumns.contains(Label.HEADER_TYPE.name())) {
             return null;
         } else {
-            return TransactionType.getEnum(fields[index.getAndIncrement()].trim());
+            return TransactionType.getEnum(fields.get(index.getAndIncrement()).trim());
         }
     }
 
@@ -165,11 +159,11 @@ public class TransactionParser extends Parser<Transaction> {
      * @param fields the parsed line from the input file
      * @return next index value
      */
-    private InventoryValuationType getInventoryValuationType(AtomicInteger index, String[] fields) {
+    private InventoryValuationType getInventoryValuationType(AtomicInteger index, RowFields fields) {
         if (missingColumns.contains(Label.HEADER_VALUATION.name())) {
             return null;
         } else {
-            return InventoryValuationType.getEnum(fields[index.getAndIncrement()].trim());
+            return InventoryValuationType.getEnum(fields.get(index.getAndIncrement()).trim());
         }
     }
 
@@ -180,11 +174,11 @@ public class TransactionParser extends Parser<Transaction> {
      * @param fields the parsed line from the input file
      * @return next index value
      */
-    private CurrencyType getCurrencyType(AtomicInteger index, String[] fields) {
+    private CurrencyType getCurrencyType(AtomicInteger index, RowFields fields) {
         if (missingColumns.contains(Label.HEADER_PRICE_CURRENCY.name())) {
             return null;
         } else {
-            var currencyAsString = fields[index.getAndIncrement()].trim();
+            var currencyAsString = fields.get(index.getAndIncrement()).trim();
             return currencyAsString.isEmpty() ? null : CurrencyType.getEnum(currencyAsString);
         }
     }
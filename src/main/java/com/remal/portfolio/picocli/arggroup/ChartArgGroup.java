@@ -0,0 +1,143 @@
+package com.remal.portfolio.picocli.arggroup;
+
+import com.remal.portfolio.picocli.converter.StringToListConverter;
+import lombok.Getter;
+import lombok.Setter;
+import picocli.CommandLine;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the 'chart' command.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Getter
+public class ChartArgGroup {
+
+    /**
+     * Output configuration.
+     */
+    @Getter
+    @Setter
+    public static class OutputArgGroup {
+
+        /**
+         * Set the portfolio report chart file name.
+         */
+        @CommandLine.Option(
+                names = {"-O", "--output-file"},
+                description = "The portfolio report charts, e.g. "
+                        + "\"'charts/portfolio-report{portfolio}-{range}.png'\". The \"{range}\" placeholder is "
+                        + "replaced with the name of the range.")
+        private String outputFile;
+
+        /**
+         * Set the performance comparison chart file name.
+         */
+        @CommandLine.Option(
+                names = {"-C", "--comparison-file"},
+                description = "The performance comparison charts of the portfolios, e.g. "
+                        + "\"'charts/performance-comparison-{range}.png'\". The \"{range}\" placeholder is "
+                        + "replaced with the name of the range.")
+        private String comparisonFile;
+
+        /**
+         * Set the price chart file name.
+         */
+        @CommandLine.Option(
+                names = {"-S", "--price-file"},
+                description = "The price chart files, e.g. \"'charts/price-{symbol}-{range}.png'\". The chart "
+                        + "shows the high, low, close and VWAP of the rollup windows. Accepted extension: .png")
+        private String priceFile;
+
+        /**
+         * The ranges of the charts.
+         */
+        @CommandLine.Option(
+                names = {"-r", "--ranges"},
+                description = "Comma separated list of the chart ranges in days. Default: \"${DEFAULT-VALUE}\"",
+                defaultValue = "7, 30, 90, 180, 365, 730, 1826, 3652",
+                split = "\\s*,\\s*")
+        private List<Integer> ranges = new ArrayList<>();
+
+        /**
+         * The names of the ranges.
+         */
+        @CommandLine.Option(
+                names = {"-R", "--range-labels"},
+                description = "Comma separated list of the range names that are shown in the chart titles. "
+                        + "Default: \"${DEFAULT-VALUE}\"",
+                defaultValue = "1 week, 1 month, 3 months, 6 months, 1 year, 2 years, 5 years, max",
+                converter = StringToListConverter.class)
+        private List<String> rangeLabels = new ArrayList<>();
+
+        /**
+         * Width of the images.
+         */
+        @CommandLine.Option(
+                names = {"-W", "--width"},
+                description = "Width of the images in pixels. Default: ${DEFAULT-VALUE}",
+                defaultValue = "1440")
+        private int width;
+
+        /**
+         * Height of the images.
+         */
+        @CommandLine.Option(
+                names = {"-H", "--height"},
+                description = "Height of the images in pixels. Default: ${DEFAULT-VALUE}",
+                defaultValue = "900")
+        private int height;
+
+        /**
+         * Number of the threads that render the charts.
+         */
+        @CommandLine.Option(
+                names = {"-T", "--threads"},
+                description = "Number of the charts that are rendered in parallel. Default: number of the CPUs")
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Set the report language.
+         */
+        @CommandLine.Option(
+                names = {"-L", "--language"},
+                description = "Two-letter ISO-639-1 language code that controls the report language. Default: EN.",
+                defaultValue = "EN")
+        private String language;
+
+        /**
+         * Pattern for parsing and formatting date and time.
+         */
+        @CommandLine.Option(
+                names = {"-D", "--date-pattern"},
+                description = "Pattern for parsing and formatting date and time in the files. "
+                        + "Default: \"${DEFAULT-VALUE}\"",
+                defaultValue = "yyyy-MM-dd HH:mm:ss")
+        private String dateTimePattern;
+
+        /**
+         * Set the timezone.
+         */
+        @CommandLine.Option(
+                names = {"-Z", "--out-timezone"},
+                description = "The timezone of the dates, e.g. \"GMT+2\", \"Europe/Budapest\" "
+                        + "Default: the system default time-zone")
+        private String zone = ZoneId.systemDefault().getId();
+    }
+
+    /**
+     * Utility classes should not have public constructors.
+     *
+     * @throws java.lang.UnsupportedOperationException if this method is called
+     */
+    private ChartArgGroup() {
+        throw new UnsupportedOperationException();
+    }
+}
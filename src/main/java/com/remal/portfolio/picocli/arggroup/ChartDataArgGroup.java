@@ -0,0 +1,197 @@
+package com.remal.portfolio.picocli.arggroup;
+
+import com.remal.portfolio.picocli.converter.StringToListConverter;
+import com.remal.portfolio.util.FileWriter;
+import lombok.Getter;
+import lombok.Setter;
+import picocli.CommandLine;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the 'chart-data' command.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Getter
+public class ChartDataArgGroup {
+
+    /**
+     * Input configuration.
+     */
+    @Getter
+    @Setter
+    public static class InputArgGroup {
+
+        /**
+         * Set the portfolio report file.
+         */
+        @CommandLine.Option(
+                names = {"-i", "--input-file"},
+                required = true,
+                description = "The portfolio report file, e.g. \"'portfolio-report{portfolio}.csv'\". "
+                        + "Both the wide and the long layout are accepted.")
+        private String file;
+
+        /**
+         * The portfolios to process.
+         */
+        @CommandLine.Option(
+                names = {"-p", "--portfolios"},
+                description = "Comma separated list of portfolio names, e.g. \"coinbase, *\". The \"{portfolio}\" "
+                        + "placeholder in the file names is replaced with \"-<name>\", or with an empty string "
+                        + "for \"*\". Default: \"${DEFAULT-VALUE}\"",
+                defaultValue = "*",
+                converter = StringToListConverter.class)
+        private List<String> portfolios = new ArrayList<>();
+
+        /**
+         * Set the base currency.
+         */
+        @CommandLine.Option(
+                names = {"-B", "--base-currency"},
+                description = "The currency of the portfolio report, e.g. \"EUR\", etc. "
+                        + "Default: \"${DEFAULT-VALUE}\"",
+                defaultValue = "EUR")
+        private String baseCurrency;
+
+        /**
+         * The end of the ranges.
+         */
+        @CommandLine.Option(
+                names = {"-t", "--in-to"},
+                description = "The end of the ranges, in the format of the '--date-pattern'. Default: now")
+        private String to;
+
+        /**
+         * Set the timezone.
+         */
+        @CommandLine.Option(
+                names = {"-z", "--in-timezone"},
+                description = "The timezone of the dates, e.g. \"GMT+2\", \"Europe/Budapest\" "
+                        + "Default: the system default time-zone")
+        private String zone = ZoneId.systemDefault().getId();
+
+        /**
+         * Set the price history file.
+         */
+        @CommandLine.Option(
+                names = {"-P", "--price-history"},
+                description = "The price history file whose rollup tiers are read for the price series, "
+                        + "e.g. \"'price-history.md'\". The 1 hour and 1 day tiers are used for the long "
+                        + "ranges. The tiers are built if they do not exist.")
+        private String priceHistoryFile;
+
+        /**
+         * The symbols of the price series.
+         */
+        @CommandLine.Option(
+                names = {"-s", "--symbols"},
+                description = "Comma separated list of the symbols whose price series are generated from the "
+                        + "price history, e.g. \"BTC-EUR, ETH-EUR\".",
+                converter = StringToListConverter.class)
+        private List<String> symbols = new ArrayList<>();
+    }
+
+    /**
+     * Output configuration.
+     */
+    @Getter
+    @Setter
+    public static class OutputArgGroup {
+
+        /**
+         * Set the output file name.
+         */
+        @CommandLine.Option(
+                names = {"-O", "--output-file"},
+                required = true,
+                description = "The chart series files, e.g. \"'charts/portfolio-report{portfolio}-{range}.csv'\". "
+                        + "The \"{range}\" placeholder is replaced with the length of the range in days. "
+                        + "Accepted extensions: .csv and .xlsx")
+        private String outputFile;
+
+        /**
+         * Set the price series file name.
+         */
+        @CommandLine.Option(
+                names = {"-S", "--price-file"},
+                description = "The price series files, e.g. \"'charts/price-{symbol}-{range}.csv'\". A row holds "
+                        + "the open, high, low, close and VWAP of a rollup window. Accepted extensions: .csv and "
+                        + ".xlsx")
+        private String priceFile;
+
+        /**
+         * The ranges of the charts.
+         */
+        @CommandLine.Option(
+                names = {"-r", "--ranges"},
+                description = "Comma separated list of the chart ranges in days. Default: \"${DEFAULT-VALUE}\"",
+                defaultValue = "7, 30, 90, 180, 365, 730, 1826, 3652",
+                split = "\\s*,\\s*")
+        private List<Integer> ranges = new ArrayList<>();
+
+        /**
+         * Number of the points in a chart series.
+         */
+        @CommandLine.Option(
+                names = {"-n", "--points"},
+                description = "The longer series are downsampled to this number of points with the "
+                        + "Largest-Triangle-Three-Buckets algorithm, based on the total market value. "
+                        + "0 turns off the downsampling. Default: ${DEFAULT-VALUE}",
+                defaultValue = "500")
+        private int points;
+
+        /**
+         *  Set the file open mode.
+         */
+        @CommandLine.Option(
+                names = {"-M", "--file-mode"},
+                description = "How to write the chart series to disk. Default: ${DEFAULT-VALUE} "
+                        + "Candidates: ${COMPLETION-CANDIDATES}",
+                defaultValue = "OVERWRITE")
+        private FileWriter.WriteMode writeMode = FileWriter.WriteMode.OVERWRITE;
+
+        /**
+         * Set the report language.
+         */
+        @CommandLine.Option(
+                names = {"-L", "--language"},
+                description = "Two-letter ISO-639-1 language code that controls the report language. Default: EN.",
+                defaultValue = "EN")
+        private String language;
+
+        /**
+         * Pattern for parsing and formatting date and time.
+         */
+        @CommandLine.Option(
+                names = {"-D", "--date-pattern"},
+                description = "Pattern for parsing and formatting date and time in the files. "
+                        + "Default: \"${DEFAULT-VALUE}\"",
+                defaultValue = "yyyy-MM-dd HH:mm:ss")
+        private String dateTimePattern;
+
+        /**
+         * Set the timezone.
+         */
+        @CommandLine.Option(
+                names = {"-Z", "--out-timezone"},
+                description = "The timezone of the dates, e.g. \"GMT+2\", \"Europe/Budapest\" "
+                        + "Default: the system default time-zone")
+        private String zone = ZoneId.systemDefault().getId();
+    }
+
+    /**
+     * Utility classes should not have public constructors.
+     *
+     * @throws java.lang.UnsupportedOperationException if this method is called
+     */
+    private ChartDataArgGroup() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -109,5 +109,14 @@ public class InputArgGroup {
                     + "Use with the '-columns-to-hide' option.",
             converter = StringToListConverter.class)
     private List<String> missingColumns = new ArrayList<>();
-}
 
+    /**
+     * Read the input file through a memory-mapped buffer.
+     */
+    @CommandLine.Option(
+            order = 100,
+            names = {"--memory-mapped"},
+            description = "Reads the input file through a memory-mapped buffer and decodes the numbers and dates "
+                    + "directly from the bytes. Useful for large files.")
+    private boolean memoryMapped;
+}
@@ -28,7 +28,7 @@ public class OutputArgGroup {
     @CommandLine.Option(
             names = {"-O", "--output-file"},
             description = "Write report to file (i.e. \"'tmp/'yyyy-MM-dd'_report.md'\"). "
-                    + "Accepted extensions: .txt, .md and .csv")
+                    + "Accepted extensions: .txt, .md, .csv and .xlsx")
     private String outputFile;
 
     /**
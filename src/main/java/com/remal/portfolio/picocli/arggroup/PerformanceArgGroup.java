@@ -0,0 +1,189 @@
+package com.remal.portfolio.picocli.arggroup;
+
+import com.remal.portfolio.picocli.converter.StringToListConverter;
+import com.remal.portfolio.util.FileWriter;
+import lombok.Getter;
+import lombok.Setter;
+import picocli.CommandLine;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the 'performance' command.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Getter
+public class PerformanceArgGroup {
+
+    /**
+     * Input configuration.
+     */
+    @Getter
+    @Setter
+    public static class InputArgGroup {
+
+        /**
+         * Set the portfolio report file.
+         */
+        @CommandLine.Option(
+                names = {"-i", "--input-file"},
+                required = true,
+                description = "The portfolio report file, e.g. \"'portfolio-report{portfolio}.csv'\". "
+                        + "Both the wide and the long layout are accepted.")
+        private String file;
+
+        /**
+         * The portfolios to process.
+         */
+        @CommandLine.Option(
+                names = {"-p", "--portfolios"},
+                description = "Comma separated list of portfolio names, e.g. \"coinbase, *\". The \"{portfolio}\" "
+                        + "placeholder in the file name is replaced with \"-<name>\", or with an empty string "
+                        + "for \"*\". Default: \"${DEFAULT-VALUE}\"",
+                defaultValue = "*",
+                converter = StringToListConverter.class)
+        private List<String> portfolios = new ArrayList<>();
+
+        /**
+         * Set the base currency.
+         */
+        @CommandLine.Option(
+                names = {"-B", "--base-currency"},
+                description = "The currency of the portfolio report, e.g. \"EUR\", etc. "
+                        + "Default: \"${DEFAULT-VALUE}\"",
+                defaultValue = "EUR")
+        private String baseCurrency;
+
+        /**
+         * The language of the portfolio report file.
+         */
+        @CommandLine.Option(
+                names = {"-l", "--in-language"},
+                description = "Two-letter ISO-639-1 language code of the portfolio report header. "
+                        + "Default: ${DEFAULT-VALUE}",
+                defaultValue = "EN")
+        private String language;
+
+        /**
+         * Pattern for parsing date and time.
+         */
+        @CommandLine.Option(
+                names = {"-d", "--in-date-pattern"},
+                description = "Pattern for parsing date and time. Default: \"${DEFAULT-VALUE}\"",
+                defaultValue = "yyyy-MM-dd HH:mm:ss")
+        private String dateTimePattern;
+
+        /**
+         * The start of the period.
+         */
+        @CommandLine.Option(
+                names = {"-f", "--in-from"},
+                description = "The start of the period, in the format of the '--in-date-pattern'. "
+                        + "Default: the first report")
+        private String from;
+
+        /**
+         * The end of the period.
+         */
+        @CommandLine.Option(
+                names = {"-t", "--in-to"},
+                description = "The end of the period, in the format of the '--in-date-pattern'. "
+                        + "Default: the last report")
+        private String to;
+
+        /**
+         * Set the timezone.
+         */
+        @CommandLine.Option(
+                names = {"-z", "--in-timezone"},
+                description = "The timezone of the dates, e.g. \"GMT+2\", \"Europe/Budapest\" "
+                        + "Default: the system default time-zone")
+        private String zone = ZoneId.systemDefault().getId();
+    }
+
+    /**
+     * Output configuration.
+     */
+    @Getter
+    @Setter
+    public static class OutputArgGroup {
+
+        /**
+         * Set the output file name.
+         */
+        @CommandLine.Option(
+                names = {"-O", "--output-file"},
+                description = "Write the report to file instead of the standard output, e.g. "
+                        + "\"'performance.md'\". Accepted extensions: .md, .txt, .csv and .xlsx")
+        private String outputFile;
+
+        /**
+         *  Set the file open mode.
+         */
+        @CommandLine.Option(
+                names = {"-M", "--file-mode"},
+                description = "How to write the report to the file. Default: ${DEFAULT-VALUE} "
+                        + "Candidates: ${COMPLETION-CANDIDATES}",
+                defaultValue = "OVERWRITE")
+        private FileWriter.WriteMode writeMode = FileWriter.WriteMode.OVERWRITE;
+
+        /**
+         * Use it if you want to hide the report title.
+         */
+        @CommandLine.Option(
+                names = {"-E", "--hide-report-title"},
+                description = "Hide the report title.")
+        private boolean hideTitle;
+
+        /**
+         * Use it if you want to hide the header of the table.
+         */
+        @CommandLine.Option(
+                names = {"-A", "--hide-table-header"},
+                description = "Hide the table header in the report.")
+        private boolean hideHeader;
+
+        /**
+         * Set the report language.
+         */
+        @CommandLine.Option(
+                names = {"-L", "--language"},
+                description = "Two-letter ISO-639-1 language code that controls the report language. "
+                        + "Default: ${DEFAULT-VALUE}",
+                defaultValue = "EN")
+        private String language;
+
+        /**
+         * Pattern for formatting date and time in the report.
+         */
+        @CommandLine.Option(
+                names = {"-D", "--out-date-pattern"},
+                description = "Pattern for formatting date and time in the report. Default: \"${DEFAULT-VALUE}\"",
+                defaultValue = "yyyy-MM-dd HH:mm:ss")
+        private String dateTimePattern;
+
+        /**
+         * Set the timezone.
+         */
+        @CommandLine.Option(
+                names = {"-Z", "--out-timezone"},
+                description = "The timezone of the dates, e.g. \"GMT+2\", \"Europe/Budapest\" "
+                        + "Default: the system default time-zone")
+        private String zone = ZoneId.systemDefault().getId();
+    }
+
+    /**
+     * Utility classes should not have public constructors.
+     *
+     * @throws java.lang.UnsupportedOperationException if this method is called
+     */
+    private PerformanceArgGroup() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -1,6 +1,7 @@
 package com.remal.portfolio.picocli.arggroup;
 
 import com.remal.portfolio.model.MultiplicityType;
+import com.remal.portfolio.model.ReportLayoutType;
 import com.remal.portfolio.picocli.converter.StringToListConverter;
 import com.remal.portfolio.util.FileWriter;
 import lombok.Getter;
@@ -47,7 +48,8 @@ public class PortfolioArgGroup {
         @CommandLine.Option(
                 names = {"-O", "--portfolio-summary"},
                 description = "Write the portfolio summary to a file "
-                        + "(i.e. \"'tmp/'yyyy-MM-dd'_portfolio-summary.md'\"). Accepted extensions: .txt, .md and .csv")
+                        + "(i.e. \"'tmp/'yyyy-MM-dd'_portfolio-summary.md'\"). "
+                        + "Accepted extensions: .txt, .md, .csv and .xlsx")
         private String portfolioSummaryFile;
 
         /**
@@ -60,6 +62,27 @@ public class PortfolioArgGroup {
                         + "Accepted extensions: .csv")
         private String portfolioReportFile;
 
+        /**
+         * Set the layout of the portfolio report file.
+         */
+        @CommandLine.Option(
+                names = {"--portfolio-report-layout"},
+                description = "Layout of the portfolio report file. WIDE: one column per metric and currency, "
+                        + "the file is rewritten when a new currency appears. LONG: one row per metric and "
+                        + "currency, new reports are appended to the file. "
+                        + "Candidates: ${COMPLETION-CANDIDATES}. Default: ${DEFAULT-VALUE}",
+                defaultValue = "WIDE")
+        private ReportLayoutType portfolioReportLayout;
+
+        /**
+         * Set the wide export file of the portfolio report.
+         */
+        @CommandLine.Option(
+                names = {"--portfolio-report-export"},
+                description = "Export the portfolio report with LONG layout to a wide CSV file, "
+                        + "i.e. \"'tmp/portfolio-report-wide.csv'\". Accepted extensions: .csv and .xlsx")
+        private String portfolioReportExportFile;
+
         /**
          * Set the file open mode.
          */
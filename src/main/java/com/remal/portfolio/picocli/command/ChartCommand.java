@@ -0,0 +1,328 @@
+package com.remal.portfolio.picocli.command;
+
+import com.remal.portfolio.Main;
+import com.remal.portfolio.model.CurrencyType;
+import com.remal.portfolio.model.FileType;
+import com.remal.portfolio.model.MultiplicityType;
+import com.remal.portfolio.model.PriceRollup;
+import com.remal.portfolio.picocli.arggroup.ChartArgGroup;
+import com.remal.portfolio.picocli.arggroup.ChartDataArgGroup;
+import com.remal.portfolio.util.Files;
+import com.remal.portfolio.util.LocalDateTimes;
+import com.remal.portfolio.util.Logger;
+import com.remal.portfolio.util.Metrics;
+import com.remal.portfolio.util.ZoneIds;
+import com.remal.portfolio.writer.ChartWriter;
+import com.remal.portfolio.writer.PortfolioWriter;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Implementation of the 'chart' command.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@CommandLine.Command(
+        name = "chart",
+        sortOptions = false,
+        usageHelpAutoWidth = true,
+        description = "Draws the portfolio report, the performance comparison and the price charts to PNG files.",
+        descriptionHeading = "%n",
+        optionListHeading = "%n",
+        footerHeading = Main.FOOTER_HEADING,
+        footer = Main.FOOTER)
+@Slf4j
+public class ChartCommand implements Callable<Integer> {
+
+    /**
+     * Placeholder of the range in the output file names.
+     */
+    private static final String RANGE_PLACEHOLDER = "{range}";
+
+    /**
+     * The portfolio name that means all portfolios.
+     */
+    private static final String ALL_PORTFOLIOS = "*";
+
+    /**
+     * In this mode the log file won't be written to the standard output.
+     */
+    @CommandLine.Option(names = {"-q", "--quiet"},
+            description = "In this mode log wont be shown.")
+    boolean quietMode;
+
+    /**
+     * Collect the per-stage metrics of the run.
+     */
+    @CommandLine.Option(
+            names = {"--metrics"},
+            arity = "0..1",
+            fallbackValue = "",
+            description = "Show the per-stage timing breakdown of the run, or append it to a file, "
+                    + "e.g. \"'metrics.csv'\". Accepted extensions: .csv and .json")
+    private String metricsFile;
+
+    /**
+     * Input configuration.
+     */
+    @CommandLine.ArgGroup(
+            exclusive = false,
+            multiplicity = "1",
+            heading = "%nInput:%n")
+    private final ChartDataArgGroup.InputArgGroup inputArgGroup = new ChartDataArgGroup.InputArgGroup();
+
+    /**
+     * Output configuration.
+     */
+    @CommandLine.ArgGroup(
+            exclusive = false,
+            multiplicity = "1",
+            heading = "%nOutput:%n")
+    private final ChartArgGroup.OutputArgGroup outputArgGroup = new ChartArgGroup.OutputArgGroup();
+
+    /**
+     * Execute the command and computes a result.
+     *
+     * @return exit code
+     */
+    @Override
+    public Integer call() {
+        Logger.setSilentMode(quietMode);
+        Metrics.enable(Objects.nonNull(metricsFile));
+        log.info("executing the 'chart' command...");
+
+        // the charts are drawn to images, a display is not needed
+        System.setProperty("java.awt.headless", "true");
+
+        inputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(inputArgGroup.getZone()));
+        outputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(outputArgGroup.getZone()));
+
+        Logger.logQuietMode(log, quietMode);
+        Logger.logMetrics(log, metricsFile);
+        Logger.logInput(log, inputArgGroup);
+        Logger.logOutput(log, outputArgGroup);
+
+        // validating the inputs
+        CurrencyType.abortIfInvalid(inputArgGroup.getBaseCurrency());
+        ZoneIds.validate(outputArgGroup.getZone());
+        validateOptions();
+
+        var inputZone = ZoneId.of(inputArgGroup.getZone());
+        var now = LocalDateTime.now();
+        var end = Objects.isNull(inputArgGroup.getTo())
+                ? LocalDateTimes.getNow(inputZone)
+                : LocalDateTimes.toLocalDateTime(inputZone, outputArgGroup.getDateTimePattern(), inputArgGroup.getTo());
+
+        // every report file is read once, the charts are rendered from memory
+        var portfolioWriter = PortfolioWriter.build(inputArgGroup, outputArgGroup);
+        var chartWriter = new ChartWriter(
+                outputArgGroup.getWidth(),
+                outputArgGroup.getHeight(),
+                inputArgGroup.getBaseCurrency());
+        inputArgGroup.getPortfolios().forEach(portfolio -> {
+            var reportFile = LocalDateTimes.toString(inputZone,
+                    PortfolioCommand.resolvePortfolioPlaceholder(inputArgGroup.getFile(), portfolio), now);
+            chartWriter.addPortfolio(portfolio, portfolioWriter.readPortfolioReports(reportFile));
+        });
+
+        // the price charts are drawn from the rollup tier that fits the range
+        Map<MultiplicityType, PriceRollup> rollups = Objects.isNull(outputArgGroup.getPriceFile())
+                ? Map.of()
+                : ChartDataCommand.readRollups(inputArgGroup, now);
+
+        var tasks = buildTasks(chartWriter, rollups, inputZone, now, end);
+        log.info("rendering {} charts...", tasks.size());
+        renderCharts(tasks);
+
+        Metrics.report(LocalDateTimes.toString(null, metricsFile, LocalDateTime.now()));
+        return CommandLine.ExitCode.OK;
+    }
+
+    /**
+     * Creates one task per chart: a portfolio report chart per portfolio and
+     * range, a performance comparison chart per range and a price chart per
+     * symbol and range.
+     *
+     * @param chartWriter the chart renderer
+     * @param rollups the rollup tiers of the price history
+     * @param inputZone the timezone of the file names
+     * @param now the date that is used in the file names
+     * @param end the end of the ranges
+     * @return the tasks
+     */
+    private List<Callable<Void>> buildTasks(ChartWriter chartWriter,
+                                            Map<MultiplicityType, PriceRollup> rollups,
+                                            ZoneId inputZone,
+                                            LocalDateTime now,
+                                            LocalDateTime end) {
+
+        var portfolios = inputArgGroup.getPortfolios();
+        var comparedPortfolios = portfolios.stream().filter(x -> !ALL_PORTFOLIOS.equals(x)).toList();
+        var ranges = outputArgGroup.getRanges();
+        var rangeLabels = outputArgGroup.getRangeLabels();
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (var i = 0; i < ranges.size(); i++) {
+            var rangeLabel = rangeLabels.get(i);
+            var start = end.minusDays(ranges.get(i));
+
+            if (Objects.nonNull(outputArgGroup.getOutputFile())) {
+                portfolios.forEach(portfolio -> {
+                    var filename = resolveFileName(
+                            outputArgGroup.getOutputFile(), portfolio, rangeLabel, inputZone, now);
+                    var name = ALL_PORTFOLIOS.equals(portfolio) ? "all" : portfolio;
+                    var title = String.format("%s (%s)", name.toUpperCase(), rangeLabel);
+                    tasks.add(() -> {
+                        chartWriter.writePortfolioReportChart(filename, portfolio, title, start, end);
+                        return null;
+                    });
+                });
+            }
+
+            if (Objects.nonNull(outputArgGroup.getComparisonFile()) && !comparedPortfolios.isEmpty()) {
+                var filename = resolveFileName(outputArgGroup.getComparisonFile(), "", rangeLabel, inputZone, now);
+                tasks.add(() -> {
+                    chartWriter.writePerformanceComparisonChart(filename, comparedPortfolios, rangeLabel, start, end);
+                    return null;
+                });
+            }
+
+            if (Objects.nonNull(outputArgGroup.getPriceFile())) {
+                var tier = PriceRollup.selectTier(start, end);
+                inputArgGroup.getSymbols().forEach(symbol -> {
+                    var pattern = outputArgGroup.getPriceFile().replace(ChartDataCommand.SYMBOL_PLACEHOLDER, symbol);
+                    var filename = resolveFileName(pattern, "", rangeLabel, inputZone, now);
+                    var bars = rollups.get(tier).getBars(symbol, start, end);
+                    var title = String.format("Price of %s: %s", symbol, rangeLabel);
+                    log.debug("price chart, symbol: {}, range: {}, tier: {}, bars: {}",
+                            symbol, rangeLabel, tier, bars.size());
+                    tasks.add(() -> {
+                        chartWriter.writePriceChart(filename, title, bars, start, end);
+                        return null;
+                    });
+                });
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Renders the charts in parallel.
+     *
+     * @param tasks the chart tasks
+     */
+    private void renderCharts(List<Callable<Void>> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        var executor = Executors.newFixedThreadPool(Math.max(1, Math.min(outputArgGroup.getThreads(), tasks.size())));
+        var sample = Metrics.start(Metrics.RENDER);
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            log.error("An unexpected error has occurred while rendering the charts. {}.", e.getCause().toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Rendering the charts has been interrupted. {}.", e.toString());
+        } finally {
+            sample.stop();
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Replaces the placeholders of a chart file name. The spaces of the
+     * range name are replaced with dashes.
+     *
+     * @param pattern the file name pattern
+     * @param portfolio the portfolio name
+     * @param rangeLabel the name of the range
+     * @param inputZone the timezone of the file names
+     * @param now the date that is used in the file names
+     * @return the file name
+     */
+    private static String resolveFileName(String pattern,
+                                          String portfolio,
+                                          String rangeLabel,
+                                          ZoneId inputZone,
+                                          LocalDateTime now) {
+
+        var filename = PortfolioCommand
+                .resolvePortfolioPlaceholder(pattern, portfolio)
+                .replace(RANGE_PLACEHOLDER, rangeLabel.replace(' ', '-'));
+        return LocalDateTimes.toString(inputZone, filename, now);
+    }
+
+    /**
+     * Checks the options, otherwise the charts overwrite each other.
+     */
+    private void validateOptions() {
+        var outputFile = outputArgGroup.getOutputFile();
+        var comparisonFile = outputArgGroup.getComparisonFile();
+        var priceFile = outputArgGroup.getPriceFile();
+        if (Objects.isNull(outputFile) && Objects.isNull(comparisonFile) && Objects.isNull(priceFile)) {
+            Logger.logErrorAndExit("Either the output file, the comparison file or the price file must be set.");
+        }
+
+        if (outputArgGroup.getRanges().size() != outputArgGroup.getRangeLabels().size()) {
+            Logger.logErrorAndExit("The number of the ranges and the range labels must be the same.");
+        }
+
+        if (Objects.nonNull(outputFile)) {
+            if (inputArgGroup.getPortfolios().size() > 1
+                    && !outputFile.contains(PortfolioCommand.PORTFOLIO_PLACEHOLDER)) {
+                Logger.logErrorAndExit("The output file name must contain the \"{}\" placeholder if more portfolios "
+                        + "are processed.", PortfolioCommand.PORTFOLIO_PLACEHOLDER);
+            }
+            validateFileName(outputFile);
+        }
+
+        if (Objects.nonNull(comparisonFile)) {
+            validateFileName(comparisonFile);
+        }
+
+        if (Objects.nonNull(priceFile)) {
+            ChartDataCommand.validatePriceFile(inputArgGroup, outputArgGroup.getRanges(), priceFile);
+            validateFileName(priceFile);
+        }
+
+        if (inputArgGroup.getPortfolios().size() > 1
+                && !inputArgGroup.getFile().contains(PortfolioCommand.PORTFOLIO_PLACEHOLDER)) {
+            Logger.logErrorAndExit("The input file name must contain the \"{}\" placeholder if more portfolios "
+                    + "are processed.", PortfolioCommand.PORTFOLIO_PLACEHOLDER);
+        }
+    }
+
+    /**
+     * Checks the range placeholder and the type of a chart file.
+     *
+     * @param filename the chart file name
+     */
+    private void validateFileName(String filename) {
+        if (outputArgGroup.getRanges().size() > 1 && !filename.contains(RANGE_PLACEHOLDER)) {
+            Logger.logErrorAndExit("The chart file name must contain the \"{}\" placeholder if more ranges are "
+                    + "requested.", RANGE_PLACEHOLDER);
+        }
+
+        if (Files.getFileType(filename) != FileType.PNG) {
+            Logger.logErrorAndExit("Unsupported chart file type: \"{}\". Accepted extension: .png", filename);
+        }
+    }
+}
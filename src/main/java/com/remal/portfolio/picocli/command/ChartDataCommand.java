@@ -0,0 +1,278 @@
+package com.remal.portfolio.picocli.command;
+
+import com.remal.portfolio.Main;
+import com.remal.portfolio.model.CurrencyType;
+import com.remal.portfolio.model.FileType;
+import com.remal.portfolio.model.MultiplicityType;
+import com.remal.portfolio.model.PriceBar;
+import com.remal.portfolio.model.PriceRollup;
+import com.remal.portfolio.parser.PriceParser;
+import com.remal.portfolio.picocli.arggroup.ChartDataArgGroup;
+import com.remal.portfolio.util.Downsampler;
+import com.remal.portfolio.util.Files;
+import com.remal.portfolio.util.LocalDateTimes;
+import com.remal.portfolio.util.Logger;
+import com.remal.portfolio.util.Metrics;
+import com.remal.portfolio.util.ZoneIds;
+import com.remal.portfolio.writer.PortfolioWriter;
+import com.remal.portfolio.writer.PriceBarWriter;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+/**
+ * Implementation of the 'chart-data' command.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@CommandLine.Command(
+        name = "chart-data",
+        sortOptions = false,
+        usageHelpAutoWidth = true,
+        description = "Slices the portfolio report into chart series, one file per portfolio and range.",
+        descriptionHeading = "%n",
+        optionListHeading = "%n",
+        footerHeading = Main.FOOTER_HEADING,
+        footer = Main.FOOTER)
+@Slf4j
+public class ChartDataCommand implements Callable<Integer> {
+
+    /**
+     * Placeholder of the range in the output file names.
+     */
+    private static final String RANGE_PLACEHOLDER = "{range}";
+
+    /**
+     * Placeholder of the symbol in the price file names.
+     */
+    static final String SYMBOL_PLACEHOLDER = "{symbol}";
+
+    /**
+     * In this mode the log file won't be written to the standard output.
+     */
+    @CommandLine.Option(names = {"-q", "--quiet"},
+            description = "In this mode log wont be shown.")
+    boolean quietMode;
+
+    /**
+     * Collect the per-stage metrics of the run.
+     */
+    @CommandLine.Option(
+            names = {"--metrics"},
+            arity = "0..1",
+            fallbackValue = "",
+            description = "Show the per-stage timing breakdown of the run, or append it to a file, "
+                    + "e.g. \"'metrics.csv'\". Accepted extensions: .csv and .json")
+    private String metricsFile;
+
+    /**
+     * Input configuration.
+     */
+    @CommandLine.ArgGroup(
+            exclusive = false,
+            multiplicity = "1",
+            heading = "%nInput:%n")
+    private final ChartDataArgGroup.InputArgGroup inputArgGroup = new ChartDataArgGroup.InputArgGroup();
+
+    /**
+     * Output configuration.
+     */
+    @CommandLine.ArgGroup(
+            exclusive = false,
+            multiplicity = "1",
+            heading = "%nOutput:%n")
+    private final ChartDataArgGroup.OutputArgGroup outputArgGroup = new ChartDataArgGroup.OutputArgGroup();
+
+    /**
+     * Execute the command and computes a result.
+     *
+     * @return exit code
+     */
+    @Override
+    public Integer call() {
+        Logger.setSilentMode(quietMode);
+        Metrics.enable(Objects.nonNull(metricsFile));
+        log.info("executing the 'chart-data' command...");
+
+        inputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(inputArgGroup.getZone()));
+        outputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(outputArgGroup.getZone()));
+
+        Logger.logQuietMode(log, quietMode);
+        Logger.logMetrics(log, metricsFile);
+        Logger.logInput(log, inputArgGroup);
+        Logger.logOutput(log, outputArgGroup);
+
+        // validating the inputs
+        CurrencyType.abortIfInvalid(inputArgGroup.getBaseCurrency());
+        ZoneIds.validate(outputArgGroup.getZone());
+        validateFileNames();
+
+        var inputZone = ZoneId.of(inputArgGroup.getZone());
+        var now = LocalDateTime.now();
+        var end = Objects.isNull(inputArgGroup.getTo())
+                ? LocalDateTimes.getNow(inputZone)
+                : LocalDateTimes.toLocalDateTime(inputZone, outputArgGroup.getDateTimePattern(), inputArgGroup.getTo());
+
+        var writer = PortfolioWriter.build(inputArgGroup, outputArgGroup);
+        inputArgGroup.getPortfolios().forEach(portfolio -> {
+            var reportFile = LocalDateTimes.toString(inputZone,
+                    PortfolioCommand.resolvePortfolioPlaceholder(inputArgGroup.getFile(), portfolio), now);
+
+            Map<Integer, String> seriesFiles = new LinkedHashMap<>();
+            outputArgGroup.getRanges().forEach(rangeInDays -> {
+                var seriesFile = PortfolioCommand
+                        .resolvePortfolioPlaceholder(outputArgGroup.getOutputFile(), portfolio)
+                        .replace(RANGE_PLACEHOLDER, String.valueOf(rangeInDays));
+                seriesFiles.put(rangeInDays, LocalDateTimes.toString(inputZone, seriesFile, now));
+            });
+
+            log.info("generating the chart series, portfolio: {}, ranges: {}", portfolio, seriesFiles.size());
+            writer.exportChartSeries(outputArgGroup.getWriteMode(), reportFile, seriesFiles, end,
+                    outputArgGroup.getPoints());
+        });
+
+        // the price series are read from the rollup tier that fits the range
+        if (Objects.nonNull(outputArgGroup.getPriceFile())) {
+            var rollups = readRollups(inputArgGroup, now);
+            var priceWriter = PriceBarWriter.build(inputArgGroup, outputArgGroup);
+            inputArgGroup.getSymbols().forEach(symbol -> outputArgGroup.getRanges().forEach(rangeInDays -> {
+                var start = end.minusDays(rangeInDays);
+                var tier = PriceRollup.selectTier(start, end);
+                var bars = downsample(rollups.get(tier).getBars(symbol, start, end), outputArgGroup.getPoints());
+                var priceFile = outputArgGroup.getPriceFile()
+                        .replace(SYMBOL_PLACEHOLDER, symbol)
+                        .replace(RANGE_PLACEHOLDER, String.valueOf(rangeInDays));
+
+                log.info("generating the price series, symbol: {}, range: {} days, tier: {}, bars: {}",
+                        symbol, rangeInDays, tier, bars.size());
+                priceWriter.write(outputArgGroup.getWriteMode(), LocalDateTimes.toString(inputZone, priceFile, now),
+                        bars);
+            }));
+        }
+
+        Metrics.report(LocalDateTimes.toString(null, metricsFile, LocalDateTime.now()));
+        return CommandLine.ExitCode.OK;
+    }
+
+    /**
+     * Loads the rollup tiers of the price history file. The tiers are built
+     * from the price history if they do not exist or out of date.
+     *
+     * @param inputArgGroup the input CLI group
+     * @param now the date that is used in the file name
+     * @return the tiers
+     */
+    static Map<MultiplicityType, PriceRollup> readRollups(ChartDataArgGroup.InputArgGroup inputArgGroup,
+                                                          LocalDateTime now) {
+        var inputZone = ZoneId.of(inputArgGroup.getZone());
+        var historyFile = LocalDateTimes.toString(inputZone, inputArgGroup.getPriceHistoryFile(), now);
+        var sample = Metrics.start(Metrics.ROLLUP);
+        try {
+            return PriceRollup.loadOrBuild(historyFile, () -> {
+                var parser = new PriceParser();
+                parser.setZone(inputZone);
+                return parser.parse(historyFile);
+            });
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Downsamples the bars with the Largest-Triangle-Three-Buckets
+     * algorithm, based on the close prices.
+     *
+     * @param bars the bars ordered by the window start
+     * @param points number of the bars to keep, 0 turns off the downsampling
+     * @return the selected bars
+     */
+    private static List<PriceBar> downsample(List<PriceBar> bars, int points) {
+        var x = new double[bars.size()];
+        var y = new double[bars.size()];
+        for (var i = 0; i < bars.size(); i++) {
+            x[i] = bars.get(i).getWindowStart().toEpochSecond(ZoneOffset.UTC);
+            y[i] = bars.get(i).getClose().doubleValue();
+        }
+
+        var indexes = Downsampler.largestTriangleThreeBuckets(x, y, 0, bars.size(), points);
+        return Arrays.stream(indexes).mapToObj(bars::get).toList();
+    }
+
+    /**
+     * Checks the placeholders of the file names, otherwise the series
+     * overwrite each other.
+     */
+    private void validateFileNames() {
+        var inputFile = inputArgGroup.getFile();
+        var outputFile = outputArgGroup.getOutputFile();
+        if (inputArgGroup.getPortfolios().size() > 1
+                && (!inputFile.contains(PortfolioCommand.PORTFOLIO_PLACEHOLDER)
+                || !outputFile.contains(PortfolioCommand.PORTFOLIO_PLACEHOLDER))) {
+            Logger.logErrorAndExit("The file names must contain the \"{}\" placeholder if more portfolios are "
+                    + "processed.", PortfolioCommand.PORTFOLIO_PLACEHOLDER);
+        }
+
+        if (outputArgGroup.getRanges().size() > 1 && !outputFile.contains(RANGE_PLACEHOLDER)) {
+            Logger.logErrorAndExit("The output file name must contain the \"{}\" placeholder if more ranges are "
+                    + "requested.", RANGE_PLACEHOLDER);
+        }
+
+        validateFileType(outputFile);
+
+        var priceFile = outputArgGroup.getPriceFile();
+        if (Objects.nonNull(priceFile)) {
+            validatePriceFile(inputArgGroup, outputArgGroup.getRanges(), priceFile);
+            validateFileType(priceFile);
+        }
+    }
+
+    /**
+     * Checks the options of the price series, otherwise the series
+     * overwrite each other.
+     *
+     * @param inputArgGroup the input CLI group
+     * @param ranges the requested ranges
+     * @param priceFile the price file name
+     */
+    static void validatePriceFile(ChartDataArgGroup.InputArgGroup inputArgGroup, List<Integer> ranges,
+                                  String priceFile) {
+        if (Objects.isNull(inputArgGroup.getPriceHistoryFile()) || inputArgGroup.getSymbols().isEmpty()) {
+            Logger.logErrorAndExit("The price history file and the symbols must be set if the price file is set.");
+        }
+
+        if (inputArgGroup.getSymbols().size() > 1 && !priceFile.contains(SYMBOL_PLACEHOLDER)) {
+            Logger.logErrorAndExit("The price file name must contain the \"{}\" placeholder if more symbols are "
+                    + "requested.", SYMBOL_PLACEHOLDER);
+        }
+
+        if (ranges.size() > 1 && !priceFile.contains(RANGE_PLACEHOLDER)) {
+            Logger.logErrorAndExit("The price file name must contain the \"{}\" placeholder if more ranges are "
+                    + "requested.", RANGE_PLACEHOLDER);
+        }
+    }
+
+    /**
+     * Checks the type of the output file.
+     *
+     * @param filename the file name
+     */
+    private static void validateFileType(String filename) {
+        var fileType = Files.getFileType(filename);
+        if (fileType != FileType.CSV && fileType != FileType.XLSX) {
+            Logger.logErrorAndExit("Unsupported output file type: \"{}\". Accepted extensions: .csv and .xlsx",
+                    filename);
+        }
+    }
+}
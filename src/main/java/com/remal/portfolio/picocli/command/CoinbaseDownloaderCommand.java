@@ -2,12 +2,17 @@ package com.remal.portfolio.picocli.command;
 
 import com.remal.portfolio.Main;
 import com.remal.portfolio.downloader.coinbasepro.CoinbaseProResponseParser;
+import com.remal.portfolio.downloader.coinbasepro.CoinbaseSyncState;
 import com.remal.portfolio.model.CurrencyType;
+import com.remal.portfolio.model.FileType;
 import com.remal.portfolio.model.Transaction;
 import com.remal.portfolio.picocli.arggroup.CoinbaseProArgGroup;
 import com.remal.portfolio.picocli.arggroup.OutputArgGroup;
+import com.remal.portfolio.util.FileWriter;
+import com.remal.portfolio.util.Files;
 import com.remal.portfolio.util.LocalDateTimes;
 import com.remal.portfolio.util.Logger;
+import com.remal.portfolio.util.Metrics;
 import com.remal.portfolio.util.ZoneIds;
 import com.remal.portfolio.writer.TransactionWriter;
 import com.remal.portfolio.writer.Writer;
@@ -17,6 +22,7 @@ import picocli.CommandLine;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Objects;
 import java.util.concurrent.Callable;
 
 /**
@@ -47,6 +53,28 @@ public class CoinbaseDownloaderCommand implements Callable<Integer> {
             description = "Perform actions without displaying any details.")
     private boolean silentMode;
 
+    /**
+     * Collect the per-stage metrics of the run.
+     */
+    @CommandLine.Option(
+            names = {"--metrics"},
+            arity = "0..1",
+            fallbackValue = "",
+            description = "Show the per-stage timing breakdown of the run, or append it to a file, "
+                    + "e.g. \"'metrics.csv'\". Accepted extensions: .csv and .json")
+    private String metricsFile;
+
+    /**
+     * State file of the incremental sync.
+     */
+    @CommandLine.Option(
+            names = {"--sync-state"},
+            description = "Download only the fills and transfers that are newer than the ones recorded in the "
+                    + "state file, e.g. \"'coinbase-sync.properties'\", and append them to the output file. "
+                    + "The state file is updated after the output has been written. It cannot be used "
+                    + "together with the '--in-from' and '--in-to' filters and with Excel output files.")
+    private String syncStateFile;
+
     /**
      * Coinbase PRO API CLI group.
      */
@@ -72,10 +100,13 @@ public class CoinbaseDownloaderCommand implements Callable<Integer> {
     @Override
     public Integer call() {
         Logger.setSilentMode(this.silentMode);
+        Metrics.enable(Objects.nonNull(metricsFile));
         log.info("executing the 'coinbase' command...");
 
         outputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(outputArgGroup.getZone()));
 
+        Logger.logMetrics(log, metricsFile);
+        Logger.logSyncState(log, syncStateFile);
         Logger.logInput(log, inputArgGroup);
         Logger.logOutput(log, outputArgGroup);
 
@@ -83,18 +114,41 @@ public class CoinbaseDownloaderCommand implements Callable<Integer> {
         CurrencyType.abortIfInvalid(inputArgGroup.getBaseCurrency());
         LocalDateTimes.validate(CoinbaseProArgGroup.InputArgGroup.DATE_TIME_FILTER_PATTERN, inputArgGroup.getFrom());
         LocalDateTimes.validate(CoinbaseProArgGroup.InputArgGroup.DATE_TIME_FILTER_PATTERN, inputArgGroup.getTo());
+        if (Objects.nonNull(syncStateFile)
+                && (Objects.nonNull(inputArgGroup.getFrom()) || Objects.nonNull(inputArgGroup.getTo()))) {
+            // the filtered transactions would be marked as seen and never be downloaded again
+            Logger.logErrorAndExit("The '--sync-state' option cannot be used with the '--in-from' and '--in-to' "
+                    + "filters.");
+        }
+        if (Objects.nonNull(syncStateFile) && Files.getFileType(outputArgGroup.getOutputFile()) == FileType.XLSX) {
+            // the incremental sync appends to the output file
+            Logger.logErrorAndExit("The '--sync-state' option cannot be used with Excel output files.");
+        }
 
         // input
-        var parser = new CoinbaseProResponseParser(inputArgGroup);
+        var zone = ZoneId.of(outputArgGroup.getZone());
+        var syncStateFilename = LocalDateTimes.toString(zone, syncStateFile, LocalDateTime.now());
+        var syncState = Objects.isNull(syncStateFilename) ? null : new CoinbaseSyncState(syncStateFilename);
+        var parser = new CoinbaseProResponseParser(inputArgGroup, syncState);
         var transactions = new ArrayList<>(parser.parse());
 
         // output
         var outFilenameTemplate = outputArgGroup.getOutputFile();
-        var zone = ZoneId.of(outputArgGroup.getZone());
         var outFilename = LocalDateTimes.toString(zone, outFilenameTemplate, LocalDateTime.now());
 
+        // the incremental sync appends the delta to the output file
+        var writeMode = Objects.isNull(syncState) || Objects.isNull(outFilename)
+                ? outputArgGroup.getWriteMode()
+                : FileWriter.WriteMode.APPEND;
+        log.debug("> number of the new transactions: {}, write-mode: {}", transactions.size(), writeMode);
+
         Writer<Transaction> writer = TransactionWriter.build(outputArgGroup);
-        writer.write(outputArgGroup.getWriteMode(), outFilename, transactions);
+        writer.write(writeMode, outFilename, transactions);
+
+        if (Objects.nonNull(syncState)) {
+            syncState.save();
+        }
+        Metrics.report(LocalDateTimes.toString(null, metricsFile, LocalDateTime.now()));
         return CommandLine.ExitCode.OK;
     }
 }
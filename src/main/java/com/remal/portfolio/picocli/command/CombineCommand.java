@@ -8,6 +8,7 @@ import com.remal.portfolio.picocli.arggroup.OutputArgGroup;
 import com.remal.portfolio.util.Filter;
 import com.remal.portfolio.util.LocalDateTimes;
 import com.remal.portfolio.util.Logger;
+import com.remal.portfolio.util.Metrics;
 import com.remal.portfolio.util.ZoneIds;
 import com.remal.portfolio.writer.TransactionWriter;
 import com.remal.portfolio.writer.Writer;
@@ -18,6 +19,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicLong;
@@ -49,6 +51,17 @@ public class CombineCommand implements Callable<Integer> {
             description = "In this mode log wont be shown.")
     private boolean quietMode;
 
+    /**
+     * Collect the per-stage metrics of the run.
+     */
+    @CommandLine.Option(
+            names = {"--metrics"},
+            arity = "0..1",
+            fallbackValue = "",
+            description = "Show the per-stage timing breakdown of the run, or append it to a file, "
+                    + "e.g. \"'metrics.csv'\". Accepted extensions: .csv and .json")
+    private String metricsFile;
+
     /**
      * Input CLI group.
      */
@@ -74,12 +87,14 @@ public class CombineCommand implements Callable<Integer> {
     @Override
     public Integer call() {
         Logger.setSilentMode(quietMode);
+        Metrics.enable(Objects.nonNull(metricsFile));
         log.info("executing the 'combine' command...");
 
         inputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(inputArgGroup.getZone()));
         outputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(outputArgGroup.getZone()));
 
         Logger.logQuietMode(log, quietMode);
+        Logger.logMetrics(log, metricsFile);
         Logger.logInput(log, inputArgGroup);
         Logger.logOutput(log, outputArgGroup);
 
@@ -102,6 +117,7 @@ public class CombineCommand implements Callable<Integer> {
 
         Writer<Transaction> writer = TransactionWriter.build(outputArgGroup);
         writer.write(outputArgGroup.getWriteMode(), outFilename, transactions);
+        Metrics.report(LocalDateTimes.toString(null, metricsFile, LocalDateTime.now()));
         return CommandLine.ExitCode.OK;
     }
 
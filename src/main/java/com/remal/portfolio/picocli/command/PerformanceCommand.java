@@ -0,0 +1,174 @@
+package com.remal.portfolio.picocli.command;
+
+import com.remal.portfolio.Main;
+import com.remal.portfolio.model.CurrencyType;
+import com.remal.portfolio.model.PerformanceReport;
+import com.remal.portfolio.model.PortfolioReport;
+import com.remal.portfolio.parser.PortfolioSummaryParser;
+import com.remal.portfolio.picocli.arggroup.PerformanceArgGroup;
+import com.remal.portfolio.picocli.arggroup.TransactionParserInputArgGroup;
+import com.remal.portfolio.util.LocalDateTimes;
+import com.remal.portfolio.util.Logger;
+import com.remal.portfolio.util.Metrics;
+import com.remal.portfolio.util.ReturnCalculator;
+import com.remal.portfolio.util.ZoneIds;
+import com.remal.portfolio.writer.PerformanceWriter;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+/**
+ * Implementation of the 'performance' command.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@CommandLine.Command(
+        name = "performance",
+        sortOptions = false,
+        usageHelpAutoWidth = true,
+        description = "Calculates the time-weighted and the money-weighted (XIRR) return of the portfolios "
+                + "from the portfolio report.",
+        descriptionHeading = "%n",
+        optionListHeading = "%n",
+        footerHeading = Main.FOOTER_HEADING,
+        footer = Main.FOOTER)
+@Slf4j
+public class PerformanceCommand implements Callable<Integer> {
+
+    /**
+     * In this mode the log file won't be written to the standard output.
+     */
+    @CommandLine.Option(names = {"-q", "--quiet"},
+            description = "In this mode log wont be shown.")
+    boolean quietMode;
+
+    /**
+     * Collect the per-stage metrics of the run.
+     */
+    @CommandLine.Option(
+            names = {"--metrics"},
+            arity = "0..1",
+            fallbackValue = "",
+            description = "Show the per-stage timing breakdown of the run, or append it to a file, "
+                    + "e.g. \"'metrics.csv'\". Accepted extensions: .csv and .json")
+    private String metricsFile;
+
+    /**
+     * Input configuration.
+     */
+    @CommandLine.ArgGroup(
+            exclusive = false,
+            multiplicity = "1",
+            heading = "%nInput:%n")
+    private final PerformanceArgGroup.InputArgGroup inputArgGroup = new PerformanceArgGroup.InputArgGroup();
+
+    /**
+     * Output configuration.
+     */
+    @CommandLine.ArgGroup(
+            exclusive = false,
+            heading = "%nOutput:%n")
+    private final PerformanceArgGroup.OutputArgGroup outputArgGroup = new PerformanceArgGroup.OutputArgGroup();
+
+    /**
+     * Execute the command and computes a result.
+     *
+     * @return exit code
+     */
+    @Override
+    public Integer call() {
+        Logger.setSilentMode(quietMode);
+        Metrics.enable(Objects.nonNull(metricsFile));
+        log.info("executing the 'performance' command...");
+
+        inputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(inputArgGroup.getZone()));
+        outputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(outputArgGroup.getZone()));
+
+        Logger.logQuietMode(log, quietMode);
+        Logger.logMetrics(log, metricsFile);
+        Logger.logInput(log, inputArgGroup);
+        Logger.logOutput(log, outputArgGroup);
+
+        // validating the inputs
+        CurrencyType.abortIfInvalid(inputArgGroup.getBaseCurrency());
+        ZoneIds.validate(outputArgGroup.getZone());
+        if (inputArgGroup.getPortfolios().size() > 1
+                && !inputArgGroup.getFile().contains(PortfolioCommand.PORTFOLIO_PLACEHOLDER)) {
+            Logger.logErrorAndExit("The input file name must contain the \"{}\" placeholder if more portfolios "
+                    + "are processed.", PortfolioCommand.PORTFOLIO_PLACEHOLDER);
+        }
+
+        var inputZone = ZoneId.of(inputArgGroup.getZone());
+        var pattern = inputArgGroup.getDateTimePattern();
+        var from = Objects.isNull(inputArgGroup.getFrom())
+                ? LocalDateTime.MIN
+                : LocalDateTimes.toLocalDateTime(inputZone, pattern, inputArgGroup.getFrom());
+        var to = Objects.isNull(inputArgGroup.getTo())
+                ? LocalDateTime.MAX
+                : LocalDateTimes.toLocalDateTime(inputZone, pattern, inputArgGroup.getTo());
+
+        var now = LocalDateTime.now();
+        List<PerformanceReport> performanceReports = new ArrayList<>();
+        inputArgGroup.getPortfolios().forEach(portfolio -> {
+            var reportFile = LocalDateTimes.toString(inputZone,
+                    PortfolioCommand.resolvePortfolioPlaceholder(inputArgGroup.getFile(), portfolio), now);
+
+            log.info("calculating the returns, portfolio: {}", portfolio);
+            var calculator = new ReturnCalculator(portfolio);
+            var sample = Metrics.start(Metrics.AGGREGATE);
+            try {
+                readPortfolioReports(reportFile)
+                        .stream()
+                        .filter(report -> !report.getGenerated().isBefore(from))
+                        .filter(report -> !report.getGenerated().isAfter(to))
+                        .sorted(Comparator.comparing(PortfolioReport::getGenerated))
+                        .forEach(calculator::add);
+            } finally {
+                sample.stop();
+            }
+
+            var performanceReport = calculator.getReport();
+            if (Objects.isNull(performanceReport)) {
+                log.warn("< there is no portfolio report in the period, portfolio: {}", portfolio);
+            } else {
+                performanceReports.add(performanceReport);
+            }
+        });
+
+        var writer = PerformanceWriter.build(inputArgGroup, outputArgGroup);
+        var outputFile = LocalDateTimes.toString(inputZone, outputArgGroup.getOutputFile(), now);
+        writer.write(outputArgGroup.getWriteMode(), outputFile, performanceReports);
+
+        Metrics.report(LocalDateTimes.toString(null, metricsFile, LocalDateTime.now()));
+        return CommandLine.ExitCode.OK;
+    }
+
+    /**
+     * Reads the portfolio reports from the portfolio report file.
+     *
+     * @param filename the report file name
+     * @return the portfolio reports
+     */
+    private List<PortfolioReport> readPortfolioReports(String filename) {
+        var parserArgGroup = new TransactionParserInputArgGroup();
+        parserArgGroup.setFile(filename);
+        parserArgGroup.setDateTimePattern(inputArgGroup.getDateTimePattern());
+        parserArgGroup.setZone(inputArgGroup.getZone());
+        parserArgGroup.hasTitle(false);
+        parserArgGroup.hasHeader(true);
+
+        var baseCurrency = CurrencyType.getEnum(inputArgGroup.getBaseCurrency());
+        var parser = PortfolioSummaryParser.build(baseCurrency, inputArgGroup.getLanguage(), parserArgGroup);
+        return parser.parse(filename);
+    }
+}
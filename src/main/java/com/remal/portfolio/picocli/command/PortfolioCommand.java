@@ -1,16 +1,21 @@
 package com.remal.portfolio.picocli.command;
 
 import com.remal.portfolio.Main;
+import com.remal.portfolio.downloader.DownloadStatistics;
 import com.remal.portfolio.downloader.MarketPriceDownloader;
 import com.remal.portfolio.model.CurrencyType;
 import com.remal.portfolio.model.PortfolioReport;
+import com.remal.portfolio.model.PortfolioSnapshot;
 import com.remal.portfolio.model.Transaction;
 import com.remal.portfolio.parser.Parser;
 import com.remal.portfolio.parser.TransactionParser;
 import com.remal.portfolio.picocli.arggroup.PortfolioArgGroup;
 import com.remal.portfolio.picocli.arggroup.PortfolioInputArgGroup;
+import com.remal.portfolio.picocli.converter.StringToListConverter;
+import com.remal.portfolio.util.Filter;
 import com.remal.portfolio.util.LocalDateTimes;
 import com.remal.portfolio.util.Logger;
+import com.remal.portfolio.util.Metrics;
 import com.remal.portfolio.util.PortfolioNameRenamer;
 import com.remal.portfolio.util.ZoneIds;
 import com.remal.portfolio.writer.PortfolioWriter;
@@ -21,6 +26,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 
@@ -44,6 +54,16 @@ import java.util.concurrent.Callable;
 @Slf4j
 public class PortfolioCommand implements Callable<Integer> {
 
+    /**
+     * Placeholder of the portfolio name in the output file names.
+     */
+    static final String PORTFOLIO_PLACEHOLDER = "{portfolio}";
+
+    /**
+     * The portfolio name that selects all portfolios.
+     */
+    private static final String ALL_PORTFOLIOS = "*";
+
     /**
      * In this mode the log file won't be written to the standard output.
      */
@@ -51,6 +71,17 @@ public class PortfolioCommand implements Callable<Integer> {
             description = "In this mode log wont be shown.")
     boolean quietMode;
 
+    /**
+     * Collect the per-stage metrics of the run.
+     */
+    @CommandLine.Option(
+            names = {"--metrics"},
+            arity = "0..1",
+            fallbackValue = "",
+            description = "Show the per-stage timing breakdown of the run, or append it to a file, "
+                    + "e.g. \"'metrics.csv'\". Accepted extensions: .csv and .json")
+    private String metricsFile;
+
     /**
      * Set the price history file.
      */
@@ -60,6 +91,55 @@ public class PortfolioCommand implements Callable<Integer> {
                     + "Accepted extensions: .txt, .md and .csv")
     private String priceHistoryFile;
 
+    /**
+     * Directory of the portfolio snapshots.
+     */
+    @CommandLine.Option(
+            names = {"--snapshot-dir"},
+            description = "Directory where the portfolio state is saved after the run. The next run loads the latest "
+                    + "snapshot that is not after the '--in-to' date and replays only the newer transactions. "
+                    + "Only the last 5 snapshots are kept.")
+    private String snapshotDirectory;
+
+    /**
+     * Compares the snapshot based result with the full replay.
+     */
+    @CommandLine.Option(
+            names = {"--verify-snapshot"},
+            description = "Replays the full transaction history as well and aborts if the result differs from "
+                    + "the one calculated from the snapshot.")
+    private boolean verifySnapshot;
+
+    /**
+     * Builds the portfolios in parallel.
+     */
+    @CommandLine.Option(
+            names = {"--parallel-aggregation"},
+            description = "Builds the portfolios of the report in parallel. The result is the same as the "
+                    + "sequential one, it is faster if the report contains more portfolios.")
+    private boolean parallelAggregation;
+
+    /**
+     * Generate reports for more portfolios at once.
+     */
+    @CommandLine.Option(
+            names = {"--portfolios"},
+            description = "Comma separated list of portfolio names, e.g. \"coinbase, *\". A separate report is "
+                    + "generated for each portfolio from a single parse of the input file. The \"{portfolio}\" "
+                    + "placeholder in the output file names is replaced with \"-<name>\", or with an empty "
+                    + "string for \"*\".",
+            converter = StringToListConverter.class)
+    private List<String> portfolios = new ArrayList<>();
+
+    /**
+     * Generate reports for each portfolio.
+     */
+    @CommandLine.Option(
+            names = {"--each-portfolio"},
+            description = "Generates a separate report for each portfolio that appears in the input file, and "
+                    + "one for all portfolios. See the \"--portfolios\" option.")
+    private boolean eachPortfolio;
+
     /**
      * An argument group definition to configure the input.
      */
@@ -85,6 +165,7 @@ public class PortfolioCommand implements Callable<Integer> {
     @Override
     public Integer call() {
         Logger.setSilentMode(quietMode);
+        Metrics.enable(Objects.nonNull(metricsFile));
         log.info("executing the 'portfolio' command...");
 
         inputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(inputArgGroup.getZone()));
@@ -92,29 +173,79 @@ public class PortfolioCommand implements Callable<Integer> {
 
         Logger.logQuietMode(log, quietMode);
         Logger.logPriceHistoryFile(log, priceHistoryFile);
+        Logger.logSnapshot(log, snapshotDirectory, verifySnapshot);
+        Logger.logParallelAggregation(log, parallelAggregation);
+        Logger.logPortfolios(log, portfolios, eachPortfolio);
+        Logger.logMetrics(log, metricsFile);
         Logger.logInput(log, inputArgGroup);
         Logger.logOutput(log, outputArgGroup);
 
         // validating the inputs
         CurrencyType.abortIfInvalid(outputArgGroup.getBaseCurrency());
+        var multiPortfolio = eachPortfolio || !portfolios.isEmpty();
+        if (multiPortfolio) {
+            validateMultiPortfolioOptions();
+        }
 
         // parser
         Parser<Transaction> parser = TransactionParser.build(inputArgGroup);
+        if (multiPortfolio) {
+            parser.setPortfolio(null);
+        }
         var inputZone = ZoneId.of(inputArgGroup.getZone());
         var transactionsFile = LocalDateTimes.toString(inputZone, inputArgGroup.getFile(), LocalDateTime.now());
         var transactions = parser.parse(transactionsFile);
+
+        Map<String, List<Transaction>> transactionsByPortfolio = new LinkedHashMap<>();
+        if (multiPortfolio) {
+            getPortfolioNames(transactions).forEach(name -> transactionsByPortfolio.put(name, transactions
+                    .stream()
+                    .filter(transaction -> Filter.portfolioNameFilter(name, transaction))
+                    .toList()));
+        } else {
+            transactionsByPortfolio.put(inputArgGroup.getPortfolio(), transactions);
+        }
         PortfolioNameRenamer.rename(transactions, outputArgGroup.getReplaces());
 
+        // shared by the reports, so each price is resolved only once
+        var marketPriceDownloader = new MarketPriceDownloader(priceHistoryFile, inputArgGroup, outputArgGroup);
+        marketPriceDownloader.deferHistoryWrites();
+
+        transactionsByPortfolio.forEach((portfolio, portfolioTransactions) -> {
+            log.info("generating the report, portfolio: {}, transactions: {}", portfolio, portfolioTransactions.size());
+            generateReport(multiPortfolio ? portfolio : null, portfolioTransactions, parser.getTo(),
+                    marketPriceDownloader);
+        });
+
+        marketPriceDownloader.writeDeferredPrices();
+        DownloadStatistics.report();
+        Metrics.report(LocalDateTimes.toString(null, metricsFile, LocalDateTime.now()));
+        return CommandLine.ExitCode.OK;
+    }
+
+    /**
+     * Generates the report of a portfolio and writes it to the output files.
+     *
+     * @param portfolio the portfolio name in multi-portfolio mode, otherwise null
+     * @param transactions the transactions of the portfolio
+     * @param to the "to" date filter, can be null
+     * @param marketPriceDownloader the market price downloader
+     */
+    private void generateReport(String portfolio,
+                                List<Transaction> transactions,
+                                LocalDateTime to,
+                                MarketPriceDownloader marketPriceDownloader) {
+
         // generate the report
+        var inputZone = ZoneId.of(inputArgGroup.getZone());
         var currency = CurrencyType.getEnum(outputArgGroup.getBaseCurrency());
         var generated = Objects.isNull(inputArgGroup.getTo())
                 ? LocalDateTimes.getNow(ZoneId.of(outputArgGroup.getZone()))
                 : LocalDateTimes.toLocalDateTime(inputZone, inputArgGroup.getDateTimePattern(), inputArgGroup.getTo());
         var portfolioReport = new PortfolioReport(currency, generated);
-        portfolioReport.addTransactions(transactions);
+        addTransactions(portfolioReport, transactions, to, getSnapshotDirectory(portfolio));
 
         // set market prices
-        var marketPriceDownloader = new MarketPriceDownloader(priceHistoryFile, inputArgGroup, outputArgGroup);
         var marketPriceAt = LocalDateTimes.toLocalDateTime(
                 ZoneId.of(inputArgGroup.getZone()),
                 inputArgGroup.getDateTimePattern(),
@@ -131,11 +262,160 @@ public class PortfolioCommand implements Callable<Integer> {
         }
 
         // writer
-        var portfolioReportFile = LocalDateTimes.toString(zone, outputArgGroup.getPortfolioReportFile(), now);
-        var portfolioSummaryFile = LocalDateTimes.toString(zone, outputArgGroup.getPortfolioSummaryFile(), now);
+        var portfolioReportFile = LocalDateTimes.toString(
+                zone, resolvePortfolioPlaceholder(outputArgGroup.getPortfolioReportFile(), portfolio), now);
+        var portfolioSummaryFile = LocalDateTimes.toString(
+                zone, resolvePortfolioPlaceholder(outputArgGroup.getPortfolioSummaryFile(), portfolio), now);
         var writer = PortfolioWriter.build(inputArgGroup, outputArgGroup);
         writer.write(outputArgGroup.getWriteMode(), portfolioSummaryFile, portfolioReport);
         writer.writePortfolioReport(outputArgGroup.getWriteMode(), portfolioReportFile, portfolioReport);
-        return CommandLine.ExitCode.OK;
+
+        var portfolioReportExportFile = LocalDateTimes.toString(
+                zone, resolvePortfolioPlaceholder(outputArgGroup.getPortfolioReportExportFile(), portfolio), now);
+        if (Objects.nonNull(portfolioReportExportFile)) {
+            writer.exportPortfolioReport(portfolioReportFile, portfolioReportExportFile);
+        }
+    }
+
+    /**
+     * Checks the options of the multi-portfolio mode.
+     */
+    private void validateMultiPortfolioOptions() {
+        if (Objects.nonNull(inputArgGroup.getPortfolio())) {
+            Logger.logErrorAndExit("The '--portfolio' option can not be used with the '--portfolios' and "
+                    + "'--each-portfolio' options.");
+        }
+
+        var summaryFile = outputArgGroup.getPortfolioSummaryFile();
+        var reportFile = outputArgGroup.getPortfolioReportFile();
+        var exportFile = outputArgGroup.getPortfolioReportExportFile();
+        if ((Objects.nonNull(summaryFile) && !summaryFile.contains(PORTFOLIO_PLACEHOLDER))
+                || (Objects.nonNull(reportFile) && !reportFile.contains(PORTFOLIO_PLACEHOLDER))
+                || (Objects.nonNull(exportFile) && !exportFile.contains(PORTFOLIO_PLACEHOLDER))) {
+            Logger.logErrorAndExit("The output file names must contain the \"{}\" placeholder, otherwise the "
+                    + "reports of the portfolios overwrite each other.", PORTFOLIO_PLACEHOLDER);
+        }
+    }
+
+    /**
+     * Gets the portfolio names that need a report.
+     *
+     * @param transactions the transactions
+     * @return the portfolio names
+     */
+    private List<String> getPortfolioNames(List<Transaction> transactions) {
+        if (!eachPortfolio) {
+            return portfolios;
+        }
+
+        List<String> names = new ArrayList<>(transactions
+                .stream()
+                .map(Transaction::getPortfolio)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList());
+        names.add(ALL_PORTFOLIOS);
+        return names;
+    }
+
+    /**
+     * Replaces the portfolio placeholder in a file name with "-name", or
+     * with an empty string in case of "*", the same way as the pa.sh does.
+     *
+     * @param filename the file name, can be null
+     * @param portfolio the portfolio name in multi-portfolio mode, otherwise null
+     * @return the file name
+     */
+    static String resolvePortfolioPlaceholder(String filename, String portfolio) {
+        if (Objects.isNull(filename) || Objects.isNull(portfolio)) {
+            return filename;
+        }
+
+        var suffix = ALL_PORTFOLIOS.equals(portfolio) ? "" : "-" + portfolio.replace("'", "''");
+        return filename.replace(PORTFOLIO_PLACEHOLDER, suffix);
+    }
+
+    /**
+     * Gets the snapshot directory of the portfolio. In multi-portfolio mode
+     * each portfolio has its own subdirectory.
+     *
+     * @param portfolio the portfolio name in multi-portfolio mode, otherwise null
+     * @return the snapshot directory or null if the snapshots are disabled
+     */
+    private String getSnapshotDirectory(String portfolio) {
+        if (Objects.isNull(snapshotDirectory) || Objects.isNull(portfolio)) {
+            return snapshotDirectory;
+        }
+
+        var subdirectory = ALL_PORTFOLIOS.equals(portfolio) ? "all" : "portfolio-" + portfolio;
+        return Path.of(snapshotDirectory, subdirectory).toString();
+    }
+
+    /**
+     * Adds the transactions to the portfolio report. If the snapshot directory
+     * is set then only the transactions after the latest usable snapshot are
+     * replayed, and a new snapshot is saved at the end.
+     *
+     * @param portfolioReport the empty portfolio report
+     * @param transactions the transactions, sorted by trade date
+     * @param to the "to" date filter, can be null
+     * @param snapshotDirectory directory of the snapshots, can be null
+     */
+    private void addTransactions(PortfolioReport portfolioReport,
+                                 List<Transaction> transactions,
+                                 LocalDateTime to,
+                                 String snapshotDirectory) {
+        if (Objects.isNull(snapshotDirectory)) {
+            aggregate(portfolioReport, transactions);
+            return;
+        }
+
+        var snapshot = PortfolioSnapshot.findLatest(snapshotDirectory, to, transactions);
+        if (snapshot.isPresent()) {
+            var tradeDate = snapshot.get().getTradeDate();
+            var delta = transactions.subList(snapshot.get().getTransactionCount(), transactions.size());
+            log.info("< using the portfolio snapshot taken at {}, transactions to replay: {}", tradeDate, delta.size());
+            snapshot.get().restore(portfolioReport);
+            aggregate(portfolioReport, delta);
+
+            if (verifySnapshot) {
+                var fullReplay = new PortfolioReport(portfolioReport.getCurrency(), portfolioReport.getGenerated());
+                fullReplay.addTransactions(transactions);
+                var expected = PortfolioSnapshot.serialize(fullReplay);
+                var actual = PortfolioSnapshot.serialize(portfolioReport);
+                if (!Arrays.equals(expected, actual)) {
+                    Logger.logErrorAndExit("The result based on the {} snapshot differs from the full replay.",
+                            tradeDate);
+                }
+                log.info("the result based on the {} snapshot is equal to the full replay", tradeDate);
+            }
+        } else {
+            log.info("< there is no usable portfolio snapshot, replaying the full transaction history...");
+            aggregate(portfolioReport, transactions);
+        }
+
+        PortfolioSnapshot.write(snapshotDirectory, portfolioReport, transactions);
+    }
+
+    /**
+     * Adds the transactions to the portfolio report, sequentially or in
+     * parallel. The verification replay of the snapshot is not part of the
+     * measured aggregation.
+     *
+     * @param portfolioReport the portfolio report
+     * @param transactions the transactions, sorted by trade date
+     */
+    private void aggregate(PortfolioReport portfolioReport, List<Transaction> transactions) {
+        var sample = Metrics.start(Metrics.AGGREGATE);
+        try {
+            if (parallelAggregation) {
+                portfolioReport.addTransactionsInParallel(transactions);
+            } else {
+                portfolioReport.addTransactions(transactions);
+            }
+        } finally {
+            sample.stop();
+        }
     }
 }
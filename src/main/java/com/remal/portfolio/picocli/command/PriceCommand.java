@@ -1,14 +1,19 @@
 package com.remal.portfolio.picocli.command;
 
 import com.remal.portfolio.Main;
+import com.remal.portfolio.downloader.DownloadStatistics;
 import com.remal.portfolio.downloader.MarketPriceDownloader;
 import com.remal.portfolio.picocli.arggroup.PriceArgGroup;
 import com.remal.portfolio.util.Calendars;
+import com.remal.portfolio.util.LocalDateTimes;
 import com.remal.portfolio.util.Logger;
+import com.remal.portfolio.util.Metrics;
 import com.remal.portfolio.util.ZoneIds;
 import lombok.extern.slf4j.Slf4j;
 import picocli.CommandLine;
 
+import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.concurrent.Callable;
 
 /**
@@ -38,6 +43,17 @@ public class PriceCommand implements Callable<Integer> {
             description = "In this mode log wont be shown.")
     boolean quietMode;
 
+    /**
+     * Collect the per-stage metrics of the run.
+     */
+    @CommandLine.Option(
+            names = {"--metrics"},
+            arity = "0..1",
+            fallbackValue = "",
+            description = "Show the per-stage timing breakdown of the run, or append it to a file, "
+                    + "e.g. \"'metrics.csv'\". Accepted extensions: .csv and .json")
+    private String metricsFile;
+
     /**
      * Set the price history file.
      */
@@ -47,6 +63,24 @@ public class PriceCommand implements Callable<Integer> {
                     + "Accepted extensions: .txt, .md and .csv")
     private String priceHistoryFile;
 
+    /**
+     * Build the rollup tiers of the price history file.
+     */
+    @CommandLine.Option(
+            names = {"-R", "--rollup"},
+            description = "Aggregate the price history file into 1 minute, 1 hour and 1 day rollup tiers (open, "
+                    + "high, low, close, VWAP). The next writes of the history file update the tiers.")
+    private boolean rollup;
+
+    /**
+     * Set the price history export file.
+     */
+    @CommandLine.Option(
+            names = {"--price-export"},
+            description = "Export the whole price history file, e.g. \"'prices.xlsx'\". "
+                    + "Accepted extensions: .txt, .md, .csv and .xlsx")
+    private String priceExportFile;
+
     /**
      * Data providerType configuration.
      */
@@ -72,6 +106,7 @@ public class PriceCommand implements Callable<Integer> {
     @Override
     public Integer call() {
         Logger.setSilentMode(quietMode);
+        Metrics.enable(Objects.nonNull(metricsFile));
         log.info("executing the 'price' command...");
 
         inputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(inputArgGroup.getZone()));
@@ -79,6 +114,9 @@ public class PriceCommand implements Callable<Integer> {
 
         Logger.logQuietMode(log, quietMode);
         Logger.logPriceHistoryFile(log, priceHistoryFile);
+        Logger.logRollup(log, rollup);
+        Logger.logPriceExportFile(log, priceExportFile);
+        Logger.logMetrics(log, metricsFile);
         Logger.logInput(log, inputArgGroup);
         Logger.logOutput(log, outputArgGroup);
 
@@ -88,10 +126,21 @@ public class PriceCommand implements Callable<Integer> {
         var tradeDate = Calendars.fromString(inputArgGroup.getTradeDate(), inputArgGroup.getDateTimePattern());
         var price = priceDownloader.getMarketPrice(inputArgGroup.getSymbol(), tradeDate);
 
+        DownloadStatistics.report();
+
         if (price.isEmpty()) {
             Logger.logErrorAndExit("Price not found.");
         }
 
+        if (rollup) {
+            priceDownloader.rollupPriceHistory();
+        }
+
+        if (Objects.nonNull(priceExportFile)) {
+            priceDownloader.exportPriceHistory(priceExportFile);
+        }
+
+        Metrics.report(LocalDateTimes.toString(null, metricsFile, LocalDateTime.now()));
         return CommandLine.ExitCode.OK;
     }
 }
@@ -6,6 +6,7 @@ import com.remal.portfolio.picocli.arggroup.OutputArgGroup;
 import com.remal.portfolio.picocli.arggroup.TransactionParserInputArgGroup;
 import com.remal.portfolio.util.LocalDateTimes;
 import com.remal.portfolio.util.Logger;
+import com.remal.portfolio.util.Metrics;
 import com.remal.portfolio.util.PortfolioNameRenamer;
 import com.remal.portfolio.util.ZoneIds;
 import com.remal.portfolio.writer.TransactionWriter;
@@ -14,6 +15,7 @@ import picocli.CommandLine;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Objects;
 import java.util.concurrent.Callable;
 
 /**
@@ -44,6 +46,17 @@ public class ShowCommand implements Callable<Integer> {
             description = "Perform actions without displaying any details.")
     private boolean silentMode;
 
+    /**
+     * Collect the per-stage metrics of the run.
+     */
+    @CommandLine.Option(
+            names = {"--metrics"},
+            arity = "0..1",
+            fallbackValue = "",
+            description = "Show the per-stage timing breakdown of the run, or append it to a file, "
+                    + "e.g. \"'metrics.csv'\". Accepted extensions: .csv and .json")
+    private String metricsFile;
+
     /**
      * Input CLI group.
      */
@@ -69,11 +82,13 @@ public class ShowCommand implements Callable<Integer> {
     @Override
     public Integer call() {
         Logger.setSilentMode(silentMode);
+        Metrics.enable(Objects.nonNull(metricsFile));
         log.info("executing the 'show' command...");
 
         inputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(inputArgGroup.getZone()));
         outputArgGroup.setZone(ZoneIds.getDefaultIfEmpty(outputArgGroup.getZone()));
 
+        Logger.logMetrics(log, metricsFile);
         Logger.logInput(log, inputArgGroup);
         Logger.logOutput(log, outputArgGroup);
 
@@ -91,6 +106,7 @@ public class ShowCommand implements Callable<Integer> {
         var writer = TransactionWriter.build(outputArgGroup);
         writer.write(outputArgGroup.getWriteMode(), filename, transactions);
 
+        Metrics.report(LocalDateTimes.toString(null, metricsFile, LocalDateTime.now()));
         return CommandLine.ExitCode.OK;
     }
 }
@@ -5,6 +5,7 @@ import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Objects;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Tool that works with BigDecimal objects.
@@ -36,6 +37,11 @@ public class BigDecimals {
      */
     public static final String UNFORMATTED = "##################.########";
 
+    /**
+     * Maximum number of digits that fits to a long value.
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
     /**
      * Convert decimal number to a formatted String.
      *
@@ -67,9 +73,82 @@ public class BigDecimals {
         if (Objects.isNull(s) || s.isEmpty()) {
             return null;
         } else {
-            // remove spaces
-            return new BigDecimal(s.replaceAll("\\s+",""));
+            return decode(s.length(), s::charAt);
+        }
+    }
+
+    /**
+     * Decodes a formatted decimal character by character. The whitespaces,
+     * e.g. the thousands separators written by the toString() method, are
+     * skipped. Numbers with maximum 18 digits are built as a long value
+     * without creating temporary strings, longer numbers and numbers with
+     * exponent are parsed with the BigDecimal constructor.
+     *
+     * @param length number of the characters
+     * @param charAt returns the character at the given position
+     * @return the BigDecimal object
+     * @throws NumberFormatException if the value is not a valid number
+     */
+    public static BigDecimal decode(int length, IntUnaryOperator charAt) {
+        var unscaled = 0L;
+        var negative = false;
+        var signed = false;
+        var digits = 0;
+        var scale = -1;
+
+        for (var i = 0; i < length; i++) {
+            var c = charAt.applyAsInt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits == MAX_LONG_DIGITS) {
+                    return parse(length, charAt);
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                scale = scale >= 0 ? scale + 1 : scale;
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if ((c == '-' || c == '+') && !signed && digits == 0 && scale < 0) {
+                negative = c == '-';
+                signed = true;
+            } else if (!isSpace(c)) {
+                return parse(length, charAt);
+            }
+        }
+
+        return digits == 0
+                ? parse(length, charAt)
+                : BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    /**
+     * Parses a number that does not fit to the fast path of the decode()
+     * method. The whitespaces are removed before parsing.
+     *
+     * @param length number of the characters
+     * @param charAt returns the character at the given position
+     * @return the BigDecimal object
+     * @throws NumberFormatException if the value is not a valid number
+     */
+    private static BigDecimal parse(int length, IntUnaryOperator charAt) {
+        var chars = new char[length];
+        var size = 0;
+        for (var i = 0; i < length; i++) {
+            var c = charAt.applyAsInt(i);
+            if (!isSpace(c)) {
+                chars[size++] = (char) c;
+            }
         }
+        return new BigDecimal(chars, 0, size);
+    }
+
+    /**
+     * Checks whether the character matches to the "\\s" regular expression.
+     *
+     * @param c the character
+     * @return true if the character is a whitespace
+     */
+    private static boolean isSpace(int c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
     }
 
     /**
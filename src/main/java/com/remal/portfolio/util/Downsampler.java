@@ -0,0 +1,116 @@
+package com.remal.portfolio.util;
+
+import java.util.stream.IntStream;
+
+/**
+ * Reduces the number of the points of a time series while keeping the
+ * visual shape of the chart.
+ * <p>
+ * The Largest-Triangle-Three-Buckets (LTTB) algorithm keeps the first and
+ * the last points and splits the rest into equal buckets. From every bucket
+ * the point that forms the largest triangle with the previously selected
+ * point and with the average of the next bucket is kept, so the peaks and
+ * the valleys survive the downsampling.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+public class Downsampler {
+
+    /**
+     * The minimum number of points that LTTB can produce.
+     */
+    private static final int MIN_THRESHOLD = 3;
+
+    /**
+     * Selects the points of the [from, to) range with the LTTB algorithm.
+     * The range is returned without downsampling if it is not longer than
+     * the threshold or the threshold is less than 3.
+     *
+     * @param x the x values in ascending order, e.g. epoch seconds
+     * @param y the y values
+     * @param from the first index of the range, inclusive
+     * @param to the last index of the range, exclusive
+     * @param threshold the number of points to keep
+     * @return the indexes of the selected points in ascending order
+     */
+    public static int[] largestTriangleThreeBuckets(double[] x, double[] y, int from, int to, int threshold) {
+        var length = to - from;
+        if (threshold < MIN_THRESHOLD || length <= threshold) {
+            return IntStream.range(from, to).toArray();
+        }
+
+        var sampled = new int[threshold];
+        var bucketSize = (double) (length - 2) / (threshold - 2);
+        var selected = from;
+        sampled[0] = from;
+
+        for (var i = 0; i < threshold - 2; i++) {
+            // average of the next bucket
+            var averageStart = from + (int) Math.floor((i + 1) * bucketSize) + 1;
+            var averageEnd = Math.min(from + (int) Math.floor((i + 2) * bucketSize) + 1, to);
+            var averageX = 0.0;
+            var averageY = 0.0;
+            for (var j = averageStart; j < averageEnd; j++) {
+                averageX += x[j];
+                averageY += y[j];
+            }
+            var averageLength = Math.max(averageEnd - averageStart, 1);
+            averageX /= averageLength;
+            averageY /= averageLength;
+
+            // the point of the current bucket with the largest triangle
+            var bucketStart = from + (int) Math.floor(i * bucketSize) + 1;
+            var bucketEnd = from + (int) Math.floor((i + 1) * bucketSize) + 1;
+            var maxArea = -1.0;
+            var next = bucketStart;
+            for (var j = bucketStart; j < bucketEnd; j++) {
+                var area = Math.abs((x[selected] - averageX) * (y[j] - y[selected])
+                        - (x[selected] - x[j]) * (averageY - y[selected]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+
+            sampled[i + 1] = next;
+            selected = next;
+        }
+
+        sampled[threshold - 1] = to - 1;
+        return sampled;
+    }
+
+    /**
+     * Finds the first value that is greater than the key.
+     *
+     * @param values the values in ascending order
+     * @param key the key
+     * @return the index of the first greater value or the length of the array
+     */
+    public static int indexAfter(double[] values, double key) {
+        var low = 0;
+        var high = values.length;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (values[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Utility classes should not have public constructors.
+     *
+     * @throws java.lang.UnsupportedOperationException if this method is called
+     */
+    private Downsampler() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -69,6 +69,23 @@ public class FileWriter {
         }
     }
 
+    /**
+     * Appends the content to the end of the file. The file is created if
+     * it does not exist.
+     *
+     * @param filename the file to write the content to
+     * @param content content that wil be appended to the file
+     */
+    public static void append(String filename, byte[] content) {
+        try {
+            log.debug("> appending {} bytes to \"{}\"...", content.length, filename);
+            Files.write(Path.of(filename), content, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            var message = "An error has occurred while writing to \"{}\" file. {}";
+            Logger.logErrorAndExit(message, filename, e.toString());
+        }
+    }
+
     /**
      * Utility classes should not have public constructors.
      *
@@ -7,6 +7,8 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 /**
@@ -41,6 +43,12 @@ public class Files {
 
             } else if (escapedFileName.matches("^.*\\.(csv)$")) {
                 fileType = FileType.CSV;
+
+            } else if (escapedFileName.matches("^.*\\.(xlsx)$")) {
+                fileType = FileType.XLSX;
+
+            } else if (escapedFileName.matches("^.*\\.(png)$")) {
+                fileType = FileType.PNG;
             }
         } else {
             fileType = FileType.NOT_DEFINED;
@@ -66,6 +74,49 @@ public class Files {
         return firstLine;
     }
 
+    /**
+     * Reads the last non-empty line of the file from the end, without
+     * reading the whole file.
+     *
+     * @param file the file to read
+     * @return the last line of the file or null if the file is empty
+     */
+    public static String getLastLine(File file) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            var end = randomAccessFile.length();
+            while (end > 0 && isLineBreak(randomAccessFile, end - 1)) {
+                end--;
+            }
+
+            var start = end;
+            while (start > 0 && !isLineBreak(randomAccessFile, start - 1)) {
+                start--;
+            }
+
+            var line = new byte[(int) (end - start)];
+            randomAccessFile.seek(start);
+            randomAccessFile.readFully(line);
+            return line.length == 0 ? null : new String(line, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Logger.logErrorAndExit("Error while reading the \"{}\" file: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the byte at the position is a line break.
+     *
+     * @param file the file to read
+     * @param position position of the byte
+     * @return true if the byte is a CR or LF character
+     * @throws IOException in case of error
+     */
+    private static boolean isLineBreak(RandomAccessFile file, long position) throws IOException {
+        file.seek(position);
+        var character = file.read();
+        return character == '\n' || character == '\r';
+    }
+
     /**
      * Utility classes should not have public constructors.
      *
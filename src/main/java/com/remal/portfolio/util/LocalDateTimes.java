@@ -7,6 +7,8 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
@@ -14,7 +16,11 @@ import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoField;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Tool that works with LocaleDateTime objects.
@@ -27,6 +33,22 @@ import java.util.Objects;
 @Slf4j
 public class LocalDateTimes {
 
+    /**
+     * The date-time patterns that are decoded positionally, without using
+     * the date-time formatter.
+     */
+    private static final List<String> FIXED_WIDTH_PATTERNS = List.of("yyyy-MM-dd HH:mm:ss", "yyyy.MM.dd HH:mm:ss");
+
+    /**
+     * Length of the date-time strings with fixed width patterns.
+     */
+    private static final int FIXED_WIDTH_LENGTH = 19;
+
+    /**
+     * Date-time formatter cache, key: pattern.
+     */
+    private static final Map<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
     /**
      * Converts date-time between timezones.
      *
@@ -127,8 +149,12 @@ public class LocalDateTimes {
     public static LocalDateTime toLocalDateTime(String dateTimePattern, String dateTimeAsString) {
         LocalDateTime timestamp = null;
         try {
-            var formatter = DateTimeFormatter.ofPattern(dateTimePattern);
             if (Objects.nonNull(dateTimeAsString)) {
+                timestamp = decodeFixedWidth(dateTimePattern, dateTimeAsString.length(), dateTimeAsString::charAt);
+            }
+
+            var formatter = FORMATTERS.computeIfAbsent(dateTimePattern, DateTimeFormatter::ofPattern);
+            if (Objects.nonNull(dateTimeAsString) && Objects.isNull(timestamp)) {
                 timestamp = LocalDateTime.parse(dateTimeAsString, formatter);
             }
         } catch (DateTimeParseException e) {
@@ -140,6 +166,65 @@ public class LocalDateTimes {
         return timestamp;
     }
 
+    /**
+     * Decodes the "yyyy-MM-dd HH:mm:ss" and "yyyy.MM.dd HH:mm:ss" date-time
+     * strings positionally. The characters are provided by a function, so
+     * the same decoder can be used for strings and byte buffers as well.
+     *
+     * @param dateTimePattern the date/time pattern
+     * @param length the length of the date-time string
+     * @param charAt returns with the character at the given position
+     * @return the LocalDateTime object or null if the pattern is not a fixed
+     *         width pattern or the value can not be decoded positionally
+     */
+    public static LocalDateTime decodeFixedWidth(String dateTimePattern, int length, IntUnaryOperator charAt) {
+        if (length != FIXED_WIDTH_LENGTH
+                || !FIXED_WIDTH_PATTERNS.contains(dateTimePattern)
+                || charAt.applyAsInt(4) != dateTimePattern.charAt(4)
+                || charAt.applyAsInt(7) != dateTimePattern.charAt(7)
+                || charAt.applyAsInt(10) != ' '
+                || charAt.applyAsInt(13) != ':'
+                || charAt.applyAsInt(16) != ':') {
+            return null;
+        }
+
+        var year = digits(charAt, 0, 4);
+        var month = digits(charAt, 5, 2);
+        var day = digits(charAt, 8, 2);
+        var hour = digits(charAt, 11, 2);
+        var minute = digits(charAt, 14, 2);
+        var second = digits(charAt, 17, 2);
+
+        // the invalid values, e.g. 30th of February, are left to the formatter
+        // because it adjusts or rejects them
+        var isValid = year > 0 && month >= 1 && month <= 12
+                && day >= 1 && day <= Month.of(month).length(Year.isLeap(year))
+                && hour >= 0 && hour <= 23
+                && minute >= 0 && minute <= 59
+                && second >= 0 && second <= 59;
+        return isValid ? LocalDateTime.of(year, month, day, hour, minute, second) : null;
+    }
+
+    /**
+     * Decodes a positive number from digits.
+     *
+     * @param charAt returns with the character at the given position
+     * @param start position of the first digit
+     * @param length number of the digits
+     * @return the value or -1 if a non-digit character found
+     */
+    private static int digits(IntUnaryOperator charAt, int start, int length) {
+        var value = 0;
+        for (var i = start; i < start + length; i++) {
+            var c = charAt.applyAsInt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
     /**
      * Convert string to a LocalDateTime.
      *
@@ -2,10 +2,13 @@ package com.remal.portfolio.util;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.LoggerContext;
+import com.remal.portfolio.picocli.arggroup.ChartArgGroup;
+import com.remal.portfolio.picocli.arggroup.ChartDataArgGroup;
 import com.remal.portfolio.picocli.arggroup.CoinbaseProArgGroup;
 import com.remal.portfolio.picocli.arggroup.CombineInputArgGroup;
 import com.remal.portfolio.picocli.arggroup.InputArgGroup;
 import com.remal.portfolio.picocli.arggroup.OutputArgGroup;
+import com.remal.portfolio.picocli.arggroup.PerformanceArgGroup;
 import com.remal.portfolio.picocli.arggroup.PortfolioArgGroup;
 import com.remal.portfolio.picocli.arggroup.PortfolioInputArgGroup;
 import com.remal.portfolio.picocli.arggroup.PriceArgGroup;
@@ -14,6 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 
+import java.util.List;
 import java.util.logging.LogManager;
 
 /**
@@ -130,6 +134,94 @@ public class Logger {
         }
     }
 
+    /**
+     * Log the value of a command line argument.
+     *
+     * @param log logger
+     * @param priceExportFile argument to log
+     */
+    public static void logPriceExportFile(org.slf4j.Logger log, String priceExportFile) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "price-export", priceExportFile));
+        }
+    }
+
+    /**
+     * Log the value of a command line argument.
+     *
+     * @param log logger
+     * @param metricsFile argument to log
+     */
+    public static void logMetrics(org.slf4j.Logger log, String metricsFile) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "metrics", metricsFile));
+        }
+    }
+
+    /**
+     * Log the value of a command line argument.
+     *
+     * @param log logger
+     * @param syncStateFile argument to log
+     */
+    public static void logSyncState(org.slf4j.Logger log, String syncStateFile) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "sync-state", syncStateFile));
+        }
+    }
+
+    /**
+     * Log the value of a command line argument.
+     *
+     * @param log logger
+     * @param parallelAggregation argument to log
+     */
+    public static void logParallelAggregation(org.slf4j.Logger log, boolean parallelAggregation) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "parallel-aggregation", parallelAggregation));
+        }
+    }
+
+    /**
+     * Log the value of a command line argument.
+     *
+     * @param log logger
+     * @param rollup argument to log
+     */
+    public static void logRollup(org.slf4j.Logger log, boolean rollup) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "rollup", rollup));
+        }
+    }
+
+    /**
+     * Log the value of the snapshot related command line arguments.
+     *
+     * @param log logger
+     * @param snapshotDirectory argument to log
+     * @param verifySnapshot argument to log
+     */
+    public static void logSnapshot(org.slf4j.Logger log, String snapshotDirectory, boolean verifySnapshot) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "snapshot-dir", snapshotDirectory));
+            log.debug(String.format(LOG_TEMPLATE, "verify-snapshot", verifySnapshot));
+        }
+    }
+
+    /**
+     * Log the value of the multi-portfolio related command line arguments.
+     *
+     * @param log logger
+     * @param portfolios argument to log
+     * @param eachPortfolio argument to log
+     */
+    public static void logPortfolios(org.slf4j.Logger log, List<String> portfolios, boolean eachPortfolio) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "portfolios", portfolios));
+            log.debug(String.format(LOG_TEMPLATE, "each-portfolio", eachPortfolio));
+        }
+    }
+
     /**
      * Log the value of the input command line arguments.
      *
@@ -210,6 +302,102 @@ public class Logger {
         }
     }
 
+    /**
+     * Log the value of the input command line arguments.
+     *
+     * @param log logger
+     * @param inputArgGroup arguments to log
+     */
+    public static void logInput(org.slf4j.Logger log, ChartDataArgGroup.InputArgGroup inputArgGroup) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "input-file", inputArgGroup.getFile()));
+            log.debug(String.format(LOG_TEMPLATE, "portfolios", inputArgGroup.getPortfolios()));
+            log.debug(String.format(LOG_TEMPLATE, "base-currency", inputArgGroup.getBaseCurrency()));
+            log.debug(String.format(LOG_TEMPLATE, IN_TO, inputArgGroup.getTo()));
+            log.debug(String.format(LOG_TEMPLATE, IN_TIMEZONE, inputArgGroup.getZone()));
+            log.debug(String.format(LOG_TEMPLATE, "price-history", inputArgGroup.getPriceHistoryFile()));
+            log.debug(String.format(LOG_TEMPLATE, "symbols", inputArgGroup.getSymbols()));
+        }
+    }
+
+    /**
+     * Log the value of the input command line arguments.
+     *
+     * @param log logger
+     * @param outputArgGroup arguments to log
+     */
+    public static void logOutput(org.slf4j.Logger log, ChartDataArgGroup.OutputArgGroup outputArgGroup) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "output-file", outputArgGroup.getOutputFile()));
+            log.debug(String.format(LOG_TEMPLATE, "price-file", outputArgGroup.getPriceFile()));
+            log.debug(String.format(LOG_TEMPLATE, "ranges", outputArgGroup.getRanges()));
+            log.debug(String.format(LOG_TEMPLATE, "points", outputArgGroup.getPoints()));
+            log.debug(String.format(LOG_TEMPLATE, FILE_MODE, outputArgGroup.getWriteMode()));
+            log.debug(String.format(LOG_TEMPLATE, LANGUAGE, outputArgGroup.getLanguage()));
+            log.debug(String.format(LOG_TEMPLATE, "date-pattern", outputArgGroup.getDateTimePattern()));
+            log.debug(String.format(LOG_TEMPLATE, OUT_TIMEZONE, outputArgGroup.getZone()));
+        }
+    }
+
+    /**
+     * Log the value of the input command line arguments.
+     *
+     * @param log logger
+     * @param outputArgGroup arguments to log
+     */
+    public static void logOutput(org.slf4j.Logger log, ChartArgGroup.OutputArgGroup outputArgGroup) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "output-file", outputArgGroup.getOutputFile()));
+            log.debug(String.format(LOG_TEMPLATE, "comparison-file", outputArgGroup.getComparisonFile()));
+            log.debug(String.format(LOG_TEMPLATE, "price-file", outputArgGroup.getPriceFile()));
+            log.debug(String.format(LOG_TEMPLATE, "ranges", outputArgGroup.getRanges()));
+            log.debug(String.format(LOG_TEMPLATE, "range-labels", outputArgGroup.getRangeLabels()));
+            log.debug(String.format(LOG_TEMPLATE, "width", outputArgGroup.getWidth()));
+            log.debug(String.format(LOG_TEMPLATE, "height", outputArgGroup.getHeight()));
+            log.debug(String.format(LOG_TEMPLATE, "threads", outputArgGroup.getThreads()));
+            log.debug(String.format(LOG_TEMPLATE, LANGUAGE, outputArgGroup.getLanguage()));
+            log.debug(String.format(LOG_TEMPLATE, "date-pattern", outputArgGroup.getDateTimePattern()));
+            log.debug(String.format(LOG_TEMPLATE, OUT_TIMEZONE, outputArgGroup.getZone()));
+        }
+    }
+
+    /**
+     * Log the value of the input command line arguments.
+     *
+     * @param log logger
+     * @param inputArgGroup arguments to log
+     */
+    public static void logInput(org.slf4j.Logger log, PerformanceArgGroup.InputArgGroup inputArgGroup) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "input-file", inputArgGroup.getFile()));
+            log.debug(String.format(LOG_TEMPLATE, "portfolios", inputArgGroup.getPortfolios()));
+            log.debug(String.format(LOG_TEMPLATE, "base-currency", inputArgGroup.getBaseCurrency()));
+            log.debug(String.format(LOG_TEMPLATE, "in-language", inputArgGroup.getLanguage()));
+            log.debug(String.format(LOG_TEMPLATE, "in-date-pattern", inputArgGroup.getDateTimePattern()));
+            log.debug(String.format(LOG_TEMPLATE, IN_FROM, inputArgGroup.getFrom()));
+            log.debug(String.format(LOG_TEMPLATE, IN_TO, inputArgGroup.getTo()));
+            log.debug(String.format(LOG_TEMPLATE, IN_TIMEZONE, inputArgGroup.getZone()));
+        }
+    }
+
+    /**
+     * Log the value of the input command line arguments.
+     *
+     * @param log logger
+     * @param outputArgGroup arguments to log
+     */
+    public static void logOutput(org.slf4j.Logger log, PerformanceArgGroup.OutputArgGroup outputArgGroup) {
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(LOG_TEMPLATE, "output-file", outputArgGroup.getOutputFile()));
+            log.debug(String.format(LOG_TEMPLATE, FILE_MODE, outputArgGroup.getWriteMode()));
+            log.debug(String.format(LOG_TEMPLATE, "hide-report-title", outputArgGroup.isHideTitle()));
+            log.debug(String.format(LOG_TEMPLATE, "hide-table-header", outputArgGroup.isHideHeader()));
+            log.debug(String.format(LOG_TEMPLATE, LANGUAGE, outputArgGroup.getLanguage()));
+            log.debug(String.format(LOG_TEMPLATE, OUT_DATE_PATTERN, outputArgGroup.getDateTimePattern()));
+            log.debug(String.format(LOG_TEMPLATE, OUT_TIMEZONE, outputArgGroup.getZone()));
+        }
+    }
+
     /**
      * Log the value of the input command line arguments.
      *
@@ -221,6 +409,10 @@ public class Logger {
             log.debug(String.format(LOG_TEMPLATE, "base-currency", outputArgGroup.getBaseCurrency()));
             log.debug(String.format(LOG_TEMPLATE, "portfolio-summary", outputArgGroup.getPortfolioSummaryFile()));
             log.debug(String.format(LOG_TEMPLATE, "portfolio-report", outputArgGroup.getPortfolioReportFile()));
+            log.debug(String.format(LOG_TEMPLATE,
+                    "portfolio-report-layout", outputArgGroup.getPortfolioReportLayout()));
+            log.debug(String.format(LOG_TEMPLATE,
+                    "portfolio-report-export", outputArgGroup.getPortfolioReportExportFile()));
             log.debug(String.format(LOG_TEMPLATE, FILE_MODE, outputArgGroup.getWriteMode()));
             log.debug(String.format(LOG_TEMPLATE, "multiplicity", outputArgGroup.getMultiplicity()));
             log.debug(String.format(LOG_TEMPLATE, "show-transactions", outputArgGroup.isShowTransactions()));
@@ -308,6 +500,7 @@ public class Logger {
             log.debug(String.format(LOG_TEMPLATE, IN_FROM, inputArgGroup.getFrom()));
             log.debug(String.format(LOG_TEMPLATE, IN_TO, inputArgGroup.getTo()));
             log.debug(String.format(LOG_TEMPLATE, "missing-columns", inputArgGroup.getMissingColumns()));
+            log.debug(String.format(LOG_TEMPLATE, "memory-mapped", inputArgGroup.isMemoryMapped()));
         }
     }
 
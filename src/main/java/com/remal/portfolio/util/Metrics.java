@@ -0,0 +1,467 @@
+package com.remal.portfolio.util;
+
+import com.remal.portfolio.model.FileType;
+import com.remal.portfolio.writer.StdoutWriter;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lightweight in-process metrics registry with counters, timers and
+ * histograms.
+ * <p>
+ * The registry is disabled by default, and in that case every method
+ * returns immediately, so the instrumentation can stay in the hot paths.
+ * Timers are histograms of elapsed nanoseconds. The histograms keep the
+ * count, sum, minimum and maximum, plus power-of-two buckets for the
+ * approximate percentiles.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class Metrics {
+
+    /**
+     * Metric name: parsing the input files.
+     */
+    public static final String PARSE = "parse";
+
+    /**
+     * Metric name: filtering the parsed items.
+     */
+    public static final String FILTER = "filter";
+
+    /**
+     * Metric name: adding the transactions to the portfolio report.
+     */
+    public static final String AGGREGATE = "aggregate";
+
+    /**
+     * Metric name: price resolved from the in-memory cache.
+     */
+    public static final String PRICE_CACHE_HIT = "price.cache-hit";
+
+    /**
+     * Metric name: price resolved from the price history file.
+     */
+    public static final String PRICE_HISTORY_HIT = "price.history-hit";
+
+    /**
+     * Metric name: price downloaded from the data provider.
+     */
+    public static final String PRICE_NETWORK = "price.network";
+
+    /**
+     * Metric name: price resolved from a rollup tier of the price history.
+     */
+    public static final String PRICE_ROLLUP_HIT = "price.rollup-hit";
+
+    /**
+     * Metric name: building and updating the rollup tiers.
+     */
+    public static final String ROLLUP = "rollup";
+
+    /**
+     * Metric name: resolving the exchange rates.
+     */
+    public static final String FX = "fx";
+
+    /**
+     * Metric name: generating the output.
+     */
+    public static final String RENDER = "render";
+
+    /**
+     * The sample returned when the registry is disabled.
+     */
+    private static final Sample NOOP = () -> { };
+
+    /**
+     * Number of the histogram buckets, one per bit of a long value.
+     */
+    private static final int BUCKETS = 64;
+
+    /**
+     * Nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    /**
+     * Row format of the breakdown.
+     */
+    private static final String ROW_FORMAT = "%-22s %10s %12s %12s %12s %12s %12s";
+
+    /**
+     * Becomes true when the registry is enabled.
+     */
+    private static volatile boolean enabled;
+
+    /**
+     * The counters.
+     */
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    /**
+     * The histograms, including the timers.
+     */
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    /**
+     * A running timer. Stopping the sample records the elapsed time.
+     */
+    @FunctionalInterface
+    public interface Sample {
+
+        /**
+         * Stops the timer.
+         */
+        void stop();
+    }
+
+    /**
+     * Enables or disables the registry.
+     *
+     * @param enable true enables the metrics collection
+     */
+    public static void enable(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Checks whether the registry is enabled.
+     *
+     * @return true if the metrics are collected
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Increments a counter by one.
+     *
+     * @param name name of the counter
+     */
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * Increments a counter.
+     *
+     * @param name name of the counter
+     * @param delta the value to add
+     */
+    public static void add(String name, long delta) {
+        if (enabled) {
+            COUNTERS.computeIfAbsent(name, x -> new LongAdder()).add(delta);
+        }
+    }
+
+    /**
+     * Records a value in a histogram.
+     *
+     * @param name name of the histogram
+     * @param value the value
+     */
+    public static void record(String name, long value) {
+        if (enabled) {
+            HISTOGRAMS.computeIfAbsent(name, x -> new Histogram()).record(value);
+        }
+    }
+
+    /**
+     * Starts a timer, e.g.
+     * <pre>
+     *     var sample = Metrics.start(Metrics.PARSE);
+     *     try {
+     *         ...
+     *     } finally {
+     *         sample.stop();
+     *     }
+     * </pre>
+     *
+     * @param name name of the timer
+     * @return the running timer
+     */
+    public static Sample start(String name) {
+        if (!enabled) {
+            return NOOP;
+        }
+
+        var startTime = System.nanoTime();
+        return () -> record(name, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Prints the per-stage breakdown to the standard output, or writes it to
+     * a file. CSV and JSON files are appended with one row per metric and
+     * one JSON object per run, so the file can be used for trend tracking.
+     *
+     * @param filename the output file or empty to print to the standard output
+     */
+    public static void report(String filename) {
+        if (!enabled) {
+            return;
+        }
+
+        if (Objects.isNull(filename) || filename.isBlank()) {
+            StdoutWriter.write(toText());
+            return;
+        }
+
+        String content = null;
+        if (filename.toLowerCase().endsWith(".json")) {
+            content = toJson();
+        } else if (Files.getFileType(filename) == FileType.CSV) {
+            content = toCsv(!Path.of(filename).toFile().exists());
+        }
+
+        if (Objects.isNull(content)) {
+            Logger.logErrorAndExit("Unsupported metrics file type: \"{}\", use .csv or .json", filename);
+        } else {
+            try {
+                java.nio.file.Files.writeString(Path.of(filename), content, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                log.debug("> the metrics have been written to \"{}\"", filename);
+            } catch (IOException e) {
+                log.warn("> the metrics can not be written to \"{}\": {}", filename, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Removes the collected values.
+     */
+    public static void reset() {
+        COUNTERS.clear();
+        HISTOGRAMS.clear();
+    }
+
+    /**
+     * Gets the value of a counter.
+     *
+     * @param name name of the counter
+     * @return the value of the counter
+     */
+    public static long getCount(String name) {
+        var counter = COUNTERS.get(name);
+        return Objects.isNull(counter) ? 0 : counter.sum();
+    }
+
+    /**
+     * Gets a histogram.
+     *
+     * @param name name of the histogram
+     * @return the histogram or null if no value was recorded
+     */
+    public static Histogram getHistogram(String name) {
+        return HISTOGRAMS.get(name);
+    }
+
+    /**
+     * Builds the human-readable breakdown, the times are in milliseconds.
+     *
+     * @return the breakdown
+     */
+    private static String toText() {
+        var newLine = System.lineSeparator();
+        var sb = new StringBuilder("Metrics").append(newLine);
+        sb.append(String.format(ROW_FORMAT, "stage", "count", "total ms", "mean ms", "p50 ms", "p99 ms", "max ms"))
+                .append(newLine);
+        HISTOGRAMS.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            var h = entry.getValue().snapshot();
+            sb.append(String.format(ROW_FORMAT,
+                    entry.getKey(),
+                    h.count,
+                    millis(h.sum),
+                    millis(h.count == 0 ? 0 : h.sum / h.count),
+                    millis(h.percentile(0.5)),
+                    millis(h.percentile(0.99)),
+                    millis(h.max)))
+                    .append(newLine);
+        });
+        COUNTERS.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry ->
+                sb.append(String.format(ROW_FORMAT, entry.getKey(), entry.getValue().sum(), "", "", "", "", ""))
+                        .append(newLine));
+        return sb.toString();
+    }
+
+    /**
+     * Builds the CSV rows of the run, the times are in nanoseconds.
+     *
+     * @param withHeader true if the header line must be added
+     * @return the CSV content
+     */
+    private static String toCsv(boolean withHeader) {
+        var newLine = System.lineSeparator();
+        var timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        var sb = new StringBuilder();
+        if (withHeader) {
+            sb.append("timestamp,metric,count,sum,min,max,p50,p99").append(newLine);
+        }
+        HISTOGRAMS.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            var h = entry.getValue().snapshot();
+            sb.append(String.join(",", timestamp, entry.getKey(), String.valueOf(h.count), String.valueOf(h.sum),
+                    String.valueOf(h.min), String.valueOf(h.max), String.valueOf(h.percentile(0.5)),
+                    String.valueOf(h.percentile(0.99)))).append(newLine);
+        });
+        COUNTERS.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry ->
+                sb.append(String.join(",", timestamp, entry.getKey(), String.valueOf(entry.getValue().sum()),
+                        "", "", "", "", "")).append(newLine));
+        return sb.toString();
+    }
+
+    /**
+     * Builds a one-line JSON object of the run, the times are in nanoseconds.
+     *
+     * @return the JSON content
+     */
+    private static String toJson() {
+        var sb = new StringBuilder("{\"timestamp\":\"")
+                .append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .append("\",\"histograms\":{");
+        var first = new boolean[] {true};
+        HISTOGRAMS.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            var h = entry.getValue().snapshot();
+            sb.append(first[0] ? "" : ",").append('"').append(entry.getKey()).append("\":{")
+                    .append("\"count\":").append(h.count)
+                    .append(",\"sum\":").append(h.sum)
+                    .append(",\"min\":").append(h.min)
+                    .append(",\"max\":").append(h.max)
+                    .append(",\"p50\":").append(h.percentile(0.5))
+                    .append(",\"p99\":").append(h.percentile(0.99))
+                    .append('}');
+            first[0] = false;
+        });
+        sb.append("},\"counters\":{");
+        first[0] = true;
+        COUNTERS.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            sb.append(first[0] ? "" : ",").append('"').append(entry.getKey()).append("\":")
+                    .append(entry.getValue().sum());
+            first[0] = false;
+        });
+        return sb.append("}}").append(System.lineSeparator()).toString();
+    }
+
+    /**
+     * Converts nanoseconds to a formatted millisecond value.
+     *
+     * @param nanos the nanoseconds
+     * @return the milliseconds
+     */
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Distribution of the recorded values.
+     */
+    public static class Histogram {
+
+        /**
+         * Number of the values.
+         */
+        @Getter
+        private long count;
+
+        /**
+         * Sum of the values.
+         */
+        @Getter
+        private long sum;
+
+        /**
+         * The lowest value.
+         */
+        @Getter
+        private long min = Long.MAX_VALUE;
+
+        /**
+         * The highest value.
+         */
+        @Getter
+        private long max;
+
+        /**
+         * Number of the values per bucket, the bucket of a value is the
+         * number of its significant bits.
+         */
+        private final long[] buckets = new long[BUCKETS];
+
+        /**
+         * Records a value.
+         *
+         * @param value the value, negative values are recorded as zero
+         */
+        public synchronized void record(long value) {
+            var v = Math.max(0, value);
+            count++;
+            sum += v;
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+            buckets[Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(v))]++;
+        }
+
+        /**
+         * Estimates a percentile. The result is the upper limit of the bucket
+         * that contains the percentile, capped by the highest value.
+         *
+         * @param percentile the percentile between 0 and 1
+         * @return the estimated value
+         */
+        public synchronized long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            var rank = (long) Math.ceil(percentile * count);
+            var seen = 0L;
+            for (var i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    var upperLimit = i == 0 ? 0 : (1L << i) - 1;
+                    return Math.max(min, Math.min(max, upperLimit));
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Makes a consistent copy of the histogram.
+         *
+         * @return the copy
+         */
+        synchronized Histogram snapshot() {
+            var copy = new Histogram();
+            copy.count = count;
+            copy.sum = sum;
+            copy.min = count == 0 ? 0 : min;
+            copy.max = max;
+            System.arraycopy(buckets, 0, copy.buckets, 0, BUCKETS);
+            return copy;
+        }
+    }
+
+    /**
+     * Utility classes should not have public constructors.
+     *
+     * @throws java.lang.UnsupportedOperationException if this method is called
+     */
+    private Metrics() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,111 @@
+package com.remal.portfolio.util;
+
+import com.remal.portfolio.model.MultiplicityType;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Removes the items from a history list that are within the range of an
+ * item kept earlier, based on the value of the multiplicity.
+ * <p>
+ * The items are sorted once by date, then swept in a single pass. Only the
+ * end of the current range is kept per group, so the reduce is O(n log n)
+ * instead of checking every new item against all the kept items.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @param <T> type of the items
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+@Builder
+public class MultiplicityReducer<T> {
+
+    /**
+     * Controls the length of the ranges.
+     */
+    @NonNull
+    private final MultiplicityType multiplicity;
+
+    /**
+     * Returns the date that is used to order and check the items.
+     */
+    @NonNull
+    private final Function<T, LocalDateTime> date;
+
+    /**
+     * Returns the group of the item, the ranges are handled separately per
+     * group. The items belong to the same group if it is not set.
+     */
+    @Builder.Default
+    private final Function<T, Object> groupKey = item -> "";
+
+    /**
+     * Returns the start of the range that is opened by the next kept items
+     * of the group. The date of the item is used if it is not set.
+     */
+    private final Function<T, LocalDateTime> rangeStart;
+
+    /**
+     * True if an item that is exactly at the end of the range belongs to
+     * the range, so it is removed.
+     */
+    private final boolean closedRange;
+
+    /**
+     * Removes the items that are within a range from the list. The list is
+     * sorted by date after the call.
+     *
+     * @param items the list to reduce
+     */
+    public void reduce(List<T> items) {
+        log.debug("> multiplicity: {}", multiplicity.name());
+        log.debug("> number of items before the reduce: {}", items.size());
+
+        items.sort(Comparator.comparing(date));
+
+        var nextStart = Objects.isNull(rangeStart) ? date : rangeStart;
+        var rangeLength = multiplicity.getRangeLengthInSec();
+
+        List<T> reducedItems = new ArrayList<>();
+        Map<Object, LocalDateTime> rangeEnds = new HashMap<>();
+        for (T item : items) {
+            var group = groupKey.apply(item);
+            var rangeEnd = rangeEnds.get(group);
+            if (Objects.isNull(rangeEnd)) {
+                reducedItems.add(item);
+                rangeEnds.put(group, date.apply(item).plusSeconds(rangeLength));
+            } else if (isOutOfRange(date.apply(item), rangeEnd)) {
+                reducedItems.add(item);
+                rangeEnds.put(group, nextStart.apply(item).plusSeconds(rangeLength));
+            }
+        }
+
+        items.clear();
+        items.addAll(reducedItems);
+        log.debug("> number of items after the reduce: {}", items.size());
+    }
+
+    /**
+     * Checks whether the date is after the end of the range.
+     *
+     * @param dateToCheck the date to check
+     * @param rangeEnd end of the current range
+     * @return true if the date is out of the range
+     */
+    private boolean isOutOfRange(LocalDateTime dateToCheck, LocalDateTime rangeEnd) {
+        return closedRange ? dateToCheck.isAfter(rangeEnd) : !dateToCheck.isBefore(rangeEnd);
+    }
+}
@@ -0,0 +1,393 @@
+package com.remal.portfolio.util;
+
+import com.remal.portfolio.model.PerformanceReport;
+import com.remal.portfolio.model.PortfolioReport;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Calculates the time-weighted and the money-weighted return of a
+ * portfolio from its report history.
+ * <p>
+ * The reports must be added in chronological order, every report is
+ * visited once. The cash flows are the changes of the deposit and the
+ * withdrawal totals between two reports, converted to the base currency
+ * with the exchange rates of the later report.
+ * </p>
+ * <p>
+ * The time-weighted return chains the sub-period returns, the cash flow
+ * of a sub-period is treated as if it had arrived at its start:
+ * {@code r = V(i) / (V(i-1) + F(i)) - 1}. The money-weighted return is
+ * the XIRR of the cash flows, solved with Newton's method. Only the
+ * non-zero cash flows are kept, in primitive arrays, so the memory does
+ * not depend on the number of the reports.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+public class ReturnCalculator {
+
+    /**
+     * Average length of a year in days.
+     */
+    private static final double DAYS_PER_YEAR = 365.25;
+
+    /**
+     * Number of seconds in a day.
+     */
+    private static final double SECONDS_PER_DAY = 24d * 60 * 60;
+
+    /**
+     * The maximum number of the Newton iterations.
+     */
+    private static final int MAX_ITERATIONS = 100;
+
+    /**
+     * The XIRR is accepted if the rate changes less than this.
+     */
+    private static final double TOLERANCE = 1e-10;
+
+    /**
+     * The lowest XIRR that is searched with bisection.
+     */
+    private static final double MIN_RATE = -0.999999;
+
+    /**
+     * The highest XIRR that is searched with bisection.
+     */
+    private static final double MAX_RATE = 1e6;
+
+    /**
+     * The first guess of the XIRR.
+     */
+    private static final double INITIAL_GUESS = 0.1;
+
+    /**
+     * The scale of the percentages.
+     */
+    private static final int PERCENT_SCALE = 2;
+
+    /**
+     * The scale of the amounts.
+     */
+    private static final int AMOUNT_SCALE = 2;
+
+    /**
+     * The portfolio name.
+     */
+    private final String portfolio;
+
+    /**
+     * The deposit totals of the previous report by currency.
+     */
+    private Map<String, BigDecimal> previousDeposits = Map.of();
+
+    /**
+     * The withdrawal totals of the previous report by currency.
+     */
+    private Map<String, BigDecimal> previousWithdrawals = Map.of();
+
+    /**
+     * The report that holds the currency and the exchange rates.
+     */
+    private PortfolioReport lastReport;
+
+    /**
+     * The date of the first report.
+     */
+    private LocalDateTime periodStart;
+
+    /**
+     * The value of the portfolio at the previous report.
+     */
+    private double previousValue;
+
+    /**
+     * The product of the sub-period growth factors.
+     */
+    private double growth = 1;
+
+    /**
+     * Deposits minus withdrawals since the first report.
+     */
+    private double netDeposits;
+
+    /**
+     * The time of the cash flows in years since the first report.
+     */
+    private double[] flowTimes = new double[16];
+
+    /**
+     * The cash flows from the investor's point of view: deposits are
+     * negative, withdrawals are positive.
+     */
+    private double[] flowAmounts = new double[16];
+
+    /**
+     * Number of the cash flows.
+     */
+    private int flowCount;
+
+    /**
+     * Constructor.
+     *
+     * @param portfolio the portfolio name
+     */
+    public ReturnCalculator(String portfolio) {
+        this.portfolio = portfolio;
+    }
+
+    /**
+     * Adds the next report of the history. Reports without exchange rates
+     * are skipped because their value is unknown.
+     *
+     * @param report the portfolio report
+     */
+    public void add(PortfolioReport report) {
+        // the market value contains the cash as well
+        var marketValue = report.exchangeAndSum(report.getMarketValues());
+        if (Objects.isNull(marketValue)) {
+            return;
+        }
+
+        var value = marketValue.doubleValue();
+        if (Objects.isNull(lastReport)) {
+            // the first report is the opening balance
+            periodStart = report.getGenerated();
+            addFlow(0, -value);
+        } else {
+            var flow = getCashFlow(report);
+            var base = previousValue + flow;
+            if (base > 0) {
+                growth *= value / base;
+            }
+            if (flow != 0) {
+                netDeposits += flow;
+                addFlow(getYears(report.getGenerated()), -flow);
+            }
+        }
+
+        previousDeposits = report.getDeposits();
+        previousWithdrawals = report.getWithdrawals();
+        previousValue = value;
+        lastReport = report;
+    }
+
+    /**
+     * Builds the report of the returns.
+     *
+     * @return the return metrics or null if no report has been added
+     */
+    public PerformanceReport getReport() {
+        if (Objects.isNull(lastReport)) {
+            return null;
+        }
+
+        var years = getYears(lastReport.getGenerated());
+        var twr = growth - 1;
+        var annualizedTwr = years >= 1 ? Math.pow(growth, 1 / years) - 1 : Double.NaN;
+        var xirr = calculateXirr(years, previousValue);
+
+        return PerformanceReport.builder()
+                .portfolio(portfolio)
+                .currency(lastReport.getCurrency())
+                .periodStart(periodStart)
+                .periodEnd(lastReport.getGenerated())
+                .netDeposits(toBigDecimal(netDeposits, AMOUNT_SCALE))
+                .portfolioValue(toBigDecimal(previousValue, AMOUNT_SCALE))
+                .timeWeightedReturn(toBigDecimal(twr * 100, PERCENT_SCALE))
+                .annualizedTimeWeightedReturn(toBigDecimal(annualizedTwr * 100, PERCENT_SCALE))
+                .moneyWeightedReturn(toBigDecimal(xirr * 100, PERCENT_SCALE))
+                .build();
+    }
+
+    /**
+     * Calculates the net cash flow since the previous report in the base
+     * currency. The totals are subtracted per currency, so the change of
+     * the exchange rates is not a cash flow.
+     *
+     * @param report the current report
+     * @return deposits minus withdrawals since the previous report
+     */
+    private double getCashFlow(PortfolioReport report) {
+        Map<String, BigDecimal> changes = new HashMap<>();
+        addChanges(changes, report.getDeposits(), false);
+        addChanges(changes, previousDeposits, true);
+        addChanges(changes, report.getWithdrawals(), true);
+        addChanges(changes, previousWithdrawals, false);
+        changes.values().removeIf(amount -> amount.signum() == 0);
+        return changes.isEmpty() ? 0 : report.exchangeAndSum(changes).doubleValue();
+    }
+
+    /**
+     * Adds the totals to the changes by currency.
+     *
+     * @param changes the changes by currency
+     * @param totals the totals by currency
+     * @param negate subtract the totals instead of adding them
+     */
+    private static void addChanges(Map<String, BigDecimal> changes, Map<String, BigDecimal> totals, boolean negate) {
+        totals.forEach((currency, amount) -> {
+            if (Objects.nonNull(amount)) {
+                changes.merge(currency, negate ? amount.negate() : amount, BigDecimal::add);
+            }
+        });
+    }
+
+    /**
+     * Appends a non-zero cash flow, the arrays grow on demand.
+     *
+     * @param time the time of the cash flow in years
+     * @param amount the amount
+     */
+    private void addFlow(double time, double amount) {
+        if (amount == 0) {
+            return;
+        }
+
+        if (flowCount == flowTimes.length) {
+            flowTimes = Arrays.copyOf(flowTimes, flowCount * 2);
+            flowAmounts = Arrays.copyOf(flowAmounts, flowCount * 2);
+        }
+        flowTimes[flowCount] = time;
+        flowAmounts[flowCount] = amount;
+        flowCount++;
+    }
+
+    /**
+     * Solves the XIRR with Newton's method, the closing balance is the last
+     * cash flow. The time is measured from the first cash flow, otherwise
+     * a long period without money makes Newton's method diverge. If it
+     * does not converge, the rate is searched with bisection.
+     *
+     * @param endTime the time of the closing balance in years
+     * @param endValue the closing balance
+     * @return the annual rate or NaN if there is no solution
+     */
+    private double calculateXirr(double endTime, double endValue) {
+        if (flowCount == 0 || endTime <= flowTimes[0]) {
+            return Double.NaN;
+        }
+
+        var rate = INITIAL_GUESS;
+        for (var iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            var npv = getNetPresentValue(rate, endTime, endValue);
+            var derivative = getNetPresentValueDerivative(rate, endTime, endValue);
+            if (derivative == 0 || Double.isNaN(npv) || Double.isNaN(derivative)) {
+                break;
+            }
+
+            // a step below -100% goes halfway to -100% instead
+            var next = rate - npv / derivative;
+            if (next <= -1) {
+                next = (rate - 1) / 2;
+            }
+            if (Math.abs(next - rate) < TOLERANCE) {
+                return next;
+            }
+            rate = next;
+        }
+        return calculateXirrWithBisection(endTime, endValue);
+    }
+
+    /**
+     * Searches the XIRR with bisection between -100% and the first rate
+     * where the net present value changes its sign.
+     *
+     * @param endTime the time of the closing balance in years
+     * @param endValue the closing balance
+     * @return the annual rate or NaN if there is no solution
+     */
+    private double calculateXirrWithBisection(double endTime, double endValue) {
+        var low = MIN_RATE;
+        var high = 1.0;
+        var lowNpv = getNetPresentValue(low, endTime, endValue);
+        while (high < MAX_RATE && Math.signum(getNetPresentValue(high, endTime, endValue)) == Math.signum(lowNpv)) {
+            high *= 2;
+        }
+        if (high >= MAX_RATE) {
+            return Double.NaN;
+        }
+
+        for (var iteration = 0; iteration < MAX_ITERATIONS && high - low > TOLERANCE; iteration++) {
+            var middle = (low + high) / 2;
+            var middleNpv = getNetPresentValue(middle, endTime, endValue);
+            if (Math.signum(middleNpv) == Math.signum(lowNpv)) {
+                low = middle;
+                lowNpv = middleNpv;
+            } else {
+                high = middle;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * Calculates the net present value of the cash flows.
+     *
+     * @param rate the annual rate
+     * @param endTime the time of the closing balance in years
+     * @param endValue the closing balance
+     * @return the net present value at the time of the first cash flow
+     */
+    private double getNetPresentValue(double rate, double endTime, double endValue) {
+        var base = 1 + rate;
+        var start = flowTimes[0];
+        var npv = endValue * Math.pow(base, start - endTime);
+        for (var i = 0; i < flowCount; i++) {
+            npv += flowAmounts[i] * Math.pow(base, start - flowTimes[i]);
+        }
+        return npv;
+    }
+
+    /**
+     * Calculates the derivative of the net present value by the rate.
+     *
+     * @param rate the annual rate
+     * @param endTime the time of the closing balance in years
+     * @param endValue the closing balance
+     * @return the derivative
+     */
+    private double getNetPresentValueDerivative(double rate, double endTime, double endValue) {
+        var base = 1 + rate;
+        var start = flowTimes[0];
+        var derivative = (start - endTime) * endValue * Math.pow(base, start - endTime - 1);
+        for (var i = 0; i < flowCount; i++) {
+            derivative += (start - flowTimes[i]) * flowAmounts[i] * Math.pow(base, start - flowTimes[i] - 1);
+        }
+        return derivative;
+    }
+
+    /**
+     * Calculates the time that has elapsed since the first report.
+     *
+     * @param date the date
+     * @return the elapsed time in years
+     */
+    private double getYears(LocalDateTime date) {
+        return Duration.between(periodStart, date).getSeconds() / SECONDS_PER_DAY / DAYS_PER_YEAR;
+    }
+
+    /**
+     * Converts a double to decimal.
+     *
+     * @param value the value
+     * @param scale the number of the decimal places
+     * @return the decimal or null if the value is not a number
+     */
+    private static BigDecimal toBigDecimal(double value, int scale) {
+        return Double.isNaN(value) || Double.isInfinite(value)
+                ? null
+                : BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+    }
+}
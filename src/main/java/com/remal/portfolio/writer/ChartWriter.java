@@ -0,0 +1,736 @@
+package com.remal.portfolio.writer;
+
+import com.remal.portfolio.model.PortfolioReport;
+import com.remal.portfolio.model.PriceBar;
+import com.remal.portfolio.util.Downsampler;
+import com.remal.portfolio.util.Logger;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PNG chart renderer that draws the portfolio report and the performance
+ * comparison charts with Java2D, the same way as the 'portfolio-summary.plot'
+ * and the 'performance-comparison.plot' gnuplot scripts do. It does not
+ * need a display or an external process.
+ * <p>
+ * The report history of the portfolios is converted to plain arrays once,
+ * after that the charts can be rendered concurrently.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class ChartWriter {
+
+    /**
+     * Red line color.
+     */
+    private static final Color RED = new Color(0xf90d1b);
+
+    /**
+     * Blue line color.
+     */
+    private static final Color BLUE = new Color(0x1a237e);
+
+    /**
+     * Yellow line color.
+     */
+    private static final Color YELLOW = new Color(0xfde005);
+
+    /**
+     * Pink line color.
+     */
+    private static final Color PINK = new Color(0xec00fc);
+
+    /**
+     * Violet line color.
+     */
+    private static final Color VIOLET = new Color(0x9d00fe);
+
+    /**
+     * Green line color.
+     */
+    private static final Color GREEN = new Color(0x00cf35);
+
+    /**
+     * Colors of the performance comparison lines.
+     */
+    private static final List<Color> LINE_COLORS = List.of(RED, BLUE, YELLOW, PINK, VIOLET, GREEN);
+
+    /**
+     * Color of the grid.
+     */
+    private static final Color GRID_COLOR = new Color(0xd0d0d0);
+
+    /**
+     * The points and the values are shown on the charts that are not longer
+     * than this.
+     */
+    private static final int LABEL_THRESHOLD_DAYS = 30;
+
+    /**
+     * Number of seconds in a day.
+     */
+    private static final long SECONDS_PER_DAY = 24L * 60 * 60;
+
+    /**
+     * Space on the left side of the plot area.
+     */
+    private static final int MARGIN_LEFT = 110;
+
+    /**
+     * Space on the right side of the plot area.
+     */
+    private static final int MARGIN_RIGHT = 40;
+
+    /**
+     * Space above the plot area.
+     */
+    private static final int MARGIN_TOP = 60;
+
+    /**
+     * Space below the plot area.
+     */
+    private static final int MARGIN_BOTTOM = 90;
+
+    /**
+     * Number of the ticks on the axes.
+     */
+    private static final int TICKS = 8;
+
+    /**
+     * Width of the lines.
+     */
+    private static final float LINE_WIDTH = 2f;
+
+    /**
+     * Radius of the points.
+     */
+    private static final int POINT_RADIUS = 4;
+
+    /**
+     * Format of the dates on the x axis.
+     */
+    private static final DateTimeFormatter X_TICK_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /**
+     * Width of the image.
+     */
+    private final int width;
+
+    /**
+     * Height of the image.
+     */
+    private final int height;
+
+    /**
+     * The currency of the portfolio reports.
+     */
+    private final String baseCurrency;
+
+    /**
+     * The chart data of the portfolios.
+     */
+    private final Map<String, PortfolioSeries> portfolios = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param width width of the images
+     * @param height height of the images
+     * @param baseCurrency the currency of the portfolio reports
+     */
+    public ChartWriter(int width, int height, String baseCurrency) {
+        this.width = width;
+        this.height = height;
+        this.baseCurrency = baseCurrency;
+    }
+
+    /**
+     * Converts the report history of a portfolio to chart data. It must be
+     * called before the charts of the portfolio are rendered.
+     *
+     * @param portfolio the portfolio name
+     * @param portfolioReports the report history of the portfolio
+     */
+    public void addPortfolio(String portfolio, List<PortfolioReport> portfolioReports) {
+        var reports = new ArrayList<>(portfolioReports);
+        reports.sort(Comparator.comparing(PortfolioReport::getGenerated));
+
+        var series = new PortfolioSeries(reports.size());
+        for (var i = 0; i < reports.size(); i++) {
+            var report = reports.get(i);
+            var deposits = report.exchangeAndSum(report.getDeposits());
+            var withdrawals = report.exchangeAndSum(report.getWithdrawals());
+            series.x[i] = toEpochSecond(report.getGenerated());
+            series.deposits[i] = Objects.isNull(deposits) || Objects.isNull(withdrawals)
+                    ? Double.NaN
+                    : deposits.subtract(withdrawals).doubleValue();
+            series.investments[i] = toDouble(report.exchangeAndSum(report.getInvestments()));
+            series.marketValues[i] = toDouble(report.exchangeAndSum(report.getMarketValues()));
+            series.profitLoss[i] = toDouble(report.exchangeAndSum(report.getProfitLoss()));
+        }
+        portfolios.put(portfolio, series);
+        log.debug("< {} reports have been loaded, portfolio: {}", reports.size(), portfolio);
+    }
+
+    /**
+     * Renders the portfolio report chart of a portfolio: deposits, invested
+     * amount, market value and P/L.
+     *
+     * @param filename the PNG file name
+     * @param portfolio the portfolio name
+     * @param title the title of the chart
+     * @param from the start of the range
+     * @param to the end of the range
+     */
+    public void writePortfolioReportChart(String filename,
+                                          String portfolio,
+                                          String title,
+                                          LocalDateTime from,
+                                          LocalDateTime to) {
+
+        var series = portfolios.get(portfolio);
+        var showLabels = isShort(from, to);
+        var lines = List.of(
+                new Line("deposits", VIOLET, series.x, series.deposits, false),
+                new Line("invested amount", GREEN, series.x, series.investments, false),
+                new Line("market value", RED, series.x, series.marketValues, showLabels),
+                new Line("P/L", BLUE, series.x, series.profitLoss, showLabels));
+        render(filename, String.format("Portfolio summary report in %s: %s", baseCurrency, title), lines, from, to);
+    }
+
+    /**
+     * Renders the market values of more portfolios on the same chart.
+     *
+     * @param filename the PNG file name
+     * @param portfolioNames the portfolios to compare
+     * @param rangeLabel the name of the range
+     * @param from the start of the range
+     * @param to the end of the range
+     */
+    public void writePerformanceComparisonChart(String filename,
+                                                List<String> portfolioNames,
+                                                String rangeLabel,
+                                                LocalDateTime from,
+                                                LocalDateTime to) {
+
+        var showLabels = isShort(from, to);
+        List<Line> lines = new ArrayList<>();
+        for (var i = 0; i < portfolioNames.size(); i++) {
+            var name = portfolioNames.get(i);
+            var series = portfolios.get(name);
+            var color = LINE_COLORS.get(i % LINE_COLORS.size());
+            lines.add(new Line(name.replace('-', ' '), color, series.x, series.marketValues, showLabels));
+        }
+        render(filename, "Portfolio performance comparison, range: " + rangeLabel, lines, from, to);
+    }
+
+    /**
+     * Renders the price chart of a symbol from the bars of a rollup tier:
+     * high, low, close and VWAP.
+     *
+     * @param filename the PNG file name
+     * @param title the title of the chart
+     * @param bars the bars of the range ordered by the window start
+     * @param from the start of the range
+     * @param to the end of the range
+     */
+    public void writePriceChart(String filename,
+                                String title,
+                                List<PriceBar> bars,
+                                LocalDateTime from,
+                                LocalDateTime to) {
+
+        var x = new double[bars.size()];
+        var highs = new double[bars.size()];
+        var lows = new double[bars.size()];
+        var closes = new double[bars.size()];
+        var vwaps = new double[bars.size()];
+        for (var i = 0; i < bars.size(); i++) {
+            var bar = bars.get(i);
+            x[i] = toEpochSecond(bar.getWindowStart());
+            highs[i] = toDouble(bar.getHigh());
+            lows[i] = toDouble(bar.getLow());
+            closes[i] = toDouble(bar.getClose());
+            vwaps[i] = toDouble(bar.getVwap());
+        }
+
+        var lines = List.of(
+                new Line("high", GREEN, x, highs, false),
+                new Line("low", RED, x, lows, false),
+                new Line("close", BLUE, x, closes, false),
+                new Line("VWAP", VIOLET, x, vwaps, false));
+        render(filename, title, lines, from, to);
+    }
+
+    /**
+     * Draws the chart and writes it to a PNG file. The lines are
+     * downsampled to the width of the plot area.
+     *
+     * @param filename the PNG file name
+     * @param title the title of the chart
+     * @param lines the lines to draw
+     * @param from the start of the range
+     * @param to the end of the range
+     */
+    private void render(String filename, String title, List<Line> lines, LocalDateTime from, LocalDateTime to) {
+        var minX = toEpochSecond(from);
+        var maxX = toEpochSecond(to);
+        var plotWidth = width - MARGIN_LEFT - MARGIN_RIGHT;
+        var plotHeight = height - MARGIN_TOP - MARGIN_BOTTOM;
+
+        // visible points and the range of the y axis
+        List<int[]> visiblePoints = new ArrayList<>();
+        var minY = Double.POSITIVE_INFINITY;
+        var maxY = Double.NEGATIVE_INFINITY;
+        for (var line : lines) {
+            var indexes = Downsampler.largestTriangleThreeBuckets(
+                    line.x,
+                    line.y,
+                    Downsampler.indexAfter(line.x, minX - 1),
+                    Downsampler.indexAfter(line.x, maxX),
+                    plotWidth);
+            visiblePoints.add(indexes);
+            for (var index : indexes) {
+                if (!Double.isNaN(line.y[index])) {
+                    minY = Math.min(minY, line.y[index]);
+                    maxY = Math.max(maxY, line.y[index]);
+                }
+            }
+        }
+        if (minY > maxY) {
+            minY = 0;
+            maxY = 1;
+        }
+        var step = getTickStep((maxY - minY) / TICKS);
+        minY = Math.floor(minY / step) * step;
+        maxY = Math.max(Math.ceil(maxY / step) * step, minY + step);
+
+        var image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        var g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+
+            var scale = new Scale(minX, maxX, minY, maxY, plotWidth, plotHeight);
+            drawTitle(g, title);
+            drawAxes(g, scale, step);
+            drawLines(g, scale, lines, visiblePoints);
+            drawLegend(g, lines);
+        } finally {
+            g.dispose();
+        }
+
+        try {
+            ImageIO.write(image, "png", new File(filename));
+            log.debug("> the chart has been written to \"{}\"", filename);
+        } catch (IOException e) {
+            Logger.logErrorAndExit("An error has occurred while writing to \"{}\" file. {}", filename, e.toString());
+        }
+    }
+
+    /**
+     * Draws the title of the chart.
+     *
+     * @param g the graphics context
+     * @param title the title
+     */
+    private void drawTitle(Graphics2D g, String title) {
+        g.setColor(Color.BLACK);
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 15));
+        var titleWidth = g.getFontMetrics().stringWidth(title);
+        g.drawString(title, (width - titleWidth) / 2, MARGIN_TOP / 2);
+    }
+
+    /**
+     * Draws the grid, the ticks and the label of the y axis.
+     *
+     * @param g the graphics context
+     * @param scale converts the values to pixels
+     * @param step distance of the ticks on the y axis
+     */
+    private void drawAxes(Graphics2D g, Scale scale, double step) {
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+        var metrics = g.getFontMetrics();
+        var dashed = new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f, new float[] {2f, 2f}, 0f);
+
+        // y axis
+        for (var value = scale.minY; value <= scale.maxY + step / 2; value += step) {
+            var y = scale.toY(value);
+            g.setColor(GRID_COLOR);
+            g.setStroke(dashed);
+            g.drawLine(MARGIN_LEFT, y, width - MARGIN_RIGHT, y);
+            g.setColor(Color.BLACK);
+            var label = formatValue(value);
+            g.drawString(label, MARGIN_LEFT - 8 - metrics.stringWidth(label), y + metrics.getAscent() / 2);
+        }
+
+        // x axis
+        for (var i = 0; i <= TICKS; i++) {
+            var epochSecond = scale.minX + (scale.maxX - scale.minX) * i / TICKS;
+            var x = scale.toX(epochSecond);
+            g.setColor(GRID_COLOR);
+            g.setStroke(dashed);
+            g.drawLine(x, MARGIN_TOP, x, height - MARGIN_BOTTOM);
+            g.setColor(Color.BLACK);
+            var label = LocalDateTime.ofEpochSecond((long) epochSecond, 0, ZoneOffset.UTC).format(X_TICK_FORMAT);
+            g.drawString(label, x - metrics.stringWidth(label) / 2, height - MARGIN_BOTTOM + 8 + metrics.getAscent());
+        }
+
+        // label of the y axis
+        var transform = g.getTransform();
+        g.rotate(-Math.PI / 2);
+        g.drawString(baseCurrency, -(MARGIN_TOP + (height - MARGIN_TOP - MARGIN_BOTTOM) / 2), 20);
+        g.setTransform(transform);
+    }
+
+    /**
+     * Draws the lines, and the points with the values on the short charts.
+     *
+     * @param g the graphics context
+     * @param scale converts the values to pixels
+     * @param lines the lines
+     * @param visiblePoints the indexes of the points to draw per line
+     */
+    private void drawLines(Graphics2D g, Scale scale, List<Line> lines, List<int[]> visiblePoints) {
+        var clip = g.getClip();
+        g.clipRect(MARGIN_LEFT, MARGIN_TOP - POINT_RADIUS * 5,
+                width - MARGIN_LEFT - MARGIN_RIGHT + 1, height - MARGIN_TOP - MARGIN_BOTTOM + POINT_RADIUS * 5 + 1);
+        g.setStroke(new BasicStroke(LINE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 11));
+        var metrics = g.getFontMetrics();
+
+        for (var i = 0; i < lines.size(); i++) {
+            var line = lines.get(i);
+            var indexes = visiblePoints.get(i);
+            var showPoints = isShort(scale.minX, scale.maxX);
+            g.setColor(line.color);
+
+            var path = new Path2D.Double();
+            var penDown = false;
+            for (var index : indexes) {
+                if (Double.isNaN(line.y[index])) {
+                    penDown = false;
+                    continue;
+                }
+
+                var x = scale.toX(line.x[index]);
+                var y = scale.toY(line.y[index]);
+                if (penDown) {
+                    path.lineTo(x, y);
+                } else {
+                    path.moveTo(x, y);
+                    penDown = true;
+                }
+                if (showPoints) {
+                    g.fillOval(x - POINT_RADIUS, y - POINT_RADIUS, POINT_RADIUS * 2, POINT_RADIUS * 2);
+                }
+            }
+            g.draw(path);
+
+            // every second value, like the gnuplot scripts
+            if (line.labels) {
+                for (var j = 0; j < indexes.length; j += 2) {
+                    var value = line.y[indexes[j]];
+                    if (!Double.isNaN(value)) {
+                        var label = formatValue(value);
+                        var x = scale.toX(line.x[indexes[j]]) - metrics.stringWidth(label) / 2;
+                        g.drawString(label, x, scale.toY(value) - POINT_RADIUS * 2);
+                    }
+                }
+            }
+        }
+        g.setClip(clip);
+    }
+
+    /**
+     * Draws the legend below the chart.
+     *
+     * @param g the graphics context
+     * @param lines the lines
+     */
+    private void drawLegend(Graphics2D g, List<Line> lines) {
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+        g.setStroke(new BasicStroke(LINE_WIDTH));
+        var metrics = g.getFontMetrics();
+        var x = MARGIN_LEFT;
+        var y = height - MARGIN_BOTTOM / 3;
+        for (var line : lines) {
+            g.setColor(line.color);
+            g.drawLine(x, y - metrics.getAscent() / 3, x + 20, y - metrics.getAscent() / 3);
+            g.setColor(Color.BLACK);
+            g.drawString(line.title, x + 26, y);
+            x += 26 + metrics.stringWidth(line.title) + 30;
+        }
+    }
+
+    /**
+     * Checks whether the points and the values are shown on the chart.
+     *
+     * @param from the start of the range
+     * @param to the end of the range
+     * @return true if the range is not longer than the threshold
+     */
+    private static boolean isShort(LocalDateTime from, LocalDateTime to) {
+        return isShort(toEpochSecond(from), toEpochSecond(to));
+    }
+
+    /**
+     * Checks whether the points and the values are shown on the chart.
+     *
+     * @param from the start of the range in epoch seconds
+     * @param to the end of the range in epoch seconds
+     * @return true if the range is not longer than the threshold
+     */
+    private static boolean isShort(double from, double to) {
+        return to - from <= LABEL_THRESHOLD_DAYS * SECONDS_PER_DAY;
+    }
+
+    /**
+     * Rounds the distance of the ticks to 1, 2 or 5 times a power of ten.
+     *
+     * @param rawStep the distance without rounding
+     * @return the rounded distance
+     */
+    private static double getTickStep(double rawStep) {
+        if (rawStep <= 0 || Double.isNaN(rawStep)) {
+            return 1;
+        }
+
+        var magnitude = Math.pow(10, Math.floor(Math.log10(rawStep)));
+        var fraction = rawStep / magnitude;
+        if (fraction <= 1) {
+            return magnitude;
+        } else if (fraction <= 2) {
+            return 2 * magnitude;
+        } else if (fraction <= 5) {
+            return 5 * magnitude;
+        }
+        return 10 * magnitude;
+    }
+
+    /**
+     * Formats a value with thousands separators and without decimals.
+     *
+     * @param value the value
+     * @return the formatted value
+     */
+    private static String formatValue(double value) {
+        return String.format(Locale.ENGLISH, "%,.0f", value);
+    }
+
+    /**
+     * Converts a date to epoch seconds.
+     *
+     * @param dateTime the date
+     * @return the epoch seconds
+     */
+    private static double toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Converts a decimal to double.
+     *
+     * @param value the value, can be null
+     * @return the value or NaN if it is null
+     */
+    private static double toDouble(BigDecimal value) {
+        return Objects.isNull(value) ? Double.NaN : value.doubleValue();
+    }
+
+    /**
+     * The chart data of a portfolio, ordered by the report date.
+     */
+    private static class PortfolioSeries {
+
+        /**
+         * The report dates in epoch seconds.
+         */
+        private final double[] x;
+
+        /**
+         * The deposits minus the withdrawals.
+         */
+        private final double[] deposits;
+
+        /**
+         * The invested amounts.
+         */
+        private final double[] investments;
+
+        /**
+         * The market values.
+         */
+        private final double[] marketValues;
+
+        /**
+         * The profits and losses.
+         */
+        private final double[] profitLoss;
+
+        /**
+         * Constructor.
+         *
+         * @param size number of the reports
+         */
+        PortfolioSeries(int size) {
+            x = new double[size];
+            deposits = new double[size];
+            investments = new double[size];
+            marketValues = new double[size];
+            profitLoss = new double[size];
+        }
+    }
+
+    /**
+     * A line of the chart.
+     */
+    private static class Line {
+
+        /**
+         * The title in the legend.
+         */
+        private final String title;
+
+        /**
+         * The color of the line.
+         */
+        private final Color color;
+
+        /**
+         * The x values in epoch seconds.
+         */
+        private final double[] x;
+
+        /**
+         * The y values.
+         */
+        private final double[] y;
+
+        /**
+         * Show the values above the points.
+         */
+        private final boolean labels;
+
+        /**
+         * Constructor.
+         *
+         * @param title the title in the legend
+         * @param color the color of the line
+         * @param x the x values in epoch seconds
+         * @param y the y values
+         * @param labels show the values above the points
+         */
+        Line(String title, Color color, double[] x, double[] y, boolean labels) {
+            this.title = title;
+            this.color = color;
+            this.x = x;
+            this.y = y;
+            this.labels = labels;
+        }
+    }
+
+    /**
+     * Converts the values to pixels.
+     */
+    private class Scale {
+
+        /**
+         * The start of the x axis in epoch seconds.
+         */
+        private final double minX;
+
+        /**
+         * The end of the x axis in epoch seconds.
+         */
+        private final double maxX;
+
+        /**
+         * The bottom of the y axis.
+         */
+        private final double minY;
+
+        /**
+         * The top of the y axis.
+         */
+        private final double maxY;
+
+        /**
+         * Width of the plot area.
+         */
+        private final int plotWidth;
+
+        /**
+         * Height of the plot area.
+         */
+        private final int plotHeight;
+
+        /**
+         * Constructor.
+         *
+         * @param minX the start of the x axis in epoch seconds
+         * @param maxX the end of the x axis in epoch seconds
+         * @param minY the bottom of the y axis
+         * @param maxY the top of the y axis
+         * @param plotWidth width of the plot area
+         * @param plotHeight height of the plot area
+         */
+        Scale(double minX, double maxX, double minY, double maxY, int plotWidth, int plotHeight) {
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.plotWidth = plotWidth;
+            this.plotHeight = plotHeight;
+        }
+
+        /**
+         * Converts an epoch second to a horizontal position.
+         *
+         * @param epochSecond the date in epoch seconds
+         * @return the x coordinate
+         */
+        int toX(double epochSecond) {
+            return MARGIN_LEFT + (int) Math.round((epochSecond - minX) / (maxX - minX) * plotWidth);
+        }
+
+        /**
+         * Converts a value to a vertical position.
+         *
+         * @param value the value
+         * @return the y coordinate
+         */
+        int toY(double value) {
+            return MARGIN_TOP + plotHeight - (int) Math.round((value - minY) / (maxY - minY) * plotHeight);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.remal.portfolio.writer;
+
+import com.remal.portfolio.util.FileWriter;
+import com.remal.portfolio.util.Logger;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Excel (XLSX) report builder that uses the streaming SXSSF workbook of
+ * Apache POI. Only the last rows are kept in memory, the older rows are
+ * flushed to a temporary file, so the memory usage does not depend on the
+ * number of the rows.
+ * <p>
+ * The cells are typed: decimals and numbers are written as numeric cells,
+ * dates as date cells, every other value as a text cell.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class ExcelWorkbook implements AutoCloseable {
+
+    /**
+     * Excel date format used if the Java pattern can not be converted.
+     */
+    private static final String DEFAULT_DATE_FORMAT = "yyyy-mm-dd hh:mm:ss";
+
+    /**
+     * Number of the rows that are kept in memory.
+     */
+    private static final int ROW_ACCESS_WINDOW = 100;
+
+    /**
+     * The streaming workbook.
+     */
+    private final SXSSFWorkbook workbook;
+
+    /**
+     * The only sheet of the workbook.
+     */
+    private final SXSSFSheet sheet;
+
+    /**
+     * Style of the date cells.
+     */
+    private final CellStyle dateStyle;
+
+    /**
+     * Style of the header cells.
+     */
+    private final CellStyle headerStyle;
+
+    /**
+     * The row that is being built.
+     */
+    private SXSSFRow row;
+
+    /**
+     * Index of the next cell in the actual row.
+     */
+    private int cellIndex;
+
+    /**
+     * Constructor.
+     *
+     * @param sheetName name of the sheet
+     * @param dateTimePattern Java pattern of the dates, e.g. "yyyy-MM-dd HH:mm:ss"
+     */
+    public ExcelWorkbook(String sheetName, String dateTimePattern) {
+        workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        sheet = workbook.createSheet(sheetName);
+
+        dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat(toExcelDateFormat(dateTimePattern)));
+
+        Font bold = workbook.createFont();
+        bold.setBold(true);
+        headerStyle = workbook.createCellStyle();
+        headerStyle.setFont(bold);
+    }
+
+    /**
+     * Starts a new row.
+     */
+    public void addRow() {
+        row = sheet.createRow(Objects.isNull(row) ? 0 : row.getRowNum() + 1);
+        cellIndex = 0;
+    }
+
+    /**
+     * Adds a header cell to the actual row.
+     *
+     * @param label the column title
+     */
+    public void addHeaderCell(String label) {
+        var cell = row.createCell(cellIndex++);
+        cell.setCellValue(label);
+        cell.setCellStyle(headerStyle);
+    }
+
+    /**
+     * Adds a typed cell to the actual row. Null values leave the cell
+     * empty.
+     *
+     * @param value the cell value
+     */
+    public void addCell(Object value) {
+        var index = cellIndex++;
+        if (Objects.isNull(value)) {
+            return;
+        }
+
+        var cell = row.createCell(index);
+        if (value instanceof BigDecimal x) {
+            cell.setCellValue(x.doubleValue());
+        } else if (value instanceof Number x) {
+            cell.setCellValue(x.doubleValue());
+        } else if (value instanceof LocalDateTime x) {
+            cell.setCellValue(x);
+            cell.setCellStyle(dateStyle);
+        } else if (value instanceof Enum<?> x) {
+            cell.setCellValue(x.name());
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    /**
+     * Stops the application if an existing Excel file would be opened in
+     * APPEND mode. The workbook is always written from scratch, so the rows
+     * of the existing file would be lost.
+     *
+     * @param writeMode how to open the file
+     * @param filename the Excel file
+     */
+    public static void abortIfAppend(FileWriter.WriteMode writeMode, String filename) {
+        if (writeMode == FileWriter.WriteMode.APPEND && Objects.nonNull(filename) && Files.exists(Path.of(filename))) {
+            Logger.logErrorAndExit("The APPEND write mode is not supported by the Excel files, \"{}\" already exists.",
+                    filename);
+        }
+    }
+
+    /**
+     * Writes the workbook to a file.
+     *
+     * @param writeMode how to open the file, APPEND is only accepted if the
+     *                  file does not exist
+     * @param filename the file to write the workbook to
+     */
+    public void write(FileWriter.WriteMode writeMode, String filename) {
+        abortIfAppend(writeMode, filename);
+        log.debug("> writing the Excel report to \"{}\", write-mode: {}...", filename, writeMode);
+        var openOptions = writeMode == FileWriter.WriteMode.STOP_IF_EXIST
+                ? new StandardOpenOption[] {StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE}
+                : new StandardOpenOption[] {
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE};
+
+        try (OutputStream outputStream = Files.newOutputStream(Path.of(filename), openOptions)) {
+            workbook.write(outputStream);
+        } catch (IOException e) {
+            var message = "An error has occurred while writing to \"{}\" file. {}";
+            Logger.logErrorAndExit(message, filename, e.toString());
+        }
+    }
+
+    /**
+     * Deletes the temporary files of the workbook.
+     */
+    @Override
+    public void close() {
+        workbook.dispose();
+        try {
+            workbook.close();
+        } catch (IOException e) {
+            log.warn("> error while closing the Excel workbook: {}", e.toString());
+        }
+    }
+
+    /**
+     * Converts a Java date pattern to an Excel date format. The tokens of
+     * the pattern are mapped one by one, e.g. "yyyy-MM-dd HH:mm:ss.SSS"
+     * becomes "yyyy-mm-dd hh:mm:ss.000". The default format is used if the
+     * pattern contains a token that has no Excel equivalent, e.g. a time
+     * zone.
+     *
+     * @param dateTimePattern the Java pattern
+     * @return the Excel date format
+     */
+    private static String toExcelDateFormat(String dateTimePattern) {
+        if (Objects.isNull(dateTimePattern)) {
+            return DEFAULT_DATE_FORMAT;
+        }
+
+        var excelFormat = new StringBuilder();
+        var index = 0;
+        while (index < dateTimePattern.length()) {
+            var letter = dateTimePattern.charAt(index);
+            var end = index;
+            if (letter == '\'') {
+                // quoted literal, two single quotes stand for one
+                end = dateTimePattern.indexOf('\'', index + 1);
+                if (end < 0) {
+                    return DEFAULT_DATE_FORMAT;
+                }
+                var literal = end == index + 1 ? "'" : dateTimePattern.substring(index + 1, end);
+                excelFormat.append('"').append(literal).append('"');
+                index = end + 1;
+                continue;
+            }
+
+            while (end < dateTimePattern.length() && dateTimePattern.charAt(end) == letter) {
+                end++;
+            }
+            var token = toExcelDateToken(letter, end - index);
+            if (Objects.isNull(token)) {
+                log.debug("> the \"{}\" date pattern can not be used in Excel, the default format is used",
+                        dateTimePattern);
+                return DEFAULT_DATE_FORMAT;
+            }
+            excelFormat.append(token);
+            index = end;
+        }
+        return excelFormat.toString();
+    }
+
+    /**
+     * Converts a token of a Java date pattern to the Excel equivalent.
+     *
+     * @param letter the pattern letter
+     * @param count the number of the repeated letters
+     * @return the Excel token or null if it has no Excel equivalent
+     */
+    private static String toExcelDateToken(char letter, int count) {
+        return switch (letter) {
+            case 'y', 'u' -> count == 2 ? "yy" : "yyyy";
+            case 'M', 'L' -> "m".repeat(Math.min(count, 4));
+            case 'd' -> "d".repeat(Math.min(count, 2));
+            case 'H', 'h' -> "h".repeat(Math.min(count, 2));
+            case 'm' -> "m".repeat(Math.min(count, 2));
+            case 's' -> "s".repeat(Math.min(count, 2));
+            case 'S' -> "0".repeat(Math.min(count, 3));
+            case 'a' -> "AM/PM";
+            case 'E' -> count >= 4 ? "dddd" : "ddd";
+            case ' ', '-', '/', ':', '.', ',' -> String.valueOf(letter).repeat(count);
+            default -> Character.isLetter(letter) ? null : "\"" + String.valueOf(letter).repeat(count) + "\"";
+        };
+    }
+}
@@ -0,0 +1,228 @@
+package com.remal.portfolio.writer;
+
+import com.remal.portfolio.model.Label;
+import com.remal.portfolio.model.LabelCollection;
+import com.remal.portfolio.model.PerformanceReport;
+import com.remal.portfolio.picocli.arggroup.PerformanceArgGroup;
+import com.remal.portfolio.util.LocalDateTimes;
+import com.remal.portfolio.util.Strings;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generate the performance reports.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class PerformanceWriter extends Writer<PerformanceReport> {
+
+    /**
+     * The currency of the amounts in the report.
+     */
+    private String baseCurrency;
+
+    /**
+     * Builder that initializes a new writer instance.
+     *
+     * @param inputArgGroup the input CLI group
+     * @param outputArgGroup the output CLI group
+     * @return the writer instance
+     */
+    public static PerformanceWriter build(PerformanceArgGroup.InputArgGroup inputArgGroup,
+                                          PerformanceArgGroup.OutputArgGroup outputArgGroup) {
+
+        var writer = new PerformanceWriter();
+        writer.baseCurrency = inputArgGroup.getBaseCurrency();
+        writer.setHideTitle(outputArgGroup.isHideTitle());
+        writer.setHideHeader(outputArgGroup.isHideHeader());
+        writer.setLanguage(outputArgGroup.getLanguage());
+        writer.setDateTimePattern(outputArgGroup.getDateTimePattern());
+        writer.setInputZone(ZoneId.of(inputArgGroup.getZone()));
+        writer.setOutputZone(ZoneId.of(outputArgGroup.getZone()));
+        return writer;
+    }
+
+    /**
+     * Generate the CSV report.
+     *
+     * @param reports the return metrics of the portfolios
+     * @return the report content as a String
+     */
+    @Override
+    protected String buildCsvReport(List<PerformanceReport> reports) {
+        var report = new StringBuilder();
+
+        // report title
+        if (!hideTitle) {
+            report
+                    .append(Label.TITLE_PERFORMANCE_REPORT.getLabel(language))
+                    .append(NEW_LINE)
+                    .append(Label.TITLE_GENERATED.getLabel(language)).append(": ")
+                    .append(LocalDateTimes.toNullSafeString(outputZone, dateTimePattern, LocalDateTime.now()))
+                    .append(NEW_LINE)
+                    .append(Label.TITLE_BASE_CURRENCY.getLabel(language).replace("{0}", baseCurrency))
+                    .append(NEW_LINE);
+        }
+
+        // table header
+        if (!hideHeader) {
+            LabelCollection.PERFORMANCE_TABLE_HEADERS
+                    .forEach(label -> report.append(label.getLabel(language)).append(csvSeparator));
+            report.setLength(report.length() - csvSeparator.length());
+            report.append(NEW_LINE);
+        }
+
+        // data
+        reports.forEach(performance -> report
+                .append(getCell(Label.HEADER_PORTFOLIO, performance.getPortfolio(), csvSeparator))
+                .append(getCell(Label.HEADER_PERIOD_START, performance.getPeriodStart(), csvSeparator))
+                .append(getCell(Label.HEADER_PERIOD_END, performance.getPeriodEnd(), csvSeparator))
+                .append(getCell(Label.HEADER_NET_DEPOSITS, performance.getNetDeposits(), csvSeparator))
+                .append(getCell(Label.HEADER_PORTFOLIO_VALUE, performance.getPortfolioValue(), csvSeparator))
+                .append(getCell(Label.HEADER_TWR, performance.getTimeWeightedReturn(), csvSeparator))
+                .append(getCell(Label.HEADER_ANNUALIZED_TWR,
+                        performance.getAnnualizedTimeWeightedReturn(), csvSeparator))
+                .append(getCell(Label.HEADER_XIRR, performance.getMoneyWeightedReturn()))
+                .append(NEW_LINE));
+        return report.toString();
+    }
+
+    /**
+     * Generate the Excel report.
+     *
+     * @param reports the return metrics of the portfolios
+     * @param workbook the workbook that receives the rows
+     */
+    @Override
+    protected void buildExcelReport(List<PerformanceReport> reports, ExcelWorkbook workbook) {
+        // report title
+        addExcelTitle(workbook,
+                Label.TITLE_PERFORMANCE_REPORT.getLabel(language),
+                Label.TITLE_GENERATED.getLabel(language) + ": "
+                        + LocalDateTimes.toNullSafeString(outputZone, dateTimePattern, LocalDateTime.now()),
+                Label.TITLE_BASE_CURRENCY.getLabel(language).replace("{0}", baseCurrency));
+
+        // table header
+        if (!hideHeader) {
+            workbook.addRow();
+            LabelCollection.PERFORMANCE_TABLE_HEADERS
+                    .forEach(label -> workbook.addHeaderCell(label.getLabel(language)));
+        }
+
+        // data
+        reports.forEach(performance -> {
+            workbook.addRow();
+            addCell(workbook, Label.HEADER_PORTFOLIO, performance.getPortfolio());
+            addCell(workbook, Label.HEADER_PERIOD_START, performance.getPeriodStart());
+            addCell(workbook, Label.HEADER_PERIOD_END, performance.getPeriodEnd());
+            addCell(workbook, Label.HEADER_NET_DEPOSITS, performance.getNetDeposits());
+            addCell(workbook, Label.HEADER_PORTFOLIO_VALUE, performance.getPortfolioValue());
+            addCell(workbook, Label.HEADER_TWR, performance.getTimeWeightedReturn());
+            addCell(workbook, Label.HEADER_ANNUALIZED_TWR, performance.getAnnualizedTimeWeightedReturn());
+            addCell(workbook, Label.HEADER_XIRR, performance.getMoneyWeightedReturn());
+        });
+    }
+
+    /**
+     * Generate the Text/Markdown report.
+     *
+     * @param reports the return metrics of the portfolios
+     * @return the report content as a String
+     */
+    @Override
+    protected String buildMarkdownReport(List<PerformanceReport> reports) {
+        var widths = calculateColumnWidth(reports);
+        var report = new StringBuilder();
+
+        // report title
+        if (!hideTitle) {
+            report
+                    .append("# ").append(Label.TITLE_PERFORMANCE_REPORT.getLabel(language)).append(NEW_LINE)
+
+                    .append(MARKDOWN_ITALIC)
+                    .append(Label.TITLE_GENERATED.getLabel(language)).append(": ")
+                    .append(LocalDateTimes.toNullSafeString(outputZone, dateTimePattern, LocalDateTime.now()))
+                    .append(MARKDOWN_ITALIC)
+                    .append(NEW_LINE)
+
+                    .append(MARKDOWN_ITALIC)
+                    .append(Label.TITLE_BASE_CURRENCY.getLabel(language).replace("{0}", baseCurrency))
+                    .append(MARKDOWN_ITALIC)
+                    .append(NEW_LINE)
+                    .append(NEW_LINE);
+        }
+
+        // table header
+        if (!hideHeader) {
+            var header = new StringBuilder();
+            var headerSeparator = new StringBuilder();
+            LabelCollection.PERFORMANCE_TABLE_HEADERS
+                    .forEach(labelKey -> {
+                        var labelValue = labelKey.getLabel(language);
+                        var width = widths.get(labelKey.name());
+                        header.append(markdownSeparator).append(Strings.leftPad(labelValue, width));
+                        headerSeparator.append(markdownSeparator).append("-".repeat(width));
+                    });
+            header.append(markdownSeparator).append(NEW_LINE);
+            headerSeparator.append(markdownSeparator).append(NEW_LINE);
+            report.append(header).append(headerSeparator);
+        }
+
+        // data
+        reports.forEach(performance -> report
+                .append(getCell(Label.HEADER_PORTFOLIO, performance.getPortfolio(), widths))
+                .append(getCell(Label.HEADER_PERIOD_START, performance.getPeriodStart(), widths))
+                .append(getCell(Label.HEADER_PERIOD_END, performance.getPeriodEnd(), widths))
+                .append(getCell(Label.HEADER_NET_DEPOSITS, performance.getNetDeposits(), widths))
+                .append(getCell(Label.HEADER_PORTFOLIO_VALUE, performance.getPortfolioValue(), widths))
+                .append(getCell(Label.HEADER_TWR, performance.getTimeWeightedReturn(), widths))
+                .append(getCell(Label.HEADER_ANNUALIZED_TWR, performance.getAnnualizedTimeWeightedReturn(), widths))
+                .append(getCell(Label.HEADER_XIRR, performance.getMoneyWeightedReturn(), widths))
+                .append(markdownSeparator).append(NEW_LINE));
+        return report.toString();
+    }
+
+    /**
+     * The performance report is always generated from the portfolio
+     * reports, so the previous content of the file is not kept.
+     *
+     * @param filename data file name
+     * @return empty list
+     */
+    @Override
+    protected List<PerformanceReport> getHistoryFromFile(String filename) {
+        return List.of();
+    }
+
+    /**
+     * Calculate the with of the columns that are shown in the report.
+     *
+     * @param reports the return metrics of the portfolios
+     * @return length of the columns
+     */
+    private Map<String, Integer> calculateColumnWidth(List<PerformanceReport> reports) {
+        Map<String, Integer> widths = new HashMap<>();
+        LabelCollection.PERFORMANCE_TABLE_HEADERS
+                .forEach(label -> widths.put(label.name(), label.getLabel(language).length()));
+        reports.forEach(performance -> {
+            updateWidth(widths, Label.HEADER_PORTFOLIO, performance.getPortfolio());
+            updateWidth(widths, Label.HEADER_PERIOD_START, performance.getPeriodStart());
+            updateWidth(widths, Label.HEADER_PERIOD_END, performance.getPeriodEnd());
+            updateWidth(widths, Label.HEADER_NET_DEPOSITS, performance.getNetDeposits());
+            updateWidth(widths, Label.HEADER_PORTFOLIO_VALUE, performance.getPortfolioValue());
+            updateWidth(widths, Label.HEADER_TWR, performance.getTimeWeightedReturn());
+            updateWidth(widths, Label.HEADER_ANNUALIZED_TWR, performance.getAnnualizedTimeWeightedReturn());
+            updateWidth(widths, Label.HEADER_XIRR, performance.getMoneyWeightedReturn());
+        });
+        return widths;
+    }
+}
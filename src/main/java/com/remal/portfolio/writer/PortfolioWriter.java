@@ -6,34 +6,43 @@ import com.remal.portfolio.model.Label;
 import com.remal.portfolio.model.LabelCollection;
 import com.remal.portfolio.model.MultiplicityType;
 import com.remal.portfolio.model.PortfolioReport;
+import com.remal.portfolio.model.ReportLayoutType;
 import com.remal.portfolio.parser.PortfolioSummaryParser;
+import com.remal.portfolio.picocli.arggroup.ChartArgGroup;
+import com.remal.portfolio.picocli.arggroup.ChartDataArgGroup;
 import com.remal.portfolio.picocli.arggroup.PortfolioArgGroup;
 import com.remal.portfolio.picocli.arggroup.PortfolioInputArgGroup;
 import com.remal.portfolio.util.BigDecimalFormatter;
 import com.remal.portfolio.util.BigDecimals;
+import com.remal.portfolio.util.Downsampler;
 import com.remal.portfolio.util.FileWriter;
 import com.remal.portfolio.util.Files;
 import com.remal.portfolio.util.Filter;
 import com.remal.portfolio.util.LocalDateTimes;
+import com.remal.portfolio.util.Metrics;
+import com.remal.portfolio.util.MultiplicityReducer;
 import com.remal.portfolio.util.Sorter;
 import com.remal.portfolio.util.Strings;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Portfolio summary writer.
@@ -84,6 +93,12 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
     @Setter
     private MultiplicityType multiplicity;
 
+    /**
+     * Layout of the portfolio report file.
+     */
+    @Setter
+    private ReportLayoutType reportLayout = ReportLayoutType.WIDE;
+
     /**
      * Builder that initializes a new writer instance.
      *
@@ -105,6 +120,47 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
         writer.setOutputZone(ZoneId.of(outputArgGroup.getZone()));
         writer.setColumnsToHide(outputArgGroup.getColumnsToHide().stream().map(String::toUpperCase).toList());
         writer.setMultiplicity(outputArgGroup.getMultiplicity());
+        writer.setReportLayout(outputArgGroup.getPortfolioReportLayout());
+        return writer;
+    }
+
+    /**
+     * Builder that initializes a new writer instance for the chart series.
+     *
+     * @param inputArgGroup the input CLI group
+     * @param outputArgGroup the output CLI group
+     * @return the writer instance
+     */
+    public static PortfolioWriter build(ChartDataArgGroup.InputArgGroup inputArgGroup,
+                                        ChartDataArgGroup.OutputArgGroup outputArgGroup) {
+
+        var writer = new PortfolioWriter();
+        writer.setBaseCurrency(CurrencyType.getEnum(inputArgGroup.getBaseCurrency()));
+        writer.setHideTitle(true);
+        writer.setLanguage(outputArgGroup.getLanguage());
+        writer.setDateTimePattern(outputArgGroup.getDateTimePattern());
+        writer.setInputZone(ZoneId.of(inputArgGroup.getZone()));
+        writer.setOutputZone(ZoneId.of(outputArgGroup.getZone()));
+        return writer;
+    }
+
+    /**
+     * Builder that initializes a new writer instance for the charts.
+     *
+     * @param inputArgGroup the input CLI group
+     * @param outputArgGroup the output CLI group
+     * @return the writer instance
+     */
+    public static PortfolioWriter build(ChartDataArgGroup.InputArgGroup inputArgGroup,
+                                        ChartArgGroup.OutputArgGroup outputArgGroup) {
+
+        var writer = new PortfolioWriter();
+        writer.setBaseCurrency(CurrencyType.getEnum(inputArgGroup.getBaseCurrency()));
+        writer.setHideTitle(true);
+        writer.setLanguage(outputArgGroup.getLanguage());
+        writer.setDateTimePattern(outputArgGroup.getDateTimePattern());
+        writer.setInputZone(ZoneId.of(inputArgGroup.getZone()));
+        writer.setOutputZone(ZoneId.of(outputArgGroup.getZone()));
         return writer;
     }
 
@@ -120,12 +176,99 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
                                      final PortfolioReport portfolioReport) {
         if (Objects.nonNull(filename) && Files.getFileType(filename) == FileType.CSV) {
             log.debug("> writing the portfolio report to \"{}\", write-mode: {}...", filename, writeMode);
-            generatePortfolioCsvReport(writeMode, filename, portfolioReport);
+            var sample = Metrics.start(Metrics.RENDER);
+            try {
+                if (reportLayout == ReportLayoutType.LONG) {
+                    appendLongPortfolioCsvReport(filename, portfolioReport);
+                } else {
+                    generatePortfolioCsvReport(writeMode, filename, portfolioReport);
+                }
+            } finally {
+                sample.stop();
+            }
         } else {
             log.warn("> skipping the portfolio report generation: filename is empty or file type is not supported");
         }
     }
 
+    /**
+     * Exports the portfolio report with long layout to a wide CSV or Excel
+     * file, e.g. for gnuplot.
+     *
+     * @param filename the report file name
+     * @param exportFilename the wide CSV or Excel file name
+     */
+    public void exportPortfolioReport(String filename, String exportFilename) {
+        var exportFileType = Files.getFileType(exportFilename);
+        if (reportLayout != ReportLayoutType.LONG
+                || Objects.isNull(filename)
+                || (exportFileType != FileType.CSV && exportFileType != FileType.XLSX)) {
+            log.warn("> skipping the portfolio report export: the report layout is not LONG or the file type "
+                    + "is not supported");
+            return;
+        }
+
+        log.debug("> exporting the portfolio report to \"{}\"...", exportFilename);
+        var sample = Metrics.start(Metrics.RENDER);
+        try {
+            var portfolioReports = readPortfolioReports(filename);
+            reduceBasedOnMultiplicity(portfolioReports);
+            writeWidePortfolioReport(FileWriter.WriteMode.OVERWRITE, exportFilename, portfolioReports);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Writes the chart series of the portfolio report, one file per range.
+     * The report file is read once, the ranges are sliced from the same
+     * sorted list and the series that are longer than the requested number
+     * of points are downsampled with the LTTB algorithm, based on the total
+     * market value. Every series has the same columns, so the chart scripts
+     * of the portfolio report can be used with them.
+     *
+     * @param writeMode control the way of open the files
+     * @param filename the report file name
+     * @param seriesFiles the series file names by the length of the range in days
+     * @param end the end of the ranges
+     * @param points the number of the points in a series
+     */
+    public void exportChartSeries(FileWriter.WriteMode writeMode,
+                                  String filename,
+                                  Map<Integer, String> seriesFiles,
+                                  LocalDateTime end,
+                                  int points) {
+
+        log.debug("> exporting the chart series of \"{}\", ranges: {}...", filename, seriesFiles.keySet());
+        var sample = Metrics.start(Metrics.RENDER);
+        try {
+            var portfolioReports = readPortfolioReports(filename);
+            portfolioReports.sort(Comparator.comparing(PortfolioReport::getGenerated));
+            var columnInfo = buildWideColumnInfo(portfolioReports);
+
+            var size = portfolioReports.size();
+            var x = new double[size];
+            var y = new double[size];
+            for (var i = 0; i < size; i++) {
+                var report = portfolioReports.get(i);
+                var marketValue = report.exchangeAndSum(report.getMarketValues());
+                x[i] = report.getGenerated().toEpochSecond(ZoneOffset.UTC);
+                y[i] = Objects.isNull(marketValue) ? 0 : marketValue.doubleValue();
+            }
+
+            var to = Downsampler.indexAfter(x, end.toEpochSecond(ZoneOffset.UTC));
+            seriesFiles.forEach((rangeInDays, seriesFile) -> {
+                var from = Downsampler.indexAfter(x, end.minusDays(rangeInDays).toEpochSecond(ZoneOffset.UTC) - 1);
+                var indexes = Downsampler.largestTriangleThreeBuckets(x, y, from, to, points);
+                var series = Arrays.stream(indexes).mapToObj(portfolioReports::get).toList();
+                log.debug("> {} days: {} of {} reports have been kept", rangeInDays, series.size(), to - from);
+                writeWidePortfolioReport(writeMode, seriesFile, columnInfo, series);
+            });
+        } finally {
+            sample.stop();
+        }
+    }
+
     /**
      * Generates the CSV report.
      *
@@ -167,21 +310,21 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
         // data
         portfolioReport.getPortfolios().forEach((name, portfolio) -> portfolio.getProducts()
                 .forEach((key, product) -> {
-                    var profitAndLossPercent = product.getProfitAndLossPercent();
                     if (BigDecimals.isNotZero(product.getQuantity())) {
                         var price = product.getMarketPrice().getUnitPrice();
-                        var cost = exchangeAndSum(portfolioReport.getExchangeRates(), product.getFees());
+                        var valuation = product.getValuation();
+                        var profitAndLossPercent = valuation.getProfitAndLossPercent();
                         report
                             .append(getCell(Label.HEADER_PORTFOLIO, portfolio.getName(), csvSeparator))
                             .append(getCell(Label.HEADER_SYMBOL, product.getSymbol(), csvSeparator))
                             .append(getCell(Label.HEADER_QUANTITY, product.getQuantity(), csvSeparator))
                             .append(getCell(Label.HEADER_AVG_PRICE, product.getAveragePrice(), csvSeparator))
                             .append(getCell(Label.HEADER_MARKET_UNIT_PRICE, price, csvSeparator))
-                            .append(getCell(Label.HEADER_MARKET_VALUE, product.getMarketValue(), csvSeparator))
-                            .append(getCell(Label.HEADER_INVESTED_AMOUNT, product.getInvestedAmount(), csvSeparator))
-                            .append(getCell(Label.HEADER_PROFIT_LOSS, product.getProfitAndLoss(), csvSeparator))
+                            .append(getCell(Label.HEADER_MARKET_VALUE, valuation.getMarketValue(), csvSeparator))
+                            .append(getCell(Label.HEADER_INVESTED_AMOUNT, valuation.getInvestedAmount(), csvSeparator))
+                            .append(getCell(Label.HEADER_PROFIT_LOSS, valuation.getProfitAndLoss(), csvSeparator))
                             .append(getCell(Label.HEADER_PROFIT_LOSS_PERCENT, profitAndLossPercent, csvSeparator))
-                            .append(getCell(Label.HEADER_COSTS, cost, csvSeparator))
+                            .append(getCell(Label.HEADER_COSTS, valuation.getCosts(), csvSeparator))
                             .append(getCell(Label.HEADER_DEPOSITS, product.getDeposits(), csvSeparator))
                             .append(getCell(Label.HEADER_WITHDRAWALS, product.getWithdrawals(), csvSeparator))
                             .append(NEW_LINE);
@@ -191,6 +334,55 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
         return report.toString();
     }
 
+    /**
+     * Generates the Excel report.
+     *
+     * @param items data
+     * @param workbook the Excel report
+     */
+    @Override
+    protected void buildExcelReport(List<PortfolioReport> items, ExcelWorkbook workbook) {
+        var portfolioReport = items
+                .stream()
+                .findFirst()
+                .orElse(new PortfolioReport(CurrencyType.EUR, LocalDateTime.now()));
+
+        // report title
+        addExcelTitle(workbook,
+                Label.TITLE_PORTFOLIO_SUMMARY.getLabel(language),
+                Label.TITLE_GENERATED.getLabel(language) + ": "
+                        + LocalDateTimes.toNullSafeString(outputZone, dateTimePattern, portfolioReport.getGenerated()),
+                Label.TITLE_BASE_CURRENCY.getLabel(language).replace("{0}", language));
+
+        // table header
+        if (!hideHeader) {
+            workbook.addRow();
+            LabelCollection.PORTFOLIO_TABLE_HEADERS.forEach(label -> workbook.addHeaderCell(label.getLabel(language)));
+        }
+
+        // data
+        portfolioReport.getPortfolios().forEach((name, portfolio) -> portfolio.getProducts()
+                .forEach((key, product) -> {
+                    if (BigDecimals.isNotZero(product.getQuantity())) {
+                        var valuation = product.getValuation();
+                        workbook.addRow();
+                        addCell(workbook, Label.HEADER_PORTFOLIO, portfolio.getName());
+                        addCell(workbook, Label.HEADER_SYMBOL, product.getSymbol());
+                        addCell(workbook, Label.HEADER_QUANTITY, product.getQuantity());
+                        addCell(workbook, Label.HEADER_AVG_PRICE, product.getAveragePrice());
+                        addCell(workbook, Label.HEADER_MARKET_UNIT_PRICE, product.getMarketPrice().getUnitPrice());
+                        addCell(workbook, Label.HEADER_MARKET_VALUE, valuation.getMarketValue());
+                        addCell(workbook, Label.HEADER_INVESTED_AMOUNT, valuation.getInvestedAmount());
+                        addCell(workbook, Label.HEADER_PROFIT_LOSS, valuation.getProfitAndLoss());
+                        addCell(workbook, Label.HEADER_PROFIT_LOSS_PERCENT, valuation.getProfitAndLossPercent());
+                        addCell(workbook, Label.HEADER_COSTS, valuation.getCosts());
+                        addCell(workbook, Label.HEADER_DEPOSITS, product.getDeposits());
+                        addCell(workbook, Label.HEADER_WITHDRAWALS, product.getWithdrawals());
+                    }
+                })
+        );
+    }
+
     /**
      * Generate the Text/Markdown report.
      *
@@ -227,23 +419,23 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
                         .filter(p -> symbolsToShow.isEmpty() || symbolsToShow.contains(p.getValue().getSymbol().trim()))
                         .forEach(p -> {
                             var product = p.getValue();
-                            var profitAndLossPercent = product.getProfitAndLossPercent();
-
                             if (BigDecimals.isNotZero(product.getQuantity())) {
                                 var marketPrice = product.getMarketPrice();
                                 var price = Objects.isNull(marketPrice) ? null : marketPrice.getUnitPrice();
-                                var cost = exchangeAndSum(portfolioReport.getExchangeRates(), product.getFees());
+                                var valuation = product.getValuation();
+                                var investedAmount = valuation.getInvestedAmount();
+                                var profitAndLossPercent = valuation.getProfitAndLossPercent();
                                 report
                                     .append(getCell(Label.HEADER_PORTFOLIO, portfolio.getName(), widths))
                                     .append(getCell(Label.HEADER_SYMBOL, product.getSymbol(), widths))
                                     .append(getCell(Label.HEADER_QUANTITY, product.getQuantity(), widths))
                                     .append(getCell(Label.HEADER_AVG_PRICE, product.getAveragePrice(), widths))
                                     .append(getCell(Label.HEADER_MARKET_UNIT_PRICE, price, widths))
-                                    .append(getCell(Label.HEADER_MARKET_VALUE, product.getMarketValue(), widths))
-                                    .append(getCell(Label.HEADER_INVESTED_AMOUNT, product.getInvestedAmount(), widths))
-                                    .append(getCell(Label.HEADER_PROFIT_LOSS, product.getProfitAndLoss(), widths))
+                                    .append(getCell(Label.HEADER_MARKET_VALUE, valuation.getMarketValue(), widths))
+                                    .append(getCell(Label.HEADER_INVESTED_AMOUNT, investedAmount, widths))
+                                    .append(getCell(Label.HEADER_PROFIT_LOSS, valuation.getProfitAndLoss(), widths))
                                     .append(getCell(Label.HEADER_PROFIT_LOSS_PERCENT, profitAndLossPercent, widths))
-                                    .append(getCell(Label.HEADER_COSTS, cost, widths))
+                                    .append(getCell(Label.HEADER_COSTS, valuation.getCosts(), widths))
                                     .append(getCell(Label.HEADER_DEPOSITS, product.getDeposits(), widths))
                                     .append(getCell(Label.HEADER_WITHDRAWALS, product.getWithdrawals(), widths))
                                     .append(markdownSeparator)
@@ -280,15 +472,48 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
                                             String filename,
                                             final PortfolioReport portfolioReport) {
 
-        var inputArgGroup = buildTransactionParserInputArgGroup(filename);
-        var parser = PortfolioSummaryParser.build(baseCurrency, language, inputArgGroup);
-        var portfolioReports = new ArrayList<>(parser.parse(filename));
-
+        var portfolioReports = readPortfolioReports(filename);
         if (!portfolioReports.contains(portfolioReport)) {
             portfolioReports.add(portfolioReport);
         }
         reduceBasedOnMultiplicity(portfolioReports);
+        writeWidePortfolioReport(writeMode, filename, portfolioReports);
+    }
 
+    /**
+     * Reads the portfolio reports from the portfolio report file.
+     *
+     * @param filename the report file name
+     * @return the portfolio reports
+     */
+    public ArrayList<PortfolioReport> readPortfolioReports(String filename) {
+        var inputArgGroup = buildTransactionParserInputArgGroup(filename);
+        var parser = PortfolioSummaryParser.build(baseCurrency, language, inputArgGroup);
+        return new ArrayList<>(parser.parse(filename));
+    }
+
+    /**
+     * Writes the portfolio reports to a CSV or an Excel file with wide
+     * layout, one column per metric and currency.
+     *
+     * @param writeMode control the way of open the file
+     * @param filename the report file name
+     * @param portfolioReports the portfolio reports
+     */
+    private void writeWidePortfolioReport(FileWriter.WriteMode writeMode,
+                                          String filename,
+                                          List<PortfolioReport> portfolioReports) {
+        writeWidePortfolioReport(writeMode, filename, buildWideColumnInfo(portfolioReports), portfolioReports);
+    }
+
+    /**
+     * Collects the columns of the wide report, one column per metric and
+     * currency.
+     *
+     * @param portfolioReports the portfolio reports
+     * @return the map that contains info about the report columns
+     */
+    private LinkedHashMap<Label, Set<String>> buildWideColumnInfo(List<PortfolioReport> portfolioReports) {
         LinkedHashMap<Label, Set<String>> columnInfo = new LinkedHashMap<>();
         portfolioReports.forEach(report -> {
             // cash
@@ -339,149 +564,199 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
             placeholderValues.addAll(report.getProfitLoss().keySet());
             columnInfo.put(Label.LABEL_TOTAL_PROFIT_LOSS, Set.of(baseCurrency.name()));
         });
+        return columnInfo;
+    }
 
-        var report = generatePortfolioCsvReportHeader(columnInfo);
-        report += generatePortfolioCsvReportData(columnInfo, portfolioReports);
-
-        FileWriter.write(writeMode, filename, report.getBytes());
+    /**
+     * Writes the portfolio reports to a CSV or an Excel file with wide
+     * layout.
+     *
+     * @param writeMode control the way of open the file
+     * @param filename the report file name
+     * @param columnInfo the map that contains info about the report columns
+     * @param portfolioReports the portfolio reports
+     */
+    private void writeWidePortfolioReport(FileWriter.WriteMode writeMode,
+                                          String filename,
+                                          LinkedHashMap<Label, Set<String>> columnInfo,
+                                          List<PortfolioReport> portfolioReports) {
+        var header = getWideHeader(columnInfo);
+        if (Files.getFileType(filename) == FileType.XLSX) {
+            try (var workbook = new ExcelWorkbook(getClass().getSimpleName(), dateTimePattern)) {
+                workbook.addRow();
+                header.forEach(workbook::addHeaderCell);
+                portfolioReports.forEach(reportEntry -> {
+                    workbook.addRow();
+                    getWideRow(columnInfo, reportEntry).forEach(value -> workbook.addCell(getExcelValue(value)));
+                });
+                workbook.write(writeMode, filename);
+            }
+        } else {
+            decimalFormat = BigDecimals.UNFORMATTED;
+            var report = new StringBuilder(String.join(csvSeparator, header)).append(NEW_LINE);
+            portfolioReports.forEach(reportEntry -> report
+                    .append(getWideRow(columnInfo, reportEntry)
+                            .stream()
+                            .map(value -> getStringValue(value).orElse(""))
+                            .collect(Collectors.joining(csvSeparator)))
+                    .append(NEW_LINE));
+            FileWriter.write(writeMode, filename, report.toString().getBytes());
+        }
     }
 
     /**
-     * Remove items from the list based on the value of the multiplicity.
+     * Appends the report to the portfolio report file with long layout,
+     * one row per metric and currency. The file is never rewritten. The
+     * report is skipped if it falls into the multiplicity range of the
+     * last report in the file.
      *
-     * @param portfolioReports the list to deduce
+     * @param filename the report file name
+     * @param portfolioReport portfolio report
      */
-    private void reduceBasedOnMultiplicity(ArrayList<PortfolioReport> portfolioReports) {
-        log.debug("> multiplicity: {}", multiplicity.name());
-        log.debug("> number of items before the reduce: {}", portfolioReports.size());
+    private void appendLongPortfolioCsvReport(String filename, final PortfolioReport portfolioReport) {
+        var file = new File(filename);
+        var isNewFile = !file.exists() || file.length() == 0;
+        if (!isNewFile && isInLastMultiplicityRange(file, portfolioReport)) {
+            log.debug("> skipping the portfolio report, it is in the multiplicity range of the last report");
+            return;
+        }
 
-        portfolioReports.sort(Sorter.portfolioReportComparator());
+        decimalFormat = BigDecimals.UNFORMATTED;
+        var generated = getStringValue(portfolioReport.getGenerated()).orElse("");
+        var sb = new StringBuilder();
+        if (isNewFile) {
+            sb.append(String.join(csvSeparator, ReportLayoutType.LONG_LAYOUT_HEADER)).append(NEW_LINE);
+        }
+        appendLongRows(sb, generated, Label.LABEL_TOTAL_CASH_PER_CURRENCY, portfolioReport.getCashInPortfolio());
+        appendLongRows(sb, generated, Label.LABEL_TOTAL_EXCHANGE_RATE, portfolioReport.getExchangeRates());
+        appendLongRows(sb, generated, Label.LABEL_TOTAL_DEPOSIT_PER_CURRENCY, portfolioReport.getDeposits());
+        appendLongRows(sb, generated, Label.LABEL_TOTAL_WITHDRAWAL_PER_CURRENCY, portfolioReport.getWithdrawals());
+        appendLongRows(sb, generated, Label.LABEL_TOTAL_INVESTMENT_PER_CURRENCY, portfolioReport.getInvestments());
+        appendLongRows(sb, generated, Label.LABEL_TOTAL_MARKET_VALUE_PER_CURRENCY, portfolioReport.getMarketValues());
+        appendLongRows(sb, generated, Label.LABEL_TOTAL_PROFIT_LOSS_PER_CURRENCY, portfolioReport.getProfitLoss());
+
+        FileWriter.append(filename, sb.toString().getBytes());
+    }
 
-        List<PortfolioReport> reducedPortfolioReports = new LinkedList<>();
-        portfolioReports.forEach(portfolioReport -> {
-            var generated = portfolioReport.getGenerated();
-            var withoutRange = withoutRange(reducedPortfolioReports, generated);
-            if (withoutRange) {
-                reducedPortfolioReports.add(portfolioReport);
-            }
-        });
+    /**
+     * Adds the values of a metric to the long CSV report.
+     *
+     * @param sb the CSV report
+     * @param generated the report date
+     * @param label the metric
+     * @param values the values by currency
+     */
+    private void appendLongRows(StringBuilder sb, String generated, Label label, Map<String, BigDecimal> values) {
+        var metric = label.name().replace(PREFIX_TO_REMOVE, "");
+        values.forEach((currency, value) -> getStringValue(value).ifPresent(x -> sb
+                .append(generated).append(csvSeparator)
+                .append(metric).append(csvSeparator)
+                .append(currency).append(csvSeparator)
+                .append(x)
+                .append(NEW_LINE)));
+    }
 
-        portfolioReports.clear();
-        portfolioReports.addAll(reducedPortfolioReports);
-        log.debug("> number of items after the reduce: {}", portfolioReports.size());
+    /**
+     * Checks whether the report falls into the multiplicity range of the
+     * last report in the file. The last report is the one that has been
+     * kept in its range, so this is the same rule as the multiplicity
+     * reducer uses.
+     *
+     * @param file the report file
+     * @param portfolioReport portfolio report
+     * @return true if the report must be skipped
+     */
+    private boolean isInLastMultiplicityRange(File file, final PortfolioReport portfolioReport) {
+        var lastLine = Files.getLastLine(file);
+        var generated = getStringValue(portfolioReport.getGenerated());
+        if (Objects.isNull(lastLine) || generated.isEmpty()) {
+            return false;
+        }
+
+        var lastDate = LocalDateTimes.toLocalDateTime(dateTimePattern, lastLine.split(Pattern.quote(csvSeparator))[0]);
+        var date = LocalDateTimes.toLocalDateTime(dateTimePattern, generated.get());
+        var rangeEnd = lastDate.plusSeconds(multiplicity.getRangeLengthInSec());
+        return !date.isBefore(lastDate) && date.isBefore(rangeEnd);
     }
 
     /**
-     * Checks whether the given date has been added to the list or not.
+     * Remove items from the list based on the value of the multiplicity.
      *
-     * @param portfolioReports the list with the records
-     * @param dateToCheck the date to check
-     * @return true if the date is not in the list
+     * @param portfolioReports the list to deduce
      */
-    private boolean withoutRange(List<PortfolioReport> portfolioReports, LocalDateTime dateToCheck) {
-        var withinRange = portfolioReports
-                .stream()
-                .filter(x -> x.getGenerated().plusSeconds(multiplicity.getRangeLengthInSec()).isAfter(dateToCheck))
-                .count();
-        return withinRange == 0;
+    private void reduceBasedOnMultiplicity(ArrayList<PortfolioReport> portfolioReports) {
+        MultiplicityReducer.<PortfolioReport>builder()
+                .multiplicity(multiplicity)
+                .date(PortfolioReport::getGenerated)
+                .build()
+                .reduce(portfolioReports);
     }
 
     /**
-     * Generates report header.
+     * Generates the header of the wide report.
      *
      * @param columnInfo the map that contains info about the report columns
-     * @return the header
+     * @return the column titles
      */
-    private String generatePortfolioCsvReportHeader(LinkedHashMap<Label, Set<String>> columnInfo) {
-        var sb = new StringBuilder();
-        sb.append(Label.HEADER_REQUEST_DATE.getLabel(language)).append(csvSeparator);
-
+    private List<String> getWideHeader(LinkedHashMap<Label, Set<String>> columnInfo) {
+        List<String> header = new ArrayList<>();
+        header.add(Label.HEADER_REQUEST_DATE.getLabel(language));
         columnInfo.forEach((label, values) ->
-                values.forEach(value -> sb
-                        .append(label.getLabel(language).replace("{0}", value))
-                        .append(csvSeparator))
-        );
-        sb.setLength(sb.length() - csvSeparator.length());
-        sb.append(NEW_LINE);
-        return sb.toString();
+                values.forEach(value -> header.add(label.getLabel(language).replace("{0}", value))));
+        return header;
     }
 
     /**
-     * Generates CSV data.
+     * Generates a row of the wide report.
      *
      * @param columnInfo the map that contains info about the report columns
-     * @param portfolioReports portfolio report
-     * @return the report
+     * @param reportEntry portfolio report
+     * @return the cell values, in the order of the header
      */
-    private String generatePortfolioCsvReportData(LinkedHashMap<Label, Set<String>> columnInfo,
-                                                  List<PortfolioReport> portfolioReports) {
-        decimalFormat = BigDecimals.UNFORMATTED;
-        var sb = new StringBuilder();
-
-        portfolioReports.forEach(reportEntry -> {
-            sb.append(getStringValue(reportEntry.getGenerated()).map(x -> x + csvSeparator).orElse(csvSeparator));
-
-            // cash
-            var label = Label.LABEL_TOTAL_CASH_PER_CURRENCY;
-            enrichMapValue(columnInfo.get(label), reportEntry.getCashInPortfolio());
-            columnInfo.get(label).forEach(symbol -> showBigDecimal(sb, reportEntry.getCashInPortfolio().get(symbol)));
-            var sum = exchangeAndSum(reportEntry.getExchangeRates(), reportEntry.getCashInPortfolio());
-            sb.append(getStringValue(sum).map(x -> x + csvSeparator).orElse(csvSeparator));
-
-            // exchange rates
-            label = Label.LABEL_TOTAL_EXCHANGE_RATE;
-            enrichMapValue(columnInfo.get(label), reportEntry.getExchangeRates());
-            columnInfo.get(label).forEach(symbol -> showBigDecimal(sb, reportEntry.getExchangeRates().get(symbol)));
-
-            // deposits
-            label = Label.LABEL_TOTAL_DEPOSIT_PER_CURRENCY;
-            enrichMapValue(columnInfo.get(label), reportEntry.getDeposits());
-            columnInfo.get(label).forEach(symbol -> showBigDecimal(sb, reportEntry.getDeposits().get(symbol)));
-            sum = exchangeAndSum(reportEntry.getExchangeRates(), reportEntry.getDeposits());
-            sb.append(getStringValue(sum).map(x -> x + csvSeparator).orElse(csvSeparator));
-
-            // withdrawals
-            label = Label.LABEL_TOTAL_WITHDRAWAL_PER_CURRENCY;
-            enrichMapValue(columnInfo.get(label), reportEntry.getWithdrawals());
-            columnInfo.get(label).forEach(symbol -> showBigDecimal(sb, reportEntry.getWithdrawals().get(symbol)));
-            sum = exchangeAndSum(reportEntry.getExchangeRates(), reportEntry.getWithdrawals());
-            sb.append(getStringValue(sum).map(x -> x + csvSeparator).orElse(csvSeparator));
-
-            // investments
-            label = Label.LABEL_TOTAL_INVESTMENT_PER_CURRENCY;
-            enrichMapValue(columnInfo.get(label), reportEntry.getInvestments());
-            columnInfo.get(label).forEach(symbol -> showBigDecimal(sb, reportEntry.getInvestments().get(symbol)));
-            sum = exchangeAndSum(reportEntry.getExchangeRates(), reportEntry.getInvestments());
-            sb.append(getStringValue(sum).map(x -> x + csvSeparator).orElse(csvSeparator));
-
-            // market values
-            label = Label.LABEL_TOTAL_MARKET_VALUE_PER_CURRENCY;
-            enrichMapValue(columnInfo.get(label), reportEntry.getMarketValues());
-            columnInfo.get(label).forEach(symbol -> showBigDecimal(sb, reportEntry.getMarketValues().get(symbol)));
-            sum = exchangeAndSum(reportEntry.getExchangeRates(), reportEntry.getMarketValues());
-            sb.append(getStringValue(sum).map(x -> x + csvSeparator).orElse(csvSeparator));
-
-            // profits/losses
-            label = Label.LABEL_TOTAL_PROFIT_LOSS_PER_CURRENCY;
-            enrichMapValue(columnInfo.get(label), reportEntry.getProfitLoss());
-            columnInfo.get(label).forEach(symbol -> showBigDecimal(sb, reportEntry.getProfitLoss().get(symbol)));
-            sum = exchangeAndSum(reportEntry.getExchangeRates(), reportEntry.getProfitLoss());
-            sb.append(getStringValue(sum).map(x -> x + csvSeparator).orElse(csvSeparator));
-            sb.setLength(sb.length() - csvSeparator.length());
-            sb.append(NEW_LINE);
-        });
-
-        return sb.toString();
+    private List<Object> getWideRow(LinkedHashMap<Label, Set<String>> columnInfo, PortfolioReport reportEntry) {
+        List<Object> row = new ArrayList<>();
+        row.add(reportEntry.getGenerated());
+        var exchangeRates = reportEntry.getExchangeRates();
+
+        // cash
+        addWideCells(row, columnInfo.get(Label.LABEL_TOTAL_CASH_PER_CURRENCY), reportEntry.getCashInPortfolio());
+        row.add(reportEntry.exchangeAndSum(reportEntry.getCashInPortfolio()));
+
+        // exchange rates
+        addWideCells(row, columnInfo.get(Label.LABEL_TOTAL_EXCHANGE_RATE), exchangeRates);
+
+        // deposits
+        addWideCells(row, columnInfo.get(Label.LABEL_TOTAL_DEPOSIT_PER_CURRENCY), reportEntry.getDeposits());
+        row.add(reportEntry.exchangeAndSum(reportEntry.getDeposits()));
+
+        // withdrawals
+        addWideCells(row, columnInfo.get(Label.LABEL_TOTAL_WITHDRAWAL_PER_CURRENCY), reportEntry.getWithdrawals());
+        row.add(reportEntry.exchangeAndSum(reportEntry.getWithdrawals()));
+
+        // investments
+        addWideCells(row, columnInfo.get(Label.LABEL_TOTAL_INVESTMENT_PER_CURRENCY), reportEntry.getInvestments());
+        row.add(reportEntry.exchangeAndSum(reportEntry.getInvestments()));
+
+        // market values
+        addWideCells(row, columnInfo.get(Label.LABEL_TOTAL_MARKET_VALUE_PER_CURRENCY), reportEntry.getMarketValues());
+        row.add(reportEntry.exchangeAndSum(reportEntry.getMarketValues()));
+
+        // profits/losses
+        addWideCells(row, columnInfo.get(Label.LABEL_TOTAL_PROFIT_LOSS_PER_CURRENCY), reportEntry.getProfitLoss());
+        row.add(reportEntry.exchangeAndSum(reportEntry.getProfitLoss()));
+        return row;
     }
 
     /**
-     * Adds the decimal value to the CSV report.
+     * Adds the per-currency values of a metric to a row of the wide report.
      *
-     * @param sb the CSV report
-     * @param value value to add
+     * @param row the cell values
+     * @param currencies the currencies of the metric columns
+     * @param values the values by currency
      */
-    private void showBigDecimal(StringBuilder sb, BigDecimal value) {
-        sb.append(getStringValue(value).map(x -> x + csvSeparator).orElse(csvSeparator));
+    private void addWideCells(List<Object> row, Set<String> currencies, Map<String, BigDecimal> values) {
+        enrichMapValue(currencies, values);
+        currencies.forEach(currency -> row.add(values.get(currency)));
     }
 
     /**
@@ -517,7 +792,7 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
             sb
                     .append(NEW_LINE)
                     .append(showSummaryPerCurrencyAndTotal(
-                            portfolioReport.getExchangeRates(),
+                            portfolioReport,
                             portfolioReport.getCashInPortfolio(),
                             Label.LABEL_TOTAL_CASH_PER_CURRENCY,
                             Label.LABEL_TOTAL_CASH,
@@ -532,7 +807,7 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
         if (!columnsToHide.contains(Label.LABEL_TOTAL_DEPOSIT.name().replace(PREFIX_TO_REMOVE, ""))) {
             sb
                     .append(showSummaryPerCurrencyAndTotal(
-                            portfolioReport.getExchangeRates(),
+                            portfolioReport,
                             portfolioReport.getDeposits(),
                             Label.LABEL_TOTAL_DEPOSIT_PER_CURRENCY,
                             Label.LABEL_TOTAL_DEPOSIT,
@@ -542,7 +817,7 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
         if (!columnsToHide.contains(Label.LABEL_TOTAL_WITHDRAWAL.name().replace(PREFIX_TO_REMOVE, ""))) {
             sb
                     .append(showSummaryPerCurrencyAndTotal(
-                            portfolioReport.getExchangeRates(),
+                            portfolioReport,
                             portfolioReport.getWithdrawals(),
                             Label.LABEL_TOTAL_WITHDRAWAL_PER_CURRENCY,
                             Label.LABEL_TOTAL_WITHDRAWAL,
@@ -552,7 +827,7 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
         if (!columnsToHide.contains(Label.LABEL_TOTAL_INVESTMENT.name().replace(PREFIX_TO_REMOVE, ""))) {
             sb
                     .append(showSummaryPerCurrencyAndTotal(
-                            portfolioReport.getExchangeRates(),
+                            portfolioReport,
                             portfolioReport.getInvestments(),
                             Label.LABEL_TOTAL_INVESTMENT_PER_CURRENCY,
                             Label.LABEL_TOTAL_INVESTMENT,
@@ -562,7 +837,7 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
         if (!columnsToHide.contains(Label.LABEL_TOTAL_MARKET_VALUE.name().replace(PREFIX_TO_REMOVE, ""))) {
             sb
                     .append(showSummaryPerCurrencyAndTotal(
-                            portfolioReport.getExchangeRates(),
+                            portfolioReport,
                             portfolioReport.getMarketValues(),
                             Label.LABEL_TOTAL_MARKET_VALUE_PER_CURRENCY,
                             Label.LABEL_TOTAL_MARKET_VALUE,
@@ -572,7 +847,7 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
         if (!columnsToHide.contains(Label.LABEL_TOTAL_PROFIT_LOSS.name().replace(PREFIX_TO_REMOVE, ""))) {
             sb
                     .append(showSummaryPerCurrencyAndTotal(
-                            portfolioReport.getExchangeRates(),
+                            portfolioReport,
                             portfolioReport.getProfitLoss(),
                             Label.LABEL_TOTAL_PROFIT_LOSS_PER_CURRENCY,
                             Label.LABEL_TOTAL_PROFIT_LOSS,
@@ -598,9 +873,10 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
                         var rate = portfolioReport.getExchangeRates().get(exchangeRateTicker);
                         updateFieldMaxLength(product.getDeposits(), formatter, rate);
                         updateFieldMaxLength(product.getWithdrawals(), formatter, rate);
-                        updateFieldMaxLength(product.getInvestedAmount(), formatter, rate);
-                        updateFieldMaxLength(product.getMarketValue(), formatter, rate);
-                        updateFieldMaxLength(product.getProfitAndLoss(), formatter, rate);
+                        var valuation = product.getValuation();
+                        updateFieldMaxLength(valuation.getInvestedAmount(), formatter, rate);
+                        updateFieldMaxLength(valuation.getMarketValue(), formatter, rate);
+                        updateFieldMaxLength(valuation.getProfitAndLoss(), formatter, rate);
                     }
                 })
         );
@@ -614,22 +890,22 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
         portfolioReport.getProfitLoss().forEach(formatter.getBiConsumer(BigDecimals.SCALE_DEFAULT));
 
         // summaries
-        BigDecimal sum = exchangeAndSum(portfolioReport.getExchangeRates(), portfolioReport.getCashInPortfolio());
+        BigDecimal sum = portfolioReport.exchangeAndSum(portfolioReport.getCashInPortfolio());
         updateFieldMaxLength(sum, formatter, BigDecimal.ONE);
 
-        sum = exchangeAndSum(portfolioReport.getExchangeRates(), portfolioReport.getDeposits());
+        sum = portfolioReport.exchangeAndSum(portfolioReport.getDeposits());
         updateFieldMaxLength(sum, formatter, BigDecimal.ONE);
 
-        sum = exchangeAndSum(portfolioReport.getExchangeRates(), portfolioReport.getWithdrawals());
+        sum = portfolioReport.exchangeAndSum(portfolioReport.getWithdrawals());
         updateFieldMaxLength(sum, formatter, BigDecimal.ONE);
 
-        sum = exchangeAndSum(portfolioReport.getExchangeRates(), portfolioReport.getInvestments());
+        sum = portfolioReport.exchangeAndSum(portfolioReport.getInvestments());
         updateFieldMaxLength(sum, formatter, BigDecimal.ONE);
 
-        sum = exchangeAndSum(portfolioReport.getExchangeRates(), portfolioReport.getMarketValues());
+        sum = portfolioReport.exchangeAndSum(portfolioReport.getMarketValues());
         updateFieldMaxLength(sum, formatter, BigDecimal.ONE);
 
-        sum = exchangeAndSum(portfolioReport.getExchangeRates(), portfolioReport.getProfitLoss());
+        sum = portfolioReport.exchangeAndSum(portfolioReport.getProfitLoss());
         updateFieldMaxLength(sum, formatter, BigDecimal.ONE);
 
         return formatter;
@@ -671,14 +947,14 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
     /**
      * Generates a footer content.
      *
-     * @param rates exchange rates
+     * @param portfolioReport the portfolio report that holds the exchange rates
      * @param valuesToSum values to sum
      * @param labelForCurrency currency label
      * @param labelForTotal total label
      * @param labelWidth label will align left on this
      * @return the footer content
      */
-    private StringBuilder showSummaryPerCurrencyAndTotal(Map<String, BigDecimal> rates,
+    private StringBuilder showSummaryPerCurrencyAndTotal(PortfolioReport portfolioReport,
                                                          Map<String, BigDecimal> valuesToSum,
                                                          Label labelForCurrency,
                                                          Label labelForTotal,
@@ -693,8 +969,8 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
                         .append(sb.isEmpty() ? "" : MARKDOWN_HR)
                         .append(mapToString(labelForCurrency, labelWidth, valuesToSum, BigDecimals.SCALE_DEFAULT));
 
-                if (!rates.isEmpty()) {
-                    var sum = exchangeAndSum(rates, valuesToSum);
+                if (!portfolioReport.getExchangeRates().isEmpty()) {
+                    var sum = portfolioReport.exchangeAndSum(valuesToSum);
                     sb
                             .append(MARKDOWN_LIST).append(labelAsString)
                             .append(": ")
@@ -707,35 +983,6 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
         return sb;
     }
 
-    /**
-     * Exchange the currencies to the base currency and sum up them.
-     *
-     * @param rates exchange rates
-     * @param valuesToSum values to sum
-     * @return summed value in base currency
-     */
-    private BigDecimal exchangeAndSum(Map<String, BigDecimal> rates,
-                                      Map<String, BigDecimal> valuesToSum) {
-
-        if (rates.isEmpty()) {
-            return null;
-        }
-
-        AtomicReference<BigDecimal> total = new AtomicReference<>(BigDecimal.ZERO);
-        valuesToSum.forEach((symbol, value) -> {
-            var quantity = BigDecimals.isNullOrZero(value) ? BigDecimal.ZERO : value;
-            var exchangeRateSymbol = symbol + "-" + baseCurrency;
-            var exchangeRate = rates.get(exchangeRateSymbol);
-            if (Objects.isNull(exchangeRate)) {
-                total.set(total.get().add(quantity));
-            } else {
-                total.set(total.get().add(quantity.multiply(exchangeRate)));
-            }
-        });
-
-        return total.get();
-    }
-
     /**
      * Converts HashMap to String.
      *
@@ -826,19 +1073,18 @@ public class PortfolioWriter extends Writer<PortfolioReport> {
 
             portfolio.getProducts().forEach((symbol, product) -> {
                 if (BigDecimals.isNotZero(product.getQuantity())) {
+                    var valuation = product.getValuation();
                     updateWidth(widths, Label.HEADER_SYMBOL, product.getSymbol());
                     updateWidth(widths, Label.HEADER_QUANTITY, product.getQuantity());
                     updateWidth(widths, Label.HEADER_AVG_PRICE, product.getAveragePrice());
                     updateWidth(widths, Label.HEADER_MARKET_UNIT_PRICE, Objects.isNull(product.getMarketPrice())
                             ? null
                             : product.getMarketPrice().getUnitPrice());
-                    updateWidth(widths, Label.HEADER_MARKET_VALUE, product.getMarketValue());
-                    updateWidth(widths, Label.HEADER_INVESTED_AMOUNT, product.getInvestedAmount());
-                    updateWidth(widths, Label.HEADER_PROFIT_LOSS, product.getProfitAndLoss());
-                    updateWidth(widths, Label.HEADER_PROFIT_LOSS_PERCENT, product.getProfitAndLossPercent());
-                    updateWidth(widths, Label.HEADER_COSTS, exchangeAndSum(
-                            portfolioReport.getExchangeRates(),
-                            product.getFees()));
+                    updateWidth(widths, Label.HEADER_MARKET_VALUE, valuation.getMarketValue());
+                    updateWidth(widths, Label.HEADER_INVESTED_AMOUNT, valuation.getInvestedAmount());
+                    updateWidth(widths, Label.HEADER_PROFIT_LOSS, valuation.getProfitAndLoss());
+                    updateWidth(widths, Label.HEADER_PROFIT_LOSS_PERCENT, valuation.getProfitAndLossPercent());
+                    updateWidth(widths, Label.HEADER_COSTS, valuation.getCosts());
                     updateWidth(widths, Label.HEADER_DEPOSITS, product.getDeposits());
                     updateWidth(widths, Label.HEADER_WITHDRAWALS, product.getWithdrawals());
                 }
@@ -0,0 +1,176 @@
+package com.remal.portfolio.writer;
+
+import com.remal.portfolio.model.Label;
+import com.remal.portfolio.model.LabelCollection;
+import com.remal.portfolio.model.PriceBar;
+import com.remal.portfolio.picocli.arggroup.ChartDataArgGroup;
+import com.remal.portfolio.util.Strings;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generate the price series reports from the rollup tiers of the price
+ * history.
+ * <p>
+ * Copyright (c) 2020-2022 Remal Software and Arnold Somogyi All rights reserved
+ * BSD (2-clause) licensed
+ * </p>
+ * @author arnold.somogyi@gmail.comm
+ */
+@Slf4j
+public class PriceBarWriter extends Writer<PriceBar> {
+
+    /**
+     * Builder that initializes a new writer instance.
+     *
+     * @param inputArgGroup the input CLI group
+     * @param outputArgGroup the output CLI group
+     * @return the writer instance
+     */
+    public static PriceBarWriter build(ChartDataArgGroup.InputArgGroup inputArgGroup,
+                                       ChartDataArgGroup.OutputArgGroup outputArgGroup) {
+
+        var writer = new PriceBarWriter();
+        writer.setLanguage(outputArgGroup.getLanguage());
+        writer.setDateTimePattern(outputArgGroup.getDateTimePattern());
+        writer.setInputZone(ZoneId.of(inputArgGroup.getZone()));
+        writer.setOutputZone(ZoneId.of(outputArgGroup.getZone()));
+        return writer;
+    }
+
+    /**
+     * Generate the CSV report.
+     *
+     * @param bars the aggregated prices
+     * @return the report content as a String
+     */
+    @Override
+    protected String buildCsvReport(List<PriceBar> bars) {
+        var report = new StringBuilder();
+
+        // table header
+        LabelCollection.PRICE_BAR_HEADERS
+                .forEach(label -> report.append(label.getLabel(language)).append(csvSeparator));
+        report.setLength(report.length() - csvSeparator.length());
+        report.append(NEW_LINE);
+
+        // data
+        bars.forEach(bar -> report
+                .append(getCell(Label.HEADER_SYMBOL, bar.getSymbol(), csvSeparator))
+                .append(getCell(Label.HEADER_WINDOW_START, bar.getWindowStart(), csvSeparator))
+                .append(getCell(Label.HEADER_OPEN, bar.getOpen(), csvSeparator))
+                .append(getCell(Label.HEADER_HIGH, bar.getHigh(), csvSeparator))
+                .append(getCell(Label.HEADER_LOW, bar.getLow(), csvSeparator))
+                .append(getCell(Label.HEADER_CLOSE, bar.getClose(), csvSeparator))
+                .append(getCell(Label.HEADER_VWAP, bar.getVwap(), csvSeparator))
+                .append(getCell(Label.HEADER_COUNT, BigDecimal.valueOf(bar.getCount())))
+                .append(NEW_LINE));
+        return report.toString();
+    }
+
+    /**
+     * Generate the Excel report.
+     *
+     * @param bars the aggregated prices
+     * @param workbook the workbook that receives the rows
+     */
+    @Override
+    protected void buildExcelReport(List<PriceBar> bars, ExcelWorkbook workbook) {
+        // table header
+        workbook.addRow();
+        LabelCollection.PRICE_BAR_HEADERS.forEach(label -> workbook.addHeaderCell(label.getLabel(language)));
+
+        // data
+        bars.forEach(bar -> {
+            workbook.addRow();
+            addCell(workbook, Label.HEADER_SYMBOL, bar.getSymbol());
+            addCell(workbook, Label.HEADER_WINDOW_START, bar.getWindowStart());
+            addCell(workbook, Label.HEADER_OPEN, bar.getOpen());
+            addCell(workbook, Label.HEADER_HIGH, bar.getHigh());
+            addCell(workbook, Label.HEADER_LOW, bar.getLow());
+            addCell(workbook, Label.HEADER_CLOSE, bar.getClose());
+            addCell(workbook, Label.HEADER_VWAP, bar.getVwap());
+            addCell(workbook, Label.HEADER_COUNT, BigDecimal.valueOf(bar.getCount()));
+        });
+    }
+
+    /**
+     * Generate the Text/Markdown report.
+     *
+     * @param bars the aggregated prices
+     * @return the report content as a String
+     */
+    @Override
+    protected String buildMarkdownReport(List<PriceBar> bars) {
+        var widths = calculateColumnWidth(bars);
+
+        // table header
+        var header = new StringBuilder();
+        var headerSeparator = new StringBuilder();
+        LabelCollection.PRICE_BAR_HEADERS
+                .forEach(labelKey -> {
+                    var labelValue = labelKey.getLabel(language);
+                    var width = widths.get(labelKey.name());
+                    header.append(markdownSeparator).append(Strings.leftPad(labelValue, width));
+                    headerSeparator.append(markdownSeparator).append("-".repeat(width));
+                });
+        header.append(markdownSeparator).append(NEW_LINE);
+        headerSeparator.append(markdownSeparator).append(NEW_LINE);
+
+        var report = new StringBuilder();
+        report.append(header).append(headerSeparator);
+
+        // data
+        bars.forEach(bar -> report
+                .append(getCell(Label.HEADER_SYMBOL, bar.getSymbol(), widths))
+                .append(getCell(Label.HEADER_WINDOW_START, bar.getWindowStart(), widths))
+                .append(getCell(Label.HEADER_OPEN, bar.getOpen(), widths))
+                .append(getCell(Label.HEADER_HIGH, bar.getHigh(), widths))
+                .append(getCell(Label.HEADER_LOW, bar.getLow(), widths))
+                .append(getCell(Label.HEADER_CLOSE, bar.getClose(), widths))
+                .append(getCell(Label.HEADER_VWAP, bar.getVwap(), widths))
+                .append(getCell(Label.HEADER_COUNT, BigDecimal.valueOf(bar.getCount()), widths))
+                .append(markdownSeparator).append(NEW_LINE));
+        return report.toString();
+    }
+
+    /**
+     * The price series are always generated from the rollup tiers, so the
+     * previous content of the file is not kept.
+     *
+     * @param filename data file name
+     * @return empty list
+     */
+    @Override
+    protected List<PriceBar> getHistoryFromFile(String filename) {
+        return List.of();
+    }
+
+    /**
+     * Calculate the with of the columns that are shown in the report.
+     *
+     * @param bars the aggregated prices
+     * @return length of the columns
+     */
+    private Map<String, Integer> calculateColumnWidth(List<PriceBar> bars) {
+        Map<String, Integer> widths = new HashMap<>();
+        LabelCollection.PRICE_BAR_HEADERS
+                .forEach(label -> widths.put(label.name(), label.getLabel(language).length()));
+        bars.forEach(bar -> {
+            updateWidth(widths, Label.HEADER_SYMBOL, bar.getSymbol());
+            updateWidth(widths, Label.HEADER_WINDOW_START, bar.getWindowStart());
+            updateWidth(widths, Label.HEADER_OPEN, bar.getOpen());
+            updateWidth(widths, Label.HEADER_HIGH, bar.getHigh());
+            updateWidth(widths, Label.HEADER_LOW, bar.getLow());
+            updateWidth(widths, Label.HEADER_CLOSE, bar.getClose());
+            updateWidth(widths, Label.HEADER_VWAP, bar.getVwap());
+            updateWidth(widths, Label.HEADER_COUNT, BigDecimal.valueOf(bar.getCount()));
+        });
+        return widths;
+    }
+}
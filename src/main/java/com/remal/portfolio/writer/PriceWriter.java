@@ -6,17 +6,15 @@ import com.remal.portfolio.model.MultiplicityType;
 import com.remal.portfolio.model.Price;
 import com.remal.portfolio.parser.Parser;
 import com.remal.portfolio.picocli.arggroup.PriceArgGroup;
+import com.remal.portfolio.util.MultiplicityReducer;
 import com.remal.portfolio.util.Strings;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 
 /**
  * Generate transaction reports.
@@ -66,6 +64,32 @@ public class PriceWriter extends Writer<Price> {
         return report.toString();
     }
 
+    /**
+     * Generate the Excel report.
+     *
+     * @param prices list of the prices
+     * @param workbook the workbook that receives the rows
+     */
+    @Override
+    protected void buildExcelReport(List<Price> prices, ExcelWorkbook workbook) {
+        reduceBasedOnMultiplicity(prices, multiplicity);
+        prices.sort(Comparator.comparing(Price::getSymbol).thenComparing(Price::getTradeDate));
+
+        // table header
+        workbook.addRow();
+        LabelCollection.PRODUCT_PRICE_HEADERS.forEach(label -> workbook.addHeaderCell(label.getLabel(language)));
+
+        // data
+        prices.forEach(productPrice -> {
+            workbook.addRow();
+            addCell(workbook, Label.HEADER_SYMBOL, productPrice.getSymbol());
+            addCell(workbook, Label.HEADER_PRICE, productPrice.getUnitPrice());
+            addCell(workbook, Label.HEADER_TRADE_DATE, productPrice.getTradeDate());
+            addCell(workbook, Label.HEADER_REQUEST_DATE, productPrice.getRequestDate());
+            addCell(workbook, Label.HEADER_DATA_PROVIDER, productPrice.getDataProvider());
+        });
+    }
+
     /**
      * Generate the Text/Markdown report.
      *
@@ -148,30 +172,13 @@ public class PriceWriter extends Writer<Price> {
      * @param multiplicity controls how to add the price to the list
      */
     public static void reduceBasedOnMultiplicity(List<Price> prices, MultiplicityType multiplicity) {
-        log.debug("> multiplicity: {}", multiplicity.name());
-        log.debug("> number of items before the reduce: {}", prices.size());
-
-        prices.sort(Comparator.comparing(Price::getRequestDate));
-
-        List<Price> reducedPrices = new ArrayList<>();
-        Map<String, LocalDateTime> rangeEnds = new HashMap<>();
-
-        for (Price price : prices) {
-            var symbol = price.getSymbol();
-            var rangeEnd = rangeEnds.get(symbol);
-            if (Objects.isNull(rangeEnd)) {
-                reducedPrices.add(price);
-                rangeEnds.put(symbol, price.getRequestDate().plusSeconds(multiplicity.getRangeLengthInSec()));
-            } else {
-                if (price.getRequestDate().isAfter(rangeEnd)) {
-                    reducedPrices.add(price);
-                    rangeEnds.put(symbol, price.getTradeDate().plusSeconds(multiplicity.getRangeLengthInSec()));
-                }
-            }
-        }
-
-        prices.clear();
-        prices.addAll(reducedPrices);
-        log.debug("> number of items after the reduce: {}", prices.size());
+        MultiplicityReducer.<Price>builder()
+                .multiplicity(multiplicity)
+                .date(Price::getRequestDate)
+                .groupKey(Price::getSymbol)
+                .rangeStart(Price::getTradeDate)
+                .closedRange(true)
+                .build()
+                .reduce(prices);
     }
 }
@@ -115,6 +115,55 @@ public class TransactionWriter extends Writer<Transaction> {
         return report.toString();
     }
 
+    /**
+     * Generate the Excel report.
+     *
+     * @param transactions list of the transactions
+     * @param workbook the workbook that receives the rows
+     */
+    @Override
+    protected void buildExcelReport(List<Transaction> transactions, ExcelWorkbook workbook) {
+        // report title
+        addExcelTitle(workbook,
+                Label.TITLE_TRANSACTION_REPORT.getLabel(language),
+                Label.TITLE_GENERATED.getLabel(language) + ": "
+                        + LocalDateTimes.toNullSafeString(outputZone, dateTimePattern, LocalDateTime.now()),
+                Label.TITLE_BASE_CURRENCY.getLabel(language).replace("{0}", language));
+
+        // table header
+        if (!hideHeader) {
+            workbook.addRow();
+            LabelCollection.TRANSACTION_TABLE_HEADERS
+                    .stream()
+                    .filter(label -> Filter.columnsToHideFilter(columnsToHide, label))
+                    .forEach(label -> workbook.addHeaderCell(label.getLabel(language)));
+        }
+
+        // data
+        PortfolioNameRenamer.rename(transactions, portfolioNameReplaces);
+        transactions
+                .stream()
+                .filter(t -> Filter.dateEqualOrAfterFilter(t.getTradeDate(), from))
+                .filter(t -> Filter.dateEqualOrBeforeFilter(t.getTradeDate(), to))
+                .sorted(Sorter.tradeDateComparator())
+                .forEach(transaction -> {
+                    workbook.addRow();
+                    addCell(workbook, Label.HEADER_PORTFOLIO, transaction.getPortfolio());
+                    addCell(workbook, Label.HEADER_SYMBOL, transaction.getSymbol());
+                    addCell(workbook, Label.HEADER_TYPE, transaction.getType());
+                    addCell(workbook, Label.HEADER_VALUATION, transaction.getInventoryValuation());
+                    addCell(workbook, Label.HEADER_TRADE_DATE, transaction.getTradeDate());
+                    addCell(workbook, Label.HEADER_QUANTITY, transaction.getQuantity());
+                    addCell(workbook, Label.HEADER_PRICE, transaction.getPrice());
+                    addCell(workbook, Label.HEADER_PRICE_CURRENCY, transaction.getPriceCurrency());
+                    addCell(workbook, Label.HEADER_FEE, transaction.getFee());
+                    addCell(workbook, Label.HEADER_FEE_CURRENCY, transaction.getFeeCurrency());
+                    addCell(workbook, Label.HEADER_ORDER_ID, transaction.getOrderId());
+                    addCell(workbook, Label.HEADER_TRADE_ID, transaction.getTradeId());
+                    addCell(workbook, Label.HEADER_TRANSFER_ID, transaction.getTransferId());
+                });
+    }
+
     /**
      * Generate the Text/Markdown report.
      *
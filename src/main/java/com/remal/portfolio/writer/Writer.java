@@ -2,6 +2,7 @@ package com.remal.portfolio.writer;
 
 import com.remal.portfolio.model.CurrencyType;
 import com.remal.portfolio.model.DataProviderType;
+import com.remal.portfolio.model.FileType;
 import com.remal.portfolio.model.InventoryValuationType;
 import com.remal.portfolio.model.Label;
 import com.remal.portfolio.model.TransactionType;
@@ -10,6 +11,7 @@ import com.remal.portfolio.util.BigDecimals;
 import com.remal.portfolio.util.FileWriter;
 import com.remal.portfolio.util.LocalDateTimes;
 import com.remal.portfolio.util.Logger;
+import com.remal.portfolio.util.Metrics;
 import com.remal.portfolio.util.Strings;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -146,6 +148,14 @@ public abstract class Writer<T> {
      */
     protected abstract String buildMarkdownReport(List<T> items);
 
+    /**
+     * Generate the Excel report.
+     *
+     * @param items data
+     * @param workbook the workbook that receives the rows
+     */
+    protected abstract void buildExcelReport(List<T> items, ExcelWorkbook workbook);
+
     /**
      * Get the history data from file.
      *
@@ -179,6 +189,10 @@ public abstract class Writer<T> {
         var fileType = com.remal.portfolio.util.Files.getFileType(filename);
         List<T> itemContainer = new ArrayList<>();
 
+        if (fileType == FileType.XLSX) {
+            ExcelWorkbook.abortIfAppend(writeMode, filename);
+        }
+
         if (Objects.nonNull(filename) && Files.exists(Path.of(filename)) && writeMode == FileWriter.WriteMode.APPEND) {
             // keep the items from the history file
             itemContainer.addAll(getHistoryFromFile(filename));
@@ -188,6 +202,22 @@ public abstract class Writer<T> {
         }
 
         showConfiguration();
+        var sample = Metrics.start(Metrics.RENDER);
+        try {
+            render(fileType, filename, itemContainer);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Generates the report and writes it to the output.
+     *
+     * @param fileType type of the output
+     * @param filename the report file name
+     * @param itemContainer the report data
+     */
+    private void render(FileType fileType, String filename, List<T> itemContainer) {
         switch (fileType) {
             case CSV -> {
                 log.debug("> generating the CSV report...");
@@ -202,6 +232,14 @@ public abstract class Writer<T> {
                 FileWriter.write(writeMode, filename, reportAsBytes);
                 log.debug(ITEMS_HAS_BEEN_PROCESSED, itemContainer.size());
             }
+            case XLSX -> {
+                log.debug("> generating the Excel report...");
+                try (var workbook = new ExcelWorkbook(getClass().getSimpleName(), dateTimePattern)) {
+                    buildExcelReport(itemContainer, workbook);
+                    workbook.write(writeMode, filename);
+                }
+                log.debug(ITEMS_HAS_BEEN_PROCESSED, itemContainer.size());
+            }
             case NOT_DEFINED -> {
                 var reportAsString = buildMarkdownReport(itemContainer);
                 log.debug(ITEMS_HAS_BEEN_PROCESSED, itemContainer.size());
@@ -276,6 +314,48 @@ public abstract class Writer<T> {
                 : getStringValue(cellValueAsObject).map(value -> value + separator).orElse(separator);
     }
 
+    /**
+     * Adds a typed cell to the Excel report if the column is not hidden.
+     * The dates are converted to the output timezone.
+     *
+     * @param workbook the Excel report
+     * @param label column ID
+     * @param value cell value
+     */
+    protected void addCell(ExcelWorkbook workbook, Label label, Object value) {
+        if (!columnsToHide.contains(label.name())) {
+            workbook.addCell(getExcelValue(value));
+        }
+    }
+
+    /**
+     * Converts the dates to the output timezone, the other values are
+     * written to the Excel report as they are.
+     *
+     * @param value the value
+     * @return the value of the Excel cell
+     */
+    protected Object getExcelValue(Object value) {
+        return value instanceof LocalDateTime x
+                ? LocalDateTimes.convertBetweenTimezones(x, inputZone, outputZone)
+                : value;
+    }
+
+    /**
+     * Adds the report title to the Excel report, one line per row.
+     *
+     * @param workbook the Excel report
+     * @param title the lines of the title
+     */
+    protected void addExcelTitle(ExcelWorkbook workbook, String... title) {
+        if (!hideTitle) {
+            for (String line : title) {
+                workbook.addRow();
+                workbook.addCell(line);
+            }
+        }
+    }
+
     /**
      * Generate an alignment value as a String.
      *